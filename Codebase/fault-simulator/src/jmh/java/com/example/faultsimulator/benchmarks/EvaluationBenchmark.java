@@ -0,0 +1,75 @@
+package com.example.faultsimulator.benchmarks;
+
+import com.example.faultsimulator.fault_simulator_engine.BitParallelSimulator;
+import com.example.faultsimulator.fault_simulator_engine.CircuitOptimizer;
+import com.example.faultsimulator.fault_simulator_engine.SimdSimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Good-machine evaluation throughput, reported in patterns per second: the bit-parallel
+ * engine over the whole pattern set, the same on the optimized circuit, the SIMD engine
+ * with the widest vectors of the CPU and with its plain-word fallback, and the
+ * one-pattern-at-a-time evaluation they replace.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EvaluationBenchmark {
+
+    @State(Scope.Thread)
+    public static class Buffers {
+        BitParallelSimulator simulator;
+        BitParallelSimulator optimizedSimulator;
+        SimdSimulator simdSimulator;
+        SimdSimulator simdFallback;
+        boolean[] values;
+
+        @Setup
+        public void allocate(NetlistState state) {
+            simulator = new BitParallelSimulator(state.circuit);
+            optimizedSimulator = new BitParallelSimulator(CircuitOptimizer.optimize(state.circuit).getCircuit());
+            simdSimulator = new SimdSimulator(state.circuit);
+            simdFallback = new SimdSimulator(state.circuit, false);
+            values = new boolean[state.circuit.getNetCount()];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NetlistState.PATTERN_COUNT)
+    public long[][] bitParallel(NetlistState state, Buffers buffers) {
+        return buffers.simulator.simulate(state.patterns);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NetlistState.PATTERN_COUNT)
+    public long[][] bitParallelOptimized(NetlistState state, Buffers buffers) {
+        return buffers.optimizedSimulator.simulate(state.patterns);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NetlistState.PATTERN_COUNT)
+    public long[][] simd(NetlistState state, Buffers buffers) {
+        return buffers.simdSimulator.simulate(state.patterns);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NetlistState.PATTERN_COUNT)
+    public long[][] simdFallback(NetlistState state, Buffers buffers) {
+        return buffers.simdFallback.simulate(state.patterns);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NetlistState.PATTERN_COUNT)
+    public boolean[] scalar(NetlistState state, Buffers buffers) {
+        boolean[] values = buffers.values;
+        int inputCount = state.circuit.getInputCount();
+        for (int p = 0; p < NetlistState.PATTERN_COUNT; p++) {
+            for (int i = 0; i < inputCount; i++) {
+                values[i] = state.patterns.get(p, i);
+            }
+            state.circuit.evaluate(values);
+        }
+        return values;
+    }
+}
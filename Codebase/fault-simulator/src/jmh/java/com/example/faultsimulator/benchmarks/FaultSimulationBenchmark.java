@@ -0,0 +1,59 @@
+package com.example.faultsimulator.benchmarks;
+
+import com.example.faultsimulator.fault_simulator_engine.StructuralIndex;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stuck-at fault simulation of the collapsed fault list over the whole pattern set, with
+ * fault dropping as in production. Besides the time per run, the faultPatterns counter
+ * reports nominal fault x pattern pairs per second (collapsed faults times patterns, as if
+ * no fault were dropped), which stays comparable across circuits and releases.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FaultSimulationBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long faultPatterns;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            faultPatterns = 0;
+        }
+    }
+
+    @Benchmark
+    public FaultSimulationResult sequential(NetlistState state, Counters counters) {
+        counters.faultPatterns += (long) state.faults.size() * NetlistState.PATTERN_COUNT;
+        return new FaultSimulator(state.faults).simulate(state.patterns);
+    }
+
+    @Benchmark
+    public FaultSimulationResult parallel(NetlistState state, Counters counters) {
+        counters.faultPatterns += (long) state.faults.size() * NetlistState.PATTERN_COUNT;
+        return new FaultSimulator(state.faults, ForkJoinPool.commonPool()).simulate(state.patterns);
+    }
+
+    @Benchmark
+    public FaultSimulationResult criticalPathTracing(NetlistState state, Counters counters) {
+        counters.faultPatterns += (long) state.faults.size() * NetlistState.PATTERN_COUNT;
+        FaultSimulator simulator = new FaultSimulator(state.faults);
+        simulator.setCriticalPathTracing(StructuralIndex.build(state.circuit));
+        return simulator.simulate(state.patterns);
+    }
+
+    @Benchmark
+    public FaultSimulationResult criticalPathTracingParallel(NetlistState state, Counters counters) {
+        counters.faultPatterns += (long) state.faults.size() * NetlistState.PATTERN_COUNT;
+        FaultSimulator simulator = new FaultSimulator(state.faults, ForkJoinPool.commonPool());
+        simulator.setCriticalPathTracing(StructuralIndex.build(state.circuit));
+        return simulator.simulate(state.patterns);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.faultsimulator.benchmarks;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultCollapser;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultList;
+import com.example.faultsimulator.fault_simulator_parser.BenchParser;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * One bundled ISCAS-85 netlist, loaded once per trial: its raw bytes, compiled circuit,
+ * collapsed fault list and a fixed pseudo-random pattern set. The netlist directory comes
+ * from the faultsimulator.netlists system property, which the jmh task sets.
+ */
+@State(Scope.Benchmark)
+public class NetlistState {
+    public static final int PATTERN_COUNT = 4096;
+
+    @Param({"c17", "c432", "c499", "c880", "c1355", "c1908", "c2670", "c3540", "c5315", "c6288", "c7552"})
+    public String netlist;
+
+    public byte[] content;
+    public CompiledCircuit circuit;
+    public FaultList faults;
+    public PatternSet patterns;
+
+    @Setup
+    public void load() throws IOException {
+        Path directory = Path.of(System.getProperty("faultsimulator.netlists", "../../Resources/Netlists"));
+        content = Files.readAllBytes(directory.resolve(netlist + ".bench.txt"));
+        circuit = CircuitCompiler.compile(BenchParser.parse(content));
+        faults = FaultCollapser.collapse(FaultList.enumerate(circuit), false).getRepresentatives();
+
+        // Fixed seed, so every run and every release sees the same patterns
+        Random random = new Random(85);
+        boolean[][] matrix = new boolean[PATTERN_COUNT][circuit.getInputCount()];
+        for (boolean[] pattern : matrix) {
+            for (int i = 0; i < pattern.length; i++) {
+                pattern[i] = random.nextBoolean();
+            }
+        }
+        patterns = PatternSet.fromMatrix(circuit.getInputCount(), matrix);
+    }
+}
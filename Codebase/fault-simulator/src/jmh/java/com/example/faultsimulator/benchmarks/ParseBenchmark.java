@@ -0,0 +1,29 @@
+package com.example.faultsimulator.benchmarks;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.Netlist;
+import com.example.faultsimulator.fault_simulator_parser.BenchParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to turn a netlist into a simulatable circuit: parsing alone, then parsing plus
+ * levelization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParseBenchmark {
+
+    @Benchmark
+    public Netlist parse(NetlistState state) throws IOException {
+        return BenchParser.parse(state.content);
+    }
+
+    @Benchmark
+    public CompiledCircuit parseAndCompile(NetlistState state) throws IOException {
+        return CircuitCompiler.compile(BenchParser.parse(state.content));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.faultsimulator.benchmarks;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.Netlist;
+import com.example.faultsimulator.fault_simulator_engine.SyntheticNetlistGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build synthetic circuits of 100 thousand to 10 million gates: generating the
+ * netlist, then levelizing it. The footprint counters give the bytes per gate of the netlist
+ * and of the compiled circuit; the largest size needs a few GB of heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(jvmArgs = "-Xmx8g")
+public class ScaleBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    public int gates;
+
+    private Netlist netlist;
+
+    // JMH sums events over the iterations, so bytes per gate is netlistBytes or compiledBytes over gates
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long gates;
+        public long netlistBytes;
+        public long compiledBytes;
+    }
+
+    @Setup
+    public void generateNetlist() {
+        netlist = generator().generate();
+    }
+
+    @Benchmark
+    public Netlist generate(Footprint footprint) {
+        Netlist generated = generator().generate();
+        footprint.gates += generated.getGateCount();
+        footprint.netlistBytes += generated.getMemoryFootprint();
+        return generated;
+    }
+
+    @Benchmark
+    public CompiledCircuit compile(Footprint footprint) {
+        CompiledCircuit circuit = CircuitCompiler.compile(netlist);
+        footprint.gates += circuit.getGateCount();
+        footprint.compiledBytes += circuit.getMemoryFootprint();
+        return circuit;
+    }
+
+    private SyntheticNetlistGenerator generator() {
+        return new SyntheticNetlistGenerator(1024, gates, 4, 1000, 85);
+    }
+}
@@ -2,12 +2,17 @@ package com.example.faultsimulator.fault_simulator_application;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 
 /*
 The Fault Simulator Application is an api where the user sends a
  */
-@SpringBootApplication
+@SpringBootApplication(scanBasePackages = "com.example.faultsimulator")
+// Entities and repositories live outside this class's package, where Spring Boot looks by default
+@EntityScan(basePackages = "com.example.faultsimulator")
+@EnableJpaRepositories(basePackages = "com.example.faultsimulator")
 public class FaultSimulatorApplication {
 
 	public static void main(String[] args) {
@@ -1,13 +1,22 @@
 package com.example.faultsimulator.fault_simulator_config;
 
-import org.springframework.context.annotation.Bean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
 
 @Configuration
-public class CircuitFaultSimulatorConfig {
-        @Bean
-        public void someConfiguration() {
-//        TODO Write Necessary System Configurations
+public class CircuitFaultSimulatorConfig implements WebMvcConfigurer {
+        // Streamed simulations run as async requests; the servlet container's default
+        // timeout would cut off long pattern streams
+        @Value("${faultsimulator.stream.timeout:PT1H}")
+        private Duration streamTimeout;
+
+        @Override
+        public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setDefaultTimeout(streamTimeout.toMillis());
         }
 
 }
@@ -3,32 +3,143 @@ package com.example.faultsimulator.fault_simulator_controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
 import com.example.faultsimulator.fault_simulator_service.CircuitFaultSimulatorService;
+import com.example.faultsimulator.fault_simulator_service.VectorStreamSimulator;
 
 @RestController
 @RequestMapping("/api/circuits")
 public class CircuitFaultSimulatorController {
 
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final CircuitFaultSimulatorService circuitService;
     @Autowired
     public CircuitFaultSimulatorController(CircuitFaultSimulatorService circuitService) {
         this.circuitService = circuitService;
     }
 
-    // Endpoint to upload a file
+    // Endpoint to upload a bench file; the returned key identifies the circuit in later requests
     @PostMapping("/upload")
-    public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadFile(@RequestParam("file") MultipartFile file) {
+        try {
+            return ResponseEntity.ok(CircuitSummary.of(circuitService.parseFile(file)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+        } catch (IOException e) {
+            // Syntax errors carry the line number in their message
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    // Endpoint to simulate a stream of input vectors, one per line, answered line by line.
+    // The body is read while the response is written, so neither side is held in memory.
+    @PostMapping(value = "/{circuitKey}/simulate",
+            consumes = {NDJSON, MediaType.TEXT_PLAIN_VALUE},
+            produces = {NDJSON, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<StreamingResponseBody> simulateStream(@PathVariable String circuitKey,
+                                                                @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                InputStream body) {
+        // Fail fast with a 404 before the response is committed
+        circuitService.getCircuit(circuitKey);
+        boolean text = MediaType.TEXT_PLAIN.includes(MediaType.parseMediaType(contentType));
+        VectorStreamSimulator.Format format = text ? VectorStreamSimulator.Format.TEXT : VectorStreamSimulator.Format.NDJSON;
+        StreamingResponseBody stream = out -> circuitService.simulateStream(circuitKey, body, out, format);
+        return ResponseEntity.ok()
+                .contentType(text ? MediaType.TEXT_PLAIN : MediaType.parseMediaType(NDJSON))
+                .body(stream);
+    }
+
+    // Endpoint to grade the circuit's stuck-at faults with random patterns generated on the server
+    @PostMapping("/{circuitKey}/grade")
+    public ResponseEntity<?> gradeRandomPatterns(@PathVariable String circuitKey,
+                                                 @RequestParam(defaultValue = "lfsr") String generator,
+                                                 @RequestParam(defaultValue = "1") long seed,
+                                                 @RequestParam(defaultValue = "1.0") double targetCoverage,
+                                                 @RequestParam(defaultValue = "0") int plateauBlocks,
+                                                 @RequestParam(defaultValue = "1048576") int patternBudget) {
         try {
-//            TODO Nothing here just a sample request method
-//            String result = circuitService.parseBenchFile(file);
-            return ResponseEntity.ok("");
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Failed to process the file.");
+            return ResponseEntity.ok(GradingSummary.of(circuitKey, generator, seed,
+                    circuitService.gradeRandomPatterns(circuitKey, generator, seed, targetCoverage, plateauBlocks, patternBudget)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Endpoint to grade the circuit's transition faults with launch/capture pattern pairs
+    @PostMapping("/{circuitKey}/transition")
+    public ResponseEntity<?> simulateTransitionFaults(@PathVariable String circuitKey, @RequestBody TransitionRequest request) {
+        try {
+            if (request.launch() == null || request.capture() == null) {
+                throw new IllegalArgumentException("A transition run needs both launch and capture patterns.");
+            }
+            int inputCount = circuitService.getCircuit(circuitKey).getCompiled().getInputCount();
+            return ResponseEntity.ok(TransitionSummary.of(circuitKey, circuitService.simulateTransitionFaults(circuitKey,
+                    PatternSet.fromMatrix(inputCount, request.launch()), PatternSet.fromMatrix(inputCount, request.capture()))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Endpoint to generate tests for the faults the submitted patterns leave undetected; without
+    // a body every fault is targeted. A null value in a pattern is X.
+    @PostMapping("/{circuitKey}/atpg")
+    public ResponseEntity<?> generateTests(@PathVariable String circuitKey,
+                                           @RequestBody(required = false) Boolean[][] patterns,
+                                           @RequestParam(defaultValue = "100") int backtrackLimit) {
+        try {
+            PatternSet initialPatterns = patterns == null ? null
+                    : PatternSet.fromMatrix(circuitService.getCircuit(circuitKey).getCompiled().getInputCount(), patterns);
+            return ResponseEntity.ok(TestGenerationSummary.of(circuitKey, backtrackLimit,
+                    circuitService.generateTests(circuitKey, initialPatterns, backtrackLimit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Endpoint to build the circuit's fault dictionary for a pattern set, against which tester
+    // logs of that set are diagnosed later under the returned id. A null value in a pattern is X.
+    @PostMapping("/{circuitKey}/dictionary")
+    public ResponseEntity<?> buildFaultDictionary(@PathVariable String circuitKey, @RequestBody Boolean[][] patterns) {
+        try {
+            int inputCount = circuitService.getCircuit(circuitKey).getCompiled().getInputCount();
+            String dictionaryId = circuitService.buildFaultDictionary(circuitKey, PatternSet.fromMatrix(inputCount, patterns));
+            return ResponseEntity.ok(DictionarySummary.of(circuitKey, dictionaryId,
+                    circuitService.getFaultDictionary(circuitKey, dictionaryId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Endpoint to rank the faults explaining a failing tester log, looked up in the dictionary
+    // of the pattern set the tester applied
+    @PostMapping("/{circuitKey}/diagnose")
+    public ResponseEntity<?> diagnose(@PathVariable String circuitKey, @RequestBody DiagnosisRequest request,
+                                      @RequestParam(defaultValue = "10") int limit) {
+        try {
+            if (request.dictionary() == null || request.failures() == null) {
+                throw new IllegalArgumentException("A diagnosis needs the dictionary id and the failures of the tester log.");
+            }
+            int[] patterns = new int[request.failures().size()];
+            int[] outputs = new int[patterns.length];
+            for (int i = 0; i < patterns.length; i++) {
+                patterns[i] = request.failures().get(i).pattern();
+                outputs[i] = request.failures().get(i).output();
+            }
+            return ResponseEntity.ok(DiagnosisSummary.of(circuitKey, patterns.length,
+                    circuitService.getCircuit(circuitKey).getCollapsedFaults(false),
+                    circuitService.diagnose(circuitKey, request.dictionary(), request.patternCount(), patterns, outputs, limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
@@ -43,4 +154,9 @@ public class CircuitFaultSimulatorController {
         headers.add("H1", "");
         return new ResponseEntity<>("", headers, HttpStatus.OK);
     }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<String> circuitNotFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_service.LoadedCircuit;
+
+/**
+ * Response body describing a loaded circuit; the key identifies it in later requests.
+ * Memory is the approximate heap size of the circuit and of what has been derived from it.
+ */
+public record CircuitSummary(String key, int inputs, int outputs, int gates, int levels, long memoryBytes,
+                             double bytesPerGate) {
+
+    public static CircuitSummary of(LoadedCircuit circuit) {
+        CompiledCircuit compiled = circuit.getCompiled();
+        long memory = circuit.getMemoryFootprint();
+        return new CircuitSummary(circuit.getKey(), compiled.getInputCount(), compiled.getOutputCount(),
+                compiled.getGateCount(), compiled.getLevelCount() - 1, memory,
+                (double) memory / Math.max(1, compiled.getGateCount()));
+    }
+}
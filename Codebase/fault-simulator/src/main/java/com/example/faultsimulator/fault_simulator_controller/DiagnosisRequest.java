@@ -0,0 +1,14 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+import java.util.List;
+
+/**
+ * Request body of a diagnosis: the id of the dictionary built for the pattern set the tester
+ * applied, the number of patterns applied, and the failures of the log, each the index of a
+ * pattern in the set and the net id of the primary output that failed.
+ */
+public record DiagnosisRequest(String dictionary, int patternCount, List<Failure> failures) {
+
+    public record Failure(int pattern, int output) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.faults.CollapsedFaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultDictionary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response body of a diagnosis: candidates from most to least likely, each naming the
+ * equivalent faults a tester cannot tell apart. The score is the fraction of failing
+ * patterns the candidate shares with the log, 1 when it fails exactly the same patterns.
+ */
+public record DiagnosisSummary(String key, int failures, List<CandidateFaults> candidates) {
+
+    public record CandidateFaults(List<String> faults, boolean exact, double score) {
+    }
+
+    public static DiagnosisSummary of(String key, int failures, CollapsedFaultList collapsed,
+                                      List<FaultDictionary.Candidate> candidates) {
+        CompiledCircuit circuit = collapsed.getFullFaults().getCircuit();
+        List<CandidateFaults> named = new ArrayList<>(candidates.size());
+        for (FaultDictionary.Candidate candidate : candidates) {
+            List<String> faults = new ArrayList<>();
+            for (int f : collapsed.getClass(candidate.fault())) {
+                faults.add(collapsed.getFullFaults().get(f).describe(circuit));
+            }
+            named.add(new CandidateFaults(faults, candidate.exact(), candidate.score()));
+        }
+        return new DiagnosisSummary(key, failures, named);
+    }
+}
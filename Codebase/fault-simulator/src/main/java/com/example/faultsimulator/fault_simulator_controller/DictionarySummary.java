@@ -0,0 +1,17 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultDictionary;
+
+/**
+ * Response body of a fault dictionary build, over the equivalence-collapsed faults.
+ * The id names the dictionary in diagnoses. Distinguished faults are the detected ones no
+ * other fault shares a signature with.
+ */
+public record DictionarySummary(String key, String id, int patterns, int faults, int detected, int distinguished,
+                                long memoryBytes) {
+
+    public static DictionarySummary of(String key, String id, FaultDictionary dictionary) {
+        return new DictionarySummary(key, id, dictionary.getPatternCount(), dictionary.getFaultCount(),
+                dictionary.getDetectedCount(), dictionary.getDistinguishedCount(), dictionary.getMemoryFootprint());
+    }
+}
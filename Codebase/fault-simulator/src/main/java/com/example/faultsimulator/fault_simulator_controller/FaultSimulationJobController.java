@@ -0,0 +1,85 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+import com.example.faultsimulator.fault_simulator_service.FaultSimulationJobService;
+import com.example.faultsimulator.fault_simulator_service.FaultSimulationJobStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class FaultSimulationJobController {
+
+    private final FaultSimulationJobService jobService;
+
+    @Autowired
+    public FaultSimulationJobController(FaultSimulationJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    // Endpoint to queue a fault simulation; answers at once with the job id to poll
+    @PostMapping
+    public ResponseEntity<FaultSimulationJobStatus> submit(@RequestBody JobRequest request) {
+        if (request.circuitKey() == null || (request.patterns() == null) == (request.random() == null)) {
+            throw new IllegalArgumentException("A job needs a circuitKey and exactly one of patterns and random.");
+        }
+        int priority = request.priority() != null ? request.priority() : 0;
+        FaultSimulationJobStatus job;
+        if (request.patterns() != null) {
+            job = jobService.submitPatterns(request.circuitKey(), request.patterns(),
+                    Boolean.TRUE.equals(request.dropDominated()), Boolean.TRUE.equals(request.compact()), priority);
+        } else {
+            JobRequest.RandomPatterns random = request.random();
+            job = jobService.submitRandomPatterns(request.circuitKey(),
+                    random.generator() != null ? random.generator() : "lfsr",
+                    random.seed() != null ? random.seed() : 1,
+                    random.targetCoverage() != null ? random.targetCoverage() : 1.0,
+                    random.plateauBlocks() != null ? random.plateauBlocks() : 0,
+                    random.patternBudget() != null ? random.patternBudget() : 1 << 20,
+                    priority);
+        }
+        return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.id())).body(job);
+    }
+
+    // Endpoint to poll a job: status, patterns done, coverage so far and estimated time left
+    @GetMapping("/{id}")
+    public FaultSimulationJobStatus status(@PathVariable long id) {
+        return jobService.getStatus(id);
+    }
+
+    @PostMapping("/{id}/cancel")
+    public FaultSimulationJobStatus cancel(@PathVariable long id) {
+        return jobService.cancel(id);
+    }
+
+    @GetMapping("/{id}/result")
+    public JobResult result(@PathVariable long id) {
+        return JobResult.of(jobService.getStatus(id), jobService.getResult(id), jobService.getCompactedPatterns(id));
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<String> notFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    // Not finished yet for results, or already finished for cancellation
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> conflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> queueFull(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_service.CircuitFaultSimulatorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Endpoints through which a coordinator instance hands this instance chunks of a
+ * distributed fault simulation; see DistributedFaultSimulator.
+ */
+@RestController
+@RequestMapping("/api/worker")
+public class FaultSimulationWorkerController {
+
+    private final CircuitFaultSimulatorService circuitService;
+
+    @Autowired
+    public FaultSimulationWorkerController(CircuitFaultSimulatorService circuitService) {
+        this.circuitService = circuitService;
+    }
+
+    // Endpoint to receive a compiled circuit snapshot under the coordinator's key, kept apart
+    // from the circuits uploaded to this instance
+    @PutMapping(value = "/circuits/{circuitKey}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<String> loadCircuit(@PathVariable String circuitKey, @RequestBody byte[] snapshot) {
+        try {
+            circuitService.registerSnapshot(circuitKey, snapshot);
+            return ResponseEntity.noContent().build();
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Endpoint the coordinator checks before shipping a snapshot
+    @GetMapping("/circuits/{circuitKey}")
+    public CircuitSummary getCircuit(@PathVariable String circuitKey) {
+        return CircuitSummary.of(circuitService.getShippedCircuit(circuitKey));
+    }
+
+    // Endpoint to simulate a range of the collapsed fault list against packed patterns,
+    // answered with the packed detection bitset
+    @PostMapping(value = "/circuits/{circuitKey}/faults",
+            consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> simulateFaults(@PathVariable String circuitKey,
+                                                 @RequestParam(defaultValue = "false") boolean dropDominated,
+                                                 @RequestParam int from,
+                                                 @RequestParam int to,
+                                                 @RequestBody byte[] patterns) {
+        return ResponseEntity.ok(circuitService.simulateShippedFaultRange(circuitKey, dropDominated, from, to,
+                PatternSet.fromBytes(patterns)).toBytes());
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<String> circuitNotFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+import com.example.faultsimulator.fault_simulator_engine.faults.RandomGradingResult;
+
+/**
+ * Response body of a random-pattern grading run. The curve gives the coverage after every
+ * block of 64 patterns, so curvePatterns and curveCoverage have the same length.
+ */
+public record GradingSummary(String key, String generator, long seed, String stopReason, int patterns,
+                             int faults, int detected, double coverage, int[] curvePatterns, double[] curveCoverage) {
+
+    public static GradingSummary of(String key, String generator, long seed, RandomGradingResult grading) {
+        return new GradingSummary(key, generator, seed, grading.getStopReason().name(), grading.getPatternCount(),
+                grading.getResult().getFaultCount(), grading.getResult().getDetectedCount(), grading.getCoverage(),
+                grading.getCurvePatternCounts(), grading.getCoverageCurve());
+    }
+}
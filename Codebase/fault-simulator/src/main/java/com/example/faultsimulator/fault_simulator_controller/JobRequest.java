@@ -0,0 +1,23 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+/**
+ * Request body submitting a fault simulation job on a registered circuit. Exactly one of
+ * patterns and random must be given.
+ *
+ * @param patterns One row per pattern, one column per primary input; null marks an X.
+ * @param random   Grade against patterns generated on the server instead.
+ * @param priority Higher runs first; defaults to 0.
+ * @param compact  With patterns, also compute the smallest subset found that keeps the
+ *                 coverage; defaults to false.
+ */
+public record JobRequest(String circuitKey, Boolean[][] patterns, RandomPatterns random, Integer priority,
+                         Boolean dropDominated, Boolean compact) {
+
+    /**
+     * Generator and stop conditions of a random-pattern job, with the defaults of the
+     * /grade endpoint.
+     */
+    public record RandomPatterns(String generator, Long seed, Double targetCoverage, Integer plateauBlocks,
+                                 Integer patternBudget) {
+    }
+}
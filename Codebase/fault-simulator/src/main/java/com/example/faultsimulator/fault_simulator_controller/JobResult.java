@@ -0,0 +1,32 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+import com.example.faultsimulator.fault_simulator_service.FaultSimulationJobStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response body with the result of a completed job: the first detecting pattern of every
+ * fault of the full list, or -1 for undetected faults.
+ *
+ * @param compactedPatterns Indices of the submitted patterns kept by compaction, or null if
+ *                          it was not requested.
+ */
+public record JobResult(long id, String circuitKey, String stopReason, int patterns, int faultCount, int detected,
+                        double coverage, int[] compactedPatterns, List<FaultDetection> faults) {
+
+    public record FaultDetection(String fault, int firstPattern) {
+    }
+
+    public static JobResult of(FaultSimulationJobStatus job, FaultSimulationResult result, int[] compactedPatterns) {
+        CompiledCircuit circuit = result.getFaults().getCircuit();
+        List<FaultDetection> faults = new ArrayList<>(result.getFaultCount());
+        for (int f = 0; f < result.getFaultCount(); f++) {
+            faults.add(new FaultDetection(result.getFaults().get(f).describe(circuit), result.getFirstDetectingPattern(f)));
+        }
+        return new JobResult(job.id(), job.circuitKey(), job.stopReason(), result.getPatternCount(),
+                result.getFaultCount(), result.getDetectedCount(), result.getCoverage(), compactedPatterns, faults);
+    }
+}
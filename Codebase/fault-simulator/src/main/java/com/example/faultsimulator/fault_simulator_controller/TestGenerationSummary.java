@@ -0,0 +1,45 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.atpg.TestGenerationResult;
+import com.example.faultsimulator.fault_simulator_engine.atpg.TestGenerationResult.FaultStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response body of a test generation run. The generated patterns are given in the same
+ * layout as submitted ones, so they can be appended to the initial set; redundant and
+ * aborted faults are listed by name. Retried faults hit the backtrack limit once and were
+ * targeted again with a higher one; aborted faults hit it in the retry too.
+ */
+public record TestGenerationSummary(String key, int backtrackLimit, int faults, int previouslyDetected, int detected,
+                                    int redundant, int retried, int aborted, double faultCoverage, double faultEfficiency,
+                                    long backtracks, boolean[][] patterns, List<String> redundantFaults,
+                                    List<String> abortedFaults) {
+
+    public static TestGenerationSummary of(String key, int backtrackLimit, TestGenerationResult result) {
+        CompiledCircuit circuit = result.getFaults().getCircuit();
+        List<String> redundantFaults = new ArrayList<>();
+        List<String> abortedFaults = new ArrayList<>();
+        for (int f = 0; f < result.getFaults().size(); f++) {
+            if (result.getStatus(f) == FaultStatus.REDUNDANT) {
+                redundantFaults.add(result.getFaults().get(f).describe(circuit));
+            } else if (result.getStatus(f) == FaultStatus.ABORTED) {
+                abortedFaults.add(result.getFaults().get(f).describe(circuit));
+            }
+        }
+        PatternSet generated = result.getPatterns();
+        boolean[][] patterns = new boolean[generated.getPatternCount()][generated.getInputCount()];
+        for (int p = 0; p < patterns.length; p++) {
+            for (int i = 0; i < generated.getInputCount(); i++) {
+                patterns[p][i] = generated.get(p, i);
+            }
+        }
+        return new TestGenerationSummary(key, backtrackLimit, result.getFaults().size(),
+                result.getCount(FaultStatus.PREVIOUSLY_DETECTED), result.getCount(FaultStatus.DETECTED),
+                redundantFaults.size(), result.getRetriedCount(), abortedFaults.size(), result.getFaultCoverage(), result.getFaultEfficiency(),
+                result.getBacktracks(), patterns, redundantFaults, abortedFaults);
+    }
+}
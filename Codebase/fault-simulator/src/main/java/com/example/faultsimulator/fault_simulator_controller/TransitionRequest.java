@@ -0,0 +1,8 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+/**
+ * Request body grading transition faults. Row k of launch and of capture form pair k, with
+ * one column per primary input; null marks an X.
+ */
+public record TransitionRequest(Boolean[][] launch, Boolean[][] capture) {
+}
@@ -0,0 +1,26 @@
+package com.example.faultsimulator.fault_simulator_controller;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response body of a transition fault run: the first detecting pair of every slow-to-rise
+ * (STR) and slow-to-fall (STF) fault, or -1 for undetected faults.
+ */
+public record TransitionSummary(String key, int pairs, int faultCount, int detected, double coverage,
+                                List<JobResult.FaultDetection> faults) {
+
+    public static TransitionSummary of(String key, FaultSimulationResult result) {
+        CompiledCircuit circuit = result.getFaults().getCircuit();
+        List<JobResult.FaultDetection> faults = new ArrayList<>(result.getFaultCount());
+        for (int f = 0; f < result.getFaultCount(); f++) {
+            faults.add(new JobResult.FaultDetection(result.getFaults().get(f).describeTransition(circuit),
+                    result.getFirstDetectingPattern(f)));
+        }
+        return new TransitionSummary(key, result.getPatternCount(), result.getFaultCount(), result.getDetectedCount(),
+                result.getCoverage(), faults);
+    }
+}
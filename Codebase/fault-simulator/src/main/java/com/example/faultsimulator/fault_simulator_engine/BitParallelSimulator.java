@@ -0,0 +1,102 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+/**
+ * Good-machine simulator that evaluates 64 patterns per pass over a {@link CompiledCircuit}.
+ * Each instance owns its value buffer, so use one instance per thread.
+ */
+public final class BitParallelSimulator {
+    private final CompiledCircuit circuit;
+    private final long[] values;
+    private final long[] zeros;
+
+    public BitParallelSimulator(CompiledCircuit circuit) {
+        this.circuit = circuit;
+        this.values = new long[circuit.getNetCount()];
+        this.zeros = new long[circuit.getNetCount()];
+    }
+
+    /**
+     * Simulates one block of up to 64 patterns.
+     *
+     * @param inputWords One word per primary input.
+     * @return The value word of every net; the array is reused by the next call.
+     */
+    public long[] simulateBlock(long[] inputWords) {
+        System.arraycopy(inputWords, 0, values, 0, circuit.getInputCount());
+        circuit.evaluate(values);
+        return values;
+    }
+
+    /**
+     * Simulates one block of up to 64 partially specified patterns three-valued, in the
+     * dual-rail encoding of {@link CompiledCircuit#evaluate(long[], long[])}.
+     *
+     * @param inputWords   One word per primary input.
+     * @param unknownWords One word per primary input with a bit set where the input is X.
+     * @return The one rail of every net, reused by the next call; a net is X where both
+     *         this and {@link #getZeros()} have the bit set.
+     */
+    public long[] simulateBlock(long[] inputWords, long[] unknownWords) {
+        for (int i = 0; i < circuit.getInputCount(); i++) {
+            values[i] = inputWords[i] | unknownWords[i];
+            zeros[i] = ~inputWords[i] | unknownWords[i];
+        }
+        circuit.evaluate(values, zeros);
+        return values;
+    }
+
+    /**
+     * The zero rail of every net after the last three-valued {@link #simulateBlock(long[], long[])}.
+     */
+    public long[] getZeros() {
+        return zeros;
+    }
+
+    /**
+     * Simulates a whole pattern set. Outputs that are X are reported as 0; use
+     * {@link #simulate(PatternSet, long[][])} to tell them apart.
+     *
+     * @return The packed responses, indexed by [primary output][block]. Bits past the last
+     * pattern are cleared.
+     */
+    public long[][] simulate(PatternSet patterns) {
+        return simulate(patterns, null);
+    }
+
+    /**
+     * Simulates a whole pattern set, three-valued where it holds X inputs.
+     *
+     * @param unknownResponses Receives a bit per output that is X, indexed like the
+     *                         responses, or null if not needed.
+     * @return The packed responses, indexed by [primary output][block]. Bits past the last
+     * pattern, and of outputs that are X, are cleared.
+     */
+    public long[][] simulate(PatternSet patterns, long[][] unknownResponses) {
+        if (patterns.getInputCount() != circuit.getInputCount()) {
+            throw new IllegalArgumentException("Mismatch: Number of inputs provided does not match the number of primary inputs in the circuit.");
+        }
+        int[] outputNets = circuit.getPrimaryOutputNets();
+        long[][] responses = new long[outputNets.length][patterns.getBlockCount()];
+        for (int b = 0; b < patterns.getBlockCount(); b++) {
+            long[] unknownWords = patterns.getUnknownBlock(b);
+            long mask = patterns.blockMask(b);
+            if (unknownWords == null) {
+                simulateBlock(patterns.getBlock(b));
+                for (int o = 0; o < outputNets.length; o++) {
+                    responses[o][b] = values[outputNets[o]] & mask;
+                }
+            } else {
+                simulateBlock(patterns.getBlock(b), unknownWords);
+                for (int o = 0; o < outputNets.length; o++) {
+                    long one = values[outputNets[o]];
+                    long zero = zeros[outputNets[o]];
+                    responses[o][b] = one & ~zero & mask;
+                    if (unknownResponses != null) {
+                        unknownResponses[o][b] = one & zero & mask;
+                    }
+                }
+            }
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+import com.example.faultsimulator.fault_simulator_model.gates.GateType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lowers a {@link Netlist} (or a {@link CircuitGraph}, via {@link Netlist#fromGraph}) into a
+ * {@link CompiledCircuit}.
+ *
+ * Connections are resolved by net id rather than by object identity, because a graph may hold
+ * a separate {@link CircuitConnection} for every reference to a net. All working state is kept
+ * in primitive arrays, so compiling a multi-million gate netlist allocates a few arrays per pass
+ * and nothing per gate.
+ */
+public final class CircuitCompiler {
+
+    private CircuitCompiler() {
+    }
+
+    public static CompiledCircuit compile(CircuitGraph graph) {
+        return compile(Netlist.fromGraph(graph));
+    }
+
+    /**
+     * Builds the object model of a compiled circuit, with one connection per net shared by
+     * its driver and all its readers.
+     *
+     * @param circuit The compiled circuit.
+     * @return A new graph equivalent to the circuit.
+     */
+    public static CircuitGraph toGraph(CompiledCircuit circuit) {
+        CircuitGraph graph = new CircuitGraph();
+        CircuitConnection[] nets = new CircuitConnection[circuit.getNetCount()];
+        for (int n = 0; n < nets.length; n++) {
+            nets[n] = new CircuitConnection(circuit.getNetId(n));
+            graph.addConnection(nets[n]);
+        }
+        for (int i = 0; i < circuit.getInputCount(); i++) {
+            graph.addPrimaryInput(nets[i]);
+        }
+        int[] faninStart = circuit.getFaninStart();
+        int[] faninNets = circuit.getFaninNets();
+        for (int g = 0; g < circuit.getGateCount(); g++) {
+            List<CircuitConnection> inputs = new ArrayList<>(faninStart[g + 1] - faninStart[g]);
+            for (int e = faninStart[g]; e < faninStart[g + 1]; e++) {
+                inputs.add(nets[faninNets[e]]);
+            }
+            CircuitConnection output = nets[circuit.gateOutputNet(g)];
+            GateType type = GateType.fromOpcode(circuit.getOpcodes()[g]);
+            graph.addGate(type.createGate(output.getId(), inputs, output));
+        }
+        for (int net : circuit.getPrimaryOutputNets()) {
+            graph.addPrimaryOutput(nets[net]);
+        }
+        return graph;
+    }
+
+    public static CompiledCircuit compile(Netlist netlist) {
+        int inputCount = netlist.getInputCount();
+        int gateCount = netlist.getGateCount();
+        int netCount = netlist.getNetCount();
+
+        // Step 1: Find the driver of every net (PI index, or inputCount + gate position)
+        int[] drivers = new int[netCount];
+        Arrays.fill(drivers, -1);
+        for (int i = 0; i < inputCount; i++) {
+            int net = netlist.getPrimaryInput(i);
+            if (drivers[net] != -1) {
+                throw new IllegalArgumentException("Primary input " + netlist.getNetId(net) + " is declared more than once.");
+            }
+            drivers[net] = i;
+        }
+        for (int g = 0; g < gateCount; g++) {
+            int net = netlist.getGateOutput(g);
+            if (drivers[net] != -1) {
+                throw new IllegalArgumentException("Net " + netlist.getNetId(net) + " has more than one driver.");
+            }
+            drivers[net] = inputCount + g;
+        }
+
+        // Step 2: Resolve the fan-in of every gate to driver indices
+        int edgeCount = netlist.getFaninCount();
+        int[] fanins = new int[edgeCount];
+        int[] pending = new int[gateCount];
+        int[] readerCount = new int[gateCount + 1];
+        for (int g = 0; g < gateCount; g++) {
+            for (int e = netlist.getFaninStart(g); e < netlist.getFaninStart(g + 1); e++) {
+                int driver = drivers[netlist.getFanin(e)];
+                if (driver == -1) {
+                    throw new IllegalArgumentException("Net " + netlist.getNetId(netlist.getFanin(e))
+                            + " feeds gate " + netlist.getNetId(netlist.getGateOutput(g)) + " but is never driven.");
+                }
+                fanins[e] = driver;
+                if (driver >= inputCount) {
+                    readerCount[driver - inputCount + 1]++;
+                    pending[g]++;
+                }
+            }
+        }
+
+        // Step 3: Levelize with Kahn's algorithm; level 0 is reserved for primary inputs
+        for (int g = 0; g < gateCount; g++) {
+            readerCount[g + 1] += readerCount[g];
+        }
+        int[] readers = new int[readerCount[gateCount]];
+        int[] fill = Arrays.copyOf(readerCount, gateCount);
+        for (int g = 0; g < gateCount; g++) {
+            for (int e = netlist.getFaninStart(g); e < netlist.getFaninStart(g + 1); e++) {
+                if (fanins[e] >= inputCount) {
+                    readers[fill[fanins[e] - inputCount]++] = g;
+                }
+            }
+        }
+        int[] level = new int[gateCount];
+        int[] queue = new int[gateCount];
+        int head = 0;
+        int tail = 0;
+        for (int g = 0; g < gateCount; g++) {
+            if (pending[g] == 0) {
+                level[g] = 1;
+                queue[tail++] = g;
+            }
+        }
+        int maxLevel = 0;
+        while (head < tail) {
+            int g = queue[head++];
+            maxLevel = Math.max(maxLevel, level[g]);
+            for (int r = readerCount[g]; r < readerCount[g + 1]; r++) {
+                int reader = readers[r];
+                level[reader] = Math.max(level[reader], level[g] + 1);
+                if (--pending[reader] == 0) {
+                    queue[tail++] = reader;
+                }
+            }
+        }
+        if (tail != gateCount) {
+            throw new IllegalArgumentException("The circuit contains a combinational loop.");
+        }
+
+        // Step 4: Order gates by level (then by net id, for a deterministic layout)
+        int[] levelStart = new int[maxLevel + 2];
+        for (int g = 0; g < gateCount; g++) {
+            levelStart[level[g] + 1]++;
+        }
+        for (int l = 0; l <= maxLevel; l++) {
+            levelStart[l + 1] += levelStart[l];
+        }
+        long[] keys = new long[gateCount];
+        fill = Arrays.copyOf(levelStart, maxLevel + 1);
+        for (int g = 0; g < gateCount; g++) {
+            keys[fill[level[g]]++] = ((long) netlist.getNetId(netlist.getGateOutput(g)) << 32) | g;
+        }
+        int[] order = new int[gateCount];
+        int[] position = new int[gateCount];
+        for (int l = 1; l <= maxLevel; l++) {
+            Arrays.sort(keys, levelStart[l], levelStart[l + 1]);
+        }
+        for (int k = 0; k < gateCount; k++) {
+            order[k] = (int) keys[k];
+            position[order[k]] = k;
+        }
+
+        // Step 5: Emit the flat arrays in the new order
+        int[] netIds = new int[inputCount + gateCount];
+        for (int i = 0; i < inputCount; i++) {
+            netIds[i] = netlist.getNetId(netlist.getPrimaryInput(i));
+        }
+        byte[] opcodes = new byte[gateCount];
+        int[] gateLevels = new int[gateCount];
+        int[] faninStart = new int[gateCount + 1];
+        int[] faninNets = new int[edgeCount];
+        int edge = 0;
+        for (int k = 0; k < gateCount; k++) {
+            int g = order[k];
+            netIds[inputCount + k] = netlist.getNetId(netlist.getGateOutput(g));
+            opcodes[k] = netlist.getGateType(g);
+            gateLevels[k] = level[g];
+            faninStart[k] = edge;
+            for (int e = netlist.getFaninStart(g); e < netlist.getFaninStart(g + 1); e++) {
+                int driver = fanins[e];
+                faninNets[edge++] = driver < inputCount ? driver : inputCount + position[driver - inputCount];
+            }
+        }
+        faninStart[gateCount] = edge;
+
+        int[] primaryOutputNets = new int[netlist.getOutputCount()];
+        for (int o = 0; o < primaryOutputNets.length; o++) {
+            int driver = drivers[netlist.getPrimaryOutput(o)];
+            if (driver == -1) {
+                throw new IllegalArgumentException("Primary output " + netlist.getNetId(netlist.getPrimaryOutput(o)) + " is never driven.");
+            }
+            primaryOutputNets[o] = driver < inputCount ? driver : inputCount + position[driver - inputCount];
+        }
+
+        return new CompiledCircuit(inputCount, opcodes, faninStart, faninNets, gateLevels, primaryOutputNets, netIds);
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_model.gates.GateType;
+
+import java.util.Arrays;
+
+/**
+ * Logic optimization of a compiled circuit for good-machine simulation. The circuit is
+ * rebuilt as an XOR-AND-inverter graph: every gate becomes two-input AND and XOR nodes over
+ * literals that may be complemented, and structural hashing only creates a node if none
+ * with the same operands exists, so duplicate subexpressions are shared. On the way,
+ * buffers and double inversions disappear, constants are propagated, and a few two-level
+ * rewrites simplify ANDs of ANDs and recognize XORs built from NANDs, which is what makes
+ * c1355 as small as c499. Nodes that reach no primary output are dropped, and the graph is
+ * lowered back into gates, merging single-fanout AND and XOR trees into multi-input gates.
+ *
+ * The result has the same primary inputs and outputs, in the same order, and computes the
+ * same outputs for every binary input vector. Under X it may be less pessimistic (a AND
+ * NOT a is 0 here), and its structure no longer defines the original faults, so
+ * three-valued and fault simulation keep the original circuit.
+ */
+public final class CircuitOptimizer {
+    private static final byte INPUT = 0;
+    private static final byte AND = 1;
+    private static final byte XOR = 2;
+    // Literals are node * 2 + complement; node 0 is the constant 0
+    private static final int FALSE = 0;
+    private static final int TRUE = 1;
+    private static final int NO_ID = Integer.MIN_VALUE;
+
+    private final CompiledCircuit circuit;
+    private byte[] kinds;
+    private int[] left;
+    private int[] right;
+    private int nodeCount;
+    // Structural hash of the AND and XOR nodes, by kind and operands; node 0 marks a free slot
+    private long[] tableKeys;
+    private int[] tableNodes;
+    private int tableSize;
+
+    private CircuitOptimizer(CompiledCircuit circuit) {
+        this.circuit = circuit;
+        int capacity = circuit.getNetCount() + circuit.getFaninNets().length + 1;
+        kinds = new byte[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        int tableCapacity = Integer.highestOneBit(Math.max(16, capacity * 2) - 1) << 1;
+        tableKeys = new long[tableCapacity];
+        tableNodes = new int[tableCapacity];
+        nodeCount = 1 + circuit.getInputCount();
+    }
+
+    public static OptimizedCircuit optimize(CompiledCircuit circuit) {
+        return new CircuitOptimizer(circuit).run();
+    }
+
+    private OptimizedCircuit run() {
+        int inputCount = circuit.getInputCount();
+        int[] literals = new int[circuit.getNetCount()];
+        for (int i = 0; i < inputCount; i++) {
+            literals[i] = (i + 1) << 1;
+        }
+        byte[] opcodes = circuit.getOpcodes();
+        int[] faninStart = circuit.getFaninStart();
+        int[] faninNets = circuit.getFaninNets();
+        int[] operands = new int[16];
+        for (int g = 0; g < circuit.getGateCount(); g++) {
+            byte op = opcodes[g];
+            int length = faninStart[g + 1] - faninStart[g];
+            if (operands.length < length) {
+                operands = new int[length];
+            }
+            // OR and NOR are ANDs of the complemented inputs
+            int complement = op == CompiledCircuit.OP_OR || op == CompiledCircuit.OP_NOR ? 1 : 0;
+            for (int i = 0; i < length; i++) {
+                operands[i] = literals[faninNets[faninStart[g] + i]] ^ complement;
+            }
+            // Sorted, so the same input set always decomposes into the same nodes
+            Arrays.sort(operands, 0, length);
+            int result;
+            switch (op) {
+                case CompiledCircuit.OP_AND, CompiledCircuit.OP_NAND, CompiledCircuit.OP_OR, CompiledCircuit.OP_NOR -> {
+                    result = TRUE;
+                    for (int i = 0; i < length; i++) {
+                        result = and(result, operands[i]);
+                    }
+                    if (op == CompiledCircuit.OP_NAND || op == CompiledCircuit.OP_OR) {
+                        result ^= 1;
+                    }
+                }
+                case CompiledCircuit.OP_XOR -> {
+                    result = FALSE;
+                    for (int i = 0; i < length; i++) {
+                        result = xor(result, operands[i]);
+                    }
+                }
+                case CompiledCircuit.OP_NOT -> result = operands[0] ^ 1;
+                default -> result = operands[0];
+            }
+            literals[circuit.gateOutputNet(g)] = result;
+        }
+        return new Lowering(literals).lower();
+    }
+
+    private boolean isAnd(int literal) {
+        return kinds[literal >> 1] == AND;
+    }
+
+    private int and(int a, int b) {
+        if (a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        if (a == FALSE || a == (b ^ 1)) {
+            return FALSE;
+        }
+        if (a == TRUE || a == b) {
+            return b;
+        }
+        // Two-level rewrites where an operand is itself an AND
+        for (int k = 0; k < 2; k++) {
+            int x = k == 0 ? a : b;
+            int y = k == 0 ? b : a;
+            if (!isAnd(y)) {
+                continue;
+            }
+            int c = left[y >> 1];
+            int d = right[y >> 1];
+            if ((y & 1) == 0) {
+                // x & (x & d) and x & (~x & d)
+                if (x == c || x == d) {
+                    return y;
+                }
+                if (x == (c ^ 1) || x == (d ^ 1)) {
+                    return FALSE;
+                }
+            } else {
+                // x & ~(~x & d) and x & ~(x & d)
+                if (x == (c ^ 1) || x == (d ^ 1)) {
+                    return x;
+                }
+                if (x == c) {
+                    return and(x, d ^ 1);
+                }
+                if (x == d) {
+                    return and(x, c ^ 1);
+                }
+            }
+        }
+        // ~(c & d) & ~(~c & ~d) is c ^ d; operands are sorted, so the complements line up
+        if ((a & b & 1) == 1 && isAnd(a) && isAnd(b)) {
+            int c = left[a >> 1];
+            int d = right[a >> 1];
+            if (left[b >> 1] == (c ^ 1) && right[b >> 1] == (d ^ 1)) {
+                return xor(c, d);
+            }
+        }
+        return node(AND, a, b);
+    }
+
+    private int xor(int a, int b) {
+        // XOR nodes only read uncomplemented literals; complements move to the result
+        int complement = (a ^ b) & 1;
+        a &= ~1;
+        b &= ~1;
+        if (a > b) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        if (a == b) {
+            return complement;
+        }
+        if (a == FALSE) {
+            return b ^ complement;
+        }
+        return node(XOR, a, b) ^ complement;
+    }
+
+    // The literal of the node with these operands, created if there is none yet
+    private int node(byte kind, int a, int b) {
+        long key = (long) kind << 62 | (long) a << 31 | b;
+        int mask = tableKeys.length - 1;
+        int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 33) & mask;
+        while (tableNodes[slot] != 0) {
+            if (tableKeys[slot] == key) {
+                return tableNodes[slot] << 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (nodeCount == kinds.length) {
+            kinds = Arrays.copyOf(kinds, nodeCount * 2);
+            left = Arrays.copyOf(left, nodeCount * 2);
+            right = Arrays.copyOf(right, nodeCount * 2);
+        }
+        int node = nodeCount++;
+        kinds[node] = kind;
+        left[node] = a;
+        right[node] = b;
+        tableKeys[slot] = key;
+        tableNodes[slot] = node;
+        if (++tableSize * 2 > tableKeys.length) {
+            rehash();
+        }
+        return node << 1;
+    }
+
+    private void rehash() {
+        long[] oldKeys = tableKeys;
+        int[] oldNodes = tableNodes;
+        tableKeys = new long[oldKeys.length * 2];
+        tableNodes = new int[oldKeys.length * 2];
+        int mask = tableKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldNodes[i] != 0) {
+                int slot = (int) (oldKeys[i] * 0x9E3779B97F4A7C15L >>> 33) & mask;
+                while (tableNodes[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                tableKeys[slot] = oldKeys[i];
+                tableNodes[slot] = oldNodes[i];
+            }
+        }
+    }
+
+    /**
+     * Turns the live part of the graph back into a netlist. A net keeps the id of the first
+     * original net carrying the same value, so ids stay meaningful; nets with no original
+     * counterpart get ids above the largest original one.
+     */
+    private final class Lowering {
+        private final int[] literals;
+        private final boolean[] live = new boolean[nodeCount];
+        private final boolean[] absorbed = new boolean[nodeCount];
+        private final int[] positiveRefs = new int[nodeCount];
+        private final int[] negativeRefs = new int[nodeCount];
+        // Ids of original nets carrying each node and its complement
+        private final int[] positiveIds = new int[nodeCount];
+        private final int[] negativeIds = new int[nodeCount];
+        // Ids of the nets emitted so far for each node and its complement
+        private final int[] positiveNets = new int[nodeCount];
+        private final int[] negativeNets = new int[nodeCount];
+        private final Netlist netlist = new Netlist();
+        private int nextId;
+
+        Lowering(int[] literals) {
+            this.literals = literals;
+        }
+
+        OptimizedCircuit lower() {
+            int[] outputNets = circuit.getPrimaryOutputNets();
+            boolean[] output = new boolean[nodeCount];
+            for (int net : outputNets) {
+                int literal = literals[net];
+                live[literal >> 1] = true;
+                output[literal >> 1] = true;
+                reference(literal);
+            }
+            // Children come before their parents, so one backward sweep marks every live node
+            byte[] parentKinds = new byte[nodeCount];
+            for (int n = nodeCount - 1; n > circuit.getInputCount(); n--) {
+                if (live[n]) {
+                    for (int child : new int[]{left[n], right[n]}) {
+                        live[child >> 1] = true;
+                        parentKinds[child >> 1] = kinds[n];
+                        reference(child);
+                    }
+                }
+            }
+            for (int n = circuit.getInputCount() + 1; n < nodeCount; n++) {
+                absorbed[n] = live[n] && !output[n] && positiveRefs[n] == 1 && negativeRefs[n] == 0
+                        && parentKinds[n] == kinds[n];
+            }
+
+            Arrays.fill(positiveIds, NO_ID);
+            Arrays.fill(negativeIds, NO_ID);
+            Arrays.fill(positiveNets, NO_ID);
+            Arrays.fill(negativeNets, NO_ID);
+            int maxId = Integer.MIN_VALUE;
+            for (int net = 0; net < literals.length; net++) {
+                int[] ids = (literals[net] & 1) == 0 ? positiveIds : negativeIds;
+                if (ids[literals[net] >> 1] == NO_ID) {
+                    ids[literals[net] >> 1] = circuit.getNetId(net);
+                }
+                maxId = Math.max(maxId, circuit.getNetId(net));
+            }
+            nextId = maxId + 1;
+
+            for (int i = 0; i < circuit.getInputCount(); i++) {
+                netlist.addPrimaryInput(circuit.getNetId(i));
+                positiveNets[i + 1] = circuit.getNetId(i);
+            }
+            int[] operands = new int[16];
+            int[] stack = new int[16];
+            for (int n = circuit.getInputCount() + 1; n < nodeCount; n++) {
+                if (!live[n] || absorbed[n]) {
+                    continue;
+                }
+                // Operands of the node and of the nodes merged into it
+                int length = 0;
+                int depth = 0;
+                stack[depth++] = right[n];
+                stack[depth++] = left[n];
+                while (depth > 0) {
+                    int literal = stack[--depth];
+                    if ((literal & 1) == 0 && absorbed[literal >> 1]) {
+                        if (depth + 2 > stack.length) {
+                            stack = Arrays.copyOf(stack, stack.length * 2);
+                        }
+                        stack[depth++] = right[literal >> 1];
+                        stack[depth++] = left[literal >> 1];
+                    } else {
+                        if (length == operands.length) {
+                            operands = Arrays.copyOf(operands, length * 2);
+                        }
+                        operands[length++] = literal;
+                    }
+                }
+                emit(n, operands, length);
+            }
+            for (int net : outputNets) {
+                netlist.addPrimaryOutput(net(literals[net]));
+            }
+
+            CompiledCircuit optimized = CircuitCompiler.compile(netlist);
+            int[] mapping = new int[literals.length];
+            for (int net = 0; net < literals.length; net++) {
+                int node = literals[net] >> 1;
+                boolean complemented = (literals[net] & 1) != 0;
+                int same = complemented ? negativeNets[node] : positiveNets[node];
+                int other = complemented ? positiveNets[node] : negativeNets[node];
+                mapping[net] = same != NO_ID ? optimized.netIndex(same) << 1
+                        : other != NO_ID ? optimized.netIndex(other) << 1 | 1
+                        : -1;
+            }
+            return new OptimizedCircuit(circuit, optimized, mapping);
+        }
+
+        private void reference(int literal) {
+            if ((literal & 1) == 0) {
+                positiveRefs[literal >> 1]++;
+            } else {
+                negativeRefs[literal >> 1]++;
+            }
+        }
+
+        // Adds the gate of a node, in the polarity its readers mostly need
+        private void emit(int n, int[] operands, int length) {
+            int[] fanin = new int[length];
+            GateType type;
+            boolean complemented;
+            if (kinds[n] == XOR) {
+                for (int i = 0; i < length; i++) {
+                    fanin[i] = net(operands[i]);
+                }
+                type = GateType.XOR;
+                complemented = false;
+            } else {
+                // AND of the operands, or NOR of their complements, whichever needs fewer
+                // new inverters; on a tie, the form with fewer complemented inputs
+                int negative = 0;
+                int andInverters = 0;
+                int norInverters = 0;
+                for (int i = 0; i < length; i++) {
+                    negative += operands[i] & 1;
+                    andInverters += isEmitted(operands[i]) ? 0 : 1;
+                    norInverters += isEmitted(operands[i] ^ 1) ? 0 : 1;
+                }
+                boolean nor = norInverters < andInverters || norInverters == andInverters && negative * 2 > length;
+                for (int i = 0; i < length; i++) {
+                    fanin[i] = net(nor ? operands[i] ^ 1 : operands[i]);
+                }
+                complemented = positiveRefs[n] == 0;
+                type = nor ? (complemented ? GateType.OR : GateType.NOR) : (complemented ? GateType.NAND : GateType.AND);
+            }
+            int id = idFor(n, complemented);
+            netlist.addGate(type, id, fanin, length);
+            (complemented ? negativeNets : positiveNets)[n] = id;
+        }
+
+        private boolean isEmitted(int literal) {
+            return ((literal & 1) == 0 ? positiveNets : negativeNets)[literal >> 1] != NO_ID;
+        }
+
+        // Id of the net carrying a literal, adding an inverter (or the constant) if needed
+        private int net(int literal) {
+            int node = literal >> 1;
+            boolean complemented = (literal & 1) != 0;
+            int[] nets = complemented ? negativeNets : positiveNets;
+            if (nets[node] != NO_ID) {
+                return nets[node];
+            }
+            int id = idFor(node, complemented);
+            if (node == 0 && !complemented) {
+                // Constant 0 as the XOR of the first input with itself
+                int input = net(2);
+                netlist.addGate(GateType.XOR, id, new int[]{input, input}, 2);
+            } else {
+                netlist.addGate(GateType.NOT, id, new int[]{net(literal ^ 1)}, 1);
+            }
+            nets[node] = id;
+            return id;
+        }
+
+        private int idFor(int node, boolean complemented) {
+            int id = complemented ? negativeIds[node] : positiveIds[node];
+            return id != NO_ID ? id : nextId++;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_engine.faults.CollapsedFaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.StuckAtFault;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A compiled circuit, and optionally its collapsed fault lists, in a binary file that
+ * reloads without parsing or levelizing.
+ *
+ * Layout (little-endian):
+ * <pre>
+ * header   magic "FSIMSNAP", int version, int flags, long payload length, long CRC32 of payload
+ * payload  int inputCount, gateCount, outputCount, edgeCount
+ *          byte opcodes[gateCount], zero-padded to a multiple of 4
+ *          int faninStart[gateCount + 1], faninNets[edgeCount], gateLevels[gateCount]
+ *          int primaryOutputNets[outputCount], netIds[inputCount + gateCount]
+ *          int fanoutStart[inputCount + gateCount + 1], fanoutGates[edgeCount]
+ *          int sortedNetIds[inputCount + gateCount], sortedNetIndices[inputCount + gateCount]
+ * faults   (when flag 1 is set) int faultCount, then for equivalence and dominance collapsing:
+ *          int representativeCount, representatives[representativeCount] (full-list indices),
+ *          representativeOf[faultCount], dominated bits[(faultCount + 31) / 32]
+ * </pre>
+ * The derived lookup arrays are stored too, so a reload copies arrays and computes nothing.
+ * The full fault list itself is not stored: {@link FaultList#enumerate} is deterministic for
+ * a given circuit, and the version is bumped whenever its order or the opcodes change.
+ */
+public final class CircuitSnapshot {
+    public static final int FORMAT_VERSION = 1;
+
+    private static final long MAGIC = 0x50414E534D495346L; // "FSIMSNAP" read little-endian
+    private static final int HEADER_BYTES = 32;
+    private static final int FLAG_FAULTS = 1;
+
+    private final CompiledCircuit circuit;
+    private final CollapsedFaultList equivalenceCollapsed;
+    private final CollapsedFaultList dominanceCollapsed;
+
+    public CircuitSnapshot(CompiledCircuit circuit) {
+        this(circuit, null, null);
+    }
+
+    /**
+     * @param equivalenceCollapsed The equivalence-collapsed fault list, or null; must be given
+     *                             together with the dominance-collapsed one, on the same full list.
+     */
+    public CircuitSnapshot(CompiledCircuit circuit, CollapsedFaultList equivalenceCollapsed, CollapsedFaultList dominanceCollapsed) {
+        if ((equivalenceCollapsed == null) != (dominanceCollapsed == null)) {
+            throw new IllegalArgumentException("Both collapsed fault lists must be given, or neither.");
+        }
+        if (equivalenceCollapsed != null && equivalenceCollapsed.getFullFaults() != dominanceCollapsed.getFullFaults()) {
+            throw new IllegalArgumentException("The collapsed fault lists must share their full fault list.");
+        }
+        this.circuit = circuit;
+        this.equivalenceCollapsed = equivalenceCollapsed;
+        this.dominanceCollapsed = dominanceCollapsed;
+    }
+
+    public CompiledCircuit getCircuit() {
+        return circuit;
+    }
+
+    public boolean hasFaults() {
+        return equivalenceCollapsed != null;
+    }
+
+    /**
+     * The collapsed fault list for the given mode, or null if the snapshot holds none.
+     */
+    public CollapsedFaultList getCollapsedFaults(boolean dropDominated) {
+        return dropDominated ? dominanceCollapsed : equivalenceCollapsed;
+    }
+
+    /**
+     * Writes the snapshot to a file, replacing it if it exists.
+     */
+    public void write(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(toBytes());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * The snapshot in its file layout, e.g. to ship it to another instance.
+     */
+    public byte[] toBytes() throws IOException {
+        int gateCount = circuit.getGateCount();
+        int netCount = circuit.getNetCount();
+        int edgeCount = circuit.getFaninNets().length;
+        long ints = 4 + (gateCount + 1) + edgeCount + gateCount + circuit.getOutputCount() + netCount
+                + (netCount + 1) + edgeCount + 2L * netCount;
+        if (hasFaults()) {
+            int faultCount = equivalenceCollapsed.getFullFaults().size();
+            ints += 1;
+            for (CollapsedFaultList collapsed : List.of(equivalenceCollapsed, dominanceCollapsed)) {
+                ints += 1 + collapsed.getRepresentatives().size() + faultCount + (faultCount + 31) / 32;
+            }
+        }
+        long payloadBytes = ints * 4 + align(gateCount);
+        if (HEADER_BYTES + payloadBytes > Integer.MAX_VALUE) {
+            throw new IOException("The circuit is too large for a snapshot.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (HEADER_BYTES + payloadBytes)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(HEADER_BYTES);
+        buffer.putInt(circuit.getInputCount()).putInt(gateCount).putInt(circuit.getOutputCount()).putInt(edgeCount);
+        buffer.put(circuit.getOpcodes());
+        buffer.position(buffer.position() + align(gateCount) - gateCount);
+        IntBuffer out = buffer.asIntBuffer();
+        out.put(circuit.getFaninStart()).put(circuit.getFaninNets()).put(circuit.getGateLevels())
+                .put(circuit.getPrimaryOutputNets()).put(circuit.getNetIds())
+                .put(circuit.getFanoutStart()).put(circuit.getFanoutGates())
+                .put(circuit.getSortedNetIds()).put(circuit.getSortedNetIndices());
+        if (hasFaults()) {
+            out.put(equivalenceCollapsed.getFullFaults().size());
+            writeCollapsed(out, equivalenceCollapsed);
+            writeCollapsed(out, dominanceCollapsed);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, (int) payloadBytes);
+        buffer.putLong(0, MAGIC).putInt(8, FORMAT_VERSION).putInt(12, hasFaults() ? FLAG_FAULTS : 0)
+                .putLong(16, payloadBytes).putLong(24, crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * Maps a snapshot file and rebuilds the circuit from it.
+     *
+     * @throws IOException If the file is not a snapshot, was written by another format version,
+     *                     or fails its checksum.
+     */
+    public static CircuitSnapshot read(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a circuit snapshot.");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return decode(mapped, file.toString());
+    }
+
+    /**
+     * Rebuilds a snapshot from the bytes of {@link #toBytes()}.
+     *
+     * @throws IOException As for {@link #read(Path)}.
+     */
+    public static CircuitSnapshot fromBytes(byte[] bytes) throws IOException {
+        if (bytes.length < HEADER_BYTES) {
+            throw new IOException("The data is not a circuit snapshot.");
+        }
+        return decode(ByteBuffer.wrap(bytes), "The snapshot");
+    }
+
+    // Checks and decodes a whole snapshot; source names it in error messages
+    private static CircuitSnapshot decode(ByteBuffer bytes, String source) throws IOException {
+        ByteBuffer buffer = bytes.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getLong(0) != MAGIC) {
+            throw new IOException(source + " is not a circuit snapshot.");
+        }
+        if (buffer.getInt(8) != FORMAT_VERSION) {
+            throw new IOException(source + " has snapshot version " + buffer.getInt(8) + ", expected " + FORMAT_VERSION + ".");
+        }
+        if (buffer.getLong(16) != buffer.capacity() - HEADER_BYTES) {
+            throw new IOException(source + " is truncated.");
+        }
+        ByteBuffer payload = buffer.slice(HEADER_BYTES, buffer.capacity() - HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if (crc.getValue() != buffer.getLong(24)) {
+            throw new IOException(source + " fails its checksum.");
+        }
+
+        int inputCount = payload.getInt();
+        int gateCount = payload.getInt();
+        int outputCount = payload.getInt();
+        int edgeCount = payload.getInt();
+        byte[] opcodes = new byte[gateCount];
+        payload.get(opcodes);
+        payload.position(16 + align(gateCount));
+        IntBuffer in = payload.asIntBuffer();
+        int[] faninStart = read(in, gateCount + 1);
+        int[] faninNets = read(in, edgeCount);
+        int[] gateLevels = read(in, gateCount);
+        int[] primaryOutputNets = read(in, outputCount);
+        int[] netIds = read(in, inputCount + gateCount);
+        int[] fanoutStart = read(in, inputCount + gateCount + 1);
+        int[] fanoutGates = read(in, edgeCount);
+        int[] sortedNetIds = read(in, inputCount + gateCount);
+        int[] sortedNetIndices = read(in, inputCount + gateCount);
+        CompiledCircuit circuit = new CompiledCircuit(inputCount, opcodes, faninStart, faninNets, gateLevels,
+                primaryOutputNets, netIds, fanoutStart, fanoutGates, sortedNetIds, sortedNetIndices);
+        if ((buffer.getInt(12) & FLAG_FAULTS) == 0) {
+            return new CircuitSnapshot(circuit);
+        }
+
+        FaultList faults = FaultList.enumerate(circuit);
+        if (in.get() != faults.size()) {
+            throw new IOException(source + " holds a fault list that does not match its circuit.");
+        }
+        CollapsedFaultList equivalence = readCollapsed(in, faults);
+        CollapsedFaultList dominance = readCollapsed(in, faults);
+        return new CircuitSnapshot(circuit, equivalence, dominance);
+    }
+
+    private static void writeCollapsed(IntBuffer out, CollapsedFaultList collapsed) {
+        FaultList full = collapsed.getFullFaults();
+        FaultList representatives = collapsed.getRepresentatives();
+        int[] representativeFaults = new int[representatives.size()];
+        // Representatives are the full-list fault objects themselves
+        for (int f = 0; f < full.size(); f++) {
+            int r = collapsed.getRepresentative(f);
+            if (representatives.get(r) == full.get(f)) {
+                representativeFaults[r] = f;
+            }
+        }
+        out.put(representativeFaults.length).put(representativeFaults);
+        for (int f = 0; f < full.size(); f++) {
+            out.put(collapsed.getRepresentative(f));
+        }
+        int[] dominatedBits = new int[(full.size() + 31) / 32];
+        for (int f = 0; f < full.size(); f++) {
+            if (collapsed.isDominated(f)) {
+                dominatedBits[f >>> 5] |= 1 << f;
+            }
+        }
+        out.put(dominatedBits);
+    }
+
+    private static CollapsedFaultList readCollapsed(IntBuffer in, FaultList faults) {
+        int[] representativeFaults = read(in, in.get());
+        List<StuckAtFault> representatives = new ArrayList<>(representativeFaults.length);
+        for (int f : representativeFaults) {
+            representatives.add(faults.get(f));
+        }
+        int[] representativeOf = read(in, faults.size());
+        int[] dominatedBits = read(in, (faults.size() + 31) / 32);
+        boolean[] dominated = new boolean[faults.size()];
+        for (int f = 0; f < dominated.length; f++) {
+            dominated[f] = (dominatedBits[f >>> 5] >>> f & 1) != 0;
+        }
+        return new CollapsedFaultList(faults, new FaultList(faults.getCircuit(), representatives), representativeOf, dominated);
+    }
+
+    private static int[] read(IntBuffer in, int length) {
+        int[] values = new int[length];
+        in.get(values);
+        return values;
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+}
@@ -0,0 +1,453 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_model.LevelizedCircuit;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, levelized form of a circuit lowered into flat primitive arrays.
+ *
+ * Nets are addressed by a dense index: primary inputs occupy 0..inputCount-1 and the
+ * output of gate g is net inputCount + g. Gates are stored in level order, so evaluating
+ * them by increasing index always visits a driver before any gate that reads it.
+ *
+ * The array getters hand out the internal arrays so engines can run without copying;
+ * callers must treat them as read-only. All simulation state lives in value arrays owned
+ * by the caller, which makes one instance safe to share between threads.
+ */
+public final class CompiledCircuit implements LevelizedCircuit {
+    // Opcodes, matching GateType.getOpcode()
+    public static final byte OP_AND = 0;
+    public static final byte OP_NAND = 1;
+    public static final byte OP_OR = 2;
+    public static final byte OP_NOR = 3;
+    public static final byte OP_XOR = 4;
+    public static final byte OP_NOT = 5;
+    public static final byte OP_BUFF = 6;
+
+    private final int inputCount;
+    private final int gateCount;
+    private final byte[] opcodes;
+    private final int[] faninStart;
+    private final int[] faninNets;
+    private final int[] fanoutStart;
+    private final int[] fanoutGates;
+    private final int[] gateLevels;
+    private final int[] levelStart;
+    private final int[] primaryOutputNets;
+    private final int[] outputAppearances;
+    private final int[] netIds;
+    private final int[] sortedNetIds;
+    private final int[] sortedNetIndices;
+
+    CompiledCircuit(int inputCount, byte[] opcodes, int[] faninStart, int[] faninNets,
+                    int[] gateLevels, int[] primaryOutputNets, int[] netIds) {
+        this(inputCount, opcodes, faninStart, faninNets, gateLevels, primaryOutputNets, netIds, null, null, null, null);
+    }
+
+    /**
+     * Also takes the fanout lists and the sorted id lookup, when they were saved with the
+     * circuit (see {@link CircuitSnapshot}); null arrays are rebuilt from the fan-in.
+     */
+    CompiledCircuit(int inputCount, byte[] opcodes, int[] faninStart, int[] faninNets,
+                    int[] gateLevels, int[] primaryOutputNets, int[] netIds,
+                    int[] fanoutStart, int[] fanoutGates, int[] sortedNetIds, int[] sortedNetIndices) {
+        this.inputCount = inputCount;
+        this.gateCount = opcodes.length;
+        this.opcodes = opcodes;
+        this.faninStart = faninStart;
+        this.faninNets = faninNets;
+        this.gateLevels = gateLevels;
+        this.primaryOutputNets = primaryOutputNets;
+        this.netIds = netIds;
+
+        int netCount = inputCount + gateCount;
+
+        // Fanout lists in CSR form, built by counting then filling
+        if (fanoutStart == null || fanoutGates == null) {
+            fanoutStart = new int[netCount + 1];
+            for (int net : faninNets) {
+                fanoutStart[net + 1]++;
+            }
+            for (int net = 0; net < netCount; net++) {
+                fanoutStart[net + 1] += fanoutStart[net];
+            }
+            fanoutGates = new int[faninNets.length];
+            int[] fill = Arrays.copyOf(fanoutStart, netCount);
+            for (int g = 0; g < gateCount; g++) {
+                for (int i = faninStart[g]; i < faninStart[g + 1]; i++) {
+                    fanoutGates[fill[faninNets[i]]++] = g;
+                }
+            }
+        }
+        this.fanoutStart = fanoutStart;
+        this.fanoutGates = fanoutGates;
+
+        outputAppearances = new int[netCount];
+        for (int net : primaryOutputNets) {
+            outputAppearances[net]++;
+        }
+
+        // Gate offsets per level; gates are sorted by level and level 0 holds only inputs
+        int maxLevel = gateCount == 0 ? 0 : gateLevels[gateCount - 1];
+        levelStart = new int[maxLevel + 2];
+        for (int g = 0; g < gateCount; g++) {
+            levelStart[gateLevels[g] + 1]++;
+        }
+        for (int level = 0; level <= maxLevel; level++) {
+            levelStart[level + 1] += levelStart[level];
+        }
+
+        // Reverse lookup from the original net id to the dense index; (id, index) pairs are
+        // packed into longs so the sort runs on primitives
+        if (sortedNetIds == null || sortedNetIndices == null) {
+            long[] order = new long[netCount];
+            for (int net = 0; net < netCount; net++) {
+                order[net] = ((long) netIds[net] << 32) | net;
+            }
+            Arrays.sort(order);
+            sortedNetIds = new int[netCount];
+            sortedNetIndices = new int[netCount];
+            for (int i = 0; i < netCount; i++) {
+                sortedNetIndices[i] = (int) order[i];
+                sortedNetIds[i] = (int) (order[i] >> 32);
+            }
+        }
+        this.sortedNetIds = sortedNetIds;
+        this.sortedNetIndices = sortedNetIndices;
+    }
+
+    /**
+     * Evaluates every gate once, in level order. The primary input slots of the value
+     * array must already hold the input vector; all other slots are overwritten.
+     *
+     * @param values One value per net, indexed by dense net index.
+     */
+    public void evaluate(boolean[] values) {
+        int net = inputCount;
+        for (int g = 0; g < gateCount; g++, net++) {
+            values[net] = evaluateGate(g, values);
+        }
+    }
+
+    /**
+     * Computes the output value of a single gate from the current values of its fan-in.
+     */
+    public boolean evaluateGate(int gate, boolean[] values) {
+        int from = faninStart[gate];
+        int to = faninStart[gate + 1];
+        boolean result;
+        switch (opcodes[gate]) {
+            case OP_AND, OP_NAND -> {
+                result = true;
+                for (int i = from; i < to; i++) {
+                    result &= values[faninNets[i]];
+                }
+                if (opcodes[gate] == OP_NAND) {
+                    result = !result;
+                }
+            }
+            case OP_OR, OP_NOR -> {
+                result = false;
+                for (int i = from; i < to; i++) {
+                    result |= values[faninNets[i]];
+                }
+                if (opcodes[gate] == OP_NOR) {
+                    result = !result;
+                }
+            }
+            case OP_XOR -> {
+                result = false;
+                for (int i = from; i < to; i++) {
+                    result ^= values[faninNets[i]];
+                }
+            }
+            case OP_NOT -> result = !values[faninNets[from]];
+            default -> result = values[faninNets[from]];
+        }
+        return result;
+    }
+
+    /**
+     * Bit-parallel variant of {@link #evaluate(boolean[])}: every net holds a word whose
+     * bit k is the value of the net under pattern k, so one pass evaluates 64 patterns.
+     *
+     * @param values One word per net, indexed by dense net index.
+     */
+    public void evaluate(long[] values) {
+        int net = inputCount;
+        for (int g = 0; g < gateCount; g++, net++) {
+            values[net] = evaluateGate(g, values);
+        }
+    }
+
+    /**
+     * Computes the output word of a single gate from the current values of its fan-in.
+     */
+    public long evaluateGate(int gate, long[] values) {
+        int from = faninStart[gate];
+        int to = faninStart[gate + 1];
+        long result;
+        switch (opcodes[gate]) {
+            case OP_AND, OP_NAND -> {
+                result = -1L;
+                for (int i = from; i < to; i++) {
+                    result &= values[faninNets[i]];
+                }
+                if (opcodes[gate] == OP_NAND) {
+                    result = ~result;
+                }
+            }
+            case OP_OR, OP_NOR -> {
+                result = 0L;
+                for (int i = from; i < to; i++) {
+                    result |= values[faninNets[i]];
+                }
+                if (opcodes[gate] == OP_NOR) {
+                    result = ~result;
+                }
+            }
+            case OP_XOR -> {
+                result = 0L;
+                for (int i = from; i < to; i++) {
+                    result ^= values[faninNets[i]];
+                }
+            }
+            case OP_NOT -> result = ~values[faninNets[from]];
+            default -> result = values[faninNets[from]];
+        }
+        return result;
+    }
+
+    /**
+     * Like {@link #evaluateGate(int, long[])}, but reads the given fan-in edge as the forced
+     * word instead of the value of its net. Used to inject faults on fanout branches.
+     *
+     * @param forcedEdge Index into the fan-in array of the overridden gate input.
+     */
+    public long evaluateGate(int gate, long[] values, int forcedEdge, long forcedValue) {
+        int from = faninStart[gate];
+        int to = faninStart[gate + 1];
+        byte opcode = opcodes[gate];
+        if (opcode == OP_NOT) {
+            return ~forcedValue;
+        }
+        if (opcode == OP_BUFF) {
+            return forcedValue;
+        }
+        long result = opcode == OP_AND || opcode == OP_NAND ? -1L : 0L;
+        for (int i = from; i < to; i++) {
+            long value = i == forcedEdge ? forcedValue : values[faninNets[i]];
+            switch (opcode) {
+                case OP_AND, OP_NAND -> result &= value;
+                case OP_OR, OP_NOR -> result |= value;
+                default -> result ^= value;
+            }
+        }
+        return opcode == OP_NAND || opcode == OP_NOR ? ~result : result;
+    }
+
+    /**
+     * Three-valued (0/1/X) variant of {@link #evaluate(long[])} in dual-rail encoding: bit k
+     * of ones[net] is set when the net may be 1 under pattern k, and bit k of zeros[net]
+     * when it may be 0. A definite 0 or 1 sets one rail, X sets both. A fully specified
+     * block has zeros equal to the complement of ones, and then evaluates exactly like the
+     * two-valued form.
+     *
+     * @param ones  One-rail word per net; the primary input slots must hold the inputs.
+     * @param zeros Zero-rail word per net, likewise.
+     */
+    public void evaluate(long[] ones, long[] zeros) {
+        for (int g = 0; g < gateCount; g++) {
+            evaluateGate(g, ones, zeros, -1, 0L);
+        }
+    }
+
+    /**
+     * Evaluates a single gate in dual-rail encoding and stores both rails of its output
+     * net. X propagates pessimistically: an output is X unless some input at the
+     * controlling value decides it.
+     *
+     * @param forcedEdge  Index into the fan-in array of an input to read as the definite
+     *                    forcedValue instead of its net, or -1 for none.
+     */
+    public void evaluateGate(int gate, long[] ones, long[] zeros, int forcedEdge, long forcedValue) {
+        int from = faninStart[gate];
+        int to = faninStart[gate + 1];
+        byte opcode = opcodes[gate];
+        long one;
+        long zero;
+        switch (opcode) {
+            case OP_AND, OP_NAND -> {
+                // 1 only if every input may be 1, 0 if any input may be 0
+                one = -1L;
+                zero = 0L;
+                for (int i = from; i < to; i++) {
+                    one &= i == forcedEdge ? forcedValue : ones[faninNets[i]];
+                    zero |= i == forcedEdge ? ~forcedValue : zeros[faninNets[i]];
+                }
+            }
+            case OP_OR, OP_NOR -> {
+                one = 0L;
+                zero = -1L;
+                for (int i = from; i < to; i++) {
+                    one |= i == forcedEdge ? forcedValue : ones[faninNets[i]];
+                    zero &= i == forcedEdge ? ~forcedValue : zeros[faninNets[i]];
+                }
+            }
+            case OP_XOR -> {
+                // Parity so far may be 1 if it may be 1 and the input may be 0, or the reverse
+                one = 0L;
+                zero = -1L;
+                for (int i = from; i < to; i++) {
+                    long inputOne = i == forcedEdge ? forcedValue : ones[faninNets[i]];
+                    long inputZero = i == forcedEdge ? ~forcedValue : zeros[faninNets[i]];
+                    long nextOne = (one & inputZero) | (zero & inputOne);
+                    zero = (one & inputOne) | (zero & inputZero);
+                    one = nextOne;
+                }
+            }
+            default -> {
+                one = from == forcedEdge ? forcedValue : ones[faninNets[from]];
+                zero = from == forcedEdge ? ~forcedValue : zeros[faninNets[from]];
+            }
+        }
+        int out = inputCount + gate;
+        if (opcode == OP_NAND || opcode == OP_NOR || opcode == OP_NOT) {
+            ones[out] = zero;
+            zeros[out] = one;
+        } else {
+            ones[out] = one;
+            zeros[out] = zero;
+        }
+    }
+
+    /**
+     * Number of places a net is observed: gate inputs plus primary output appearances.
+     */
+    public int fanoutCount(int net) {
+        return fanoutStart[net + 1] - fanoutStart[net] + outputAppearances[net];
+    }
+
+    public boolean isPrimaryOutput(int net) {
+        return outputAppearances[net] > 0;
+    }
+
+    /**
+     * Returns the dense index of a net, or -1 if the circuit has no net with that id.
+     */
+    public int netIndex(int netId) {
+        int position = Arrays.binarySearch(sortedNetIds, netId);
+        return position < 0 ? -1 : sortedNetIndices[position];
+    }
+
+    public int getNetId(int net) {
+        return netIds[net];
+    }
+
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    public int getGateCount() {
+        return gateCount;
+    }
+
+    public int getNetCount() {
+        return inputCount + gateCount;
+    }
+
+    public int getOutputCount() {
+        return primaryOutputNets.length;
+    }
+
+    public int getLevelCount() {
+        return levelStart.length - 1;
+    }
+
+    /**
+     * The net driven by a gate.
+     */
+    public int gateOutputNet(int gate) {
+        return inputCount + gate;
+    }
+
+    /**
+     * The gate driving a net, or -1 for a primary input.
+     */
+    public int drivingGate(int net) {
+        return net < inputCount ? -1 : net - inputCount;
+    }
+
+    public byte[] getOpcodes() {
+        return opcodes;
+    }
+
+    public int[] getFaninStart() {
+        return faninStart;
+    }
+
+    public int[] getFaninNets() {
+        return faninNets;
+    }
+
+    public int[] getFanoutStart() {
+        return fanoutStart;
+    }
+
+    public int[] getFanoutGates() {
+        return fanoutGates;
+    }
+
+    public int[] getGateLevels() {
+        return gateLevels;
+    }
+
+    /**
+     * Gate offsets per level: the gates of level L are levelStart[L] until levelStart[L + 1].
+     */
+    public int[] getLevelStart() {
+        return levelStart;
+    }
+
+    public int[] getPrimaryOutputNets() {
+        return primaryOutputNets;
+    }
+
+    /**
+     * Approximate heap size of the circuit in bytes: its arrays, with their object headers.
+     */
+    public long getMemoryFootprint() {
+        return arrayBytes(opcodes.length, 1)
+                + arrayBytes(faninStart.length, 4) + arrayBytes(faninNets.length, 4)
+                + arrayBytes(fanoutStart.length, 4) + arrayBytes(fanoutGates.length, 4)
+                + arrayBytes(gateLevels.length, 4) + arrayBytes(levelStart.length, 4)
+                + arrayBytes(primaryOutputNets.length, 4) + arrayBytes(outputAppearances.length, 4)
+                + arrayBytes(netIds.length, 4) + arrayBytes(sortedNetIds.length, 4) + arrayBytes(sortedNetIndices.length, 4);
+    }
+
+    /**
+     * {@link #getMemoryFootprint()} per gate, the figure to compare across circuit sizes.
+     */
+    public double getBytesPerGate() {
+        return (double) getMemoryFootprint() / Math.max(1, gateCount);
+    }
+
+    // 16-byte array header, contents padded to 8 bytes
+    static long arrayBytes(long length, int elementBytes) {
+        return 16 + ((length * elementBytes + 7) & ~7L);
+    }
+
+    // Net ids in increasing order, and the dense index of each; used by CircuitSnapshot
+    int[] getSortedNetIds() {
+        return sortedNetIds;
+    }
+
+    int[] getSortedNetIndices() {
+        return sortedNetIndices;
+    }
+
+    public int[] getNetIds() {
+        return netIds;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+/**
+ * Event-driven simulator for sequences of input vectors. The first vector is evaluated in
+ * full; after that only primary inputs that changed create events, and a gate is
+ * re-evaluated only when one of its inputs changed. Events are processed through a
+ * level-ordered wheel and stop wherever a gate output keeps its previous value.
+ * Each instance owns its state, so use one instance per thread.
+ */
+public final class EventDrivenSimulator {
+    private final CompiledCircuit circuit;
+    private final int[] fanoutStart;
+    private final int[] fanoutGates;
+    private final int[] gateLevels;
+    private final int[] levelStart;
+    private final boolean[] values;
+    private final boolean[] scheduled;
+    private final int[] wheel;
+    private final int[] wheelFill;
+    private int lowestLevel = Integer.MAX_VALUE;
+    private int highestLevel;
+    private boolean initialized;
+    private long totalGateEvaluations;
+
+    public EventDrivenSimulator(CompiledCircuit circuit) {
+        this.circuit = circuit;
+        this.fanoutStart = circuit.getFanoutStart();
+        this.fanoutGates = circuit.getFanoutGates();
+        this.gateLevels = circuit.getGateLevels();
+        this.levelStart = circuit.getLevelStart();
+        this.values = new boolean[circuit.getNetCount()];
+        this.scheduled = new boolean[circuit.getGateCount()];
+        this.wheel = new int[circuit.getGateCount()];
+        this.wheelFill = new int[circuit.getLevelCount()];
+    }
+
+    /**
+     * Applies the next input vector.
+     *
+     * @param inputVector One value per primary input.
+     * @return The number of gate evaluations the vector needed.
+     */
+    public int apply(boolean[] inputVector) {
+        int inputCount = circuit.getInputCount();
+        if (inputVector.length != inputCount) {
+            throw new IllegalArgumentException("Mismatch: Number of inputs provided does not match the number of primary inputs in the circuit.");
+        }
+        int evaluations;
+        if (!initialized) {
+            System.arraycopy(inputVector, 0, values, 0, inputCount);
+            circuit.evaluate(values);
+            initialized = true;
+            evaluations = circuit.getGateCount();
+        } else {
+            for (int i = 0; i < inputCount; i++) {
+                if (values[i] != inputVector[i]) {
+                    values[i] = inputVector[i];
+                    schedule(i);
+                }
+            }
+            evaluations = run();
+        }
+        totalGateEvaluations += evaluations;
+        return evaluations;
+    }
+
+    /**
+     * Simulates a sequence of vectors in order.
+     *
+     * @param vectors One row per vector, one column per primary input.
+     */
+    public IncrementalSimulationResult simulate(boolean[][] vectors) {
+        int[] outputNets = circuit.getPrimaryOutputNets();
+        boolean[][] outputs = new boolean[vectors.length][outputNets.length];
+        int[] gateEvaluations = new int[vectors.length];
+        for (int v = 0; v < vectors.length; v++) {
+            gateEvaluations[v] = apply(vectors[v]);
+            for (int o = 0; o < outputNets.length; o++) {
+                outputs[v][o] = values[outputNets[o]];
+            }
+        }
+        return new IncrementalSimulationResult(outputs, gateEvaluations, circuit.getGateCount());
+    }
+
+    public boolean getValue(int net) {
+        return values[net];
+    }
+
+    public long getTotalGateEvaluations() {
+        return totalGateEvaluations;
+    }
+
+    private int run() {
+        int evaluations = 0;
+        for (int level = lowestLevel; level <= highestLevel; level++) {
+            int start = levelStart[level];
+            int end = start + wheelFill[level];
+            for (int i = start; i < end; i++) {
+                int gate = wheel[i];
+                scheduled[gate] = false;
+                evaluations++;
+                int net = circuit.gateOutputNet(gate);
+                boolean value = circuit.evaluateGate(gate, values);
+                if (value != values[net]) {
+                    values[net] = value;
+                    schedule(net);
+                }
+            }
+            wheelFill[level] = 0;
+        }
+        lowestLevel = Integer.MAX_VALUE;
+        highestLevel = 0;
+        return evaluations;
+    }
+
+    // Puts every reader of a changed net on the wheel, once
+    private void schedule(int net) {
+        for (int i = fanoutStart[net]; i < fanoutStart[net + 1]; i++) {
+            int gate = fanoutGates[i];
+            if (!scheduled[gate]) {
+                scheduled[gate] = true;
+                int level = gateLevels[gate];
+                wheel[levelStart[level] + wheelFill[level]++] = gate;
+                lowestLevel = Math.min(lowestLevel, level);
+                highestLevel = Math.max(highestLevel, level);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+/**
+ * Outputs and activity of an event-driven run over a sequence of vectors.
+ */
+public final class IncrementalSimulationResult {
+    private final boolean[][] outputs;
+    private final int[] gateEvaluations;
+    private final int gateCount;
+
+    public IncrementalSimulationResult(boolean[][] outputs, int[] gateEvaluations, int gateCount) {
+        this.outputs = outputs;
+        this.gateEvaluations = gateEvaluations;
+        this.gateCount = gateCount;
+    }
+
+    /**
+     * Primary output values, indexed by [vector][primary output].
+     */
+    public boolean[][] getOutputs() {
+        return outputs;
+    }
+
+    /**
+     * Number of gate evaluations needed by each vector.
+     */
+    public int[] getGateEvaluations() {
+        return gateEvaluations;
+    }
+
+    public long getTotalGateEvaluations() {
+        long total = 0;
+        for (int evaluations : gateEvaluations) {
+            total += evaluations;
+        }
+        return total;
+    }
+
+    /**
+     * Fraction of the work a full evaluation of every vector would have needed.
+     */
+    public double getActivity() {
+        long full = (long) gateCount * gateEvaluations.length;
+        return full == 0 ? 0.0 : (double) getTotalGateEvaluations() / full;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+/**
+ * Pattern generator with one 64-bit Galois LFSR per primary input, as in built-in
+ * self-test hardware. The feedback polynomial x^64 + x^63 + x^61 + x^60 + 1 is primitive,
+ * so every non-zero seed runs through a maximal-length sequence. Each input takes the next
+ * 64 output bits of its register for every block.
+ */
+public final class LfsrPatternGenerator implements PatternGenerator {
+    private static final long TAPS = 0xD800000000000000L;
+
+    private final long[] registers;
+
+    /**
+     * Seeds every input's register from one run seed.
+     */
+    public LfsrPatternGenerator(int inputCount, long seed) {
+        this(seedsFor(inputCount, seed));
+    }
+
+    /**
+     * @param seeds The initial register of every primary input.
+     * @throws IllegalArgumentException If a seed is zero, which would lock its register.
+     */
+    public LfsrPatternGenerator(long[] seeds) {
+        for (int i = 0; i < seeds.length; i++) {
+            if (seeds[i] == 0) {
+                throw new IllegalArgumentException("The LFSR seed of input " + i + " must not be zero.");
+            }
+        }
+        this.registers = seeds.clone();
+    }
+
+    @Override
+    public int getInputCount() {
+        return registers.length;
+    }
+
+    @Override
+    public void nextBlock(long[] inputWords) {
+        for (int i = 0; i < registers.length; i++) {
+            long state = registers[i];
+            long word = 0;
+            for (int k = 0; k < 64; k++) {
+                long out = state & 1;
+                word |= out << k;
+                state = (state >>> 1) ^ (-out & TAPS);
+            }
+            registers[i] = state;
+            inputWords[i] = word;
+        }
+    }
+
+    private static long[] seedsFor(int inputCount, long seed) {
+        long[] seeds = new long[inputCount];
+        for (int i = 0; i < inputCount; i++) {
+            long s = PatternGenerator.inputSeed(seed, i);
+            seeds[i] = s == 0 ? TAPS : s;
+        }
+        return seeds;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import java.util.Arrays;
+
+/**
+ * Interns sparse net ids into dense indices 0..size-1, in order of first appearance.
+ * Open addressing over primitive arrays, so interning never boxes or allocates per id.
+ */
+public final class NetIdTable {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] indices;
+    private int[] ids;
+    private int size;
+
+    public NetIdTable() {
+        this(1024);
+    }
+
+    public NetIdTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        keys = new int[capacity];
+        indices = new int[capacity];
+        Arrays.fill(indices, EMPTY);
+        ids = new int[Math.max(16, expectedSize)];
+    }
+
+    /**
+     * Returns the dense index of the id, assigning the next free index on first use.
+     */
+    public int intern(int id) {
+        int slot = slot(id);
+        if (indices[slot] != EMPTY) {
+            return indices[slot];
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size] = id;
+        keys[slot] = id;
+        indices[slot] = size;
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Returns the dense index of the id, or -1 if it was never interned.
+     */
+    public int lookup(int id) {
+        return indices[slot(id)];
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Approximate heap size of the table in bytes.
+     */
+    public long getMemoryFootprint() {
+        return CompiledCircuit.arrayBytes(keys.length, 4) + CompiledCircuit.arrayBytes(indices.length, 4)
+                + CompiledCircuit.arrayBytes(ids.length, 4);
+    }
+
+    // Linear probing from a mixed hash; stops at the id or at the first empty slot
+    private int slot(int id) {
+        int mask = keys.length - 1;
+        int slot = (id * 0x9E3779B9) >>> 7 & mask;
+        while (indices[slot] != EMPTY && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldIndices = indices;
+        keys = new int[oldKeys.length * 2];
+        indices = new int[oldKeys.length * 2];
+        Arrays.fill(indices, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldIndices[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                indices[slot] = oldIndices[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+import com.example.faultsimulator.fault_simulator_model.gates.Gate;
+import com.example.faultsimulator.fault_simulator_model.gates.GateType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Flat, unlevelized netlist as read from a bench file: primary inputs and outputs, and the
+ * gates in file order with their fan-in in CSR form. Net ids are interned into dense
+ * indices as they are added, so a netlist holds no object per net or per gate. It is the
+ * input of {@link CircuitCompiler}.
+ */
+public final class Netlist {
+    private final NetIdTable netIds = new NetIdTable();
+    private int[] primaryInputs = new int[16];
+    private int inputCount;
+    private int[] primaryOutputs = new int[16];
+    private int outputCount;
+    private byte[] gateTypes = new byte[64];
+    private int[] gateOutputs = new int[64];
+    private int[] faninStart = new int[65];
+    private int gateCount;
+    private int[] fanins = new int[128];
+    private int faninCount;
+
+    /**
+     * Converts the object model of a circuit, matching connections by net id.
+     */
+    public static Netlist fromGraph(CircuitGraph graph) {
+        Netlist netlist = new Netlist();
+        for (CircuitConnection input : graph.getPrimaryInputs()) {
+            netlist.addPrimaryInput(input.getId());
+        }
+        int[] faninIds = new int[4];
+        for (Gate gate : graph.getNodes().values()) {
+            List<CircuitConnection> inputs = gate.getInputs();
+            if (faninIds.length < inputs.size()) {
+                faninIds = new int[inputs.size()];
+            }
+            for (int i = 0; i < inputs.size(); i++) {
+                faninIds[i] = inputs.get(i).getId();
+            }
+            netlist.addGate(gate.getType(), gate.getOutput().getId(), faninIds, inputs.size());
+        }
+        for (CircuitConnection output : graph.getPrimaryOutputs()) {
+            netlist.addPrimaryOutput(output.getId());
+        }
+        return netlist;
+    }
+
+    public void addPrimaryInput(int netId) {
+        if (inputCount == primaryInputs.length) {
+            primaryInputs = Arrays.copyOf(primaryInputs, inputCount * 2);
+        }
+        primaryInputs[inputCount++] = netIds.intern(netId);
+    }
+
+    public void addPrimaryOutput(int netId) {
+        if (outputCount == primaryOutputs.length) {
+            primaryOutputs = Arrays.copyOf(primaryOutputs, outputCount * 2);
+        }
+        primaryOutputs[outputCount++] = netIds.intern(netId);
+    }
+
+    /**
+     * Adds a gate driving the given net.
+     *
+     * @param faninIds Net ids of the gate inputs; the first faninLength entries are used.
+     */
+    public void addGate(GateType type, int outputId, int[] faninIds, int faninLength) {
+        if (gateCount == gateTypes.length) {
+            gateTypes = Arrays.copyOf(gateTypes, gateCount * 2);
+            gateOutputs = Arrays.copyOf(gateOutputs, gateCount * 2);
+            faninStart = Arrays.copyOf(faninStart, gateCount * 2 + 1);
+        }
+        if (faninCount + faninLength > fanins.length) {
+            fanins = Arrays.copyOf(fanins, Math.max(fanins.length * 2, faninCount + faninLength));
+        }
+        gateTypes[gateCount] = type.getOpcode();
+        gateOutputs[gateCount] = netIds.intern(outputId);
+        for (int i = 0; i < faninLength; i++) {
+            fanins[faninCount++] = netIds.intern(faninIds[i]);
+        }
+        faninStart[++gateCount] = faninCount;
+    }
+
+    public int getNetCount() {
+        return netIds.size();
+    }
+
+    public int getNetId(int net) {
+        return netIds.getId(net);
+    }
+
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    /**
+     * Dense index of the i-th primary input.
+     */
+    public int getPrimaryInput(int i) {
+        return primaryInputs[i];
+    }
+
+    public int getOutputCount() {
+        return outputCount;
+    }
+
+    public int getPrimaryOutput(int i) {
+        return primaryOutputs[i];
+    }
+
+    public int getGateCount() {
+        return gateCount;
+    }
+
+    public byte getGateType(int gate) {
+        return gateTypes[gate];
+    }
+
+    /**
+     * Dense index of the net driven by a gate.
+     */
+    public int getGateOutput(int gate) {
+        return gateOutputs[gate];
+    }
+
+    public int getFaninStart(int gate) {
+        return faninStart[gate];
+    }
+
+    /**
+     * Dense index of the net read by a fan-in edge.
+     */
+    public int getFanin(int edge) {
+        return fanins[edge];
+    }
+
+    public int getFaninCount() {
+        return faninCount;
+    }
+
+    /**
+     * Approximate heap size of the netlist in bytes, including the spare capacity of its
+     * growing arrays and the id table.
+     */
+    public long getMemoryFootprint() {
+        return CompiledCircuit.arrayBytes(primaryInputs.length, 4) + CompiledCircuit.arrayBytes(primaryOutputs.length, 4)
+                + CompiledCircuit.arrayBytes(gateTypes.length, 1) + CompiledCircuit.arrayBytes(gateOutputs.length, 4)
+                + CompiledCircuit.arrayBytes(faninStart.length, 4) + CompiledCircuit.arrayBytes(fanins.length, 4)
+                + netIds.getMemoryFootprint();
+    }
+
+    /**
+     * Writes the netlist in bench format: inputs, outputs, then the gates in order.
+     */
+    public void writeBench(Writer out) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        for (int i = 0; i < inputCount; i++) {
+            out.write("INPUT(" + netIds.getId(primaryInputs[i]) + ")\n");
+        }
+        for (int i = 0; i < outputCount; i++) {
+            out.write("OUTPUT(" + netIds.getId(primaryOutputs[i]) + ")\n");
+        }
+        for (int g = 0; g < gateCount; g++) {
+            line.setLength(0);
+            line.append(netIds.getId(gateOutputs[g])).append(" = ").append(GateType.fromOpcode(gateTypes[g])).append('(');
+            for (int e = faninStart[g]; e < faninStart[g + 1]; e++) {
+                if (e > faninStart[g]) {
+                    line.append(", ");
+                }
+                line.append(netIds.getId(fanins[e]));
+            }
+            out.append(line).append(")\n");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+/**
+ * A circuit and its optimized form from {@link CircuitOptimizer}, with the mapping between
+ * their nets. Optimized nets keep the ids of the original nets they carry, so values can
+ * still be reported against the original netlist.
+ */
+public final class OptimizedCircuit {
+    private final CompiledCircuit original;
+    private final CompiledCircuit circuit;
+    // Per original net: optimized net * 2, plus one if it carries the complement; -1 if none
+    private final int[] mapping;
+
+    OptimizedCircuit(CompiledCircuit original, CompiledCircuit circuit, int[] mapping) {
+        this.original = original;
+        this.circuit = circuit;
+        this.mapping = mapping;
+    }
+
+    public CompiledCircuit getOriginal() {
+        return original;
+    }
+
+    /**
+     * The optimized circuit, with the original primary inputs and outputs in their order.
+     */
+    public CompiledCircuit getCircuit() {
+        return circuit;
+    }
+
+    /**
+     * The optimized net carrying the value of an original net, or its complement, see
+     * {@link #isInverted(int)}; -1 if no net does because the original net reaches no
+     * output or was merged into a larger gate.
+     */
+    public int getOptimizedNet(int originalNet) {
+        return mapping[originalNet] >> 1;
+    }
+
+    public boolean isInverted(int originalNet) {
+        return mapping[originalNet] >= 0 && (mapping[originalNet] & 1) != 0;
+    }
+
+    /**
+     * The original net whose id an optimized net carries, or -1 for nets with no original
+     * counterpart.
+     */
+    public int getOriginalNet(int optimizedNet) {
+        return original.netIndex(circuit.getNetId(optimizedNet));
+    }
+}
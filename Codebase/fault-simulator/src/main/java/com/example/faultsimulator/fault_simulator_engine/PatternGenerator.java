@@ -0,0 +1,30 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+/**
+ * Source of pseudo-random input patterns, produced 64 at a time in the packed layout of
+ * {@link PatternSet}. Every primary input has its own stream, so a run is reproduced
+ * exactly from the generator kind and its seeds.
+ */
+public interface PatternGenerator {
+
+    int getInputCount();
+
+    /**
+     * Fills the next block of 64 patterns.
+     *
+     * @param inputWords One word per primary input; bit k is the value of the input in
+     *                   pattern k of the block.
+     */
+    void nextBlock(long[] inputWords);
+
+    /**
+     * Derives the seed of one primary input from a run seed, so that inputs get unrelated
+     * streams from a single number (SplitMix64 finalizer).
+     */
+    static long inputSeed(long seed, int input) {
+        long z = seed + (input + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
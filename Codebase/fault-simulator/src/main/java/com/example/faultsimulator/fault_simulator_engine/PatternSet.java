@@ -0,0 +1,273 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A set of input patterns packed 64 to a word. Patterns are grouped into blocks of 64;
+ * block b holds one word per primary input, where bit k is the value of that input in
+ * pattern 64 * b + k. Bits past the last pattern of the final block are zero.
+ *
+ * Patterns may be partially specified: an optional second plane of the same shape marks
+ * the inputs that are X, and the value bit of an X input is zero.
+ */
+public final class PatternSet {
+    private final int inputCount;
+    private final int patternCount;
+    private final long[][] blocks;
+    // X planes shaped like blocks, or null if every pattern is fully specified
+    private final long[][] unknowns;
+
+    public PatternSet(int inputCount, int patternCount, long[][] blocks) {
+        this(inputCount, patternCount, blocks, null);
+    }
+
+    /**
+     * @param unknownBlocks Per block, one word per primary input with a bit set where the
+     *                      input is X, or null if every pattern is fully specified.
+     */
+    public PatternSet(int inputCount, int patternCount, long[][] blocks, long[][] unknownBlocks) {
+        if (blocks.length != blockCount(patternCount)) {
+            throw new IllegalArgumentException("Expected " + blockCount(patternCount) + " blocks for " + patternCount + " patterns.");
+        }
+        for (long[] block : blocks) {
+            if (block.length != inputCount) {
+                throw new IllegalArgumentException("Every block must hold one word per primary input.");
+            }
+        }
+        if (unknownBlocks != null) {
+            if (unknownBlocks.length != blocks.length) {
+                throw new IllegalArgumentException("Expected one X plane per block.");
+            }
+            for (int b = 0; b < blocks.length; b++) {
+                if (unknownBlocks[b] != null && unknownBlocks[b].length != inputCount) {
+                    throw new IllegalArgumentException("Every X plane must hold one word per primary input.");
+                }
+            }
+        }
+        this.inputCount = inputCount;
+        this.patternCount = patternCount;
+        this.blocks = blocks;
+        this.unknowns = unknownBlocks;
+    }
+
+    /**
+     * Packs a pattern matrix with one row per pattern and one column per primary input.
+     *
+     * @throws IllegalArgumentException If a row does not have one value per input.
+     */
+    public static PatternSet fromMatrix(int inputCount, boolean[][] patterns) {
+        long[][] blocks = new long[blockCount(patterns.length)][inputCount];
+        for (int p = 0; p < patterns.length; p++) {
+            if (patterns[p].length != inputCount) {
+                throw new IllegalArgumentException("Mismatch: Pattern " + p + " has " + patterns[p].length
+                        + " values but the circuit has " + inputCount + " primary inputs.");
+            }
+            long[] block = blocks[p >>> 6];
+            long bit = 1L << (p & 63);
+            for (int i = 0; i < inputCount; i++) {
+                if (patterns[p][i]) {
+                    block[i] |= bit;
+                }
+            }
+        }
+        return new PatternSet(inputCount, patterns.length, blocks);
+    }
+
+    /**
+     * Packs a partially specified pattern matrix, where a null value is X.
+     *
+     * @throws IllegalArgumentException If a row does not have one value per input.
+     */
+    public static PatternSet fromMatrix(int inputCount, Boolean[][] patterns) {
+        long[][] blocks = new long[blockCount(patterns.length)][inputCount];
+        long[][] unknownBlocks = null;
+        for (int p = 0; p < patterns.length; p++) {
+            if (patterns[p].length != inputCount) {
+                throw new IllegalArgumentException("Mismatch: Pattern " + p + " has " + patterns[p].length
+                        + " values but the circuit has " + inputCount + " primary inputs.");
+            }
+            long bit = 1L << (p & 63);
+            for (int i = 0; i < inputCount; i++) {
+                Boolean value = patterns[p][i];
+                if (value == null) {
+                    if (unknownBlocks == null) {
+                        unknownBlocks = new long[blocks.length][inputCount];
+                    }
+                    unknownBlocks[p >>> 6][i] |= bit;
+                } else if (value) {
+                    blocks[p >>> 6][i] |= bit;
+                }
+            }
+        }
+        return new PatternSet(inputCount, patterns.length, blocks, unknownBlocks);
+    }
+
+    /**
+     * Parses patterns written as one character per primary input: 0, 1, or X (also x or -)
+     * for an unspecified input.
+     *
+     * @throws IllegalArgumentException If a pattern has the wrong length or another character.
+     */
+    public static PatternSet fromStrings(int inputCount, List<String> patterns) {
+        Boolean[][] matrix = new Boolean[patterns.size()][];
+        for (int p = 0; p < matrix.length; p++) {
+            String pattern = patterns.get(p);
+            matrix[p] = new Boolean[pattern.length()];
+            for (int i = 0; i < matrix[p].length; i++) {
+                matrix[p][i] = switch (pattern.charAt(i)) {
+                    case '0' -> Boolean.FALSE;
+                    case '1' -> Boolean.TRUE;
+                    case 'X', 'x', '-' -> null;
+                    default -> throw new IllegalArgumentException("Invalid value '" + pattern.charAt(i)
+                            + "' in pattern " + p + "; expected 0, 1 or X.");
+                };
+            }
+        }
+        return fromMatrix(inputCount, matrix);
+    }
+
+    /**
+     * Unpacks a set written by {@link #toBytes()}.
+     *
+     * @throws IllegalArgumentException If the bytes do not hold a whole pattern set.
+     */
+    public static PatternSet fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < 12) {
+            throw new IllegalArgumentException("The data is not a pattern set.");
+        }
+        int inputCount = buffer.getInt();
+        int patternCount = buffer.getInt();
+        boolean hasUnknowns = buffer.getInt() != 0;
+        long words = (long) blockCount(patternCount) * inputCount * (hasUnknowns ? 2 : 1);
+        if (inputCount < 0 || patternCount < 0 || buffer.remaining() != words * Long.BYTES) {
+            throw new IllegalArgumentException("The data is not a whole pattern set.");
+        }
+        LongBuffer in = buffer.asLongBuffer();
+        long[][] blocks = new long[blockCount(patternCount)][inputCount];
+        for (long[] block : blocks) {
+            in.get(block);
+        }
+        long[][] unknownBlocks = null;
+        if (hasUnknowns) {
+            unknownBlocks = new long[blocks.length][inputCount];
+            for (long[] block : unknownBlocks) {
+                in.get(block);
+            }
+        }
+        return new PatternSet(inputCount, patternCount, blocks, unknownBlocks);
+    }
+
+    public static PatternSet fromLists(int inputCount, List<List<Boolean>> patterns) {
+        boolean[][] matrix = new boolean[patterns.size()][];
+        for (int p = 0; p < matrix.length; p++) {
+            List<Boolean> pattern = patterns.get(p);
+            matrix[p] = new boolean[pattern.size()];
+            for (int i = 0; i < matrix[p].length; i++) {
+                matrix[p][i] = pattern.get(i);
+            }
+        }
+        return fromMatrix(inputCount, matrix);
+    }
+
+    public static int blockCount(int patternCount) {
+        return (patternCount + 63) >>> 6;
+    }
+
+    /**
+     * A mask with one bit set per valid pattern of the given block.
+     */
+    public long blockMask(int block) {
+        int valid = patternCount - (block << 6);
+        return valid >= 64 ? -1L : (1L << valid) - 1;
+    }
+
+    /**
+     * The patterns at the given indices, in that order, packed into a new set.
+     */
+    public PatternSet select(int[] patternIndices) {
+        long[][] selected = new long[blockCount(patternIndices.length)][inputCount];
+        long[][] selectedUnknowns = unknowns == null ? null : new long[selected.length][inputCount];
+        for (int p = 0; p < patternIndices.length; p++) {
+            int source = Objects.checkIndex(patternIndices[p], patternCount);
+            long[] from = blocks[source >>> 6];
+            long[] to = selected[p >>> 6];
+            int shift = source & 63;
+            for (int i = 0; i < inputCount; i++) {
+                to[i] |= (from[i] >>> shift & 1L) << p;
+            }
+            long[] fromUnknown = unknowns == null ? null : unknowns[source >>> 6];
+            if (fromUnknown != null) {
+                long[] toUnknown = selectedUnknowns[p >>> 6];
+                for (int i = 0; i < inputCount; i++) {
+                    toUnknown[i] |= (fromUnknown[i] >>> shift & 1L) << p;
+                }
+            }
+        }
+        return new PatternSet(inputCount, patternIndices.length, selected, selectedUnknowns);
+    }
+
+    /**
+     * The set in a compact little-endian form: the input count, pattern count and whether
+     * there are X planes, then the words of every block, then those of every X plane.
+     */
+    public byte[] toBytes() {
+        int words = blocks.length * inputCount * (unknowns == null ? 1 : 2);
+        ByteBuffer buffer = ByteBuffer.allocate(12 + words * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(inputCount).putInt(patternCount).putInt(unknowns == null ? 0 : 1);
+        LongBuffer out = buffer.asLongBuffer();
+        for (long[] block : blocks) {
+            out.put(block);
+        }
+        if (unknowns != null) {
+            for (long[] block : unknowns) {
+                if (block == null) {
+                    out.position(out.position() + inputCount);
+                } else {
+                    out.put(block);
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    public boolean get(int pattern, int input) {
+        return (blocks[pattern >>> 6][input] >>> (pattern & 63) & 1L) != 0;
+    }
+
+    public boolean isUnknown(int pattern, int input) {
+        long[] unknown = getUnknownBlock(pattern >>> 6);
+        return unknown != null && (unknown[input] >>> (pattern & 63) & 1L) != 0;
+    }
+
+    public long[] getBlock(int block) {
+        return blocks[block];
+    }
+
+    /**
+     * The X plane of a block, or null if all its patterns are fully specified.
+     */
+    public long[] getUnknownBlock(int block) {
+        return unknowns == null ? null : unknowns[block];
+    }
+
+    public boolean hasUnknowns() {
+        return unknowns != null;
+    }
+
+    public int getBlockCount() {
+        return blocks.length;
+    }
+
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+}
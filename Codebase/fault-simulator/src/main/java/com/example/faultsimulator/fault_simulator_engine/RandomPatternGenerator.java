@@ -0,0 +1,49 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Pattern generator drawing every primary input from its own {@link SplittableRandom}.
+ * One call to the generator yields the 64 values of an input for a whole block, so this is
+ * the cheapest source of random patterns.
+ */
+public final class RandomPatternGenerator implements PatternGenerator {
+    private final SplittableRandom[] streams;
+
+    /**
+     * Seeds every input's stream from one run seed.
+     */
+    public RandomPatternGenerator(int inputCount, long seed) {
+        this(seedsFor(inputCount, seed));
+    }
+
+    /**
+     * @param seeds The seed of every primary input.
+     */
+    public RandomPatternGenerator(long[] seeds) {
+        this.streams = new SplittableRandom[seeds.length];
+        for (int i = 0; i < seeds.length; i++) {
+            streams[i] = new SplittableRandom(seeds[i]);
+        }
+    }
+
+    @Override
+    public int getInputCount() {
+        return streams.length;
+    }
+
+    @Override
+    public void nextBlock(long[] inputWords) {
+        for (int i = 0; i < streams.length; i++) {
+            inputWords[i] = streams[i].nextLong();
+        }
+    }
+
+    private static long[] seedsFor(int inputCount, long seed) {
+        long[] seeds = new long[inputCount];
+        for (int i = 0; i < inputCount; i++) {
+            seeds[i] = PatternGenerator.inputSeed(seed, i);
+        }
+        return seeds;
+    }
+}
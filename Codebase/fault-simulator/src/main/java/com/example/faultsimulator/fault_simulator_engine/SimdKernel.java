@@ -0,0 +1,70 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Gate loop of {@link SimdSimulator} on the incubating Vector API. It is the only class
+ * referring to jdk.incubator.vector, so that the simulator can fall back to plain words
+ * when the JVM was started without the module.
+ */
+final class SimdKernel {
+    // Constant, so the JIT compiles every vector operation to single instructions
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    private SimdKernel() {
+    }
+
+    /**
+     * Words per vector of the widest species the CPU supports: 8 with AVX-512, 4 with AVX2.
+     */
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Evaluates every gate over {@link #lanes()} words per net, the words of net n at
+     * n * lanes() onwards; the primary input words must be loaded.
+     */
+    static void evaluate(CompiledCircuit circuit, long[] values) {
+        byte[] opcodes = circuit.getOpcodes();
+        int[] faninStart = circuit.getFaninStart();
+        int[] faninNets = circuit.getFaninNets();
+        int lanes = SPECIES.length();
+        int out = circuit.getInputCount() * lanes;
+        for (int g = 0; g < opcodes.length; g++, out += lanes) {
+            int from = faninStart[g];
+            int to = faninStart[g + 1];
+            LongVector result = LongVector.fromArray(SPECIES, values, faninNets[from] * lanes);
+            switch (opcodes[g]) {
+                case CompiledCircuit.OP_AND, CompiledCircuit.OP_NAND -> {
+                    for (int i = from + 1; i < to; i++) {
+                        result = result.and(LongVector.fromArray(SPECIES, values, faninNets[i] * lanes));
+                    }
+                    if (opcodes[g] == CompiledCircuit.OP_NAND) {
+                        result = result.not();
+                    }
+                }
+                case CompiledCircuit.OP_OR, CompiledCircuit.OP_NOR -> {
+                    for (int i = from + 1; i < to; i++) {
+                        result = result.or(LongVector.fromArray(SPECIES, values, faninNets[i] * lanes));
+                    }
+                    if (opcodes[g] == CompiledCircuit.OP_NOR) {
+                        result = result.not();
+                    }
+                }
+                case CompiledCircuit.OP_XOR -> {
+                    for (int i = from + 1; i < to; i++) {
+                        result = result.lanewise(VectorOperators.XOR, LongVector.fromArray(SPECIES, values, faninNets[i] * lanes));
+                    }
+                }
+                case CompiledCircuit.OP_NOT -> result = result.not();
+                default -> {
+                    // Buffer: the input word as is
+                }
+            }
+            result.intoArray(values, out);
+        }
+    }
+}
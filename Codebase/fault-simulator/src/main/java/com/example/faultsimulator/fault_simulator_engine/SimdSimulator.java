@@ -0,0 +1,158 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+/**
+ * Good-machine simulator that evaluates several blocks of 64 patterns per gate operation:
+ * every net holds one word per block, {@link #getLanes()} blocks side by side, and each gate
+ * is evaluated on all of them at once with the Vector API. The lanes are those of the
+ * widest vector the CPU supports, 8 blocks (512 patterns) with AVX-512 and 4 with AVX2.
+ *
+ * The Vector API is an incubator module, so the JVM must be started with
+ * {@code --add-modules jdk.incubator.vector}. Without it, or without a vector unit, the
+ * simulator falls back to one plain word per net as in {@link BitParallelSimulator}, with
+ * the same results. Blocks holding X inputs are simulated three-valued one at a time. Each
+ * instance owns its value buffer, so use one instance per thread.
+ */
+public final class SimdSimulator {
+    private static final int VECTOR_LANES = vectorLanes();
+
+    private final CompiledCircuit circuit;
+    private final int lanes;
+    // Word of net n for block k of the last pass at n * lanes + k
+    private final long[] values;
+    private final BitParallelSimulator ternarySimulator;
+
+    public SimdSimulator(CompiledCircuit circuit) {
+        this(circuit, true);
+    }
+
+    /**
+     * @param vectorize Whether to use the Vector API where it is available; false always
+     *                  simulates plain words.
+     */
+    public SimdSimulator(CompiledCircuit circuit, boolean vectorize) {
+        this.circuit = circuit;
+        this.lanes = vectorize ? VECTOR_LANES : 1;
+        this.values = new long[circuit.getNetCount() * lanes];
+        this.ternarySimulator = new BitParallelSimulator(circuit);
+    }
+
+    // Lanes of the preferred species if the module was added at startup, otherwise 1
+    private static int vectorLanes() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return 1;
+        }
+        try {
+            return Math.max(1, SimdKernel.lanes());
+        } catch (LinkageError e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Whether this JVM can run the Vector API form, with more than one block per pass.
+     */
+    public static boolean isVectorApiAvailable() {
+        return VECTOR_LANES > 1;
+    }
+
+    /**
+     * Blocks of 64 patterns evaluated per pass.
+     */
+    public int getLanes() {
+        return lanes;
+    }
+
+    public boolean isVectorized() {
+        return lanes > 1;
+    }
+
+    /**
+     * Simulates consecutive fully specified blocks of a pattern set in one pass.
+     *
+     * @param blockCount Number of blocks, at most {@link #getLanes()}.
+     * @return The words of every net, reused by the next call: net n under block
+     * firstBlock + k at index n * getLanes() + k. Lanes past blockCount hold no patterns.
+     * @throws IllegalArgumentException If the blocks are outside the set, too many, or hold X
+     *                                  inputs.
+     */
+    public long[] simulateBlocks(PatternSet patterns, int firstBlock, int blockCount) {
+        if (patterns.getInputCount() != circuit.getInputCount()) {
+            throw new IllegalArgumentException("Mismatch: Number of inputs provided does not match the number of primary inputs in the circuit.");
+        }
+        if (blockCount < 1 || blockCount > lanes || firstBlock < 0 || firstBlock + blockCount > patterns.getBlockCount()) {
+            throw new IllegalArgumentException("Cannot simulate " + blockCount + " blocks from block " + firstBlock
+                    + " in passes of " + lanes + " over " + patterns.getBlockCount() + " blocks.");
+        }
+        int inputCount = circuit.getInputCount();
+        for (int k = 0; k < lanes; k++) {
+            long[] inputWords = k < blockCount ? patterns.getBlock(firstBlock + k) : null;
+            if (inputWords != null && patterns.getUnknownBlock(firstBlock + k) != null) {
+                throw new IllegalArgumentException("Block " + (firstBlock + k) + " holds X inputs.");
+            }
+            for (int i = 0; i < inputCount; i++) {
+                values[i * lanes + k] = inputWords == null ? 0L : inputWords[i];
+            }
+        }
+        if (lanes > 1) {
+            SimdKernel.evaluate(circuit, values);
+        } else {
+            circuit.evaluate(values);
+        }
+        return values;
+    }
+
+    /**
+     * Copies the words of one block of the last pass into one word per net, the layout of
+     * {@link CompiledCircuit#evaluate(long[])}.
+     *
+     * @param lane Index of the block within the pass.
+     */
+    public void copyBlock(int lane, long[] target) {
+        int netCount = circuit.getNetCount();
+        for (int net = 0, i = lane; net < netCount; net++, i += lanes) {
+            target[net] = values[i];
+        }
+    }
+
+    /**
+     * Simulates a whole pattern set, with the same results as
+     * {@link BitParallelSimulator#simulate(PatternSet)}: outputs that are X are reported as 0.
+     *
+     * @return The packed responses, indexed by [primary output][block]. Bits past the last
+     * pattern are cleared.
+     */
+    public long[][] simulate(PatternSet patterns) {
+        if (patterns.getInputCount() != circuit.getInputCount()) {
+            throw new IllegalArgumentException("Mismatch: Number of inputs provided does not match the number of primary inputs in the circuit.");
+        }
+        int[] outputNets = circuit.getPrimaryOutputNets();
+        int blockCount = patterns.getBlockCount();
+        long[][] responses = new long[outputNets.length][blockCount];
+        int b = 0;
+        while (b < blockCount) {
+            if (patterns.getUnknownBlock(b) != null) {
+                long[] ones = ternarySimulator.simulateBlock(patterns.getBlock(b), patterns.getUnknownBlock(b));
+                long[] zeros = ternarySimulator.getZeros();
+                long mask = patterns.blockMask(b);
+                for (int o = 0; o < outputNets.length; o++) {
+                    responses[o][b] = ones[outputNets[o]] & ~zeros[outputNets[o]] & mask;
+                }
+                b++;
+                continue;
+            }
+            int blocks = 1;
+            while (blocks < lanes && b + blocks < blockCount && patterns.getUnknownBlock(b + blocks) == null) {
+                blocks++;
+            }
+            simulateBlocks(patterns, b, blocks);
+            for (int o = 0; o < outputNets.length; o++) {
+                int base = outputNets[o] * lanes;
+                for (int k = 0; k < blocks; k++) {
+                    responses[o][b + k] = values[base + k] & patterns.blockMask(b + k);
+                }
+            }
+            b += blocks;
+        }
+        return responses;
+    }
+}
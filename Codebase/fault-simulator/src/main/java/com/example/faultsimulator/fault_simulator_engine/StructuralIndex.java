@@ -0,0 +1,156 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+/**
+ * Structural facts about a compiled circuit that fault analysis builds on: fanout stems,
+ * the fanout-free region (FFR) every net belongs to, and the dominator tree of the paths
+ * to the primary outputs.
+ *
+ * An FFR is a tree of nets that each feed exactly one gate input and are not primary
+ * outputs; its root is a stem, a primary output, or a net nobody reads. A value change on
+ * a net of an FFR can only leave the region through its root. A net d dominates a net n
+ * when every path from n to a primary output passes through d; the immediate dominator is
+ * the closest such net. Nets whose paths share no net have only the set of outputs as
+ * dominator, reported as -1.
+ *
+ * Both are computed in one backward pass over the level order, so building an index is
+ * linear in the size of the circuit.
+ */
+public final class StructuralIndex {
+    private final CompiledCircuit circuit;
+    private final int[] ffrRoots;
+    private final int[] fanoutEdges;
+    private final int[] dominators;
+    private final boolean[] observable;
+    private final int[] roots;
+
+    private StructuralIndex(CompiledCircuit circuit, int[] ffrRoots, int[] fanoutEdges, int[] dominators,
+                            boolean[] observable, int[] roots) {
+        this.circuit = circuit;
+        this.ffrRoots = ffrRoots;
+        this.fanoutEdges = fanoutEdges;
+        this.dominators = dominators;
+        this.observable = observable;
+        this.roots = roots;
+    }
+
+    public static StructuralIndex build(CompiledCircuit circuit) {
+        int netCount = circuit.getNetCount();
+        int inputCount = circuit.getInputCount();
+        int[] faninStart = circuit.getFaninStart();
+        int[] faninNets = circuit.getFaninNets();
+        int[] fanoutStart = circuit.getFanoutStart();
+        int[] fanoutGates = circuit.getFanoutGates();
+        int[] ffrRoots = new int[netCount];
+        int[] fanoutEdges = new int[netCount];
+        boolean[] observable = new boolean[netCount];
+        // The virtual sink behind all outputs gets index netCount, above every net, so a
+        // dominator always has a higher index than the nets it dominates
+        int sink = netCount;
+        int[] dominators = new int[netCount + 1];
+        dominators[sink] = sink;
+        int rootCount = 0;
+
+        // Nets are numbered in topological order, so readers are always visited first
+        for (int net = netCount - 1; net >= 0; net--) {
+            boolean output = circuit.isPrimaryOutput(net);
+            int fanoutCount = fanoutStart[net + 1] - fanoutStart[net];
+            if (fanoutCount == 1 && !output) {
+                int gate = fanoutGates[fanoutStart[net]];
+                int edge = faninStart[gate];
+                while (faninNets[edge] != net) {
+                    edge++;
+                }
+                fanoutEdges[net] = edge;
+                ffrRoots[net] = ffrRoots[inputCount + gate];
+            } else {
+                fanoutEdges[net] = -1;
+                ffrRoots[net] = net;
+                rootCount++;
+            }
+
+            int dominator = output ? sink : -1;
+            for (int i = fanoutStart[net]; i < fanoutStart[net + 1] && dominator != sink; i++) {
+                int reader = inputCount + fanoutGates[i];
+                if (observable[reader]) {
+                    dominator = dominator < 0 ? reader : intersect(dominators, dominator, reader);
+                }
+            }
+            observable[net] = dominator >= 0;
+            dominators[net] = dominator;
+        }
+
+        int[] roots = new int[rootCount];
+        int[] netDominators = new int[netCount];
+        for (int net = 0, r = 0; net < netCount; net++) {
+            if (fanoutEdges[net] < 0) {
+                roots[r++] = net;
+            }
+            netDominators[net] = dominators[net] == sink ? -1 : dominators[net];
+        }
+        return new StructuralIndex(circuit, ffrRoots, fanoutEdges, netDominators, observable, roots);
+    }
+
+    // Closest common dominator of two nets, walking up from whichever is lower
+    private static int intersect(int[] dominators, int a, int b) {
+        while (a != b) {
+            if (a < b) {
+                a = dominators[a];
+            } else {
+                b = dominators[b];
+            }
+        }
+        return a;
+    }
+
+    public CompiledCircuit getCircuit() {
+        return circuit;
+    }
+
+    /**
+     * Whether the net feeds more than one gate input.
+     */
+    public boolean isStem(int net) {
+        int[] fanoutStart = circuit.getFanoutStart();
+        return fanoutStart[net + 1] - fanoutStart[net] > 1;
+    }
+
+    public boolean isFfrRoot(int net) {
+        return fanoutEdges[net] < 0;
+    }
+
+    /**
+     * The root of the fanout-free region the net belongs to; a root is its own.
+     */
+    public int getFfrRoot(int net) {
+        return ffrRoots[net];
+    }
+
+    /**
+     * The fan-in edge that reads a net inside a fanout-free region, or -1 for a root.
+     */
+    public int getFanoutEdge(int net) {
+        return fanoutEdges[net];
+    }
+
+    /**
+     * The closest net every path from the net to a primary output passes through, or -1 if
+     * there is none (including for nets that are outputs themselves or reach no output).
+     */
+    public int getImmediateDominator(int net) {
+        return dominators[net];
+    }
+
+    /**
+     * Whether some path leads from the net to a primary output.
+     */
+    public boolean isObservable(int net) {
+        return observable[net];
+    }
+
+    /**
+     * Roots of all fanout-free regions, in increasing net order.
+     */
+    public int[] getFfrRoots() {
+        return roots;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_model.gates.GateType;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates random combinational netlists of any size, for scaling tests and benchmarks
+ * beyond the ISCAS-85 circuits. Gates go straight into a {@link Netlist}, so a circuit of
+ * ten million gates is generated without any per-gate objects.
+ *
+ * The gates are spread evenly over a given number of levels. Each gate reads a net of the
+ * level below it, preferring one nobody has read yet, and draws its other inputs from the
+ * two levels below, which gives reconvergent fanout. So every net is read, except the last
+ * level and any left over where a level is wider than the next; those become the primary
+ * outputs. Net ids are sparse, as in ISCAS netlists, so they go through the same interning
+ * as parsed ones.
+ */
+public final class SyntheticNetlistGenerator {
+    // Gap between consecutive net ids
+    private static final int ID_STRIDE = 3;
+    // Gate types with their weights out of 20
+    private static final GateType[] TYPES = {
+            GateType.NAND, GateType.NAND, GateType.NAND, GateType.NAND, GateType.NAND,
+            GateType.AND, GateType.AND, GateType.AND,
+            GateType.NOR, GateType.NOR, GateType.NOR,
+            GateType.OR, GateType.OR, GateType.OR,
+            GateType.XOR, GateType.XOR,
+            GateType.NOT, GateType.NOT, GateType.NOT,
+            GateType.BUFF};
+
+    private final int inputCount;
+    private final int gateCount;
+    private final int maxFanin;
+    private final int depth;
+    private final long seed;
+
+    /**
+     * @param maxFanin Most inputs of an AND, NAND, OR, NOR or XOR gate; two-input gates are
+     *                 the most common.
+     * @param depth    Number of gate levels.
+     * @throws IllegalArgumentException If the sizes are out of range.
+     */
+    public SyntheticNetlistGenerator(int inputCount, int gateCount, int maxFanin, int depth, long seed) {
+        if (inputCount < 2 || gateCount < 1 || maxFanin < 2 || depth < 1 || depth > gateCount) {
+            throw new IllegalArgumentException("A synthetic netlist needs at least two inputs, one gate, a fan-in of"
+                    + " at least two and between one level and one level per gate.");
+        }
+        if ((inputCount + (long) gateCount) * ID_STRIDE >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many nets for int net ids: " + inputCount + " inputs and "
+                    + gateCount + " gates.");
+        }
+        this.inputCount = inputCount;
+        this.gateCount = gateCount;
+        this.maxFanin = maxFanin;
+        this.depth = depth;
+        this.seed = seed;
+    }
+
+    /**
+     * Generates the netlist; the same arguments always give the same netlist.
+     */
+    public Netlist generate() {
+        SplittableRandom random = new SplittableRandom(seed);
+        boolean[] read = new boolean[inputCount + gateCount];
+        Netlist netlist = new Netlist();
+        for (int i = 0; i < inputCount; i++) {
+            netlist.addPrimaryInput(netId(i));
+        }
+        int[] fanin = new int[maxFanin];
+        int[] faninIds = new int[maxFanin];
+        // Nets of the level below, and of the two levels below
+        int below = 0;
+        int belowEnd = inputCount;
+        int twoBelow = 0;
+        for (int level = 0; level < depth; level++) {
+            int start = inputCount + (int) ((long) gateCount * level / depth);
+            int end = inputCount + (int) ((long) gateCount * (level + 1) / depth);
+            // Oldest net of the level below not read yet
+            int cursor = below;
+            for (int net = start; net < end; net++) {
+                while (cursor < belowEnd && read[cursor]) {
+                    cursor++;
+                }
+                GateType type = TYPES[random.nextInt(TYPES.length)];
+                int length = type == GateType.NOT || type == GateType.BUFF ? 1
+                        : random.nextInt(4) != 0 ? 2 : 2 + random.nextInt(maxFanin - 1);
+                fanin[0] = cursor < belowEnd ? cursor : below + random.nextInt(belowEnd - below);
+                for (int i = 1; i < length; i++) {
+                    int candidate;
+                    do {
+                        candidate = twoBelow + random.nextInt(belowEnd - twoBelow);
+                    } while (contains(fanin, i, candidate) && i < belowEnd - twoBelow);
+                    fanin[i] = candidate;
+                }
+                for (int i = 0; i < length; i++) {
+                    read[fanin[i]] = true;
+                    faninIds[i] = netId(fanin[i]);
+                }
+                netlist.addGate(type, netId(net), faninIds, length);
+            }
+            addUnreadOutputs(netlist, read, Math.max(inputCount, below), belowEnd);
+            twoBelow = below;
+            below = start;
+            belowEnd = end;
+        }
+        addUnreadOutputs(netlist, read, below, belowEnd);
+        return netlist;
+    }
+
+    private static void addUnreadOutputs(Netlist netlist, boolean[] read, int from, int to) {
+        for (int net = from; net < to; net++) {
+            if (!read[net]) {
+                netlist.addPrimaryOutput(netId(net));
+            }
+        }
+    }
+
+    private static int netId(int net) {
+        return 1 + net * ID_STRIDE;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
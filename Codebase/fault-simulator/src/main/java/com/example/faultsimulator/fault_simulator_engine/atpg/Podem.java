@@ -0,0 +1,469 @@
+package com.example.faultsimulator.fault_simulator_engine.atpg;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.faults.StuckAtFault;
+
+import java.util.Arrays;
+
+/**
+ * PODEM (path-oriented decision making) test generation for single stuck-at faults.
+ * Decisions are only made on primary inputs: an objective (activate the fault, then move
+ * the fault effect through the D-frontier gate that is easiest to observe) is traced back
+ * to an unassigned input along the easiest or hardest fan-in according to SCOAP, the input
+ * is assigned, and the good and faulty circuits are implied in three-valued logic. When
+ * the fault can no longer be activated or propagated, the latest decision is flipped, and
+ * a decision tried both ways is undone.
+ *
+ * A fault is redundant when the decision tree is exhausted, and aborted when the
+ * backtrack limit is reached first. The tree can be searched in another order with
+ * {@link #setAlternateBacktrace(boolean)}, which settles many faults the default order
+ * aborts on. Instances keep scratch state sized for the circuit, so use one per thread.
+ */
+public final class Podem {
+
+    public enum Outcome {
+        /** A test cube was found; see {@link #getInputValue(int)}. */
+        DETECTED,
+        /** No input assignment detects the fault. */
+        REDUNDANT,
+        /** The backtrack limit was reached before a test or a proof of redundancy. */
+        ABORTED
+    }
+
+    /** Three-valued logic values, as held per net in each frame. */
+    public static final byte ZERO = 0;
+    public static final byte ONE = 1;
+    public static final byte X = 2;
+
+    private final CompiledCircuit circuit;
+    private final Scoap scoap;
+    private final int inputCount;
+    private final byte[] opcodes;
+    private final int[] faninStart;
+    private final int[] faninNets;
+    private final int[] fanoutStart;
+    private final int[] fanoutGates;
+    private final int[] gateLevels;
+    private final int[] levelStart;
+
+    // Good and faulty circuit values per net
+    private final byte[] good;
+    private final byte[] faulty;
+
+    // Gates waiting for implication, bucketed by level
+    private final boolean[] scheduled;
+    private final int[] buckets;
+    private final int[] bucketFill;
+    private int lowestLevel = Integer.MAX_VALUE;
+    private int highestLevel;
+
+    // Fanout cone of the fault site, in level order, and the primary outputs it reaches
+    private final boolean[] inCone;
+    private final int[] coneGates;
+    private int coneSize;
+    private final int[] coneOutputs;
+    private int coneOutputCount;
+    // Per cone gate: whether an X-path leads from its output to a primary output
+    private final boolean[] xPath;
+
+    // Decision stack of primary input assignments
+    private final int[] decisionInputs;
+    private final boolean[] decisionFlipped;
+    private int decisions;
+
+    // Fault under test; the stem net is -1 for a branch fault, the branch edge -1 for a stem fault
+    private int siteNet;
+    private int stemNet;
+    private int branchGate;
+    private int branchEdge;
+    private byte stuck;
+
+    private int objectiveNet;
+    private byte objectiveValue;
+    private int backtracks;
+    private boolean alternateBacktrace;
+
+    public Podem(CompiledCircuit circuit, Scoap scoap) {
+        this.circuit = circuit;
+        this.scoap = scoap;
+        this.inputCount = circuit.getInputCount();
+        this.opcodes = circuit.getOpcodes();
+        this.faninStart = circuit.getFaninStart();
+        this.faninNets = circuit.getFaninNets();
+        this.fanoutStart = circuit.getFanoutStart();
+        this.fanoutGates = circuit.getFanoutGates();
+        this.gateLevels = circuit.getGateLevels();
+        this.levelStart = circuit.getLevelStart();
+        this.good = new byte[circuit.getNetCount()];
+        this.faulty = new byte[circuit.getNetCount()];
+        this.scheduled = new boolean[circuit.getGateCount()];
+        this.buckets = new int[circuit.getGateCount()];
+        this.bucketFill = new int[circuit.getLevelCount()];
+        this.inCone = new boolean[circuit.getGateCount()];
+        this.coneGates = new int[circuit.getGateCount()];
+        this.coneOutputs = new int[circuit.getNetCount()];
+        this.xPath = new boolean[circuit.getGateCount()];
+        this.decisionInputs = new int[inputCount];
+        this.decisionFlipped = new boolean[inputCount];
+    }
+
+    /**
+     * Searches for a test of the fault.
+     *
+     * @param backtrackLimit Decisions that may be reversed before giving up.
+     */
+    public Outcome generate(StuckAtFault fault, int backtrackLimit) {
+        setUp(fault);
+        while (true) {
+            if (detected()) {
+                return Outcome.DETECTED;
+            }
+            if (objective()) {
+                int input = backtrace();
+                decisionInputs[decisions] = input;
+                decisionFlipped[decisions++] = false;
+                assign(input, objectiveValue);
+                continue;
+            }
+            // Conflict: flip the latest untried decision, undoing those tried both ways
+            while (true) {
+                if (decisions == 0) {
+                    return Outcome.REDUNDANT;
+                }
+                int top = decisions - 1;
+                int input = decisionInputs[top];
+                if (!decisionFlipped[top]) {
+                    if (++backtracks > backtrackLimit) {
+                        return Outcome.ABORTED;
+                    }
+                    decisionFlipped[top] = true;
+                    assign(input, (byte) (1 - good[input]));
+                    break;
+                }
+                decisions--;
+                assign(input, X);
+            }
+        }
+    }
+
+    /**
+     * @param alternate Whether the backtrace follows the fan-in hardest to set to the
+     *                  controlling value, where one such input suffices, instead of the
+     *                  easiest. Off by default.
+     */
+    public void setAlternateBacktrace(boolean alternate) {
+        this.alternateBacktrace = alternate;
+    }
+
+    /**
+     * Value of a primary input in the last test cube: {@link #ZERO}, {@link #ONE}, or
+     * {@link #X} when the test does not depend on it.
+     */
+    public byte getInputValue(int input) {
+        return good[input];
+    }
+
+    /**
+     * Backtracks made for the last fault.
+     */
+    public int getBacktracks() {
+        return backtracks;
+    }
+
+    private void setUp(StuckAtFault fault) {
+        Arrays.fill(good, X);
+        Arrays.fill(faulty, X);
+        for (int i = 0; i < coneSize; i++) {
+            inCone[coneGates[i]] = false;
+        }
+        coneSize = 0;
+        coneOutputCount = 0;
+        decisions = 0;
+        backtracks = 0;
+
+        siteNet = fault.getNet();
+        stuck = fault.isStuckAtOne() ? ONE : ZERO;
+        if (fault.isBranch()) {
+            stemNet = -1;
+            branchGate = fault.getBranchGate();
+            branchEdge = faninStart[branchGate] + fault.getBranchPin();
+            addToCone(branchGate);
+        } else {
+            stemNet = siteNet;
+            branchGate = -1;
+            branchEdge = -1;
+            faulty[siteNet] = stuck;
+            if (circuit.isPrimaryOutput(siteNet)) {
+                coneOutputs[coneOutputCount++] = siteNet;
+            }
+            for (int i = fanoutStart[siteNet]; i < fanoutStart[siteNet + 1]; i++) {
+                addToCone(fanoutGates[i]);
+            }
+        }
+        // Gates are numbered in level order, so the breadth-first list only needs sorting
+        for (int i = 0; i < coneSize; i++) {
+            int out = inputCount + coneGates[i];
+            for (int j = fanoutStart[out]; j < fanoutStart[out + 1]; j++) {
+                addToCone(fanoutGates[j]);
+            }
+        }
+        Arrays.sort(coneGates, 0, coneSize);
+        for (int i = 0; i < coneSize; i++) {
+            int out = inputCount + coneGates[i];
+            if (circuit.isPrimaryOutput(out)) {
+                coneOutputs[coneOutputCount++] = out;
+            }
+        }
+
+        // The stuck value alone may already decide some faulty gates
+        if (branchGate >= 0) {
+            schedule(branchGate);
+        } else {
+            scheduleReaders(siteNet);
+        }
+        imply();
+    }
+
+    private void addToCone(int gate) {
+        if (!inCone[gate]) {
+            inCone[gate] = true;
+            coneGates[coneSize++] = gate;
+        }
+    }
+
+    private boolean detected() {
+        for (int i = 0; i < coneOutputCount; i++) {
+            int net = coneOutputs[i];
+            if (good[net] != X && faulty[net] != X && good[net] != faulty[net]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Sets the next objective, or returns false if the fault can no longer be detected
+    private boolean objective() {
+        if (good[siteNet] == stuck) {
+            return false;
+        }
+        if (good[siteNet] == X) {
+            objectiveNet = siteNet;
+            objectiveValue = (byte) (1 - stuck);
+            return true;
+        }
+        // Activated: pick the D-frontier gate easiest to observe, then an unassigned input of
+        // it. Gates whose output can no longer reach a primary output through unknown values
+        // are skipped, which prunes most hopeless branches early.
+        markXPaths();
+        int bestGate = -1;
+        int bestCost = Integer.MAX_VALUE;
+        for (int i = 0; i < coneSize; i++) {
+            int gate = coneGates[i];
+            int out = inputCount + gate;
+            if (!xPath[gate] || !hasErrorInput(gate) || unassignedInput(gate) < 0) {
+                continue;
+            }
+            int cost = scoap.observability(out);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestGate = gate;
+            }
+        }
+        if (bestGate < 0) {
+            return false;
+        }
+        objectiveNet = faninNets[unassignedInput(bestGate)];
+        byte opcode = opcodes[bestGate];
+        // The non-controlling value lets the fault effect through; XOR passes it either way
+        objectiveValue = opcode == CompiledCircuit.OP_AND || opcode == CompiledCircuit.OP_NAND ? ONE : ZERO;
+        return true;
+    }
+
+    // Cone gates are in level order, so every reader of a gate is marked before the gate
+    private void markXPaths() {
+        for (int i = coneSize - 1; i >= 0; i--) {
+            int gate = coneGates[i];
+            int out = inputCount + gate;
+            boolean path = false;
+            if (good[out] == X || faulty[out] == X) {
+                path = circuit.isPrimaryOutput(out);
+                for (int j = fanoutStart[out]; j < fanoutStart[out + 1] && !path; j++) {
+                    path = xPath[fanoutGates[j]];
+                }
+            }
+            xPath[gate] = path;
+        }
+    }
+
+    private boolean hasErrorInput(int gate) {
+        for (int e = faninStart[gate]; e < faninStart[gate + 1]; e++) {
+            byte g = good[faninNets[e]];
+            byte f = e == branchEdge ? stuck : faulty[faninNets[e]];
+            if (g != X && f != X && g != f) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // An edge of the gate whose good value is unassigned, or -1
+    private int unassignedInput(int gate) {
+        for (int e = faninStart[gate]; e < faninStart[gate + 1]; e++) {
+            if (good[faninNets[e]] == X) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    // Follows the objective back to an unassigned primary input, updating the objective value
+    private int backtrace() {
+        int net = objectiveNet;
+        byte value = objectiveValue;
+        while (net >= inputCount) {
+            int gate = net - inputCount;
+            int from = faninStart[gate];
+            int to = faninStart[gate + 1];
+            byte opcode = opcodes[gate];
+            int next = -1;
+            switch (opcode) {
+                case CompiledCircuit.OP_NOT -> {
+                    value = (byte) (1 - value);
+                    next = faninNets[from];
+                }
+                case CompiledCircuit.OP_BUFF -> next = faninNets[from];
+                case CompiledCircuit.OP_XOR -> {
+                    int parity = 0;
+                    int bestCost = Integer.MAX_VALUE;
+                    for (int e = from; e < to; e++) {
+                        int in = faninNets[e];
+                        if (good[in] != X) {
+                            parity ^= good[in];
+                        } else {
+                            int cost = Math.min(scoap.cc0(in), scoap.cc1(in));
+                            if (cost < bestCost) {
+                                bestCost = cost;
+                                next = in;
+                            }
+                        }
+                    }
+                    value = (byte) (value ^ parity);
+                }
+                default -> {
+                    boolean inverting = opcode == CompiledCircuit.OP_NAND || opcode == CompiledCircuit.OP_NOR;
+                    byte controlling = opcode == CompiledCircuit.OP_OR || opcode == CompiledCircuit.OP_NOR ? ONE : ZERO;
+                    if (inverting) {
+                        value = (byte) (1 - value);
+                    }
+                    // One controlling input suffices, so take the easiest, or the hardest in
+                    // the alternate order; otherwise every input is needed, so settle the
+                    // hardest first
+                    boolean easiest = value == controlling && !alternateBacktrace;
+                    int bestCost = easiest ? Integer.MAX_VALUE : -1;
+                    for (int e = from; e < to; e++) {
+                        int in = faninNets[e];
+                        if (good[in] != X) {
+                            continue;
+                        }
+                        int cost = scoap.controllability(in, value == ONE);
+                        if (easiest ? cost < bestCost : cost > bestCost) {
+                            bestCost = cost;
+                            next = in;
+                        }
+                    }
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            net = next;
+        }
+        objectiveValue = value;
+        return net;
+    }
+
+    private void assign(int input, byte value) {
+        good[input] = value;
+        faulty[input] = input == stemNet ? stuck : value;
+        scheduleReaders(input);
+        imply();
+    }
+
+    private void scheduleReaders(int net) {
+        for (int i = fanoutStart[net]; i < fanoutStart[net + 1]; i++) {
+            schedule(fanoutGates[i]);
+        }
+    }
+
+    private void schedule(int gate) {
+        if (!scheduled[gate]) {
+            scheduled[gate] = true;
+            int level = gateLevels[gate];
+            buckets[levelStart[level] + bucketFill[level]++] = gate;
+            lowestLevel = Math.min(lowestLevel, level);
+            highestLevel = Math.max(highestLevel, level);
+        }
+    }
+
+    // Re-evaluates scheduled gates in level order in both circuits until nothing changes
+    private void imply() {
+        for (int level = lowestLevel; level <= highestLevel; level++) {
+            int start = levelStart[level];
+            for (int i = start; i < start + bucketFill[level]; i++) {
+                int gate = buckets[i];
+                scheduled[gate] = false;
+                int out = inputCount + gate;
+                byte g = evaluate(gate, good, -1);
+                byte f = out == stemNet ? stuck : evaluate(gate, faulty, gate == branchGate ? branchEdge : -1);
+                if (g != good[out] || f != faulty[out]) {
+                    good[out] = g;
+                    faulty[out] = f;
+                    scheduleReaders(out);
+                }
+            }
+            bucketFill[level] = 0;
+        }
+        lowestLevel = Integer.MAX_VALUE;
+        highestLevel = 0;
+    }
+
+    // Three-valued gate evaluation; the forced edge, if any, reads the stuck value
+    private byte evaluate(int gate, byte[] values, int forcedEdge) {
+        int from = faninStart[gate];
+        int to = faninStart[gate + 1];
+        switch (opcodes[gate]) {
+            case CompiledCircuit.OP_XOR -> {
+                int parity = 0;
+                for (int e = from; e < to; e++) {
+                    byte v = e == forcedEdge ? stuck : values[faninNets[e]];
+                    if (v == X) {
+                        return X;
+                    }
+                    parity ^= v;
+                }
+                return (byte) parity;
+            }
+            case CompiledCircuit.OP_NOT -> {
+                byte v = from == forcedEdge ? stuck : values[faninNets[from]];
+                return v == X ? X : (byte) (1 - v);
+            }
+            case CompiledCircuit.OP_BUFF -> {
+                return from == forcedEdge ? stuck : values[faninNets[from]];
+            }
+            default -> {
+                byte opcode = opcodes[gate];
+                byte controlling = opcode == CompiledCircuit.OP_OR || opcode == CompiledCircuit.OP_NOR ? ONE : ZERO;
+                int inversion = opcode == CompiledCircuit.OP_NAND || opcode == CompiledCircuit.OP_NOR ? 1 : 0;
+                boolean unknown = false;
+                for (int e = from; e < to; e++) {
+                    byte v = e == forcedEdge ? stuck : values[faninNets[e]];
+                    if (v == controlling) {
+                        return (byte) (controlling ^ inversion);
+                    }
+                    unknown |= v == X;
+                }
+                return unknown ? X : (byte) (1 - controlling ^ inversion);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.faultsimulator.fault_simulator_engine.atpg;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+
+import java.util.Arrays;
+
+/**
+ * SCOAP testability measures of a combinational circuit: the combinational 0- and
+ * 1-controllability of every net, and the observability of every net (stem) and of every
+ * gate input (fanout branch). Lower is easier. Values saturate instead of overflowing on
+ * deep circuits.
+ */
+public final class Scoap {
+    // Saturation bound, low enough that adding two values cannot overflow
+    static final int INFINITE = Integer.MAX_VALUE / 4;
+
+    private final int[] cc0;
+    private final int[] cc1;
+    private final int[] observability;
+    private final int[] branchObservability;
+
+    private Scoap(int[] cc0, int[] cc1, int[] observability, int[] branchObservability) {
+        this.cc0 = cc0;
+        this.cc1 = cc1;
+        this.observability = observability;
+        this.branchObservability = branchObservability;
+    }
+
+    public static Scoap compute(CompiledCircuit circuit) {
+        int netCount = circuit.getNetCount();
+        int inputCount = circuit.getInputCount();
+        byte[] opcodes = circuit.getOpcodes();
+        int[] faninStart = circuit.getFaninStart();
+        int[] faninNets = circuit.getFaninNets();
+        int[] cc0 = new int[netCount];
+        int[] cc1 = new int[netCount];
+        for (int net = 0; net < inputCount; net++) {
+            cc0[net] = 1;
+            cc1[net] = 1;
+        }
+
+        // Controllability, inputs to outputs; gates are numbered in level order
+        for (int g = 0; g < circuit.getGateCount(); g++) {
+            int from = faninStart[g];
+            int to = faninStart[g + 1];
+            int out = inputCount + g;
+            switch (opcodes[g]) {
+                case CompiledCircuit.OP_AND, CompiledCircuit.OP_NAND, CompiledCircuit.OP_OR, CompiledCircuit.OP_NOR -> {
+                    // AND-like in the sense of its inputs: one input at the controlling value suffices
+                    boolean orLike = opcodes[g] == CompiledCircuit.OP_OR || opcodes[g] == CompiledCircuit.OP_NOR;
+                    int[] controlling = orLike ? cc1 : cc0;
+                    int[] nonControlling = orLike ? cc0 : cc1;
+                    int any = INFINITE;
+                    int all = 0;
+                    for (int i = from; i < to; i++) {
+                        any = Math.min(any, controlling[faninNets[i]]);
+                        all = add(all, nonControlling[faninNets[i]]);
+                    }
+                    boolean inverting = opcodes[g] == CompiledCircuit.OP_NAND || opcodes[g] == CompiledCircuit.OP_NOR;
+                    // Output value reached with one controlling input, and with none
+                    int controlled = add(any, 1);
+                    int uncontrolled = add(all, 1);
+                    boolean controlledValue = orLike ^ inverting;
+                    cc1[out] = controlledValue ? controlled : uncontrolled;
+                    cc0[out] = controlledValue ? uncontrolled : controlled;
+                }
+                case CompiledCircuit.OP_XOR -> {
+                    int zero = cc0[faninNets[from]];
+                    int one = cc1[faninNets[from]];
+                    for (int i = from + 1; i < to; i++) {
+                        int inZero = cc0[faninNets[i]];
+                        int inOne = cc1[faninNets[i]];
+                        int nextZero = Math.min(add(zero, inZero), add(one, inOne));
+                        int nextOne = Math.min(add(zero, inOne), add(one, inZero));
+                        zero = nextZero;
+                        one = nextOne;
+                    }
+                    cc0[out] = add(zero, 1);
+                    cc1[out] = add(one, 1);
+                }
+                case CompiledCircuit.OP_NOT -> {
+                    cc0[out] = add(cc1[faninNets[from]], 1);
+                    cc1[out] = add(cc0[faninNets[from]], 1);
+                }
+                default -> {
+                    cc0[out] = add(cc0[faninNets[from]], 1);
+                    cc1[out] = add(cc1[faninNets[from]], 1);
+                }
+            }
+        }
+
+        // Observability, outputs to inputs; a stem is as observable as its best branch
+        int[] observability = new int[netCount];
+        Arrays.fill(observability, INFINITE);
+        for (int net : circuit.getPrimaryOutputNets()) {
+            observability[net] = 0;
+        }
+        int[] branchObservability = new int[faninNets.length];
+        for (int g = circuit.getGateCount() - 1; g >= 0; g--) {
+            int from = faninStart[g];
+            int to = faninStart[g + 1];
+            int out = observability[inputCount + g];
+            for (int i = from; i < to; i++) {
+                int others = 0;
+                for (int j = from; j < to; j++) {
+                    if (j == i) {
+                        continue;
+                    }
+                    int other = faninNets[j];
+                    others = add(others, switch (opcodes[g]) {
+                        case CompiledCircuit.OP_AND, CompiledCircuit.OP_NAND -> cc1[other];
+                        case CompiledCircuit.OP_OR, CompiledCircuit.OP_NOR -> cc0[other];
+                        default -> Math.min(cc0[other], cc1[other]);
+                    });
+                }
+                branchObservability[i] = add(add(out, others), 1);
+                observability[faninNets[i]] = Math.min(observability[faninNets[i]], branchObservability[i]);
+            }
+        }
+        return new Scoap(cc0, cc1, observability, branchObservability);
+    }
+
+    /**
+     * Effort to set the net to the value.
+     */
+    public int controllability(int net, boolean value) {
+        return value ? cc1[net] : cc0[net];
+    }
+
+    public int cc0(int net) {
+        return cc0[net];
+    }
+
+    public int cc1(int net) {
+        return cc1[net];
+    }
+
+    /**
+     * Effort to observe the net at a primary output, through its easiest reader.
+     */
+    public int observability(int net) {
+        return observability[net];
+    }
+
+    /**
+     * Effort to observe one gate input at a primary output.
+     *
+     * @param edge Index into the circuit's fan-in array.
+     */
+    public int branchObservability(int edge) {
+        return branchObservability[edge];
+    }
+
+    private static int add(int a, int b) {
+        return Math.min(INFINITE, a + b);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.faultsimulator.fault_simulator_engine.atpg;
+
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.faults.CollapsedFaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultList;
+
+/**
+ * Outcome of test generation: the generated patterns, and the status of every fault of the
+ * list it ran on.
+ */
+public final class TestGenerationResult {
+
+    public enum FaultStatus {
+        /** Detected by the patterns given before test generation; not targeted. */
+        PREVIOUSLY_DETECTED,
+        /** Detected by a generated pattern. */
+        DETECTED,
+        /** Proven untestable: no pattern can detect it. */
+        REDUNDANT,
+        /** The retry reached its backtrack limit too, before a test or a proof of redundancy. */
+        ABORTED
+    }
+
+    private final FaultList faults;
+    private final FaultStatus[] statuses;
+    private final int[] firstDetectingPatterns;
+    private final boolean[] retried;
+    private final PatternSet patterns;
+    private final long backtracks;
+
+    /**
+     * @param retried For every fault, whether it was aborted at the first backtrack limit
+     *                and targeted again.
+     */
+    public TestGenerationResult(FaultList faults, FaultStatus[] statuses, int[] firstDetectingPatterns, boolean[] retried,
+                                PatternSet patterns, long backtracks) {
+        this.faults = faults;
+        this.statuses = statuses;
+        this.firstDetectingPatterns = firstDetectingPatterns;
+        this.retried = retried;
+        this.patterns = patterns;
+        this.backtracks = backtracks;
+    }
+
+    public FaultList getFaults() {
+        return faults;
+    }
+
+    public FaultStatus getStatus(int fault) {
+        return statuses[fault];
+    }
+
+    /**
+     * Index of the first generated pattern detecting the fault, or -1 if none does.
+     */
+    public int getFirstDetectingPattern(int fault) {
+        return firstDetectingPatterns[fault];
+    }
+
+    /**
+     * Whether the fault was aborted at the first backtrack limit and targeted again; its
+     * status is the outcome of the retry.
+     */
+    public boolean isRetried(int fault) {
+        return retried[fault];
+    }
+
+    /**
+     * Faults aborted at the first backtrack limit and targeted again, whatever the retry
+     * found.
+     */
+    public int getRetriedCount() {
+        int count = 0;
+        for (boolean r : retried) {
+            if (r) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public PatternSet getPatterns() {
+        return patterns;
+    }
+
+    public int getCount(FaultStatus status) {
+        int count = 0;
+        for (FaultStatus s : statuses) {
+            if (s == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Backtracks made over all faults.
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * Fraction of faults detected, before or by the generated patterns.
+     */
+    public double getFaultCoverage() {
+        return statuses.length == 0 ? 1.0
+                : (double) (getCount(FaultStatus.PREVIOUSLY_DETECTED) + getCount(FaultStatus.DETECTED)) / statuses.length;
+    }
+
+    /**
+     * Fraction of faults either detected or proven redundant, so only aborted faults count
+     * against it.
+     */
+    public double getFaultEfficiency() {
+        return statuses.length == 0 ? 1.0 : 1.0 - (double) getCount(FaultStatus.ABORTED) / statuses.length;
+    }
+
+    /**
+     * Maps a result obtained on collapsed representatives onto the full fault list. Only
+     * valid for lists collapsed by equivalence, whose classes share detection and
+     * redundancy.
+     */
+    public TestGenerationResult expand(CollapsedFaultList collapsed) {
+        FaultList full = collapsed.getFullFaults();
+        FaultStatus[] fullStatuses = new FaultStatus[full.size()];
+        int[] fullPatterns = new int[full.size()];
+        boolean[] fullRetried = new boolean[full.size()];
+        for (int f = 0; f < full.size(); f++) {
+            int representative = collapsed.getRepresentative(f);
+            fullStatuses[f] = statuses[representative];
+            fullPatterns[f] = firstDetectingPatterns[representative];
+            fullRetried[f] = retried[representative];
+        }
+        return new TestGenerationResult(full, fullStatuses, fullPatterns, fullRetried, patterns, backtracks);
+    }
+}
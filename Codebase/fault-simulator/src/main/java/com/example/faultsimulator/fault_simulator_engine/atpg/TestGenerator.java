@@ -0,0 +1,289 @@
+package com.example.faultsimulator.fault_simulator_engine.atpg;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternGenerator;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulator;
+import com.example.faultsimulator.fault_simulator_engine.faults.StuckAtFault;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates tests for the faults a pattern set left undetected. Targets are taken 64 at a
+ * time in fault list order and handed to {@link Podem} in parallel; the unassigned inputs
+ * of every test cube are filled at random, and the block of new patterns is fault
+ * simulated against every remaining target, so each pattern usually drops many faults
+ * besides the one it was generated for. Targets dropped that way are never handed to
+ * PODEM. Targets aborted in that pass are retried once in the same way, with ten times
+ * the backtrack limit and PODEM's alternate backtrace order, and only count as aborted
+ * if the retry aborts too.
+ *
+ * The random fill of a cube is seeded from the generator seed and the target, and targets
+ * are batched independently of thread timing, so a run is reproducible on any number of
+ * cores.
+ */
+public final class TestGenerator {
+    // Targets per batch: one block of patterns
+    private static final int BATCH = 64;
+    // Backtrack limit of the retry of aborted targets, relative to that of the first pass
+    private static final int RETRY_FACTOR = 10;
+
+    private final FaultList faults;
+    private final Scoap scoap;
+    private final ForkJoinPool pool;
+    private final Queue<Podem> idleEngines = new ConcurrentLinkedQueue<>();
+    private int backtrackLimit = 100;
+    private long seed = 1;
+
+    /**
+     * @param scoap Testability measures of the fault list's circuit.
+     * @param pool  The pool to run PODEM and fault simulation on, or null to run on the
+     *              calling thread.
+     */
+    public TestGenerator(FaultList faults, Scoap scoap, ForkJoinPool pool) {
+        this.faults = faults;
+        this.scoap = scoap;
+        this.pool = pool;
+    }
+
+    /**
+     * @param backtrackLimit Backtracks allowed per fault before it is retried, and ten times
+     *                       as many in the retry before it is aborted. Defaults to 100.
+     */
+    public void setBacktrackLimit(int backtrackLimit) {
+        if (backtrackLimit < 0) {
+            throw new IllegalArgumentException("The backtrack limit must not be negative.");
+        }
+        this.backtrackLimit = backtrackLimit;
+    }
+
+    /**
+     * @param seed Seed of the random fill of unassigned inputs. Defaults to 1.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Targets every fault of the list.
+     */
+    public TestGenerationResult generate() {
+        return generate(new boolean[faults.size()]);
+    }
+
+    /**
+     * @param alreadyDetected For every fault of the list, whether earlier patterns detect
+     *                        it, so it is not targeted.
+     */
+    public TestGenerationResult generate(boolean[] alreadyDetected) {
+        CompiledCircuit circuit = faults.getCircuit();
+        int inputCount = circuit.getInputCount();
+        TestGenerationResult.FaultStatus[] statuses = new TestGenerationResult.FaultStatus[faults.size()];
+        int[] firstDetectingPatterns = new int[faults.size()];
+        Arrays.fill(firstDetectingPatterns, -1);
+        boolean[] retried = new boolean[faults.size()];
+
+        List<StuckAtFault> targetFaults = new ArrayList<>();
+        int[] targetIndices = new int[faults.size()];
+        for (int f = 0; f < faults.size(); f++) {
+            if (alreadyDetected[f]) {
+                statuses[f] = TestGenerationResult.FaultStatus.PREVIOUSLY_DETECTED;
+            } else {
+                targetIndices[targetFaults.size()] = f;
+                targetFaults.add(faults.get(f));
+            }
+        }
+        FaultList targets = new FaultList(circuit, targetFaults);
+        Run run = new Run(targets, targetIndices, statuses);
+
+        int[] all = new int[targets.size()];
+        for (int t = 0; t < all.length; t++) {
+            all[t] = t;
+        }
+        run.pass(all, backtrackLimit, false);
+        // Retry what the first pass aborted and its patterns left undetected
+        int[] aborted = new int[targets.size()];
+        int abortedCount = 0;
+        for (int t = 0; t < targets.size(); t++) {
+            if (statuses[targetIndices[t]] == TestGenerationResult.FaultStatus.ABORTED && !run.simulator.isDetected(t)) {
+                aborted[abortedCount++] = t;
+                retried[targetIndices[t]] = true;
+            }
+        }
+        run.pass(Arrays.copyOf(aborted, abortedCount), (int) Math.min(Integer.MAX_VALUE, (long) backtrackLimit * RETRY_FACTOR), true);
+
+        for (int t = 0; t < targets.size(); t++) {
+            int fault = targetIndices[t];
+            if (run.simulator.isDetected(t)) {
+                statuses[fault] = TestGenerationResult.FaultStatus.DETECTED;
+                firstDetectingPatterns[fault] = run.simulator.getFirstDetectingPattern(t);
+            }
+        }
+        PatternSet patterns = new PatternSet(inputCount, run.patternCount, run.blocks.toArray(new long[0][]));
+        return new TestGenerationResult(faults, statuses, firstDetectingPatterns, retried, patterns, run.backtracks);
+    }
+
+    // Generated patterns and fault simulation state shared by the passes of one run
+    private final class Run {
+        final FaultList targets;
+        final int[] targetIndices;
+        final TestGenerationResult.FaultStatus[] statuses;
+        final FaultSimulator simulator;
+        final List<long[]> blocks = new ArrayList<>();
+        int patternCount;
+        long backtracks;
+
+        Run(FaultList targets, int[] targetIndices, TestGenerationResult.FaultStatus[] statuses) {
+            this.targets = targets;
+            this.targetIndices = targetIndices;
+            this.statuses = statuses;
+            this.simulator = new FaultSimulator(targets, pool);
+        }
+
+        // Hands the listed targets not detected yet to PODEM in batches, in list order
+        void pass(int[] order, int limit, boolean alternate) {
+            int inputCount = targets.getCircuit().getInputCount();
+            int[] batch = new int[BATCH];
+            Podem.Outcome[] outcomes = new Podem.Outcome[BATCH];
+            long[][] cubes = new long[BATCH][];
+            int next = 0;
+            while (true) {
+                int batchSize = 0;
+                for (; next < order.length && batchSize < BATCH; next++) {
+                    if (!simulator.isDetected(order[next])) {
+                        batch[batchSize++] = order[next];
+                    }
+                }
+                if (batchSize == 0) {
+                    break;
+                }
+                BatchTask task = new BatchTask(targets, batch, outcomes, cubes, 0, batchSize, limit, alternate);
+                if (pool == null) {
+                    task.compute();
+                } else {
+                    pool.invoke(task);
+                }
+                backtracks += task.backtracks;
+
+                // Pack the filled cubes into one block, in batch order
+                long[] words = new long[inputCount];
+                int valid = 0;
+                int[] generatedFor = new int[batchSize];
+                for (int k = 0; k < batchSize; k++) {
+                    int target = batch[k];
+                    int fault = targetIndices[target];
+                    switch (outcomes[k]) {
+                        case REDUNDANT -> statuses[fault] = TestGenerationResult.FaultStatus.REDUNDANT;
+                        case ABORTED -> statuses[fault] = TestGenerationResult.FaultStatus.ABORTED;
+                        default -> {
+                            long[] cube = cubes[k];
+                            for (int i = 0; i < inputCount; i++) {
+                                words[i] |= (cube[i] & 1L) << valid;
+                            }
+                            generatedFor[valid++] = target;
+                        }
+                    }
+                }
+                if (valid == 0) {
+                    continue;
+                }
+                simulator.simulateBlock(words, valid);
+                appendBlock(blocks, patternCount, words, valid, inputCount);
+                patternCount += valid;
+                for (int k = 0; k < valid; k++) {
+                    // PODEM and the fault simulator disagree about this cube, so one of them is wrong
+                    if (!simulator.isDetected(generatedFor[k])) {
+                        throw new IllegalStateException("The test generated for fault "
+                                + targets.get(generatedFor[k]).describe(targets.getCircuit()) + " does not detect it.");
+                    }
+                }
+            }
+        }
+    }
+
+    // Appends the first valid patterns of a block after patternCount patterns already packed
+    private static void appendBlock(List<long[]> blocks, int patternCount, long[] words, int valid, int inputCount) {
+        int offset = patternCount & 63;
+        if (offset == 0) {
+            blocks.add(words.clone());
+            return;
+        }
+        long[] last = blocks.get(blocks.size() - 1);
+        for (int i = 0; i < inputCount; i++) {
+            last[i] |= words[i] << offset;
+        }
+        if (offset + valid > 64) {
+            long[] spill = new long[inputCount];
+            for (int i = 0; i < inputCount; i++) {
+                spill[i] = words[i] >>> (64 - offset);
+            }
+            blocks.add(spill);
+        }
+    }
+
+    private Podem borrowEngine() {
+        Podem engine = idleEngines.poll();
+        return engine != null ? engine : new Podem(faults.getCircuit(), scoap);
+    }
+
+    private final class BatchTask extends RecursiveAction {
+        private final FaultList targets;
+        private final int[] batch;
+        private final Podem.Outcome[] outcomes;
+        private final long[][] cubes;
+        private final int from;
+        private final int to;
+        private final int limit;
+        private final boolean alternate;
+        private long backtracks;
+
+        BatchTask(FaultList targets, int[] batch, Podem.Outcome[] outcomes, long[][] cubes, int from, int to,
+                  int limit, boolean alternate) {
+            this.targets = targets;
+            this.batch = batch;
+            this.outcomes = outcomes;
+            this.cubes = cubes;
+            this.from = from;
+            this.to = to;
+            this.limit = limit;
+            this.alternate = alternate;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && pool != null) {
+                int middle = (from + to) >>> 1;
+                BatchTask left = new BatchTask(targets, batch, outcomes, cubes, from, middle, limit, alternate);
+                BatchTask right = new BatchTask(targets, batch, outcomes, cubes, middle, to, limit, alternate);
+                invokeAll(left, right);
+                backtracks = left.backtracks + right.backtracks;
+                return;
+            }
+            Podem engine = borrowEngine();
+            engine.setAlternateBacktrace(alternate);
+            int inputCount = targets.getCircuit().getInputCount();
+            for (int k = from; k < to; k++) {
+                outcomes[k] = engine.generate(targets.get(batch[k]), limit);
+                backtracks += engine.getBacktracks();
+                if (outcomes[k] == Podem.Outcome.DETECTED) {
+                    SplittableRandom fill = new SplittableRandom(PatternGenerator.inputSeed(seed, batch[k]));
+                    long[] cube = new long[inputCount];
+                    for (int i = 0; i < inputCount; i++) {
+                        byte value = engine.getInputValue(i);
+                        cube[i] = value == Podem.X ? (fill.nextBoolean() ? 1 : 0) : value;
+                    }
+                    cubes[k] = cube;
+                }
+            }
+            idleEngines.add(engine);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of fault collapsing: a reduced list of representative faults to simulate, and the
+ * mapping from every fault of the full list to the representative whose detection implies
+ * its own. Results on the representatives are expanded back so coverage is always reported
+ * against the full uncollapsed list.
+ */
+public final class CollapsedFaultList {
+    private final FaultList fullFaults;
+    private final FaultList representatives;
+    private final int[] representativeOf;
+    private final boolean[] dominated;
+
+    /**
+     * @param representativeOf For every full-list fault, its index in the representatives.
+     * @param dominated        For every full-list fault, whether it was dropped by dominance.
+     */
+    public CollapsedFaultList(FaultList fullFaults, FaultList representatives, int[] representativeOf, boolean[] dominated) {
+        this.fullFaults = fullFaults;
+        this.representatives = representatives;
+        this.representativeOf = representativeOf;
+        this.dominated = dominated;
+    }
+
+    /**
+     * Maps a result obtained on the representatives onto the full fault list. For a fault
+     * dropped by dominance, the reported first detecting pattern is the one of the fault it
+     * dominates, which is a valid detecting pattern but not necessarily the first.
+     */
+    public FaultSimulationResult expand(FaultSimulationResult representativeResult) {
+        if (representativeResult.getFaults() != representatives) {
+            throw new IllegalArgumentException("The result was not obtained on this collapsed fault list.");
+        }
+        int[] firstDetectingPatterns = new int[representativeOf.length];
+        for (int f = 0; f < representativeOf.length; f++) {
+            firstDetectingPatterns[f] = representativeResult.getFirstDetectingPattern(representativeOf[f]);
+        }
+        return new FaultSimulationResult(fullFaults, firstDetectingPatterns, representativeResult.getPatternCount());
+    }
+
+    public FaultList getFullFaults() {
+        return fullFaults;
+    }
+
+    public FaultList getRepresentatives() {
+        return representatives;
+    }
+
+    /**
+     * Index in the representative list of the fault standing for the given full-list fault.
+     */
+    public int getRepresentative(int fault) {
+        return representativeOf[fault];
+    }
+
+    /**
+     * Whether the fault was dropped because it dominates another class, rather than being
+     * equivalent to its representative.
+     */
+    public boolean isDominated(int fault) {
+        return dominated[fault];
+    }
+
+    /**
+     * Full-list indices of every fault mapped to the given representative.
+     */
+    public List<Integer> getClass(int representative) {
+        List<Integer> members = new ArrayList<>();
+        for (int f = 0; f < representativeOf.length; f++) {
+            if (representativeOf[f] == representative) {
+                members.add(f);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Fraction of the full fault list removed by collapsing, between 0 and 1.
+     */
+    public double getReduction() {
+        return fullFaults.size() == 0 ? 0.0 : 1.0 - (double) representatives.size() / fullFaults.size();
+    }
+}
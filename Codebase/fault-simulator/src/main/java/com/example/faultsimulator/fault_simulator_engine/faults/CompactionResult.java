@@ -0,0 +1,62 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+
+/**
+ * Outcome of test-set compaction: the kept patterns, where they came from in the original
+ * set, and the fault simulation result of the compacted set.
+ */
+public final class CompactionResult {
+    private final int[] originalIndices;
+    private final PatternSet patterns;
+    private final int originalPatternCount;
+    private final int reverseOrderPatternCount;
+    private final FaultSimulationResult result;
+
+    public CompactionResult(int[] originalIndices, PatternSet patterns, int originalPatternCount,
+                            int reverseOrderPatternCount, FaultSimulationResult result) {
+        this.originalIndices = originalIndices;
+        this.patterns = patterns;
+        this.originalPatternCount = originalPatternCount;
+        this.reverseOrderPatternCount = reverseOrderPatternCount;
+        this.result = result;
+    }
+
+    /**
+     * Index in the original set of every kept pattern, in increasing order; pattern p of
+     * the compacted set is original pattern {@code getOriginalIndices()[p]}.
+     */
+    public int[] getOriginalIndices() {
+        return originalIndices.clone();
+    }
+
+    public int getOriginalIndex(int pattern) {
+        return originalIndices[pattern];
+    }
+
+    public PatternSet getPatterns() {
+        return patterns;
+    }
+
+    public int getPatternCount() {
+        return originalIndices.length;
+    }
+
+    public int getOriginalPatternCount() {
+        return originalPatternCount;
+    }
+
+    /**
+     * Patterns left after the reverse-order pass, before set covering.
+     */
+    public int getReverseOrderPatternCount() {
+        return reverseOrderPatternCount;
+    }
+
+    /**
+     * Fault simulation of the compacted set; pattern indices refer to the compacted set.
+     */
+    public FaultSimulationResult getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.StructuralIndex;
+
+/**
+ * Critical path tracing over fanout-free regions, for one block of good-machine values.
+ *
+ * Inside a region every net has a single path to the root, so whether inverting a net
+ * inverts the root is traced backwards analytically: a gate passes an inversion of one
+ * input when all its other inputs hold non-controlling values. Only region roots are
+ * simulated explicitly, and only as far as their immediate dominator, whose observability
+ * is known by then because roots are processed from the outputs back. A stuck-at fault is
+ * detected wherever it is activated, sensitized to its root, and the root is observable.
+ *
+ * A root is only simulated under the patterns some undetected fault of its region needs,
+ * plus those the roots it dominates need, so the work shrinks as faults are dropped.
+ */
+final class CriticalPathTracer {
+    private final CompiledCircuit circuit;
+    private final StructuralIndex index;
+    private final byte[] opcodes;
+    private final int[] faninStart;
+    private final int[] faninNets;
+    private final int[] fanoutStart;
+    private final int[] fanoutGates;
+    private final int inputCount;
+
+    CriticalPathTracer(StructuralIndex index) {
+        this.circuit = index.getCircuit();
+        this.index = index;
+        this.opcodes = circuit.getOpcodes();
+        this.faninStart = circuit.getFaninStart();
+        this.faninNets = circuit.getFaninNets();
+        this.fanoutStart = circuit.getFanoutStart();
+        this.fanoutGates = circuit.getFanoutGates();
+        this.inputCount = circuit.getInputCount();
+    }
+
+    StructuralIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Traces one block for the given faults.
+     *
+     * @param sensitized Receives, per net, the patterns under which inverting it inverts
+     *                   the root of its region.
+     * @param roots      Receives, per region root, the patterns under which inverting it is
+     *                   observed at a primary output, restricted to the patterns the faults
+     *                   need; other entries are scratch.
+     */
+    void trace(FaultPropagator propagator, long[] good, long mask, FaultList faults, int[] targets, int targetCount,
+               long[] sensitized, long[] roots) {
+        for (int net = circuit.getNetCount() - 1; net >= 0; net--) {
+            int edge = index.getFanoutEdge(net);
+            if (edge >= 0) {
+                int gate = fanoutGates[fanoutStart[net]];
+                sensitized[net] = sensitization(gate, edge, good) & sensitized[inputCount + gate];
+            } else {
+                sensitized[net] = -1L;
+                roots[net] = 0L;
+            }
+        }
+
+        // Patterns each root is needed under, closed over dominators
+        for (int t = 0; t < targetCount; t++) {
+            StuckAtFault fault = faults.get(targets[t]);
+            int site = site(fault);
+            roots[index.getFfrRoot(site)] |= local(fault, good, mask, sensitized);
+        }
+        int[] rootNets = index.getFfrRoots();
+        for (int root : rootNets) {
+            int dominator = index.getImmediateDominator(root);
+            if (roots[root] != 0 && dominator >= 0) {
+                roots[index.getFfrRoot(dominator)] |= roots[root];
+            }
+        }
+
+        for (int r = rootNets.length - 1; r >= 0; r--) {
+            int root = rootNets[r];
+            long needed = roots[root];
+            if (needed == 0) {
+                continue;
+            }
+            if (circuit.isPrimaryOutput(root)) {
+                roots[root] = mask;
+                continue;
+            }
+            int dominator = index.getImmediateDominator(root);
+            long reached = propagator.propagateInversion(root, needed, dominator);
+            roots[root] = dominator < 0 ? reached
+                    : reached & sensitized[dominator] & roots[index.getFfrRoot(dominator)];
+        }
+    }
+
+    /**
+     * Patterns of the traced block that detect a fault.
+     */
+    long detect(StuckAtFault fault, long[] good, long mask, long[] sensitized, long[] roots) {
+        return local(fault, good, mask, sensitized) & roots[index.getFfrRoot(site(fault))];
+    }
+
+    // The net whose region holds the fault: the reading gate's output for a branch fault
+    private int site(StuckAtFault fault) {
+        return fault.isBranch() ? inputCount + fault.getBranchGate() : fault.getNet();
+    }
+
+    // Patterns under which the fault is activated and inverts the root of its region
+    private long local(StuckAtFault fault, long[] good, long mask, long[] sensitized) {
+        long forced = fault.isStuckAtOne() ? -1L : 0L;
+        long activated = (forced ^ good[fault.getNet()]) & mask;
+        if (activated == 0 || !fault.isBranch()) {
+            return activated & sensitized[fault.getNet()];
+        }
+        int gate = fault.getBranchGate();
+        int edge = faninStart[gate] + fault.getBranchPin();
+        return activated & sensitization(gate, edge, good) & sensitized[inputCount + gate];
+    }
+
+    // Patterns under which inverting the input on the edge inverts the gate output
+    private long sensitization(int gate, int edge, long[] good) {
+        long sensitized = -1L;
+        switch (opcodes[gate]) {
+            case CompiledCircuit.OP_AND, CompiledCircuit.OP_NAND -> {
+                for (int i = faninStart[gate]; i < faninStart[gate + 1]; i++) {
+                    if (i != edge) {
+                        sensitized &= good[faninNets[i]];
+                    }
+                }
+            }
+            case CompiledCircuit.OP_OR, CompiledCircuit.OP_NOR -> {
+                for (int i = faninStart[gate]; i < faninStart[gate + 1]; i++) {
+                    if (i != edge) {
+                        sensitized &= ~good[faninNets[i]];
+                    }
+                }
+            }
+            default -> {
+                // XOR, NOT and BUFF always pass an inversion
+            }
+        }
+        return sensitized;
+    }
+}
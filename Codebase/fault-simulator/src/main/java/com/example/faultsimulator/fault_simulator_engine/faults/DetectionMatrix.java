@@ -0,0 +1,197 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Which patterns detect which faults, from fault simulation without dropping: every fault
+ * is propagated against every block. The matrix is bit-packed fault-major, with the
+ * detections of one fault by one block of 64 patterns in one word, exactly as the
+ * propagator returns them; {@link #transpose()} gives the pattern-major view. Patterns with
+ * X inputs only count where they detect the fault definitely, as in {@link FaultSimulator}.
+ */
+public final class DetectionMatrix {
+    // Blocks whose good machine is held at once, as in FaultSimulator
+    private static final int BLOCKS_PER_ROUND = 16;
+
+    private final int faultCount;
+    private final int patternCount;
+    private final int blockCount;
+    // Word b of fault f at f * blockCount + b
+    private final long[] words;
+
+    private DetectionMatrix(int faultCount, int patternCount, long[] words) {
+        this.faultCount = faultCount;
+        this.patternCount = patternCount;
+        this.blockCount = PatternSet.blockCount(patternCount);
+        this.words = words;
+    }
+
+    /**
+     * @param pool The pool to split the fault list over, or null to simulate on the calling
+     *             thread.
+     * @throws IllegalArgumentException If the patterns do not match the circuit's inputs, or
+     *                                  the matrix would not fit in one array.
+     */
+    public static DetectionMatrix simulate(FaultList faults, PatternSet patterns, ForkJoinPool pool) {
+        CompiledCircuit circuit = faults.getCircuit();
+        if (patterns.getInputCount() != circuit.getInputCount()) {
+            throw new IllegalArgumentException("Mismatch: Number of inputs provided does not match the number of primary inputs in the circuit.");
+        }
+        int blockCount = patterns.getBlockCount();
+        long size = (long) faults.size() * blockCount;
+        if (size > Integer.MAX_VALUE - 8 || (long) blockCount * 64 * ((faults.size() + 63) >>> 6) > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("A detection matrix of " + faults.size() + " faults by "
+                    + patterns.getPatternCount() + " patterns is too large.");
+        }
+        long[] words = new long[(int) size];
+        long[][] goodValues = new long[Math.min(BLOCKS_PER_ROUND, blockCount)][circuit.getNetCount()];
+        long[][] goodZeros = patterns.hasUnknowns() ? new long[goodValues.length][circuit.getNetCount()] : null;
+        Queue<FaultPropagator> idlePropagators = new ConcurrentLinkedQueue<>();
+        for (int first = 0; first < blockCount; first += BLOCKS_PER_ROUND) {
+            int blocks = Math.min(BLOCKS_PER_ROUND, blockCount - first);
+            for (int k = 0; k < blocks; k++) {
+                long[] inputWords = patterns.getBlock(first + k);
+                long[] unknownWords = patterns.getUnknownBlock(first + k);
+                if (unknownWords == null) {
+                    System.arraycopy(inputWords, 0, goodValues[k], 0, circuit.getInputCount());
+                    circuit.evaluate(goodValues[k]);
+                } else {
+                    for (int i = 0; i < circuit.getInputCount(); i++) {
+                        goodValues[k][i] = inputWords[i] | unknownWords[i];
+                        goodZeros[k][i] = ~inputWords[i] | unknownWords[i];
+                    }
+                    circuit.evaluate(goodValues[k], goodZeros[k]);
+                }
+            }
+            RoundTask round = new RoundTask(faults, patterns, goodValues, goodZeros, first, blocks, words, idlePropagators, 0, faults.size(),
+                    pool == null ? faults.size() : Math.max(64, faults.size() / (pool.getParallelism() * 8)));
+            if (pool == null) {
+                round.compute();
+            } else {
+                pool.invoke(round);
+            }
+        }
+        return new DetectionMatrix(faults.size(), patterns.getPatternCount(), words);
+    }
+
+    public int getFaultCount() {
+        return faultCount;
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    public boolean detects(int pattern, int fault) {
+        return (words[fault * blockCount + (pattern >>> 6)] >>> (pattern & 63) & 1L) != 0;
+    }
+
+    /**
+     * Number of patterns detecting the fault.
+     */
+    public int getDetectionCount(int fault) {
+        int count = 0;
+        for (int b = 0; b < blockCount; b++) {
+            count += Long.bitCount(words[fault * blockCount + b]);
+        }
+        return count;
+    }
+
+    /**
+     * Pattern-major copy of the matrix: the faults detected by pattern p are the bits of
+     * words {@code p * faultWords} to {@code (p + 1) * faultWords - 1}, where faultWords is
+     * {@code (faultCount + 63) / 64}. Converted 64 by 64 bits at a time.
+     */
+    public long[] transpose() {
+        int faultWords = (faultCount + 63) >>> 6;
+        long[] rows = new long[blockCount * 64 * faultWords];
+        long[] tile = new long[64];
+        for (int w = 0; w < faultWords; w++) {
+            for (int b = 0; b < blockCount; b++) {
+                for (int i = 0; i < 64; i++) {
+                    int fault = (w << 6) + i;
+                    tile[i] = fault < faultCount ? words[fault * blockCount + b] : 0;
+                }
+                transpose64(tile);
+                for (int j = 0; j < 64; j++) {
+                    rows[((b << 6) + j) * faultWords + w] = tile[j];
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Transposes a 64 x 64 bit matrix in place, so bit j of word i moves to bit i of word j
+    static void transpose64(long[] a) {
+        long mask = 0x00000000FFFFFFFFL;
+        for (int j = 32; j != 0; j >>>= 1, mask ^= mask << j) {
+            for (int k = 0; k < 64; k = ((k | j) + 1) & ~j) {
+                long t = ((a[k] >>> j) ^ a[k | j]) & mask;
+                a[k] ^= t << j;
+                a[k | j] ^= t;
+            }
+        }
+    }
+
+    private static final class RoundTask extends RecursiveAction {
+        private final FaultList faults;
+        private final PatternSet patterns;
+        private final long[][] goodValues;
+        private final long[][] goodZeros;
+        private final int firstBlock;
+        private final int blocks;
+        private final long[] words;
+        private final Queue<FaultPropagator> idlePropagators;
+        private final int from;
+        private final int to;
+        private final int splitThreshold;
+
+        RoundTask(FaultList faults, PatternSet patterns, long[][] goodValues, long[][] goodZeros, int firstBlock, int blocks,
+                  long[] words, Queue<FaultPropagator> idlePropagators, int from, int to, int splitThreshold) {
+            this.faults = faults;
+            this.patterns = patterns;
+            this.goodValues = goodValues;
+            this.goodZeros = goodZeros;
+            this.firstBlock = firstBlock;
+            this.blocks = blocks;
+            this.words = words;
+            this.idlePropagators = idlePropagators;
+            this.from = from;
+            this.to = to;
+            this.splitThreshold = splitThreshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > splitThreshold) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RoundTask(faults, patterns, goodValues, goodZeros, firstBlock, blocks, words, idlePropagators, from, middle, splitThreshold),
+                        new RoundTask(faults, patterns, goodValues, goodZeros, firstBlock, blocks, words, idlePropagators, middle, to, splitThreshold));
+                return;
+            }
+            FaultPropagator propagator = idlePropagators.poll();
+            if (propagator == null) {
+                propagator = new FaultPropagator(faults.getCircuit());
+            }
+            int blockCount = patterns.getBlockCount();
+            for (int k = 0; k < blocks; k++) {
+                if (patterns.getUnknownBlock(firstBlock + k) == null) {
+                    propagator.setGoodValues(goodValues[k]);
+                } else {
+                    propagator.setGoodValues(goodValues[k], goodZeros[k]);
+                }
+                long mask = patterns.blockMask(firstBlock + k);
+                for (int f = from; f < to; f++) {
+                    words[f * blockCount + firstBlock + k] = propagator.propagate(faults.get(f), mask);
+                }
+            }
+            idlePropagators.add(propagator);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+
+import java.util.*;
+
+/**
+ * Structural fault collapsing using the gate-type rules of each gate:
+ *
+ * - AND:  input SA0 is equivalent to output SA0, output SA1 dominates input SA1
+ * - NAND: input SA0 is equivalent to output SA1, output SA0 dominates input SA1
+ * - OR:   input SA1 is equivalent to output SA1, output SA0 dominates input SA0
+ * - NOR:  input SA1 is equivalent to output SA0, output SA1 dominates input SA0
+ * - NOT/BUFF: both input faults are equivalent to an output fault
+ *
+ * A gate input fault is the branch fault of that pin if the driving net fans out, and the
+ * stem fault of the net otherwise. Each equivalence class is represented by a checkpoint
+ * fault (on a primary input or a fanout branch) when it has one, so the simulated list
+ * sits on the checkpoints of the circuit wherever the rules allow it.
+ *
+ * Equivalent faults have identical test sets, so equivalence collapsing never changes the
+ * reported result. Dominance dropping is optional: a dominating class is not simulated and
+ * is reported as detected whenever the class it dominates is. When the dominated fault is
+ * not detected by the pattern set, the dominating one is reported undetected even if some
+ * pattern would have caught it, so coverage can only be under-reported.
+ */
+public final class FaultCollapser {
+
+    private FaultCollapser() {
+    }
+
+    public static CollapsedFaultList collapse(FaultList faults, boolean dropDominated) {
+        CompiledCircuit circuit = faults.getCircuit();
+        int faultCount = faults.size();
+        Map<Long, Integer> index = new HashMap<>();
+        for (int f = 0; f < faultCount; f++) {
+            index.put(key(faults.get(f)), f);
+        }
+
+        int[] parent = new int[faultCount];
+        for (int f = 0; f < faultCount; f++) {
+            parent[f] = f;
+        }
+        // impliedBy[f] = a fault whose detection implies the detection of f
+        int[] impliedBy = new int[faultCount];
+        Arrays.fill(impliedBy, -1);
+
+        byte[] opcodes = circuit.getOpcodes();
+        int[] faninStart = circuit.getFaninStart();
+        for (int g = 0; g < circuit.getGateCount(); g++) {
+            int output = circuit.gateOutputNet(g);
+            int inputs = faninStart[g + 1] - faninStart[g];
+            for (int pin = 0; pin < inputs; pin++) {
+                switch (opcodes[g]) {
+                    case CompiledCircuit.OP_AND -> {
+                        union(parent, inputFault(index, circuit, g, pin, false), stemFault(index, output, false));
+                        dominance(impliedBy, stemFault(index, output, true), inputFault(index, circuit, g, pin, true), inputs);
+                    }
+                    case CompiledCircuit.OP_NAND -> {
+                        union(parent, inputFault(index, circuit, g, pin, false), stemFault(index, output, true));
+                        dominance(impliedBy, stemFault(index, output, false), inputFault(index, circuit, g, pin, true), inputs);
+                    }
+                    case CompiledCircuit.OP_OR -> {
+                        union(parent, inputFault(index, circuit, g, pin, true), stemFault(index, output, true));
+                        dominance(impliedBy, stemFault(index, output, false), inputFault(index, circuit, g, pin, false), inputs);
+                    }
+                    case CompiledCircuit.OP_NOR -> {
+                        union(parent, inputFault(index, circuit, g, pin, true), stemFault(index, output, false));
+                        dominance(impliedBy, stemFault(index, output, true), inputFault(index, circuit, g, pin, false), inputs);
+                    }
+                    case CompiledCircuit.OP_NOT -> {
+                        union(parent, inputFault(index, circuit, g, pin, false), stemFault(index, output, true));
+                        union(parent, inputFault(index, circuit, g, pin, true), stemFault(index, output, false));
+                    }
+                    case CompiledCircuit.OP_BUFF -> {
+                        union(parent, inputFault(index, circuit, g, pin, false), stemFault(index, output, false));
+                        union(parent, inputFault(index, circuit, g, pin, true), stemFault(index, output, true));
+                    }
+                    default -> {
+                        // XOR has no equivalent or dominated input faults
+                    }
+                }
+            }
+        }
+
+        // Pick one representative per class, preferring checkpoint faults
+        int[] chosen = new int[faultCount];
+        Arrays.fill(chosen, -1);
+        for (int f = 0; f < faultCount; f++) {
+            int root = find(parent, f);
+            if (chosen[root] < 0 || (!isCheckpoint(circuit, faults.get(chosen[root])) && isCheckpoint(circuit, faults.get(f)))) {
+                chosen[root] = f;
+            }
+        }
+
+        // A class is dropped by dominance if any member dominates a fault of another class
+        int[] classImpliedBy = new int[faultCount];
+        Arrays.fill(classImpliedBy, -1);
+        if (dropDominated) {
+            for (int f = 0; f < faultCount; f++) {
+                if (impliedBy[f] >= 0 && find(parent, impliedBy[f]) != find(parent, f)) {
+                    classImpliedBy[find(parent, f)] = find(parent, impliedBy[f]);
+                }
+            }
+        }
+
+        // Resolve chains of dominance down to a class that is simulated
+        int[] target = new int[faultCount];
+        List<StuckAtFault> representatives = new ArrayList<>();
+        int[] representativeIndex = new int[faultCount];
+        Arrays.fill(representativeIndex, -1);
+        for (int f = 0; f < faultCount; f++) {
+            int root = find(parent, f);
+            int steps = 0;
+            while (classImpliedBy[root] >= 0 && steps++ < faultCount) {
+                root = classImpliedBy[root];
+            }
+            target[f] = root;
+        }
+        int[] representativeOf = new int[faultCount];
+        boolean[] dominated = new boolean[faultCount];
+        for (int f = 0; f < faultCount; f++) {
+            int root = target[f];
+            if (representativeIndex[root] < 0) {
+                representativeIndex[root] = representatives.size();
+                representatives.add(faults.get(chosen[root]));
+            }
+            representativeOf[f] = representativeIndex[root];
+            dominated[f] = root != find(parent, f);
+        }
+        return new CollapsedFaultList(faults, new FaultList(circuit, representatives), representativeOf, dominated);
+    }
+
+    // Fault on a gate input: the branch fault if the net fans out, the stem fault otherwise
+    private static int inputFault(Map<Long, Integer> index, CompiledCircuit circuit, int gate, int pin, boolean stuckAtOne) {
+        int net = circuit.getFaninNets()[circuit.getFaninStart()[gate] + pin];
+        if (circuit.fanoutCount(net) < 2) {
+            return stemFault(index, net, stuckAtOne);
+        }
+        Integer fault = index.get(branchKey(gate, pin, stuckAtOne));
+        return fault == null ? -1 : fault;
+    }
+
+    private static int stemFault(Map<Long, Integer> index, int net, boolean stuckAtOne) {
+        Integer fault = index.get(stemKey(net, stuckAtOne));
+        return fault == null ? -1 : fault;
+    }
+
+    private static boolean isCheckpoint(CompiledCircuit circuit, StuckAtFault fault) {
+        return fault.isBranch() || fault.getNet() < circuit.getInputCount();
+    }
+
+    private static void dominance(int[] impliedBy, int dominating, int dominated, int inputs) {
+        // A single-input gate has no dominance relation beyond its equivalences
+        if (inputs > 1 && dominating >= 0 && dominated >= 0 && impliedBy[dominating] < 0) {
+            impliedBy[dominating] = dominated;
+        }
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        if (a < 0 || b < 0) {
+            return;
+        }
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    private static int find(int[] parent, int f) {
+        while (parent[f] != f) {
+            parent[f] = parent[parent[f]];
+            f = parent[f];
+        }
+        return f;
+    }
+
+    private static long key(StuckAtFault fault) {
+        return fault.isBranch()
+                ? branchKey(fault.getBranchGate(), fault.getBranchPin(), fault.isStuckAtOne())
+                : stemKey(fault.getNet(), fault.isStuckAtOne());
+    }
+
+    private static long stemKey(int net, boolean stuckAtOne) {
+        return ((long) net << 1) | (stuckAtOne ? 1 : 0);
+    }
+
+    private static long branchKey(int gate, int pin, boolean stuckAtOne) {
+        return Long.MIN_VALUE | ((long) gate << 24) | ((long) pin << 1) | (stuckAtOne ? 1 : 0);
+    }
+}
@@ -0,0 +1,514 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+
+/**
+ * Fault dictionary for diagnosis: the response of every fault to a pattern set, from fault
+ * simulation without dropping, kept in compressed form so a failing device can be matched
+ * against it without simulating again.
+ *
+ * Each fault keeps a 64-bit signature of its failing (pattern, output) pairs, their number,
+ * and its pass/fail bit per pattern in the layout of {@link DetectionMatrix}. The signature
+ * hashes every pair on its own and combines them by XOR, so a tester log gives the same
+ * signature whatever the order of its entries. Two indices are derived from these: the
+ * faults sorted by signature, for exact matches, and the pattern-major transpose of the
+ * pass/fail bits, for the faults failing any pattern of a log.
+ *
+ * Layout of {@link #toBytes()} (little-endian):
+ * <pre>
+ * header   magic "FSIMDICT", int version, int reserved, long payload length, long CRC32 of payload
+ * payload  int faultCount, patternCount, inputCount, gateCount
+ *          long signatures[faultCount], int failureCounts[faultCount], zero-padded to 8 bytes
+ *          long patternWords[faultCount * (patternCount + 63) / 64]
+ * </pre>
+ */
+public final class FaultDictionary {
+    public static final int FORMAT_VERSION = 1;
+
+    private static final long MAGIC = 0x544349444D495346L; // "FSIMDICT" read little-endian
+    private static final int HEADER_BYTES = 32;
+    // Blocks whose good machine is held at once, as in FaultSimulator
+    private static final int BLOCKS_PER_ROUND = 16;
+
+    private final FaultList faults;
+    private final int patternCount;
+    private final int blockCount;
+    private final long[] signatures;
+    private final int[] failureCounts;
+    // Word b of fault f at f * blockCount + b, as in DetectionMatrix
+    private final long[] patternWords;
+    // Signatures in increasing order, and the fault of each
+    private final long[] sortedSignatures;
+    private final int[] signatureFaults;
+    // Faults failing pattern p at words p * faultWords until (p + 1) * faultWords
+    private final long[] patternFaults;
+    private final int faultWords;
+
+    /**
+     * A fault matching an observed log, with the fraction of failing patterns it shares
+     * with the log: the size of their intersection over the size of their union.
+     *
+     * @param fault Index of the fault in the dictionary's fault list.
+     * @param exact Whether the fault fails exactly the pairs of the log.
+     */
+    public record Candidate(int fault, boolean exact, double score) {
+    }
+
+    private FaultDictionary(FaultList faults, int patternCount, long[] signatures, int[] failureCounts, long[] patternWords) {
+        this.faults = faults;
+        this.patternCount = patternCount;
+        this.blockCount = PatternSet.blockCount(patternCount);
+        this.signatures = signatures;
+        this.failureCounts = failureCounts;
+        this.patternWords = patternWords;
+
+        Integer[] order = new Integer[faults.size()];
+        for (int f = 0; f < order.length; f++) {
+            order[f] = f;
+        }
+        Arrays.sort(order, Comparator.comparingLong(f -> signatures[f]));
+        this.sortedSignatures = new long[order.length];
+        this.signatureFaults = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedSignatures[i] = signatures[order[i]];
+            signatureFaults[i] = order[i];
+        }
+        this.faultWords = (faults.size() + 63) >>> 6;
+        this.patternFaults = transpose();
+    }
+
+    /**
+     * Simulates every fault against every pattern and records its responses.
+     *
+     * @param pool The pool to split the fault list over, or null to simulate on the calling
+     *             thread.
+     * @throws IllegalArgumentException If the patterns do not match the circuit's inputs, or
+     *                                  the dictionary would not fit in arrays.
+     */
+    public static FaultDictionary build(FaultList faults, PatternSet patterns, ForkJoinPool pool) {
+        CompiledCircuit circuit = faults.getCircuit();
+        if (patterns.getInputCount() != circuit.getInputCount()) {
+            throw new IllegalArgumentException("Mismatch: Number of inputs provided does not match the number of primary inputs in the circuit.");
+        }
+        int blockCount = patterns.getBlockCount();
+        long size = (long) faults.size() * blockCount;
+        if (size > Integer.MAX_VALUE - 8 || (long) blockCount * 64 * ((faults.size() + 63) >>> 6) > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("A fault dictionary of " + faults.size() + " faults by "
+                    + patterns.getPatternCount() + " patterns is too large.");
+        }
+        long[] signatures = new long[faults.size()];
+        int[] failureCounts = new int[faults.size()];
+        long[] patternWords = new long[(int) size];
+        long[][] goodValues = new long[Math.min(BLOCKS_PER_ROUND, blockCount)][circuit.getNetCount()];
+        long[][] goodZeros = patterns.hasUnknowns() ? new long[goodValues.length][circuit.getNetCount()] : null;
+        Queue<FaultPropagator> idlePropagators = new ConcurrentLinkedQueue<>();
+        for (int first = 0; first < blockCount; first += BLOCKS_PER_ROUND) {
+            int blocks = Math.min(BLOCKS_PER_ROUND, blockCount - first);
+            for (int k = 0; k < blocks; k++) {
+                long[] inputWords = patterns.getBlock(first + k);
+                long[] unknownWords = patterns.getUnknownBlock(first + k);
+                if (unknownWords == null) {
+                    System.arraycopy(inputWords, 0, goodValues[k], 0, circuit.getInputCount());
+                    circuit.evaluate(goodValues[k]);
+                } else {
+                    for (int i = 0; i < circuit.getInputCount(); i++) {
+                        goodValues[k][i] = inputWords[i] | unknownWords[i];
+                        goodZeros[k][i] = ~inputWords[i] | unknownWords[i];
+                    }
+                    circuit.evaluate(goodValues[k], goodZeros[k]);
+                }
+            }
+            RoundTask round = new RoundTask(faults, patterns, goodValues, goodZeros, first, blocks, signatures, failureCounts,
+                    patternWords, idlePropagators, 0, faults.size(),
+                    pool == null ? faults.size() : Math.max(64, faults.size() / (pool.getParallelism() * 8)));
+            if (pool == null) {
+                round.compute();
+            } else {
+                pool.invoke(round);
+            }
+        }
+        return new FaultDictionary(faults, patterns.getPatternCount(), signatures, failureCounts, patternWords);
+    }
+
+    public FaultList getFaults() {
+        return faults;
+    }
+
+    public int getFaultCount() {
+        return faults.size();
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    public long getSignature(int fault) {
+        return signatures[fault];
+    }
+
+    /**
+     * Number of (pattern, output) pairs at which the fault is observed.
+     */
+    public int getFailureCount(int fault) {
+        return failureCounts[fault];
+    }
+
+    /**
+     * Number of faults failing at least one pattern.
+     */
+    public int getDetectedCount() {
+        int count = 0;
+        for (int failures : failureCounts) {
+            if (failures > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean fails(int fault, int pattern) {
+        return (patternWords[fault * blockCount + (pattern >>> 6)] >>> (pattern & 63) & 1L) != 0;
+    }
+
+    /**
+     * Number of detected faults whose signature no other fault shares, which a log matching
+     * it exactly diagnoses down to one fault.
+     */
+    public int getDistinguishedCount() {
+        int count = 0;
+        for (int i = 0; i < sortedSignatures.length; i++) {
+            boolean unique = (i == 0 || sortedSignatures[i - 1] != sortedSignatures[i])
+                    && (i + 1 == sortedSignatures.length || sortedSignatures[i + 1] != sortedSignatures[i]);
+            if (unique && failureCounts[signatureFaults[i]] > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Approximate heap size of the dictionary and its indices in bytes.
+     */
+    public long getMemoryFootprint() {
+        return 8L * (signatures.length + sortedSignatures.length + patternWords.length + patternFaults.length)
+                + 4L * (failureCounts.length + signatureFaults.length);
+    }
+
+    /**
+     * Ranks the faults by how well they explain an observed log of failures. Faults
+     * failing exactly the pairs of the log come first, then the faults failing any pattern
+     * of the log, by decreasing score and then by how close their number of failures is to
+     * that of the log.
+     *
+     * @param failingPatterns Pattern index of every failure of the log.
+     * @param failingOutputs  Dense net index, as from {@link CompiledCircuit#netIndex}, of the
+     *                        primary output of every failure of the log.
+     * @param limit           Most candidates to return.
+     * @throws IllegalArgumentException If the log is empty, a failure is outside the
+     *                                  patterns or not at a primary output, or the limit is
+     *                                  not positive.
+     */
+    public List<Candidate> diagnose(int[] failingPatterns, int[] failingOutputs, int limit) {
+        if (failingPatterns.length != failingOutputs.length) {
+            throw new IllegalArgumentException("Every failure needs both a pattern and an output.");
+        }
+        if (failingPatterns.length == 0) {
+            throw new IllegalArgumentException("The log holds no failures.");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The candidate limit must be positive.");
+        }
+        CompiledCircuit circuit = faults.getCircuit();
+        long[] pairs = new long[failingPatterns.length];
+        for (int i = 0; i < pairs.length; i++) {
+            int pattern = failingPatterns[i];
+            int output = failingOutputs[i];
+            if (pattern < 0 || pattern >= patternCount) {
+                throw new IllegalArgumentException("Pattern " + pattern + " is outside the " + patternCount + " patterns of the dictionary.");
+            }
+            if (output < 0 || output >= circuit.getNetCount()) {
+                throw new IllegalArgumentException("Net index " + output + " is not in the circuit.");
+            }
+            if (!circuit.isPrimaryOutput(output)) {
+                throw new IllegalArgumentException("Net " + circuit.getNetId(output) + " is not a primary output.");
+            }
+            pairs[i] = (long) pattern << 32 | output;
+        }
+        // A log may repeat a failure; each pair counts once, as in the signatures
+        Arrays.sort(pairs);
+        long signature = 0L;
+        int failureCount = 0;
+        long[] observed = new long[blockCount];
+        for (int i = 0; i < pairs.length; i++) {
+            if (i > 0 && pairs[i] == pairs[i - 1]) {
+                continue;
+            }
+            int pattern = (int) (pairs[i] >>> 32);
+            signature ^= mix(pattern, (int) pairs[i]);
+            failureCount++;
+            observed[pattern >>> 6] |= 1L << pattern;
+        }
+        int observedPatterns = 0;
+        for (long word : observed) {
+            observedPatterns += Long.bitCount(word);
+        }
+
+        int[] sameSignature = findSignature(signature);
+        long[] candidates = new long[faultWords];
+        for (int b = 0; b < blockCount; b++) {
+            for (long word = observed[b]; word != 0; word &= word - 1) {
+                int pattern = (b << 6) + Long.numberOfTrailingZeros(word);
+                for (int w = 0; w < faultWords; w++) {
+                    candidates[w] |= patternFaults[pattern * faultWords + w];
+                }
+            }
+        }
+        int observedFailures = failureCount;
+        List<Candidate> ranked = new ArrayList<>();
+        for (int w = 0; w < faultWords; w++) {
+            for (long word = candidates[w]; word != 0; word &= word - 1) {
+                int fault = (w << 6) + Long.numberOfTrailingZeros(word);
+                int shared = 0;
+                int failing = 0;
+                for (int b = 0; b < blockCount; b++) {
+                    long faultWord = patternWords[fault * blockCount + b];
+                    shared += Long.bitCount(faultWord & observed[b]);
+                    failing += Long.bitCount(faultWord);
+                }
+                // The pass/fail bits guard against the rare signature collision
+                boolean exact = Arrays.binarySearch(sameSignature, fault) >= 0 && failureCounts[fault] == failureCount
+                        && shared == failing && shared == observedPatterns;
+                ranked.add(new Candidate(fault, exact, (double) shared / (failing + observedPatterns - shared)));
+            }
+        }
+        ranked.sort(Comparator.comparing(Candidate::exact).reversed()
+                .thenComparing(Comparator.comparingDouble(Candidate::score).reversed())
+                .thenComparingInt(c -> Math.abs(failureCounts[c.fault()] - observedFailures))
+                .thenComparingInt(Candidate::fault));
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+
+    /**
+     * Faults whose signature is exactly the given one, by increasing index. Failures are
+     * not checked pair by pair, so distinct responses may in rare cases share a signature.
+     */
+    public int[] findSignature(long signature) {
+        int from = lowerBound(signature);
+        int to = from;
+        while (to < sortedSignatures.length && sortedSignatures[to] == signature) {
+            to++;
+        }
+        int[] matches = Arrays.copyOfRange(signatureFaults, from, to);
+        Arrays.sort(matches);
+        return matches;
+    }
+
+    /**
+     * The dictionary in its file layout. The indices are not stored but rebuilt on reading.
+     */
+    public byte[] toBytes() {
+        long payloadBytes = 16 + 8L * signatures.length + align8(4L * failureCounts.length) + 8L * patternWords.length;
+        if (HEADER_BYTES + payloadBytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The dictionary is too large to store.");
+        }
+        CompiledCircuit circuit = faults.getCircuit();
+        ByteBuffer buffer = ByteBuffer.allocate((int) (HEADER_BYTES + payloadBytes)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(HEADER_BYTES);
+        buffer.putInt(faults.size()).putInt(patternCount).putInt(circuit.getInputCount()).putInt(circuit.getGateCount());
+        buffer.asLongBuffer().put(signatures);
+        buffer.position(buffer.position() + 8 * signatures.length);
+        buffer.asIntBuffer().put(failureCounts);
+        buffer.position(buffer.position() + (int) align8(4L * failureCounts.length));
+        buffer.asLongBuffer().put(patternWords);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, (int) payloadBytes);
+        buffer.putLong(0, MAGIC).putInt(8, FORMAT_VERSION).putInt(12, 0)
+                .putLong(16, payloadBytes).putLong(24, crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * Rebuilds a dictionary written by {@link #toBytes()} for the given fault list.
+     *
+     * @throws IOException If the bytes are not a dictionary, were written by another format
+     *                     version or for another fault list, or fail their checksum.
+     */
+    public static FaultDictionary fromBytes(FaultList faults, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < HEADER_BYTES + 16 || buffer.getLong(0) != MAGIC) {
+            throw new IOException("The data is not a fault dictionary.");
+        }
+        if (buffer.getInt(8) != FORMAT_VERSION) {
+            throw new IOException("The dictionary has version " + buffer.getInt(8) + ", expected " + FORMAT_VERSION + ".");
+        }
+        if (buffer.getLong(16) != bytes.length - HEADER_BYTES) {
+            throw new IOException("The dictionary is truncated.");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES);
+        if (crc.getValue() != buffer.getLong(24)) {
+            throw new IOException("The dictionary fails its checksum.");
+        }
+        buffer.position(HEADER_BYTES);
+        int faultCount = buffer.getInt();
+        int patternCount = buffer.getInt();
+        if (faultCount < 0 || patternCount < 0) {
+            throw new IOException("The dictionary has negative counts.");
+        }
+        CompiledCircuit circuit = faults.getCircuit();
+        if (faultCount != faults.size() || buffer.getInt() != circuit.getInputCount() || buffer.getInt() != circuit.getGateCount()) {
+            throw new IOException("The dictionary was built for another fault list.");
+        }
+        long[] signatures = new long[faultCount];
+        int[] failureCounts = new int[faultCount];
+        long words = (long) faultCount * PatternSet.blockCount(patternCount);
+        if (buffer.remaining() != 8L * faultCount + align8(4L * faultCount) + 8L * words) {
+            throw new IOException("The dictionary is truncated.");
+        }
+        // Sized in long, then cast: the data held every word, so the count fits in an int
+        long[] patternWords = new long[(int) words];
+        buffer.asLongBuffer().get(signatures);
+        buffer.position(buffer.position() + 8 * faultCount);
+        buffer.asIntBuffer().get(failureCounts);
+        buffer.position(buffer.position() + (int) align8(4L * faultCount));
+        buffer.asLongBuffer().get(patternWords);
+        return new FaultDictionary(faults, patternCount, signatures, failureCounts, patternWords);
+    }
+
+    private static long align8(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // Index of the first sorted signature not below the given one
+    private int lowerBound(long signature) {
+        int low = 0;
+        int high = sortedSignatures.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedSignatures[middle] < signature) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Pattern-major copy of the pass/fail bits, 64 by 64 bits at a time as in DetectionMatrix
+    private long[] transpose() {
+        long[] rows = new long[blockCount * 64 * faultWords];
+        long[] tile = new long[64];
+        for (int w = 0; w < faultWords; w++) {
+            for (int b = 0; b < blockCount; b++) {
+                for (int i = 0; i < 64; i++) {
+                    int fault = (w << 6) + i;
+                    tile[i] = fault < faults.size() ? patternWords[fault * blockCount + b] : 0;
+                }
+                DetectionMatrix.transpose64(tile);
+                for (int j = 0; j < 64; j++) {
+                    rows[((b << 6) + j) * faultWords + w] = tile[j];
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Hash of one failing pair: the SplitMix64 finalizer over the pattern and output
+    static long mix(int pattern, int output) {
+        long z = ((long) pattern << 32 | output) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class RoundTask extends RecursiveAction {
+        private final FaultList faults;
+        private final PatternSet patterns;
+        private final long[][] goodValues;
+        private final long[][] goodZeros;
+        private final int firstBlock;
+        private final int blocks;
+        private final long[] signatures;
+        private final int[] failureCounts;
+        private final long[] patternWords;
+        private final Queue<FaultPropagator> idlePropagators;
+        private final int from;
+        private final int to;
+        private final int splitThreshold;
+
+        RoundTask(FaultList faults, PatternSet patterns, long[][] goodValues, long[][] goodZeros, int firstBlock, int blocks,
+                  long[] signatures, int[] failureCounts, long[] patternWords, Queue<FaultPropagator> idlePropagators,
+                  int from, int to, int splitThreshold) {
+            this.faults = faults;
+            this.patterns = patterns;
+            this.goodValues = goodValues;
+            this.goodZeros = goodZeros;
+            this.firstBlock = firstBlock;
+            this.blocks = blocks;
+            this.signatures = signatures;
+            this.failureCounts = failureCounts;
+            this.patternWords = patternWords;
+            this.idlePropagators = idlePropagators;
+            this.from = from;
+            this.to = to;
+            this.splitThreshold = splitThreshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > splitThreshold) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RoundTask(faults, patterns, goodValues, goodZeros, firstBlock, blocks, signatures, failureCounts,
+                                patternWords, idlePropagators, from, middle, splitThreshold),
+                        new RoundTask(faults, patterns, goodValues, goodZeros, firstBlock, blocks, signatures, failureCounts,
+                                patternWords, idlePropagators, middle, to, splitThreshold));
+                return;
+            }
+            FaultPropagator propagator = idlePropagators.poll();
+            if (propagator == null) {
+                propagator = new FaultPropagator(faults.getCircuit());
+            }
+            int outputCount = faults.getCircuit().getOutputCount();
+            int[] outputNets = new int[outputCount];
+            long[] differences = new long[outputCount];
+            int blockCount = patterns.getBlockCount();
+            for (int k = 0; k < blocks; k++) {
+                int block = firstBlock + k;
+                if (patterns.getUnknownBlock(block) == null) {
+                    propagator.setGoodValues(goodValues[k]);
+                } else {
+                    propagator.setGoodValues(goodValues[k], goodZeros[k]);
+                }
+                long mask = patterns.blockMask(block);
+                for (int f = from; f < to; f++) {
+                    int reached = propagator.propagateResponse(faults.get(f), mask, outputNets, differences);
+                    long detected = 0L;
+                    for (int r = 0; r < reached; r++) {
+                        detected |= differences[r];
+                        failureCounts[f] += Long.bitCount(differences[r]);
+                        for (long word = differences[r]; word != 0; word &= word - 1) {
+                            signatures[f] ^= mix((block << 6) + Long.numberOfTrailingZeros(word), outputNets[r]);
+                        }
+                    }
+                    patternWords[f * blockCount + block] = detected;
+                }
+            }
+            idlePropagators.add(propagator);
+        }
+    }
+}
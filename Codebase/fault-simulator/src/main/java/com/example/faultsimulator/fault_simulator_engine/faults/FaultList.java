@@ -0,0 +1,117 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+import com.example.faultsimulator.fault_simulator_model.gates.Gate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An ordered list of stuck-at faults on one compiled circuit.
+ */
+public final class FaultList {
+    private final CompiledCircuit circuit;
+    private final List<StuckAtFault> faults;
+
+    public FaultList(CompiledCircuit circuit, List<StuckAtFault> faults) {
+        this.circuit = circuit;
+        this.faults = Collections.unmodifiableList(new ArrayList<>(faults));
+    }
+
+    /**
+     * Enumerates the full uncollapsed single stuck-at fault list: SA0 and SA1 on every net,
+     * plus SA0 and SA1 on every fanout branch of nets observed in more than one place.
+     */
+    public static FaultList enumerate(CompiledCircuit circuit) {
+        List<StuckAtFault> faults = new ArrayList<>();
+        int[] fanoutStart = circuit.getFanoutStart();
+        int[] fanoutGates = circuit.getFanoutGates();
+        int[] faninStart = circuit.getFaninStart();
+        int[] faninNets = circuit.getFaninNets();
+        for (int net = 0; net < circuit.getNetCount(); net++) {
+            faults.add(StuckAtFault.stem(net, false));
+            faults.add(StuckAtFault.stem(net, true));
+            if (circuit.fanoutCount(net) < 2) {
+                continue;
+            }
+            for (int i = fanoutStart[net]; i < fanoutStart[net + 1]; i++) {
+                int gate = fanoutGates[i];
+                // A gate may read the same net on several pins
+                if (i > fanoutStart[net] && fanoutGates[i - 1] == gate) {
+                    continue;
+                }
+                for (int edge = faninStart[gate]; edge < faninStart[gate + 1]; edge++) {
+                    if (faninNets[edge] == net) {
+                        faults.add(StuckAtFault.branch(circuit, gate, edge - faninStart[gate], false));
+                        faults.add(StuckAtFault.branch(circuit, gate, edge - faninStart[gate], true));
+                    }
+                }
+            }
+        }
+        return new FaultList(circuit, faults);
+    }
+
+    /**
+     * Builds a fault list from the connections of a graph that were marked with
+     * {@link CircuitConnection#setStuck(boolean, boolean)}.
+     *
+     * <p>A connection object that a graph uses as a primary input, a primary output or a gate
+     * output stands for the whole net, so marking it stuck gives one fault on that net even
+     * when the same object is also read by gates, as in graphs built from a netlist. Several
+     * stuck objects with the same id still give one fault. Only a stuck object that is used
+     * as a gate input and nowhere else becomes a fault on that branch alone.
+     */
+    public static FaultList fromStuckConnections(CircuitGraph graph) {
+        CompiledCircuit circuit = CircuitCompiler.compile(graph);
+        List<CircuitConnection> stems = new ArrayList<>(graph.getPrimaryInputs());
+        stems.addAll(graph.getPrimaryOutputs());
+        for (Gate gate : graph.getNodes().values()) {
+            stems.add(gate.getOutput());
+        }
+        Set<CircuitConnection> stemObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+        stemObjects.addAll(stems);
+
+        List<StuckAtFault> faults = new ArrayList<>();
+        boolean[] netFaulted = new boolean[circuit.getNetCount()];
+        for (CircuitConnection connection : stems) {
+            int net = circuit.netIndex(connection.getId());
+            if (connection.isStuck() && !netFaulted[net]) {
+                netFaulted[net] = true;
+                faults.add(StuckAtFault.stem(net, connection.getStuckValue()));
+            }
+        }
+        for (Gate gate : graph.getNodes().values()) {
+            List<CircuitConnection> inputs = gate.getInputs();
+            for (int pin = 0; pin < inputs.size(); pin++) {
+                CircuitConnection input = inputs.get(pin);
+                if (input.isStuck() && !stemObjects.contains(input)) {
+                    int compiledGate = circuit.drivingGate(circuit.netIndex(gate.getOutput().getId()));
+                    faults.add(StuckAtFault.branch(circuit, compiledGate, pin, input.getStuckValue()));
+                }
+            }
+        }
+        return new FaultList(circuit, faults);
+    }
+
+    public CompiledCircuit getCircuit() {
+        return circuit;
+    }
+
+    public StuckAtFault get(int index) {
+        return faults.get(index);
+    }
+
+    public int size() {
+        return faults.size();
+    }
+
+    public List<StuckAtFault> getFaults() {
+        return faults;
+    }
+}
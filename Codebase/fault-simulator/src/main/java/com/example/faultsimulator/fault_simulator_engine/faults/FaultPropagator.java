@@ -0,0 +1,282 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+
+/**
+ * Propagates a single fault through its fanout cone for one 64-pattern block, starting
+ * from the good-machine values of that block. Only gates whose inputs differ from the good
+ * machine are re-evaluated, level by level, and propagation stops wherever the faulty
+ * value matches the good one. Blocks holding X values are propagated in the dual-rail
+ * encoding of {@link CompiledCircuit#evaluate(long[], long[])}. All scratch state is owned
+ * by the instance, so use one propagator per thread.
+ */
+public final class FaultPropagator {
+    private final CompiledCircuit circuit;
+    private final int[] fanoutStart;
+    private final int[] fanoutGates;
+    private final int[] gateLevels;
+    private final int[] levelStart;
+    private final int inputCount;
+
+    private long[] good;
+    private final long[] faulty;
+    // Zero rails of the current block, null while it is fully specified
+    private long[] goodZeros;
+    private long[] faultyZeros;
+    private final int[] touched;
+    private int touchedCount;
+    private final boolean[] scheduled;
+    private final int[] buckets;
+    private final int[] bucketFill;
+    private int lowestLevel;
+    private int highestLevel;
+    private long gateEvaluations;
+    // Net at which propagateInversion stops, and the difference that reached it
+    private int stopNet = -1;
+    private long stopDifference;
+    // Where propagateResponse records the primary outputs reached, null otherwise
+    private int[] responseNets;
+    private long[] responseDifferences;
+    private int responseCount;
+
+    public FaultPropagator(CompiledCircuit circuit) {
+        this.circuit = circuit;
+        this.fanoutStart = circuit.getFanoutStart();
+        this.fanoutGates = circuit.getFanoutGates();
+        this.gateLevels = circuit.getGateLevels();
+        this.levelStart = circuit.getLevelStart();
+        this.inputCount = circuit.getInputCount();
+        this.faulty = new long[circuit.getNetCount()];
+        this.touched = new int[circuit.getNetCount()];
+        this.scheduled = new boolean[circuit.getGateCount()];
+        this.buckets = new int[circuit.getGateCount()];
+        this.bucketFill = new int[circuit.getLevelCount()];
+        this.lowestLevel = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Loads the good-machine values of a new block. The array is read, never modified.
+     */
+    public void setGoodValues(long[] goodValues) {
+        this.good = goodValues;
+        this.goodZeros = null;
+        System.arraycopy(goodValues, 0, faulty, 0, faulty.length);
+    }
+
+    /**
+     * Loads the dual-rail good-machine values of a new block that holds X values. Faults are
+     * then only counted as detected where the good and faulty outputs are definite and
+     * differ. The arrays are read, never modified.
+     */
+    public void setGoodValues(long[] goodOnes, long[] goodZeros) {
+        this.good = goodOnes;
+        this.goodZeros = goodZeros;
+        if (faultyZeros == null) {
+            faultyZeros = new long[faulty.length];
+        }
+        System.arraycopy(goodOnes, 0, faulty, 0, faulty.length);
+        System.arraycopy(goodZeros, 0, faultyZeros, 0, faultyZeros.length);
+    }
+
+    /**
+     * Simulates one fault against the current block.
+     *
+     * @param mask The valid patterns of the block.
+     * @return The patterns of the block that detect the fault at a primary output.
+     */
+    public long propagate(StuckAtFault fault, long mask) {
+        if (goodZeros != null) {
+            return propagateTernary(fault, mask);
+        }
+        long forced = fault.isStuckAtOne() ? -1L : 0L;
+        long detected = 0L;
+        if (((forced ^ good[fault.getNet()]) & mask) == 0) {
+            return 0L; // Never activated in this block
+        }
+        if (fault.isBranch()) {
+            int gate = fault.getBranchGate();
+            int edge = circuit.getFaninStart()[gate] + fault.getBranchPin();
+            gateEvaluations++;
+            detected = update(circuit.gateOutputNet(gate), circuit.evaluateGate(gate, faulty, edge, forced), mask);
+        } else {
+            detected = update(fault.getNet(), forced, mask);
+        }
+        detected |= run(mask);
+        restore();
+        return detected & mask;
+    }
+
+    private long propagateTernary(StuckAtFault fault, long mask) {
+        long forced = fault.isStuckAtOne() ? -1L : 0L;
+        // Patterns under which the good value may be the opposite of the stuck value
+        long[] opposite = fault.isStuckAtOne() ? goodZeros : good;
+        if ((opposite[fault.getNet()] & mask) == 0) {
+            return 0L;
+        }
+        int net;
+        if (fault.isBranch()) {
+            int gate = fault.getBranchGate();
+            gateEvaluations++;
+            circuit.evaluateGate(gate, faulty, faultyZeros, circuit.getFaninStart()[gate] + fault.getBranchPin(), forced);
+            net = circuit.gateOutputNet(gate);
+        } else {
+            net = fault.getNet();
+            faulty[net] = forced;
+            faultyZeros[net] = ~forced;
+        }
+        long detected = settle(net, mask);
+        detected |= run(mask);
+        restore();
+        return detected & mask;
+    }
+
+    /**
+     * As {@link #propagate}, also recording which primary outputs the fault reaches and
+     * under which patterns. Each output net is recorded once, whatever the number of times
+     * it appears in the output list.
+     *
+     * @param outputNets  Receives the dense indices of the outputs reached, in no particular
+     *                    order; needs room for {@link CompiledCircuit#getOutputCount()}.
+     * @param differences Receives the detecting patterns of each recorded output.
+     * @return The number of outputs recorded.
+     */
+    public int propagateResponse(StuckAtFault fault, long mask, int[] outputNets, long[] differences) {
+        responseNets = outputNets;
+        responseDifferences = differences;
+        responseCount = 0;
+        try {
+            propagate(fault, mask);
+            return responseCount;
+        } finally {
+            responseNets = null;
+            responseDifferences = null;
+        }
+    }
+
+    /**
+     * Simulates inverting a net under some patterns of the current block, which must be
+     * fully specified.
+     *
+     * @param mask    The patterns to invert the net under.
+     * @param stopNet A net every path from the inverted net to a primary output passes
+     *                through, where propagation stops, or -1 to propagate to the outputs.
+     * @return The patterns of the mask under which the inversion reaches the stop net, or
+     *         any primary output if there is none.
+     */
+    public long propagateInversion(int net, long mask, int stopNet) {
+        this.stopNet = stopNet;
+        stopDifference = 0L;
+        long detected = update(net, good[net] ^ mask, mask);
+        detected |= run(mask);
+        restore();
+        this.stopNet = -1;
+        return (stopNet < 0 ? detected : stopDifference) & mask;
+    }
+
+    /**
+     * Number of gate evaluations performed since the propagator was created.
+     */
+    public long getGateEvaluations() {
+        return gateEvaluations;
+    }
+
+    // Processes scheduled gates in level order until no event is left
+    private long run(long mask) {
+        long detected = 0L;
+        for (int level = lowestLevel; level <= highestLevel; level++) {
+            int start = levelStart[level];
+            int end = start + bucketFill[level];
+            for (int i = start; i < end; i++) {
+                int gate = buckets[i];
+                scheduled[gate] = false;
+                gateEvaluations++;
+                if (goodZeros == null) {
+                    detected |= update(inputCount + gate, circuit.evaluateGate(gate, faulty), mask);
+                } else {
+                    circuit.evaluateGate(gate, faulty, faultyZeros, -1, 0L);
+                    detected |= settle(inputCount + gate, mask);
+                }
+            }
+            bucketFill[level] = 0;
+        }
+        lowestLevel = Integer.MAX_VALUE;
+        highestLevel = 0;
+        return detected;
+    }
+
+    // Records a new faulty value and schedules the readers of the net if it differs
+    private long update(int net, long value, long mask) {
+        long difference = (value ^ good[net]) & mask;
+        if (difference == 0) {
+            return 0L;
+        }
+        if (net == stopNet) {
+            stopDifference = difference;
+            return 0L;
+        }
+        faulty[net] = value;
+        schedule(net);
+        if (!circuit.isPrimaryOutput(net)) {
+            return 0L;
+        }
+        record(net, difference);
+        return difference;
+    }
+
+    // Dual-rail form of update for a net whose faulty rails are already written: keeps and
+    // schedules them if they differ from the good machine, and counts only definite
+    // differences at a primary output as detections
+    private long settle(int net, long mask) {
+        long goodOne = good[net];
+        long goodZero = goodZeros[net];
+        long faultyOne = faulty[net];
+        long faultyZero = faultyZeros[net];
+        if ((((faultyOne ^ goodOne) | (faultyZero ^ goodZero)) & mask) == 0) {
+            faulty[net] = goodOne;
+            faultyZeros[net] = goodZero;
+            return 0L;
+        }
+        schedule(net);
+        if (!circuit.isPrimaryOutput(net)) {
+            return 0L;
+        }
+        long difference = ((goodOne & ~goodZero & faultyZero & ~faultyOne) | (goodZero & ~goodOne & faultyOne & ~faultyZero)) & mask;
+        if (difference != 0) {
+            record(net, difference);
+        }
+        return difference;
+    }
+
+    private void record(int net, long difference) {
+        if (responseNets != null) {
+            responseNets[responseCount] = net;
+            responseDifferences[responseCount++] = difference;
+        }
+    }
+
+    private void schedule(int net) {
+        touched[touchedCount++] = net;
+        for (int i = fanoutStart[net]; i < fanoutStart[net + 1]; i++) {
+            int gate = fanoutGates[i];
+            if (!scheduled[gate]) {
+                scheduled[gate] = true;
+                int level = gateLevels[gate];
+                buckets[levelStart[level] + bucketFill[level]++] = gate;
+                lowestLevel = Math.min(lowestLevel, level);
+                highestLevel = Math.max(highestLevel, level);
+            }
+        }
+    }
+
+    private void restore() {
+        for (int i = 0; i < touchedCount; i++) {
+            faulty[touched[i]] = good[touched[i]];
+        }
+        if (goodZeros != null) {
+            for (int i = 0; i < touchedCount; i++) {
+                faultyZeros[touched[i]] = goodZeros[touched[i]];
+            }
+        }
+        touchedCount = 0;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Outcome of a fault simulation run: for every fault of the list, the index of the first
+ * pattern that detected it, or -1 if no pattern did.
+ */
+public final class FaultSimulationResult {
+    private final FaultList faults;
+    private final int[] firstDetectingPatterns;
+    private final int patternCount;
+
+    public FaultSimulationResult(FaultList faults, int[] firstDetectingPatterns, int patternCount) {
+        this.faults = faults;
+        this.firstDetectingPatterns = firstDetectingPatterns;
+        this.patternCount = patternCount;
+    }
+
+    public FaultList getFaults() {
+        return faults;
+    }
+
+    public boolean isDetected(int fault) {
+        return firstDetectingPatterns[fault] >= 0;
+    }
+
+    public int getFirstDetectingPattern(int fault) {
+        return firstDetectingPatterns[fault];
+    }
+
+    public int getFaultCount() {
+        return firstDetectingPatterns.length;
+    }
+
+    public int getDetectedCount() {
+        int count = 0;
+        for (int pattern : firstDetectingPatterns) {
+            if (pattern >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    /**
+     * The result in a compact little-endian form: the fault and pattern counts, a bitset of
+     * the detected faults, then the first detecting pattern of each detected fault in order.
+     */
+    public byte[] toBytes() {
+        int detectedCount = getDetectedCount();
+        long[] detected = new long[(firstDetectingPatterns.length + 63) >>> 6];
+        ByteBuffer buffer = ByteBuffer.allocate(8 + detected.length * Long.BYTES + detectedCount * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(firstDetectingPatterns.length).putInt(patternCount);
+        for (int f = 0; f < firstDetectingPatterns.length; f++) {
+            if (firstDetectingPatterns[f] >= 0) {
+                detected[f >>> 6] |= 1L << f;
+            }
+        }
+        buffer.asLongBuffer().put(detected);
+        buffer.position(8 + detected.length * Long.BYTES);
+        for (int pattern : firstDetectingPatterns) {
+            if (pattern >= 0) {
+                buffer.putInt(pattern);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Unpacks a result written by {@link #toBytes()} for the given fault list.
+     *
+     * @throws IllegalArgumentException If the bytes do not hold a result for that many faults.
+     */
+    public static FaultSimulationResult fromBytes(FaultList faults, byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int words = (faults.size() + 63) >>> 6;
+        if (bytes.length < 8 + words * Long.BYTES || buffer.getInt() != faults.size()) {
+            throw new IllegalArgumentException("The data does not hold a result for " + faults.size() + " faults.");
+        }
+        int patternCount = buffer.getInt();
+        long[] detected = new long[words];
+        buffer.asLongBuffer().get(detected);
+        buffer.position(8 + words * Long.BYTES);
+        int[] firstDetectingPatterns = new int[faults.size()];
+        for (int f = 0; f < firstDetectingPatterns.length; f++) {
+            boolean isDetected = (detected[f >>> 6] >>> f & 1) != 0;
+            if (isDetected && buffer.remaining() < Integer.BYTES) {
+                throw new IllegalArgumentException("The data is truncated.");
+            }
+            firstDetectingPatterns[f] = isDetected ? buffer.getInt() : -1;
+        }
+        return new FaultSimulationResult(faults, firstDetectingPatterns, patternCount);
+    }
+
+    /**
+     * Fraction of faults detected, between 0 and 1.
+     */
+    public double getCoverage() {
+        return firstDetectingPatterns.length == 0 ? 1.0 : (double) getDetectedCount() / firstDetectingPatterns.length;
+    }
+}
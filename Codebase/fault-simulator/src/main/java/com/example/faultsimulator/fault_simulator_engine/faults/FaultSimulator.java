@@ -0,0 +1,519 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.SimdSimulator;
+import com.example.faultsimulator.fault_simulator_engine.StructuralIndex;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Parallel-pattern single-fault propagation (PPSFP) simulator. Patterns are applied in
+ * blocks of 64: the good machine is simulated once per block, then every fault that is
+ * still undetected is propagated through its fanout cone and compared against the good
+ * primary outputs. Detected faults are dropped from later blocks.
+ *
+ * Given a {@link ForkJoinPool}, the fault list is split into ranges that the pool's workers
+ * process with work stealing. Each worker borrows its own {@link FaultPropagator}, the
+ * good-machine values are shared read-only, and detections are merged into an atomic
+ * bitset. Every fault belongs to exactly one range, and blocks are applied in order, so the
+ * first detecting pattern and fault dropping are the same as in a sequential run.
+ *
+ * With critical path tracing enabled, faults are not propagated one by one: per block,
+ * only the roots of fanout-free regions are simulated, and the detection of every fault is
+ * derived from the observability traced back from them (see {@link CriticalPathTracer}).
+ * The blocks of a round are then traced in parallel. Results are identical in both modes.
+ *
+ * Where the Vector API is available, the good machine of the fully specified blocks of a
+ * round is simulated several blocks per pass by a {@link SimdSimulator}.
+ *
+ * Blocks holding X inputs are simulated three-valued (see
+ * {@link CompiledCircuit#evaluate(long[], long[])}), and a fault only counts as detected by
+ * a pattern where the good and faulty outputs are definite and differ. Rounds containing
+ * such a block are propagated explicitly even with critical path tracing enabled.
+ *
+ * Fed launch/capture pattern pairs through {@link #simulatePairs}, the simulator grades
+ * transition faults instead, reading each stuck-at-0 fault of the list as the slow-to-rise
+ * fault at the same site and each stuck-at-1 as slow-to-fall. A pair detects a transition
+ * fault if the launch pattern sets the site to the stuck value, so that the capture
+ * pattern makes the transition, and the capture pattern detects the stuck-at fault. Both
+ * frames are simulated once per block; the capture frame is exactly the stuck-at
+ * simulation, masked per fault with the patterns whose launch value initializes it.
+ * Equivalence collapsing does not carry over to transition faults, so give the full list.
+ *
+ * The simulator keeps the detection state between calls, so patterns may be fed block by
+ * block as they become available. A simulator instance must only be driven by one thread
+ * at a time, and grades either stuck-at or transition faults, not both.
+ */
+public final class FaultSimulator {
+    // Blocks simulated per fork-join round, to amortize the synchronization between rounds
+    private static final int BLOCKS_PER_ROUND = 16;
+
+    /**
+     * Receives progress once per round of up to 16 blocks, on the thread driving the
+     * simulator, so it is cheap enough for metrics and progress reporting.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param patterns      Patterns applied in the round.
+         * @param newlyDetected Faults first detected (and dropped) in the round.
+         */
+        void roundCompleted(FaultSimulator simulator, int patterns, int newlyDetected);
+    }
+
+    private final CompiledCircuit circuit;
+    private final FaultList faults;
+    private final ForkJoinPool pool;
+    private final int splitThreshold;
+    private final AtomicLongArray detected;
+    private final int[] firstDetectingPatterns;
+    private final Queue<FaultPropagator> idlePropagators = new ConcurrentLinkedQueue<>();
+    private final Queue<FaultPropagator> allPropagators = new ConcurrentLinkedQueue<>();
+    private final long[][] goodValues;
+    // Simulates the good machine of several blocks per pass; created with the first round
+    // of more than one block, and left null without the Vector API
+    private SimdSimulator simdSimulator;
+    private final long[] masks;
+    // Zero rails of the block slots that hold X inputs; allocated with the first such block
+    private long[][] goodZeros;
+    private final boolean[] ternary;
+    // Both rails of the launch frame of every block slot while grading transition faults
+    private long[][] launchOnes;
+    private long[][] launchZeros;
+    private final int[] firstPatterns;
+    private int detectedCount;
+    private int patternCount;
+    private long goodEvaluations;
+    private ProgressListener progressListener;
+    // Set while critical path tracing is enabled, with the traced values of each block slot
+    private CriticalPathTracer tracer;
+    private long[][] sensitized;
+    private long[][] rootObservability;
+    private int[] targets;
+
+    public FaultSimulator(FaultList faults) {
+        this(faults, null);
+    }
+
+    /**
+     * @param pool The pool to split the fault list over, or null to simulate on the calling
+     *             thread.
+     */
+    public FaultSimulator(FaultList faults, ForkJoinPool pool) {
+        this.circuit = faults.getCircuit();
+        this.faults = faults;
+        this.pool = pool;
+        int parallelism = pool == null ? 1 : pool.getParallelism();
+        this.splitThreshold = Math.max(64, faults.size() / (parallelism * 8));
+        this.detected = new AtomicLongArray((faults.size() + 63) >>> 6);
+        this.firstDetectingPatterns = new int[faults.size()];
+        Arrays.fill(firstDetectingPatterns, -1);
+        this.goodValues = new long[BLOCKS_PER_ROUND][circuit.getNetCount()];
+        this.masks = new long[BLOCKS_PER_ROUND];
+        this.ternary = new boolean[BLOCKS_PER_ROUND];
+        this.firstPatterns = new int[BLOCKS_PER_ROUND];
+    }
+
+    /**
+     * Simulates every pattern of the set, continuing from the state of earlier calls.
+     */
+    public FaultSimulationResult simulate(PatternSet patterns) {
+        if (patterns.getInputCount() != circuit.getInputCount()) {
+            throw new IllegalArgumentException("Mismatch: Number of inputs provided does not match the number of primary inputs in the circuit.");
+        }
+        if (launchOnes != null) {
+            throw new IllegalStateException("This simulator grades transition faults; use simulatePairs.");
+        }
+        for (int b = 0; b < patterns.getBlockCount() && detectedCount < faults.size(); b += BLOCKS_PER_ROUND) {
+            int blocks = Math.min(BLOCKS_PER_ROUND, patterns.getBlockCount() - b);
+            loadBlocks(patterns, b, blocks);
+            runRound(blocks);
+        }
+        return getResult();
+    }
+
+    /**
+     * Simulates the next block of up to 64 patterns.
+     *
+     * @param inputWords One word per primary input.
+     * @param valid      Number of patterns in the block, counted from bit 0.
+     * @return The number of faults first detected by this block.
+     */
+    public int simulateBlock(long[] inputWords, int valid) {
+        return simulateBlock(inputWords, null, valid);
+    }
+
+    /**
+     * Simulates the next block of up to 64 partially specified patterns.
+     *
+     * @param unknownWords One word per primary input with a bit set where the input is X,
+     *                     or null if the block is fully specified.
+     * @return The number of faults first detected by this block.
+     */
+    public int simulateBlock(long[] inputWords, long[] unknownWords, int valid) {
+        if (launchOnes != null) {
+            throw new IllegalStateException("This simulator grades transition faults; use simulatePairs.");
+        }
+        loadBlock(0, inputWords, unknownWords, valid);
+        return runRound(1);
+    }
+
+    /**
+     * Grades the transition faults of the list against launch/capture pairs, continuing
+     * from the state of earlier calls. Pair k is pattern k of each set; first detecting
+     * patterns in the result are pair indices.
+     *
+     * @throws IllegalArgumentException If the sets differ in size or do not match the circuit.
+     * @throws IllegalStateException    If the simulator has already graded stuck-at faults.
+     */
+    public FaultSimulationResult simulatePairs(PatternSet launch, PatternSet capture) {
+        if (launch.getInputCount() != circuit.getInputCount() || capture.getInputCount() != circuit.getInputCount()) {
+            throw new IllegalArgumentException("Mismatch: Number of inputs provided does not match the number of primary inputs in the circuit.");
+        }
+        if (launch.getPatternCount() != capture.getPatternCount()) {
+            throw new IllegalArgumentException("Mismatch: " + launch.getPatternCount() + " launch patterns but "
+                    + capture.getPatternCount() + " capture patterns.");
+        }
+        if (launchOnes == null) {
+            if (patternCount > 0) {
+                throw new IllegalStateException("This simulator grades stuck-at faults; use simulate.");
+            }
+            launchOnes = new long[BLOCKS_PER_ROUND][circuit.getNetCount()];
+            launchZeros = new long[BLOCKS_PER_ROUND][circuit.getNetCount()];
+        }
+        for (int b = 0; b < capture.getBlockCount() && detectedCount < faults.size(); b += BLOCKS_PER_ROUND) {
+            int blocks = Math.min(BLOCKS_PER_ROUND, capture.getBlockCount() - b);
+            for (int k = 0; k < blocks; k++) {
+                loadLaunch(k, launch.getBlock(b + k), launch.getUnknownBlock(b + k));
+            }
+            loadBlocks(capture, b, blocks);
+            runRound(blocks);
+        }
+        return getResult();
+    }
+
+    /**
+     * Switches between explicit propagation of every fault (the default) and critical path
+     * tracing, which simulates only fanout-free region roots and is usually several times
+     * faster on large circuits.
+     */
+    public void setCriticalPathTracing(boolean enabled) {
+        setCriticalPathTracing(enabled ? StructuralIndex.build(circuit) : null);
+    }
+
+    /**
+     * Enables critical path tracing with an index built earlier, or disables it with null.
+     */
+    public void setCriticalPathTracing(StructuralIndex index) {
+        if (index != null && index.getCircuit() != circuit) {
+            throw new IllegalArgumentException("The structural index belongs to a different circuit.");
+        }
+        tracer = index == null ? null : new CriticalPathTracer(index);
+        sensitized = index == null ? null : new long[BLOCKS_PER_ROUND][circuit.getNetCount()];
+        rootObservability = index == null ? null : new long[BLOCKS_PER_ROUND][circuit.getNetCount()];
+        targets = index == null ? null : new int[faults.size()];
+    }
+
+    public boolean isCriticalPathTracing() {
+        return tracer != null;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public FaultSimulationResult getResult() {
+        return new FaultSimulationResult(faults, firstDetectingPatterns.clone(), patternCount);
+    }
+
+    public boolean isDetected(int fault) {
+        return (detected.get(fault >>> 6) & (1L << fault)) != 0;
+    }
+
+    /**
+     * Index of the first pattern that detected the fault, or -1 if it is still undetected.
+     */
+    public int getFirstDetectingPattern(int fault) {
+        return firstDetectingPatterns[fault];
+    }
+
+    public int getDetectedCount() {
+        return detectedCount;
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    public FaultList getFaults() {
+        return faults;
+    }
+
+    /**
+     * Gate evaluations so far, for the good machine and for fault propagation together.
+     */
+    public long getGateEvaluations() {
+        long evaluations = goodEvaluations;
+        for (FaultPropagator propagator : allPropagators) {
+            evaluations += propagator.getGateEvaluations();
+        }
+        return evaluations;
+    }
+
+    // Computes the good machine of blocks first..first+blocks-1 of a set into the slots of
+    // the current round, runs of fully specified blocks in SIMD passes
+    private void loadBlocks(PatternSet patterns, int first, int blocks) {
+        if (simdSimulator == null && blocks > 1 && SimdSimulator.isVectorApiAvailable()) {
+            simdSimulator = new SimdSimulator(circuit);
+        }
+        int k = 0;
+        while (k < blocks) {
+            int run = 0;
+            if (simdSimulator != null) {
+                while (run < simdSimulator.getLanes() && k + run < blocks && patterns.getUnknownBlock(first + k + run) == null) {
+                    run++;
+                }
+            }
+            if (run < 2) {
+                loadBlock(k, patterns.getBlock(first + k), patterns.getUnknownBlock(first + k), Long.bitCount(patterns.blockMask(first + k)));
+                k++;
+                continue;
+            }
+            simdSimulator.simulateBlocks(patterns, first + k, run);
+            for (int lane = 0; lane < run; lane++, k++) {
+                simdSimulator.copyBlock(lane, goodValues[k]);
+                ternary[k] = false;
+                goodEvaluations += circuit.getGateCount();
+                startSlot(k, Long.bitCount(patterns.blockMask(first + k)));
+            }
+        }
+    }
+
+    // Computes the good machine of one block into the slot of the current round
+    private void loadBlock(int slot, long[] inputWords, long[] unknownWords, int valid) {
+        long[] values = goodValues[slot];
+        ternary[slot] = unknownWords != null;
+        if (unknownWords == null) {
+            System.arraycopy(inputWords, 0, values, 0, circuit.getInputCount());
+            circuit.evaluate(values);
+        } else {
+            if (goodZeros == null) {
+                goodZeros = new long[BLOCKS_PER_ROUND][circuit.getNetCount()];
+            }
+            long[] zeros = goodZeros[slot];
+            for (int i = 0; i < circuit.getInputCount(); i++) {
+                values[i] = inputWords[i] | unknownWords[i];
+                zeros[i] = ~inputWords[i] | unknownWords[i];
+            }
+            circuit.evaluate(values, zeros);
+        }
+        goodEvaluations += circuit.getGateCount();
+        startSlot(slot, valid);
+    }
+
+    // Assigns the next valid patterns to a slot whose good machine is loaded
+    private void startSlot(int slot, int valid) {
+        masks[slot] = valid >= 64 ? -1L : (1L << valid) - 1;
+        firstPatterns[slot] = patternCount;
+        patternCount += valid;
+    }
+
+    // Computes the launch frame of one block in dual rail, as the transition needs definite values
+    private void loadLaunch(int slot, long[] inputWords, long[] unknownWords) {
+        long[] ones = launchOnes[slot];
+        long[] zeros = launchZeros[slot];
+        for (int i = 0; i < circuit.getInputCount(); i++) {
+            long unknown = unknownWords == null ? 0L : unknownWords[i];
+            ones[i] = inputWords[i] | unknown;
+            zeros[i] = ~inputWords[i] | unknown;
+        }
+        circuit.evaluate(ones, zeros);
+        goodEvaluations += circuit.getGateCount();
+    }
+
+    // The patterns of a block slot to simulate a fault under: all valid ones for a stuck-at
+    // fault, those whose launch value definitely equals the stuck value for a transition
+    private long faultMask(StuckAtFault fault, int slot) {
+        if (launchOnes == null) {
+            return masks[slot];
+        }
+        long one = launchOnes[slot][fault.getNet()];
+        long zero = launchZeros[slot][fault.getNet()];
+        return masks[slot] & (fault.isStuckAtOne() ? one & ~zero : zero & ~one);
+    }
+
+    private int runRound(int blocks) {
+        int newlyDetected;
+        if (tracer != null && !hasTernaryBlock(blocks)) {
+            newlyDetected = traceRound(blocks);
+        } else {
+            newlyDetected = propagateBlocks(0, blocks);
+        }
+        detectedCount += newlyDetected;
+        if (progressListener != null) {
+            progressListener.roundCompleted(this, patternCount - firstPatterns[0], newlyDetected);
+        }
+        return newlyDetected;
+    }
+
+    private boolean hasTernaryBlock(int blocks) {
+        for (int k = 0; k < blocks; k++) {
+            if (ternary[k]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Applies blocks firstBlock..blocks-1 of the round, in order, to one range of the fault list
+    private int simulateRange(int from, int to, int firstBlock, int blocks) {
+        FaultPropagator propagator = idlePropagators.poll();
+        if (propagator == null) {
+            propagator = new FaultPropagator(circuit);
+            allPropagators.add(propagator);
+        }
+        int newlyDetected = 0;
+        for (int k = firstBlock; k < blocks; k++) {
+            if (ternary[k]) {
+                propagator.setGoodValues(goodValues[k], goodZeros[k]);
+            } else {
+                propagator.setGoodValues(goodValues[k]);
+            }
+            for (int f = from; f < to; f++) {
+                if (isDetected(f)) {
+                    continue;
+                }
+                long mask = faultMask(faults.get(f), k);
+                if (mask == 0) {
+                    continue;
+                }
+                long detection = propagator.propagate(faults.get(f), mask);
+                if (detection != 0) {
+                    firstDetectingPatterns[f] = firstPatterns[k] + Long.numberOfTrailingZeros(detection);
+                    detected.getAndAccumulate(f >>> 6, 1L << f, (word, bit) -> word | bit);
+                    newlyDetected++;
+                }
+            }
+        }
+        idlePropagators.add(propagator);
+        return newlyDetected;
+    }
+
+    // Propagates every undetected fault explicitly through blocks from..to-1 of the round
+    private int propagateBlocks(int from, int to) {
+        return pool == null
+                ? simulateRange(0, faults.size(), from, to)
+                : pool.invoke(new FaultRangeTask(0, faults.size(), from, to));
+    }
+
+    // Traces the blocks of the round in waves of one block per worker, dropping the faults
+    // each wave detects before the next, and assigns detections in block order. Once fewer
+    // faults remain than half the region roots, tracing costs more than propagating the
+    // remaining faults one by one, so the rest of the round falls back to that.
+    private int traceRound(int blocks) {
+        int wave = pool == null ? 1 : pool.getParallelism();
+        int rootCount = tracer.getIndex().getFfrRoots().length;
+        int newlyDetected = 0;
+        for (int from = 0; from < blocks; from += wave) {
+            int to = Math.min(blocks, from + wave);
+            int targetCount = 0;
+            for (int f = 0; f < faults.size(); f++) {
+                if (!isDetected(f)) {
+                    targets[targetCount++] = f;
+                }
+            }
+            if (targetCount == 0) {
+                break;
+            }
+            if (2 * targetCount < rootCount) {
+                return newlyDetected + propagateBlocks(from, blocks);
+            }
+            if (pool == null || to - from == 1) {
+                traceBlocks(from, to, targetCount);
+            } else {
+                pool.invoke(new BlockTraceTask(from, to, targetCount));
+            }
+            for (int t = 0; t < targetCount; t++) {
+                int f = targets[t];
+                for (int k = from; k < to; k++) {
+                    long detection = tracer.detect(faults.get(f), goodValues[k], faultMask(faults.get(f), k), sensitized[k], rootObservability[k]);
+                    if (detection != 0) {
+                        firstDetectingPatterns[f] = firstPatterns[k] + Long.numberOfTrailingZeros(detection);
+                        detected.getAndAccumulate(f >>> 6, 1L << f, (word, bit) -> word | bit);
+                        newlyDetected++;
+                        break;
+                    }
+                }
+            }
+        }
+        return newlyDetected;
+    }
+
+    private void traceBlocks(int from, int to, int targetCount) {
+        FaultPropagator propagator = idlePropagators.poll();
+        if (propagator == null) {
+            propagator = new FaultPropagator(circuit);
+            allPropagators.add(propagator);
+        }
+        for (int k = from; k < to; k++) {
+            propagator.setGoodValues(goodValues[k]);
+            tracer.trace(propagator, goodValues[k], masks[k], faults, targets, targetCount, sensitized[k], rootObservability[k]);
+        }
+        idlePropagators.add(propagator);
+    }
+
+    private final class BlockTraceTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int targetCount;
+
+        BlockTraceTask(int from, int to, int targetCount) {
+            this.from = from;
+            this.to = to;
+            this.targetCount = targetCount;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                traceBlocks(from, to, targetCount);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BlockTraceTask(from, middle, targetCount), new BlockTraceTask(middle, to, targetCount));
+        }
+    }
+
+    private final class FaultRangeTask extends RecursiveTask<Integer> {
+        private final int from;
+        private final int to;
+        private final int firstBlock;
+        private final int blocks;
+
+        FaultRangeTask(int from, int to, int firstBlock, int blocks) {
+            this.from = from;
+            this.to = to;
+            this.firstBlock = firstBlock;
+            this.blocks = blocks;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= splitThreshold) {
+                return simulateRange(from, to, firstBlock, blocks);
+            }
+            int middle = (from + to) >>> 1;
+            FaultRangeTask left = new FaultRangeTask(from, middle, firstBlock, blocks);
+            left.fork();
+            int right = new FaultRangeTask(middle, to, firstBlock, blocks).compute();
+            return right + left.join();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of random-pattern fault grading: the simulation result over the patterns that
+ * were kept, why the run stopped, and the fault coverage after every block of 64 patterns.
+ */
+public final class RandomGradingResult {
+
+    public enum StopReason {
+        /** The target coverage was reached, including when every fault was detected. */
+        TARGET_COVERAGE,
+        /** The configured number of blocks in a row detected no new fault. */
+        PLATEAU,
+        /** The pattern budget was used up. */
+        PATTERN_BUDGET
+    }
+
+    private final FaultSimulationResult result;
+    private final StopReason stopReason;
+    private final double[] coverageCurve;
+
+    public RandomGradingResult(FaultSimulationResult result, StopReason stopReason, double[] coverageCurve) {
+        this.result = result;
+        this.stopReason = stopReason;
+        this.coverageCurve = coverageCurve;
+    }
+
+    /**
+     * First detecting patterns of every fault. Pattern indices are positions in the
+     * generator's sequence, so the detecting patterns can be regenerated from its seeds.
+     */
+    public FaultSimulationResult getResult() {
+        return result;
+    }
+
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public int getPatternCount() {
+        return result.getPatternCount();
+    }
+
+    public double getCoverage() {
+        return result.getCoverage();
+    }
+
+    /**
+     * Number of points on the coverage curve, one per block of 64 patterns.
+     */
+    public int getBlockCount() {
+        return coverageCurve.length;
+    }
+
+    /**
+     * Fault coverage after the first {@code 64 * (block + 1)} patterns, between 0 and 1.
+     */
+    public double getCoverageAfterBlock(int block) {
+        return coverageCurve[block];
+    }
+
+    public double[] getCoverageCurve() {
+        return coverageCurve.clone();
+    }
+
+    /**
+     * Number of patterns applied after every point of the coverage curve; the last point
+     * accounts for a budget that is not a multiple of 64.
+     */
+    public int[] getCurvePatternCounts() {
+        int[] counts = new int[coverageCurve.length];
+        Arrays.setAll(counts, b -> Math.min(64 * (b + 1), result.getPatternCount()));
+        return counts;
+    }
+}
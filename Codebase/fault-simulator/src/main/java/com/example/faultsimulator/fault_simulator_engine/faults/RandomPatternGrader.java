@@ -0,0 +1,191 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.PatternGenerator;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Grades a fault list against pseudo-random patterns generated on the fly, instead of a
+ * pattern set held in memory. Patterns are drawn from a {@link PatternGenerator} in rounds
+ * of 64-pattern blocks and fault simulated with dropping, until one of the stop conditions
+ * holds: the target coverage is reached, a number of consecutive blocks detect nothing new,
+ * or the pattern budget is spent.
+ *
+ * Stop conditions are checked at block granularity: when a condition first holds partway
+ * through a round, the run is cut after that block and detections by later patterns of the
+ * round are discarded, so the result is the same as a block-by-block run.
+ *
+ * Graded against a {@link CollapsedFaultList}, only the representatives are simulated but
+ * coverage and the curve are weighted by class size, so they refer to the full fault list.
+ */
+public final class RandomPatternGrader {
+    // Blocks generated per call to the simulator, matching its round size
+    private static final int BLOCKS_PER_ROUND = 16;
+
+    private final FaultSimulator simulator;
+    private final CollapsedFaultList collapsed;
+    private final int[] weights;
+    private final int totalWeight;
+    private double targetCoverage = 1.0;
+    private int plateauBlocks;
+    private int patternBudget = 1 << 20;
+
+    /**
+     * @param pool The pool to split the fault list over, or null to simulate on the calling
+     *             thread.
+     */
+    public RandomPatternGrader(FaultList faults, ForkJoinPool pool) {
+        this.simulator = new FaultSimulator(faults, pool);
+        this.collapsed = null;
+        this.weights = new int[faults.size()];
+        Arrays.fill(weights, 1);
+        this.totalWeight = faults.size();
+    }
+
+    public RandomPatternGrader(CollapsedFaultList collapsed, ForkJoinPool pool) {
+        this.simulator = new FaultSimulator(collapsed.getRepresentatives(), pool);
+        this.collapsed = collapsed;
+        this.weights = new int[collapsed.getRepresentatives().size()];
+        for (int f = 0; f < collapsed.getFullFaults().size(); f++) {
+            weights[collapsed.getRepresentative(f)]++;
+        }
+        this.totalWeight = collapsed.getFullFaults().size();
+    }
+
+    /**
+     * @param targetCoverage Coverage at which to stop, between 0 and 1. Defaults to 1.
+     */
+    public void setTargetCoverage(double targetCoverage) {
+        if (!(targetCoverage >= 0 && targetCoverage <= 1)) {
+            throw new IllegalArgumentException("The target coverage must be between 0 and 1.");
+        }
+        this.targetCoverage = targetCoverage;
+    }
+
+    /**
+     * @param plateauBlocks Consecutive blocks without a new detection after which to stop,
+     *                      or 0 to never stop on a plateau (the default).
+     */
+    public void setPlateauBlocks(int plateauBlocks) {
+        if (plateauBlocks < 0) {
+            throw new IllegalArgumentException("The plateau length must not be negative.");
+        }
+        this.plateauBlocks = plateauBlocks;
+    }
+
+    /**
+     * @param patternBudget Maximum number of patterns to apply. Defaults to 2^20.
+     */
+    public void setPatternBudget(int patternBudget) {
+        if (patternBudget < 0) {
+            throw new IllegalArgumentException("The pattern budget must not be negative.");
+        }
+        this.patternBudget = patternBudget;
+    }
+
+    /**
+     * The underlying simulator, for instance to attach a progress listener.
+     */
+    public FaultSimulator getSimulator() {
+        return simulator;
+    }
+
+    /**
+     * Runs the grading. A grader is meant for a single run.
+     *
+     * @throws IllegalArgumentException If the generator does not produce one word per
+     *                                  primary input of the circuit.
+     */
+    public RandomGradingResult grade(PatternGenerator generator) {
+        int inputCount = simulator.getFaults().getCircuit().getInputCount();
+        if (generator.getInputCount() != inputCount) {
+            throw new IllegalArgumentException("Mismatch: The generator produces " + generator.getInputCount()
+                    + " inputs but the circuit has " + inputCount + " primary inputs.");
+        }
+        int faultCount = simulator.getFaults().size();
+        // Faults still undetected, compacted as they are detected so each round only scans those
+        int[] pending = new int[faultCount];
+        Arrays.setAll(pending, f -> f);
+        int pendingCount = faultCount;
+
+        int budgetBlocks = PatternSet.blockCount(patternBudget);
+        double[] curve = new double[Math.min(budgetBlocks, 1024)];
+        long[] roundWeights = new long[BLOCKS_PER_ROUND];
+        long detectedWeight = 0;
+        int blocks = 0;
+        int quietBlocks = 0;
+        RandomGradingResult.StopReason stopReason = null;
+
+        while (stopReason == null) {
+            if (reached(detectedWeight)) {
+                stopReason = RandomGradingResult.StopReason.TARGET_COVERAGE;
+                break;
+            }
+            if (blocks == budgetBlocks) {
+                stopReason = RandomGradingResult.StopReason.PATTERN_BUDGET;
+                break;
+            }
+            int roundBlocks = Math.min(BLOCKS_PER_ROUND, budgetBlocks - blocks);
+            int firstPattern = 64 * blocks;
+            int roundPatterns = Math.min(64 * roundBlocks, patternBudget - firstPattern);
+            long[][] words = new long[roundBlocks][inputCount];
+            for (long[] block : words) {
+                generator.nextBlock(block);
+            }
+            if (roundPatterns % 64 != 0) {
+                long mask = (1L << (roundPatterns % 64)) - 1;
+                long[] last = words[roundBlocks - 1];
+                for (int i = 0; i < inputCount; i++) {
+                    last[i] &= mask;
+                }
+            }
+            simulator.simulate(new PatternSet(inputCount, roundPatterns, words));
+
+            Arrays.fill(roundWeights, 0);
+            int kept = 0;
+            for (int p = 0; p < pendingCount; p++) {
+                int f = pending[p];
+                int pattern = simulator.getFirstDetectingPattern(f);
+                if (pattern >= 0) {
+                    roundWeights[(pattern - firstPattern) >>> 6] += weights[f];
+                } else {
+                    pending[kept++] = f;
+                }
+            }
+            pendingCount = kept;
+
+            if (blocks + roundBlocks > curve.length) {
+                curve = Arrays.copyOf(curve, Math.min(budgetBlocks, Math.max(2 * curve.length, blocks + roundBlocks)));
+            }
+            for (int k = 0; k < roundBlocks && stopReason == null; k++) {
+                detectedWeight += roundWeights[k];
+                curve[blocks++] = totalWeight == 0 ? 1.0 : (double) detectedWeight / totalWeight;
+                quietBlocks = roundWeights[k] == 0 ? quietBlocks + 1 : 0;
+                if (reached(detectedWeight)) {
+                    stopReason = RandomGradingResult.StopReason.TARGET_COVERAGE;
+                } else if (plateauBlocks > 0 && quietBlocks >= plateauBlocks) {
+                    stopReason = RandomGradingResult.StopReason.PLATEAU;
+                }
+            }
+        }
+        int patternCount = Math.min(64 * blocks, patternBudget);
+        return new RandomGradingResult(truncate(patternCount), stopReason, Arrays.copyOf(curve, blocks));
+    }
+
+    private boolean reached(long detectedWeight) {
+        return totalWeight == 0 || detectedWeight >= targetCoverage * totalWeight;
+    }
+
+    // Drops detections by patterns past the block where the run stopped
+    private FaultSimulationResult truncate(int patternCount) {
+        int[] firstDetectingPatterns = new int[simulator.getFaults().size()];
+        for (int f = 0; f < firstDetectingPatterns.length; f++) {
+            int pattern = simulator.getFirstDetectingPattern(f);
+            firstDetectingPatterns[f] = pattern < patternCount ? pattern : -1;
+        }
+        FaultSimulationResult result = new FaultSimulationResult(simulator.getFaults(), firstDetectingPatterns, patternCount);
+        return collapsed == null ? result : collapsed.expand(result);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+
+/**
+ * A single stuck-at fault on a {@link CompiledCircuit}. A stem fault sits on a net and is
+ * seen by every reader; a branch fault sits on one gate input (a fanout branch) and only
+ * that gate sees it.
+ */
+public final class StuckAtFault {
+    private final int net;
+    private final int branchGate;
+    private final int branchPin;
+    private final boolean stuckAtOne;
+
+    private StuckAtFault(int net, int branchGate, int branchPin, boolean stuckAtOne) {
+        this.net = net;
+        this.branchGate = branchGate;
+        this.branchPin = branchPin;
+        this.stuckAtOne = stuckAtOne;
+    }
+
+    public static StuckAtFault stem(int net, boolean stuckAtOne) {
+        return new StuckAtFault(net, -1, -1, stuckAtOne);
+    }
+
+    /**
+     * @param gate The gate reading the branch.
+     * @param pin  Position of the branch within the fan-in of that gate.
+     */
+    public static StuckAtFault branch(CompiledCircuit circuit, int gate, int pin, boolean stuckAtOne) {
+        int net = circuit.getFaninNets()[circuit.getFaninStart()[gate] + pin];
+        return new StuckAtFault(net, gate, pin, stuckAtOne);
+    }
+
+    public int getNet() {
+        return net;
+    }
+
+    public boolean isBranch() {
+        return branchGate >= 0;
+    }
+
+    public int getBranchGate() {
+        return branchGate;
+    }
+
+    public int getBranchPin() {
+        return branchPin;
+    }
+
+    public boolean isStuckAtOne() {
+        return stuckAtOne;
+    }
+
+    /**
+     * Describes the fault with the original net ids, e.g. "11 SA0" or "11->16 SA1".
+     */
+    public String describe(CompiledCircuit circuit) {
+        String site = String.valueOf(circuit.getNetId(net));
+        if (isBranch()) {
+            site += "->" + circuit.getNetId(circuit.gateOutputNet(branchGate));
+        }
+        return site + (stuckAtOne ? " SA1" : " SA0");
+    }
+
+    /**
+     * Describes the transition fault this stands for when grading launch/capture pairs,
+     * e.g. "11 STR" (slow-to-rise, for stuck-at-0) or "11->16 STF" (slow-to-fall).
+     */
+    public String describeTransition(CompiledCircuit circuit) {
+        String stuckAt = describe(circuit);
+        return stuckAt.substring(0, stuckAt.length() - 3) + (stuckAtOne ? "STF" : "STR");
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * Static test-set compaction: finds a small subset of a pattern set that detects every
+ * fault the whole set detects.
+ *
+ * <ol>
+ *   <li>Reverse-order fault simulation with dropping. Patterns late in a set, typically
+ *   targeting hard faults, also detect many easy ones, so simulating from the end and
+ *   keeping only patterns that are the first to detect some fault removes most of the set
+ *   cheaply.</li>
+ *   <li>A bit-packed {@link DetectionMatrix} of the remaining patterns against the detected
+ *   faults, simulated without dropping.</li>
+ *   <li>Greedy set cover over the pattern-major rows of the matrix, picking the pattern
+ *   covering the most uncovered faults with word-wide AND and bit counts. Gains only shrink
+ *   as faults get covered, so stale gains in a priority queue are upper bounds and only
+ *   the head needs recounting.</li>
+ *   <li>Patterns whose faults are all covered by other picks are removed, latest pick first.</li>
+ * </ol>
+ *
+ * Kept patterns stay in their original order.
+ */
+public final class TestSetCompactor {
+    private final FaultList faults;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param pool The pool to split the fault list over, or null to simulate on the calling
+     *             thread.
+     */
+    public TestSetCompactor(FaultList faults, ForkJoinPool pool) {
+        this.faults = faults;
+        this.pool = pool;
+    }
+
+    public CompactionResult compact(PatternSet patterns) {
+        int patternCount = patterns.getPatternCount();
+        int[] reverse = new int[patternCount];
+        Arrays.setAll(reverse, p -> patternCount - 1 - p);
+        FaultSimulationResult reverseResult = new FaultSimulator(faults, pool).simulate(patterns.select(reverse));
+
+        boolean[] firstDetector = new boolean[patternCount];
+        List<StuckAtFault> detected = new ArrayList<>();
+        for (int f = 0; f < faults.size(); f++) {
+            if (reverseResult.isDetected(f)) {
+                firstDetector[reverse[reverseResult.getFirstDetectingPattern(f)]] = true;
+                detected.add(faults.get(f));
+            }
+        }
+        int[] candidates = indicesOf(firstDetector);
+
+        int[] picks = cover(DetectionMatrix.simulate(new FaultList(faults.getCircuit(), detected), patterns.select(candidates), pool));
+        int[] originalIndices = new int[picks.length];
+        for (int i = 0; i < picks.length; i++) {
+            originalIndices[i] = candidates[picks[i]];
+        }
+        Arrays.sort(originalIndices);
+        PatternSet compacted = patterns.select(originalIndices);
+        FaultSimulationResult result = new FaultSimulator(faults, pool).simulate(compacted);
+        return new CompactionResult(originalIndices, compacted, patternCount, candidates.length, result);
+    }
+
+    // Returns the rows of the matrix picked to cover every fault with at least one detection
+    static int[] cover(DetectionMatrix matrix) {
+        int patternCount = matrix.getPatternCount();
+        int faultWords = (matrix.getFaultCount() + 63) >>> 6;
+        long[] rows = matrix.transpose();
+        long[] uncovered = new long[faultWords];
+        int remaining = 0;
+        for (int f = 0; f < matrix.getFaultCount(); f++) {
+            if (matrix.getDetectionCount(f) > 0) {
+                uncovered[f >>> 6] |= 1L << f;
+                remaining++;
+            }
+        }
+
+        // Gain in the high half, so ties go to the earlier pattern
+        PriorityQueue<Long> queue = new PriorityQueue<>(Math.max(1, patternCount), (a, b) -> Long.compare(b, a));
+        for (int p = 0; p < patternCount; p++) {
+            int gain = gain(rows, p, faultWords, uncovered);
+            if (gain > 0) {
+                queue.add(entry(gain, p));
+            }
+        }
+        List<Integer> picks = new ArrayList<>();
+        while (remaining > 0) {
+            int p = Integer.MAX_VALUE - (int) (long) queue.poll();
+            int gain = gain(rows, p, faultWords, uncovered);
+            if (gain == 0) {
+                continue;
+            }
+            if (!queue.isEmpty() && gain < (queue.peek() >>> 32)) {
+                queue.add(entry(gain, p));
+                continue;
+            }
+            picks.add(p);
+            remaining -= gain;
+            for (int w = 0; w < faultWords; w++) {
+                uncovered[w] &= ~rows[p * faultWords + w];
+            }
+        }
+
+        // A later pick may cover everything an earlier one was picked for
+        int[] coverCounts = new int[matrix.getFaultCount()];
+        for (int p : picks) {
+            forEachFault(rows, p, faultWords, f -> coverCounts[f]++);
+        }
+        for (int i = picks.size() - 1; i >= 0; i--) {
+            int p = picks.get(i);
+            boolean redundant = true;
+            for (int w = 0; w < faultWords && redundant; w++) {
+                for (long bits = rows[p * faultWords + w]; bits != 0 && redundant; bits &= bits - 1) {
+                    redundant = coverCounts[(w << 6) + Long.numberOfTrailingZeros(bits)] > 1;
+                }
+            }
+            if (redundant) {
+                forEachFault(rows, p, faultWords, f -> coverCounts[f]--);
+                picks.remove(i);
+            }
+        }
+        return picks.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static long entry(int gain, int pattern) {
+        return (long) gain << 32 | (Integer.MAX_VALUE - pattern);
+    }
+
+    private static int gain(long[] rows, int pattern, int faultWords, long[] uncovered) {
+        int gain = 0;
+        for (int w = 0; w < faultWords; w++) {
+            gain += Long.bitCount(rows[pattern * faultWords + w] & uncovered[w]);
+        }
+        return gain;
+    }
+
+    private static void forEachFault(long[] rows, int pattern, int faultWords, IntConsumer action) {
+        for (int w = 0; w < faultWords; w++) {
+            for (long bits = rows[pattern * faultWords + w]; bits != 0; bits &= bits - 1) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+    }
+
+    private static int[] indicesOf(boolean[] flags) {
+        int count = 0;
+        for (boolean flag : flags) {
+            if (flag) {
+                count++;
+            }
+        }
+        int[] indices = new int[count];
+        for (int i = 0, k = 0; i < flags.length; i++) {
+            if (flags[i]) {
+                indices[k++] = i;
+            }
+        }
+        return indices;
+    }
+}
@@ -4,14 +4,28 @@ public class CircuitConnection {
     private int id;
     private boolean value;
     private boolean stuck;
+    private boolean stuckValue;
 
 
     public boolean isStuck() {
         return stuck;
     }
 
+    /**
+     * The value the connection was marked stuck at. Evaluation overwrites {@link #getValue()},
+     * so fault lists read this instead.
+     */
+    public boolean getStuckValue() {
+        return stuckValue;
+    }
+
+    /**
+     * Marks the connection as a stuck-at fault for
+     * {@code FaultList.fromStuckConnections}. The mark does not change how the graph evaluates.
+     */
     public void setStuck(boolean stuck, boolean value) {
         this.stuck = stuck;
+        this.stuckValue = value;
         this.value = value;
     }
 
@@ -33,4 +47,4 @@ public class CircuitConnection {
     public void setValue(boolean value) {
         this.value = value;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -4,11 +4,20 @@ import com.example.faultsimulator.fault_simulator_model.gates.*;
 
 import java.util.*;
 
+/**
+ * Object model of a circuit, as built by hand or from a parsed netlist. The engine lowers it
+ * with {@code CircuitCompiler.compile(graph)} and builds one back with
+ * {@code CircuitCompiler.toGraph(circuit)}.
+ *
+ * Not thread-safe: {@link #evaluate} writes the connection values and reuses one value array,
+ * so callers that share a graph must hold a lock around edits and evaluations.
+ */
 public class CircuitGraph {
     private Map<Integer, Gate> nodes = new HashMap<>();
     private List<CircuitConnection> connections = new ArrayList<>();
     private List<CircuitConnection> PrimaryInputs = new ArrayList<>();
     private List<CircuitConnection> PrimaryOutputs = new ArrayList<>();
+    private boolean[] values = new boolean[0];
 
     public void addConnection(CircuitConnection connection) {
         connections.add(connection);
@@ -75,13 +84,31 @@ public class CircuitGraph {
         PrimaryOutputs = primaryOutputs;
     }
 
-    public void evaluate(List<Boolean> primaryInputValues) throws Exception {
+    /**
+     * Evaluates the graph in one pass over its levelized form and publishes the results on
+     * the primary output connections.
+     *
+     * @param circuit The levelized form of this graph, from {@code CircuitCompiler.compile(graph)}.
+     * @param primaryInputValues The value of every primary input.
+     * @throws Exception If the input size does not match the number of primary inputs.
+     */
+    public void evaluate(LevelizedCircuit circuit, List<Boolean> primaryInputValues) throws Exception {
         // Step 1: Set the primary input values
         setPrimaryInputsValues(primaryInputValues);
 
-        // Step 2: Evaluate each gate in the circuit
-        for (Gate gate : nodes.values()) {
-            gate.evaluateOutput(gate.getInputs(), gate.getOutput());
+        // Step 2: Evaluate the levelized circuit in a single pass
+        if (values.length != circuit.getNetCount()) {
+            values = new boolean[circuit.getNetCount()];
+        }
+        for (int i = 0; i < PrimaryInputs.size(); i++) {
+            values[i] = PrimaryInputs.get(i).getValue();
+        }
+        circuit.evaluate(values);
+
+        // Step 3: Publish the results on the primary output connections
+        int[] outputNets = circuit.getPrimaryOutputNets();
+        for (int i = 0; i < PrimaryOutputs.size(); i++) {
+            PrimaryOutputs.get(i).setValue(values[outputNets[i]]);
         }
     }
 
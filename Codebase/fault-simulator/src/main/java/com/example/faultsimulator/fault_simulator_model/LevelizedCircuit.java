@@ -0,0 +1,23 @@
+package com.example.faultsimulator.fault_simulator_model;
+
+/**
+ * The levelized form of a {@link CircuitGraph} that {@link CircuitGraph#evaluate} runs on. The
+ * engine's compiled circuit implements it, so the model does not depend on the engine.
+ *
+ * Nets are addressed by a dense index with the primary inputs first, in the order of
+ * {@link CircuitGraph#getPrimaryInputs()}.
+ */
+public interface LevelizedCircuit {
+
+    int getNetCount();
+
+    /**
+     * The net of every primary output, in the order of {@link CircuitGraph#getPrimaryOutputs()}.
+     */
+    int[] getPrimaryOutputNets();
+
+    /**
+     * Computes every net from the primary input values already in {@code values}.
+     */
+    void evaluate(boolean[] values);
+}
@@ -12,9 +12,14 @@ public class ANDGate extends Gate {
             super(id,inputs,output);
         }
 
+    @Override
+    public GateType getType() {
+        return GateType.AND;
+    }
+
     @Override
     public void evaluateOutput(List<CircuitConnection> inputs, CircuitConnection output) {
-        Boolean result = true;
+        boolean result = true;
         for (CircuitConnection input : inputs) { result=result&&input.getValue();}
         output.setValue(result);
     }
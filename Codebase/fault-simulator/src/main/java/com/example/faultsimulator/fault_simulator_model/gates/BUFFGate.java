@@ -12,8 +12,13 @@ public class BUFFGate extends Gate{
         super(id,inputs,output);
     }
 
+    @Override
+    public GateType getType() {
+        return GateType.BUFF;
+    }
+
     @Override
     public void evaluateOutput(List<CircuitConnection> inputs, CircuitConnection output) {
-        output.setValue(!inputs.get(0).getValue());
+        output.setValue(inputs.get(0).getValue());
     }
 }
@@ -29,6 +29,8 @@ public abstract class Gate {
         return output;
     }
 
+    public abstract GateType getType();
+
     public abstract void evaluateOutput(List<CircuitConnection> inputs, CircuitConnection output);
 }
 
@@ -0,0 +1,50 @@
+package com.example.faultsimulator.fault_simulator_model.gates;
+
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+
+import java.util.List;
+
+/**
+ * The gate kinds of the ISCAS-85 bench format. The opcode is the value the circuit
+ * compiler stores per gate, so it must stay stable once compiled circuits are persisted.
+ */
+public enum GateType {
+    AND(0),
+    NAND(1),
+    OR(2),
+    NOR(3),
+    XOR(4),
+    NOT(5),
+    BUFF(6);
+
+    private final byte opcode;
+
+    GateType(int opcode) {
+        this.opcode = (byte) opcode;
+    }
+
+    public byte getOpcode() {
+        return opcode;
+    }
+
+    public Gate createGate(int id, List<CircuitConnection> inputs, CircuitConnection output) {
+        return switch (this) {
+            case AND -> new ANDGate(id, inputs, output);
+            case NAND -> new NANDGate(id, inputs, output);
+            case OR -> new ORGate(id, inputs, output);
+            case NOR -> new NORGate(id, inputs, output);
+            case XOR -> new XORGate(id, inputs, output);
+            case NOT -> new NOTGate(id, inputs, output);
+            case BUFF -> new BUFFGate(id, inputs, output);
+        };
+    }
+
+    public static GateType fromOpcode(byte opcode) {
+        for (GateType type : values()) {
+            if (type.opcode == opcode) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown gate opcode: " + opcode);
+    }
+}
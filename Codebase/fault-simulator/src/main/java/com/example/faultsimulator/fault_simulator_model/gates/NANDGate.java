@@ -11,9 +11,14 @@ public class NANDGate extends Gate{
         super(id,inputs,output);
     }
 
+    @Override
+    public GateType getType() {
+        return GateType.NAND;
+    }
+
     @Override
     public void evaluateOutput(List<CircuitConnection> inputs, CircuitConnection output) {
-        Boolean result = true;
+        boolean result = true;
         for (CircuitConnection input : inputs) { result=result&&input.getValue();}
         output.setValue(!result);
     }
@@ -11,9 +11,14 @@ public class NORGate extends Gate{
         super(id,inputs,output);
     }
 
+    @Override
+    public GateType getType() {
+        return GateType.NOR;
+    }
+
     @Override
     public void evaluateOutput(List<CircuitConnection> inputs, CircuitConnection output) {
-        Boolean result = false;
+        boolean result = false;
         for (CircuitConnection input : inputs) { result=result||input.getValue();}
         output.setValue(!result);
     }
@@ -11,6 +11,11 @@ public class NOTGate extends Gate{
         super(id,inputs,output);
     }
 
+    @Override
+    public GateType getType() {
+        return GateType.NOT;
+    }
+
     @Override
     public void evaluateOutput(List<CircuitConnection> inputs, CircuitConnection output) {
         output.setValue(!inputs.get(0).getValue());
@@ -11,9 +11,14 @@ public class XORGate extends Gate{
         super(id,inputs,output);
     }
 
+    @Override
+    public GateType getType() {
+        return GateType.XOR;
+    }
+
     @Override
     public void evaluateOutput(List<CircuitConnection> inputs, CircuitConnection output) {
-        Boolean result = false; // Start with false, as XOR is cumulative
+        boolean result = false; // Start with false, as XOR is cumulative
         for (CircuitConnection input : inputs) {result = result ^ input.getValue();}
         output.setValue(result);
     }
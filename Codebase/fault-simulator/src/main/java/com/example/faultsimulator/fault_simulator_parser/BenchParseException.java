@@ -0,0 +1,19 @@
+package com.example.faultsimulator.fault_simulator_parser;
+
+import java.io.IOException;
+
+/**
+ * A syntax error in a bench file, with the 1-based line it was found on.
+ */
+public class BenchParseException extends IOException {
+    private final long line;
+
+    public BenchParseException(long line, String message) {
+        super("Line " + line + ": " + message);
+        this.line = line;
+    }
+
+    public long getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.faultsimulator.fault_simulator_parser;
+
+import com.example.faultsimulator.fault_simulator_engine.Netlist;
+import com.example.faultsimulator.fault_simulator_model.gates.GateType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streaming parser for the ISCAS-85 bench format:
+ * <pre>
+ * # comment
+ * INPUT(1)
+ * OUTPUT(22)
+ * 10 = NAND(1, 3)
+ * </pre>
+ * The input is consumed byte by byte through a small state machine, so no line, token or
+ * connection object is created: numbers are accumulated directly into ints, keywords are
+ * matched against byte constants, and the result is a {@link Netlist} of primitive arrays.
+ * Keywords are case-insensitive, BUF is accepted for BUFF, and both LF and CRLF line endings
+ * are accepted. Syntax errors are reported as a {@link BenchParseException} with the line.
+ */
+public final class BenchParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Longest keyword we need to recognize; longer words are kept only for the error message
+    private static final int MAX_WORD = 16;
+    private static final byte[] INPUT = {'I', 'N', 'P', 'U', 'T'};
+    private static final byte[] OUTPUT = {'O', 'U', 'T', 'P', 'U', 'T'};
+    private static final byte[] BUF = {'B', 'U', 'F'};
+
+    // Statement states; each names what the parser expects next
+    private static final int LINE_START = 0;
+    private static final int DECLARATION_OPEN = 1;
+    private static final int DECLARATION_NET = 2;
+    private static final int DECLARATION_CLOSE = 3;
+    private static final int GATE_EQUALS = 4;
+    private static final int GATE_TYPE = 5;
+    private static final int GATE_OPEN = 6;
+    private static final int GATE_FANIN = 7;
+    private static final int GATE_SEPARATOR = 8;
+    private static final int LINE_END = 9;
+
+    // Token states
+    private static final int NO_TOKEN = 0;
+    private static final int NUMBER = 1;
+    private static final int WORD = 2;
+    private static final int COMMENT = 3;
+
+    private final Netlist netlist = new Netlist();
+    private long line = 1;
+    private int state = LINE_START;
+    private int token = NO_TOKEN;
+    private long number;
+    private final byte[] word = new byte[MAX_WORD];
+    private int wordLength;
+    private boolean declaresInput;
+    private int gateOutput;
+    private GateType gateType;
+    private int[] fanins = new int[8];
+    private int faninCount;
+
+    private BenchParser() {
+    }
+
+    public static Netlist parse(byte[] content) throws BenchParseException {
+        BenchParser parser = new BenchParser();
+        parser.consume(ByteBuffer.wrap(content));
+        return parser.finish();
+    }
+
+    /**
+     * Reads the channel to its end in fixed-size chunks; the channel is not closed.
+     */
+    public static Netlist parse(ReadableByteChannel channel) throws IOException {
+        BenchParser parser = new BenchParser();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            parser.consume(buffer);
+            buffer.clear();
+        }
+        return parser.finish();
+    }
+
+    /**
+     * Parses a file through memory-mapped windows, so the file is never copied onto the heap.
+     */
+    public static Netlist parse(Path file) throws IOException {
+        BenchParser parser = new BenchParser();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(Integer.MAX_VALUE, size - position));
+                parser.consume(window);
+            }
+        }
+        return parser.finish();
+    }
+
+    private void consume(ByteBuffer buffer) throws BenchParseException {
+        int end = buffer.limit();
+        for (int i = buffer.position(); i < end; i++) {
+            byte b = buffer.get(i);
+            if (token == COMMENT) {
+                if (b == '\n') {
+                    token = NO_TOKEN;
+                    endOfLine();
+                }
+                continue;
+            }
+            if (b >= '0' && b <= '9' && token != WORD) {
+                if (token == NO_TOKEN) {
+                    token = NUMBER;
+                    number = 0;
+                }
+                number = number * 10 + (b - '0');
+                if (number > Integer.MAX_VALUE) {
+                    throw error("Net id is too large.");
+                }
+                continue;
+            }
+            if (isWordByte(b)) {
+                if (token == NUMBER) {
+                    throw error("Net ids must be numeric.");
+                }
+                if (token == NO_TOKEN) {
+                    token = WORD;
+                    wordLength = 0;
+                }
+                if (wordLength < MAX_WORD) {
+                    word[wordLength] = (byte) (b >= 'a' && b <= 'z' ? b - ('a' - 'A') : b);
+                }
+                wordLength++;
+                continue;
+            }
+            endToken();
+            switch (b) {
+                case ' ', '\t', '\r', '\f' -> {
+                }
+                case '\n' -> endOfLine();
+                case '#' -> token = COMMENT;
+                case '(' -> symbol('(');
+                case ')' -> symbol(')');
+                case ',' -> symbol(',');
+                case '=' -> symbol('=');
+                default -> throw error("Unexpected character '" + (char) (b & 0xFF) + "'.");
+            }
+        }
+        buffer.position(end);
+    }
+
+    private Netlist finish() throws BenchParseException {
+        if (token != COMMENT) {
+            endToken();
+        }
+        token = NO_TOKEN;
+        if (state != LINE_START) {
+            endOfLine();
+        }
+        return netlist;
+    }
+
+    private static boolean isWordByte(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9') || b == '_';
+    }
+
+    private void endToken() throws BenchParseException {
+        if (token == NUMBER) {
+            token = NO_TOKEN;
+            number((int) number);
+        } else if (token == WORD) {
+            token = NO_TOKEN;
+            word();
+        }
+    }
+
+    private void number(int id) throws BenchParseException {
+        switch (state) {
+            case LINE_START -> {
+                gateOutput = id;
+                state = GATE_EQUALS;
+            }
+            case DECLARATION_NET -> {
+                if (declaresInput) {
+                    netlist.addPrimaryInput(id);
+                } else {
+                    netlist.addPrimaryOutput(id);
+                }
+                state = DECLARATION_CLOSE;
+            }
+            case GATE_FANIN -> {
+                if (faninCount == fanins.length) {
+                    fanins = Arrays.copyOf(fanins, faninCount * 2);
+                }
+                fanins[faninCount++] = id;
+                state = GATE_SEPARATOR;
+            }
+            default -> throw unexpected("net id " + id);
+        }
+    }
+
+    private void word() throws BenchParseException {
+        if (state == LINE_START && matches(INPUT)) {
+            declaresInput = true;
+            state = DECLARATION_OPEN;
+        } else if (state == LINE_START && matches(OUTPUT)) {
+            declaresInput = false;
+            state = DECLARATION_OPEN;
+        } else if (state == GATE_TYPE) {
+            gateType = gateType();
+            faninCount = 0;
+            state = GATE_OPEN;
+        } else if (state == LINE_START || state == DECLARATION_NET || state == GATE_FANIN) {
+            throw error("Net ids must be numeric, found '" + wordText() + "'.");
+        } else {
+            throw unexpected("'" + wordText() + "'");
+        }
+    }
+
+    private GateType gateType() throws BenchParseException {
+        if (matches(BUF)) {
+            return GateType.BUFF;
+        }
+        for (GateType type : GateType.values()) {
+            String name = type.name();
+            if (name.length() == wordLength) {
+                int k = 0;
+                while (k < wordLength && word[k] == name.charAt(k)) {
+                    k++;
+                }
+                if (k == wordLength) {
+                    return type;
+                }
+            }
+        }
+        throw error("Unsupported gate type '" + wordText() + "'.");
+    }
+
+    private void symbol(char symbol) throws BenchParseException {
+        if (symbol == '(' && state == DECLARATION_OPEN) {
+            state = DECLARATION_NET;
+        } else if (symbol == ')' && state == DECLARATION_CLOSE) {
+            state = LINE_END;
+        } else if (symbol == '=' && state == GATE_EQUALS) {
+            state = GATE_TYPE;
+        } else if (symbol == '(' && state == GATE_OPEN) {
+            state = GATE_FANIN;
+        } else if (symbol == ',' && state == GATE_SEPARATOR) {
+            state = GATE_FANIN;
+        } else if (symbol == ')' && state == GATE_SEPARATOR) {
+            if ((gateType == GateType.NOT || gateType == GateType.BUFF) && faninCount != 1) {
+                throw error(gateType + " takes exactly one input.");
+            }
+            netlist.addGate(gateType, gateOutput, fanins, faninCount);
+            state = LINE_END;
+        } else {
+            throw unexpected("'" + symbol + "'");
+        }
+    }
+
+    private void endOfLine() throws BenchParseException {
+        if (state != LINE_START && state != LINE_END) {
+            throw error("Incomplete statement.");
+        }
+        state = LINE_START;
+        line++;
+    }
+
+    private boolean matches(byte[] keyword) {
+        return wordLength == keyword.length && Arrays.equals(word, 0, wordLength, keyword, 0, keyword.length);
+    }
+
+    private String wordText() {
+        String text = new String(word, 0, Math.min(wordLength, MAX_WORD), StandardCharsets.US_ASCII);
+        return wordLength > MAX_WORD ? text + "..." : text;
+    }
+
+    private BenchParseException unexpected(String found) {
+        String expected = switch (state) {
+            case LINE_START -> "a net id, INPUT or OUTPUT";
+            case DECLARATION_OPEN, GATE_OPEN -> "'('";
+            case DECLARATION_NET, GATE_FANIN -> "a net id";
+            case DECLARATION_CLOSE -> "')'";
+            case GATE_EQUALS -> "'='";
+            case GATE_TYPE -> "a gate type";
+            case GATE_SEPARATOR -> "',' or ')'";
+            default -> "the end of the line";
+        };
+        return error("Expected " + expected + " but found " + found + ".");
+    }
+
+    private BenchParseException error(String message) {
+        return new BenchParseException(line, message);
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.faultsimulator.fault_simulator_repository;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A fault simulation run submitted for background execution, with its configuration,
+ * last saved progress and, once completed, its result.
+ */
+@Entity
+@Table(name = "fault_simulation_job")
+public class FaultSimulationJob {
+
+    public enum Kind {
+        /** Simulates a submitted pattern set. */
+        PATTERNS,
+        /** Grades against generated pseudo-random patterns. */
+        RANDOM
+    }
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String circuitKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.QUEUED;
+
+    // Higher runs first
+    private int priority;
+    private boolean dropDominated;
+    // PATTERNS jobs: also compact the pattern set once simulated
+    private boolean compact;
+
+    // PATTERNS jobs: the pattern set, packed as by PatternSet, little endian
+    private int inputCount;
+    private int patternCount;
+    @Lob
+    private byte[] patterns;
+    // The X planes packed the same way, or null if every pattern is fully specified
+    @Lob
+    private byte[] unknownPatterns;
+
+    // RANDOM jobs: the generator and stop conditions
+    private String generator;
+    private long seed;
+    private double targetCoverage;
+    private int plateauBlocks;
+    private int patternBudget;
+
+    // Progress, saved periodically while running and final once finished
+    private int patternsDone;
+    private int faultCount;
+    private int detectedCount;
+    private double coverage;
+    private String stopReason;
+    @Column(length = 2000)
+    private String error;
+
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    // First detecting pattern of every fault of the full list, as little-endian ints
+    @Lob
+    private byte[] firstDetectingPatterns;
+    // Original indices of the patterns kept by compaction, as little-endian ints
+    @Lob
+    private byte[] compactedPatterns;
+
+    protected FaultSimulationJob() {
+    }
+
+    public FaultSimulationJob(String circuitKey, Kind kind, int priority, boolean dropDominated) {
+        this.circuitKey = circuitKey;
+        this.kind = kind;
+        this.priority = priority;
+        this.dropDominated = dropDominated;
+        this.submittedAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCircuitKey() {
+        return circuitKey;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public boolean isDropDominated() {
+        return dropDominated;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    public byte[] getPatterns() {
+        return patterns;
+    }
+
+    public void setPatterns(int inputCount, int patternCount, byte[] patterns) {
+        this.inputCount = inputCount;
+        this.patternCount = patternCount;
+        this.patterns = patterns;
+    }
+
+    public byte[] getUnknownPatterns() {
+        return unknownPatterns;
+    }
+
+    public void setUnknownPatterns(byte[] unknownPatterns) {
+        this.unknownPatterns = unknownPatterns;
+    }
+
+    public String getGenerator() {
+        return generator;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getTargetCoverage() {
+        return targetCoverage;
+    }
+
+    public int getPlateauBlocks() {
+        return plateauBlocks;
+    }
+
+    public int getPatternBudget() {
+        return patternBudget;
+    }
+
+    public void setRandomPatterns(String generator, long seed, double targetCoverage, int plateauBlocks, int patternBudget) {
+        this.generator = generator;
+        this.seed = seed;
+        this.targetCoverage = targetCoverage;
+        this.plateauBlocks = plateauBlocks;
+        this.patternBudget = patternBudget;
+    }
+
+    /**
+     * Patterns the job applies at most: the submitted patterns, or the pattern budget.
+     */
+    public int getTotalPatterns() {
+        return kind == Kind.PATTERNS ? patternCount : patternBudget;
+    }
+
+    public int getPatternsDone() {
+        return patternsDone;
+    }
+
+    public int getFaultCount() {
+        return faultCount;
+    }
+
+    public int getDetectedCount() {
+        return detectedCount;
+    }
+
+    public double getCoverage() {
+        return coverage;
+    }
+
+    public void setProgress(int patternsDone, int faultCount, int detectedCount, double coverage) {
+        this.patternsDone = patternsDone;
+        this.faultCount = faultCount;
+        this.detectedCount = detectedCount;
+        this.coverage = coverage;
+    }
+
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    public void setStopReason(String stopReason) {
+        this.stopReason = stopReason;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error == null || error.length() <= 2000 ? error : error.substring(0, 2000);
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public byte[] getFirstDetectingPatterns() {
+        return firstDetectingPatterns;
+    }
+
+    public void setFirstDetectingPatterns(byte[] firstDetectingPatterns) {
+        this.firstDetectingPatterns = firstDetectingPatterns;
+    }
+
+    public byte[] getCompactedPatterns() {
+        return compactedPatterns;
+    }
+
+    public void setCompactedPatterns(byte[] compactedPatterns) {
+        this.compactedPatterns = compactedPatterns;
+    }
+}
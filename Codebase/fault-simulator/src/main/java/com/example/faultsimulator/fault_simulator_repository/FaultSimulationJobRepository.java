@@ -0,0 +1,11 @@
+package com.example.faultsimulator.fault_simulator_repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FaultSimulationJobRepository extends JpaRepository<FaultSimulationJob, Long> {
+
+    List<FaultSimulationJob> findByStatusInOrderByIdAsc(Collection<FaultSimulationJob.Status> statuses);
+}
@@ -1,116 +1,603 @@
 package com.example.faultsimulator.fault_simulator_service;
 
-import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CircuitSnapshot;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.EventDrivenSimulator;
+import com.example.faultsimulator.fault_simulator_engine.IncrementalSimulationResult;
+import com.example.faultsimulator.fault_simulator_engine.LfsrPatternGenerator;
+import com.example.faultsimulator.fault_simulator_engine.Netlist;
+import com.example.faultsimulator.fault_simulator_engine.PatternGenerator;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.RandomPatternGenerator;
+import com.example.faultsimulator.fault_simulator_engine.SimdSimulator;
+import com.example.faultsimulator.fault_simulator_engine.StructuralIndex;
+import com.example.faultsimulator.fault_simulator_engine.atpg.TestGenerationResult;
+import com.example.faultsimulator.fault_simulator_engine.atpg.TestGenerator;
+import com.example.faultsimulator.fault_simulator_engine.faults.CollapsedFaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.CompactionResult;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultDictionary;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulator;
+import com.example.faultsimulator.fault_simulator_engine.faults.RandomGradingResult;
+import com.example.faultsimulator.fault_simulator_engine.faults.RandomPatternGrader;
+import com.example.faultsimulator.fault_simulator_engine.faults.TestSetCompactor;
 import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
-import com.example.faultsimulator.fault_simulator_model.gates.*;
+import com.example.faultsimulator.fault_simulator_parser.BenchParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import java.io.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
 public class CircuitFaultSimulatorService {
-    private CircuitGraph circuitGraph = new CircuitGraph();
+    private final CircuitRegistry circuitRegistry;
+    // Circuits shipped by coordinators of distributed runs. Their keys are only claimed by
+    // the sender, so they are kept apart from uploads: never served for an upload, never
+    // written to the snapshot store.
+    private final CircuitRegistry shippedCircuits = new CircuitRegistry();
+    private final SnapshotStore snapshotStore;
+    private final SimulationMetrics metrics;
+    private final boolean optimize;
+    private final ForkJoinPool faultSimulationPool = ForkJoinPool.commonPool();
+    // Graph built by hand through getCircuitGraph(), for the methods that take no circuit
+    // key; uploads never change it
+    private final CircuitGraph circuitGraph = new CircuitGraph();
 
-    public void parseFile(MultipartFile file) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                parseLine(line);
-            }
+    public CircuitFaultSimulatorService() {
+        this(new CircuitRegistry(), new SnapshotStore());
+    }
+
+    // Records metrics into a private registry, for use outside of a Spring context
+    public CircuitFaultSimulatorService(CircuitRegistry circuitRegistry, SnapshotStore snapshotStore) {
+        this(circuitRegistry, snapshotStore, new SimulationMetrics(new SimpleMeterRegistry(), circuitRegistry));
+    }
+
+    public CircuitFaultSimulatorService(CircuitRegistry circuitRegistry, SnapshotStore snapshotStore, SimulationMetrics metrics) {
+        this(circuitRegistry, snapshotStore, metrics, true);
+    }
+
+    /**
+     * @param optimize Run binary good-machine simulation of registered circuits on their
+     *                 optimized form, see {@link LoadedCircuit#getOptimized()}.
+     */
+    @Autowired
+    public CircuitFaultSimulatorService(CircuitRegistry circuitRegistry, SnapshotStore snapshotStore, SimulationMetrics metrics,
+                                        @Value("${faultsimulator.optimize:true}") boolean optimize) {
+        this.circuitRegistry = circuitRegistry;
+        this.snapshotStore = snapshotStore;
+        this.metrics = metrics;
+        this.optimize = optimize;
+    }
+
+    /**
+     * Parses a bench file into its own circuit, or reuses the cached circuit if an identical
+     * file was loaded before: from memory, or from its snapshot on disk when snapshots are
+     * enabled.
+     *
+     * @return The loaded circuit; its key identifies it in later requests.
+     */
+    public LoadedCircuit parseFile(MultipartFile file) throws IOException {
+        byte[] content = file.getBytes();
+        LoadedCircuit loaded = circuitRegistry.load(CircuitRegistry.contentHash(content),
+                key -> loadOrParse(key, () -> BenchParser.parse(content)));
+        return loaded;
+    }
+
+    /**
+     * Parses a bench file from disk through a memory-mapped buffer. Unlike an upload, the
+     * netlist is never held on the heap, which suits synthetic netlists of millions of gates.
+     */
+    public LoadedCircuit parseFile(Path file) throws IOException {
+        LoadedCircuit loaded = circuitRegistry.load(CircuitRegistry.contentHash(file),
+                key -> loadOrParse(key, () -> BenchParser.parse(file)));
+        return loaded;
+    }
+
+    @FunctionalInterface
+    private interface NetlistSource {
+        Netlist read() throws IOException;
+    }
+
+    // Reloads the snapshot of the netlist if there is one; otherwise parses it and saves one
+    private LoadedCircuit loadOrParse(String key, NetlistSource source) throws IOException {
+        LoadedCircuit restored = findSnapshot(key);
+        if (restored != null) {
+            return restored;
         }
+        long start = System.nanoTime();
+        Netlist netlist = source.read();
+        metrics.record(SimulationMetrics.Phase.PARSE, start);
+        start = System.nanoTime();
+        LoadedCircuit parsed = new LoadedCircuit(key, CircuitCompiler.compile(netlist));
+        metrics.record(SimulationMetrics.Phase.COMPILE, start);
+        snapshotStore.save(parsed);
+        return parsed;
     }
 
-    private void parseLine(String line) {
-        // Remove everything after and including '#' character (handle inline comments)
-        trimForComment(line);
-        int commentIndex = line.indexOf("#");
+    private LoadedCircuit findSnapshot(String key) {
+        long start = System.nanoTime();
+        LoadedCircuit restored = snapshotStore.find(key);
+        if (restored != null) {
+            metrics.record(SimulationMetrics.Phase.SNAPSHOT_LOAD, start);
+        }
+        return restored;
+    }
 
-        // Skip the line if it's empty after removing the comment
-        if (line.isEmpty()) {
-            return;
+    // Method to evaluate the circuit built by hand (run the gates)
+    public void evaluateCircuit(List<Boolean> inputVales) throws Exception {
+        long start = System.nanoTime();
+        int gateCount;
+        synchronized (circuitGraph) {
+            // The graph may have been edited since the last call, so it is compiled every time
+            CompiledCircuit circuit = CircuitCompiler.compile(circuitGraph);
+            circuitGraph.evaluate(circuit, inputVales);
+            gateCount = circuit.getGateCount();
         }
+        metrics.evaluated(start, 1, gateCount);
+    }
 
-        // Now proceed with splitting the line by whitespace and processing it
-        String[] tokens = splitLineToTokens(line);
-        if (tokens.length == 0) return;
+    /**
+     * Evaluates one input vector on a registered circuit, with values local to the call. A
+     * null input is X, and the circuit is then simulated three-valued.
+     *
+     * @return The primary output values, null where an output is X.
+     */
+    public List<Boolean> evaluateCircuit(String circuitKey, List<Boolean> inputValues) {
+        long start = System.nanoTime();
+        LoadedCircuit loaded = getCircuit(circuitKey);
+        if (inputValues.size() != loaded.getCompiled().getInputCount()) {
+            throw new IllegalArgumentException("Mismatch: Number of inputs provided does not match the number of primary inputs in the circuit.");
+        }
+        if (inputValues.stream().anyMatch(Objects::isNull)) {
+            List<Boolean> outputs = evaluateTernary(loaded.getCompiled(), inputValues);
+            metrics.evaluated(start, 1, loaded.getCompiled().getGateCount());
+            return outputs;
+        }
+        CompiledCircuit circuit = binaryCircuit(loaded);
+        boolean[] values = new boolean[circuit.getNetCount()];
+        for (int i = 0; i < inputValues.size(); i++) {
+            values[i] = inputValues.get(i);
+        }
+        circuit.evaluate(values);
+        List<Boolean> outputs = new ArrayList<>();
+        for (int net : circuit.getPrimaryOutputNets()) {
+            outputs.add(values[net]);
+        }
+        metrics.evaluated(start, 1, circuit.getGateCount());
+        return outputs;
+    }
 
-        // Handle input lines like "INPUT(1)"
-        if (tokens[0].startsWith("INPUT")) {
-            int inputId = Integer.parseInt(tokens[0].replaceAll("[^0-9]", ""));  // Remove non-numeric characters to get the pin ID
-            CircuitConnection temp = new CircuitConnection(inputId);
-            circuitGraph.addConnection(temp); // Add the input to the graph
-            circuitGraph.addPrimaryInput(temp);
+    // Circuit for binary good-machine simulation; three-valued and fault simulation keep the
+    // original, whose structure they depend on
+    private CompiledCircuit binaryCircuit(LoadedCircuit loaded) {
+        return optimize ? loaded.getOptimized().getCircuit() : loaded.getCompiled();
+    }
+
+    // Single-vector dual-rail evaluation, using bit 0 of each rail
+    private static List<Boolean> evaluateTernary(CompiledCircuit circuit, List<Boolean> inputValues) {
+        long[] ones = new long[circuit.getNetCount()];
+        long[] zeros = new long[circuit.getNetCount()];
+        for (int i = 0; i < inputValues.size(); i++) {
+            Boolean value = inputValues.get(i);
+            ones[i] = value == null || value ? 1L : 0L;
+            zeros[i] = value == null || !value ? 1L : 0L;
         }
-        // Handle output lines like "OUTPUT(123)"
-        else if (tokens[0].startsWith("OUTPUT")) {
-            int outputId = Integer.parseInt(tokens[0].replaceAll("[^0-9]", "")); // Get the output ID
-            CircuitConnection temp = new CircuitConnection(outputId);
-            circuitGraph.addConnection(temp); // Add the output to the graph
-            circuitGraph.addPrimaryOutput(temp);
+        circuit.evaluate(ones, zeros);
+        List<Boolean> outputs = new ArrayList<>();
+        for (int net : circuit.getPrimaryOutputNets()) {
+            outputs.add((ones[net] & zeros[net]) != 0 ? null : ones[net] != 0);
         }
-        // Handle gate definitions (AND, OR, etc.)
-        else if (tokens.length >= 3) {
-            String gateType = tokens[2].toUpperCase().substring(0,tokens[2].indexOf('('));  // Gate type is the second token (AND, OR, etc.)
-            int gateId = Integer.parseInt(tokens[0]);   // First token is the gate ID
+        return outputs;
+    }
+
+    /**
+     * Evaluates a batch of patterns 64 at a time.
+     *
+     * @param patternMatrix One row per pattern, one column per primary input.
+     * @return The packed outputs, indexed by [primary output][word]; bit k of word w is the
+     * output value for pattern 64 * w + k.
+     */
+    public long[][] evaluateCircuitBatch(String circuitKey, boolean[][] patternMatrix) {
+        return evaluateCircuitBatch(binaryCircuit(getCircuit(circuitKey)), patternMatrix);
+    }
+
+    private long[][] evaluateCircuitBatch(CompiledCircuit circuit, boolean[][] patternMatrix) {
+        return evaluateCircuitBatch(circuit, PatternSet.fromMatrix(circuit.getInputCount(), patternMatrix));
+    }
+
+    private long[][] evaluateCircuitBatch(CompiledCircuit circuit, PatternSet patterns) {
+        long start = System.nanoTime();
+        long[][] outputs = new SimdSimulator(circuit).simulate(patterns);
+        metrics.evaluated(start, patterns.getPatternCount(), (long) patterns.getBlockCount() * circuit.getGateCount());
+        return outputs;
+    }
+
+    /**
+     * Simulates a stream of input vectors of any length on a registered circuit, writing the
+     * output vectors as each block of 64 completes. See {@link VectorStreamSimulator} for the
+     * line formats.
+     *
+     * @return The number of vectors simulated.
+     */
+    public long simulateStream(String circuitKey, InputStream in, OutputStream out, VectorStreamSimulator.Format format) throws IOException {
+        long start = System.nanoTime();
+        LoadedCircuit loaded = getCircuit(circuitKey);
+        CompiledCircuit circuit = binaryCircuit(loaded);
+        long vectors = new VectorStreamSimulator(loaded.getCompiled(), circuit, format).simulate(in, out);
+        metrics.evaluated(start, vectors, (vectors + 63) / 64 * circuit.getGateCount());
+        return vectors;
+    }
+
+    /**
+     * Evaluates a sequence of vectors event-driven, re-evaluating only the gates reached by
+     * inputs that changed since the previous vector. Suited to low-activity sequences such
+     * as walking-ones or functional patterns.
+     *
+     * @param vectors One row per vector, one column per primary input, in application order.
+     * @return The outputs of every vector and the gate evaluations each one needed.
+     */
+    public IncrementalSimulationResult evaluateCircuitIncremental(String circuitKey, boolean[][] vectors) {
+        return evaluateCircuitIncremental(binaryCircuit(getCircuit(circuitKey)), vectors);
+    }
 
-            // Extract the output ID (e.g., "123" in "123 = AND(1,2)")
-            int outputId = gateId; // Assuming the output ID is the same as the gate ID
+    private IncrementalSimulationResult evaluateCircuitIncremental(CompiledCircuit circuit, boolean[][] vectors) {
+        long start = System.nanoTime();
+        IncrementalSimulationResult result = new EventDrivenSimulator(circuit).simulate(vectors);
+        metrics.evaluated(start, vectors.length, result.getTotalGateEvaluations());
+        return result;
+    }
+
+    /**
+     * Runs single stuck-at fault simulation on a registered circuit. Only one fault per
+     * equivalence class of its cached collapsed fault list is simulated, and the result is
+     * reported against the full uncollapsed fault list.
+     *
+     * @param patternMatrix One row per pattern, one column per primary input.
+     * @param dropDominated Also skip faults that dominate another fault. This is faster, but
+     *                      may report a dominating fault as undetected when the fault it
+     *                      dominates is not detected by the patterns.
+     * @return The detection status and first detecting pattern of every fault.
+     */
+    public FaultSimulationResult simulateFaults(String circuitKey, boolean[][] patternMatrix, boolean dropDominated) {
+        LoadedCircuit loaded = getCircuit(circuitKey);
+        return simulateCollapsedFaults(loaded.getCollapsedFaults(dropDominated), patternMatrix, loaded.getStructuralIndex());
+    }
+
+    /**
+     * @param listener Receives progress once per round on the calling thread, or null. It
+     *                 may abort the run by throwing.
+     */
+    public FaultSimulationResult simulateFaults(String circuitKey, PatternSet patterns, boolean dropDominated,
+                                                FaultSimulator.ProgressListener listener) {
+        LoadedCircuit loaded = getCircuit(circuitKey);
+        CollapsedFaultList collapsed = loaded.getCollapsedFaults(dropDominated);
+        return collapsed.expand(simulateFaults(collapsed.getRepresentatives(), patterns, loaded.getStructuralIndex(), listener));
+    }
+
+    private FaultSimulationResult simulateCollapsedFaults(CollapsedFaultList collapsed, boolean[][] patternMatrix, StructuralIndex index) {
+        PatternSet patterns = PatternSet.fromMatrix(collapsed.getFullFaults().getCircuit().getInputCount(), patternMatrix);
+        return collapsed.expand(simulateFaults(collapsed.getRepresentatives(), patterns, index, null));
+    }
+
+    /**
+     * Runs fault simulation of the connections marked stuck in the circuit built by hand.
+     */
+    public FaultSimulationResult simulateStuckConnections(boolean[][] patternMatrix) {
+        FaultList faults;
+        synchronized (circuitGraph) {
+            faults = FaultList.fromStuckConnections(circuitGraph);
+        }
+        return simulateFaults(faults, PatternSet.fromMatrix(faults.getCircuit().getInputCount(), patternMatrix));
+    }
 
-            List<CircuitConnection> inputs = new ArrayList<>();
+    public FaultSimulationResult simulateFaults(FaultList faults, PatternSet patterns) {
+        return simulateFaults(faults, patterns, StructuralIndex.build(faults.getCircuit()), null);
+    }
 
-            // Parse the inputs from the gate definition (e.g., AND(1, 2))
-            String[] inputTokens = tokens[2].substring(tokens[2].indexOf('(') + 1, tokens[2].indexOf(')')).split(",");
-            for (String inputToken : inputTokens) {
-                int inputId = Integer.parseInt(inputToken.trim());
-                inputs.add(new CircuitConnection(inputId));  // Add input connections to the gate
+    // Simulates with critical path tracing, which gives the same result as explicit
+    // propagation of every fault in a fraction of the time
+    private FaultSimulationResult simulateFaults(FaultList faults, PatternSet patterns, StructuralIndex index,
+                                                 FaultSimulator.ProgressListener listener) {
+        FaultSimulator simulator = new FaultSimulator(faults, faultSimulationPool);
+        simulator.setCriticalPathTracing(index);
+        try (SimulationMetrics.FaultSimulationProbe probe = metrics.track(simulator, listener)) {
+            return simulator.simulate(patterns);
+        }
+    }
+
+    /**
+     * Simulates one range of the collapsed fault list of a registered circuit, for the
+     * chunks of a {@link DistributedFaultSimulator} run that the coordinator keeps.
+     *
+     * @return The result for representatives from..to-1, in that order and not expanded.
+     * @throws IllegalArgumentException If the range is not within the collapsed fault list.
+     */
+    public FaultSimulationResult simulateFaultRange(String circuitKey, boolean dropDominated, int from, int to, PatternSet patterns) {
+        return simulateFaultRange(getCircuit(circuitKey), dropDominated, from, to, patterns);
+    }
+
+    /**
+     * As {@link #simulateFaultRange}, on a circuit shipped by a coordinator, as a worker of
+     * a {@link DistributedFaultSimulator} run.
+     *
+     * @throws NoSuchElementException If no circuit was shipped under the key.
+     */
+    public FaultSimulationResult simulateShippedFaultRange(String circuitKey, boolean dropDominated, int from, int to,
+                                                           PatternSet patterns) {
+        return simulateFaultRange(getShippedCircuit(circuitKey), dropDominated, from, to, patterns);
+    }
+
+    private FaultSimulationResult simulateFaultRange(LoadedCircuit loaded, boolean dropDominated, int from, int to, PatternSet patterns) {
+        FaultList representatives = loaded.getCollapsedFaults(dropDominated).getRepresentatives();
+        if (from < 0 || from > to || to > representatives.size()) {
+            throw new IllegalArgumentException("Fault range " + from + ".." + to + " is outside the "
+                    + representatives.size() + " collapsed faults.");
+        }
+        FaultList range = new FaultList(representatives.getCircuit(), representatives.getFaults().subList(from, to));
+        return simulateFaults(range, patterns, loaded.getStructuralIndex(), null);
+    }
+
+    /**
+     * Registers a circuit shipped as a snapshot by a coordinator, under the coordinator's key,
+     * unless one was shipped under that key already. Nothing proves the snapshot is the
+     * netlist the key names, so it is only reachable through {@link #getShippedCircuit} and
+     * {@link #simulateShippedFaultRange}, never by uploads or the other circuit methods.
+     *
+     * @throws IllegalArgumentException If the key is not a netlist content hash.
+     * @throws IOException              If the snapshot is not valid.
+     */
+    public LoadedCircuit registerSnapshot(String circuitKey, byte[] snapshot) throws IOException {
+        if (!CircuitRegistry.isContentHash(circuitKey)) {
+            throw new IllegalArgumentException("Invalid circuit key " + circuitKey + ".");
+        }
+        return shippedCircuits.load(circuitKey, key -> {
+            long start = System.nanoTime();
+            LoadedCircuit loaded = new LoadedCircuit(key, CircuitSnapshot.fromBytes(snapshot));
+            metrics.record(SimulationMetrics.Phase.SNAPSHOT_LOAD, start);
+            return loaded;
+        });
+    }
+
+    /**
+     * Returns a circuit shipped by a coordinator.
+     *
+     * @throws NoSuchElementException If no circuit was shipped under the key, or it was evicted.
+     */
+    public LoadedCircuit getShippedCircuit(String circuitKey) {
+        LoadedCircuit shipped = shippedCircuits.get(circuitKey);
+        if (shipped == null) {
+            throw new NoSuchElementException("No circuit was shipped with key " + circuitKey + ".");
+        }
+        return shipped;
+    }
+
+    /**
+     * Grades the transition faults of a registered circuit against launch/capture pattern
+     * pairs, pair k being pattern k of each set. Every stem and branch has a slow-to-rise
+     * and a slow-to-fall fault, reported as the stuck-at-0 and stuck-at-1 faults of the
+     * full list; see {@link FaultSimulator#simulatePairs}.
+     */
+    public FaultSimulationResult simulateTransitionFaults(String circuitKey, PatternSet launch, PatternSet capture) {
+        LoadedCircuit loaded = getCircuit(circuitKey);
+        FaultSimulator simulator = new FaultSimulator(loaded.getFaults(), faultSimulationPool);
+        simulator.setCriticalPathTracing(loaded.getStructuralIndex());
+        try (SimulationMetrics.FaultSimulationProbe probe = metrics.track(simulator, null)) {
+            return simulator.simulatePairs(launch, capture);
+        }
+    }
+
+    /**
+     * Builds the fault dictionary of a registered circuit for a pattern set and stores it
+     * next to the circuit's snapshot. Each pattern set gets its own dictionary, under the
+     * content hash of the set, so rebuilding for the same set replaces it. Faults are
+     * collapsed by equivalence only: equivalent faults have the same responses, and
+     * dominance would merge faults a log can tell apart.
+     *
+     * @return The id to diagnose logs of the pattern set with.
+     */
+    public String buildFaultDictionary(String circuitKey, PatternSet patterns) {
+        LoadedCircuit loaded = getCircuit(circuitKey);
+        String dictionaryId = CircuitRegistry.contentHash(patterns.toBytes());
+        long start = System.nanoTime();
+        FaultDictionary dictionary = FaultDictionary.build(loaded.getCollapsedFaults(false).getRepresentatives(), patterns,
+                faultSimulationPool);
+        metrics.record(SimulationMetrics.Phase.DICTIONARY_BUILD, start);
+        loaded.putDictionary(dictionaryId, dictionary);
+        snapshotStore.saveDictionary(loaded, dictionaryId, dictionary);
+        return dictionaryId;
+    }
+
+    /**
+     * Returns a fault dictionary of a registered circuit, reloading it from the snapshot
+     * directory after a restart.
+     *
+     * @param dictionaryId Id returned by {@link #buildFaultDictionary}.
+     * @throws NoSuchElementException If no dictionary was built for the circuit under the id.
+     */
+    public FaultDictionary getFaultDictionary(String circuitKey, String dictionaryId) {
+        LoadedCircuit loaded = getCircuit(circuitKey);
+        FaultDictionary dictionary = loaded.getDictionary(dictionaryId);
+        if (dictionary == null) {
+            dictionary = snapshotStore.findDictionary(loaded, dictionaryId);
+            if (dictionary == null) {
+                throw new NoSuchElementException("No fault dictionary " + dictionaryId + " has been built for circuit "
+                        + circuitKey + ".");
             }
+            loaded.putDictionary(dictionaryId, dictionary);
+        }
+        return dictionary;
+    }
 
-            // Create and add the gate to the circuit graph
-            CircuitConnection outputConnection = new CircuitConnection(outputId);
-            circuitGraph.addConnection(outputConnection);
-            Gate gate = createGate(gateId, gateType, inputs, outputConnection);
-            circuitGraph.addGate(gate);
-        }
-    }
-
-    private Gate createGate(int gateId, String gateType, List<CircuitConnection> inputs,CircuitConnection output) {
-        switch (gateType) {
-            case "AND":
-                return new ANDGate(gateId, inputs, output);
-            case "OR":
-                return new ORGate(gateId, inputs, output);
-            case "NAND":
-                return new NANDGate(gateId, inputs, output);
-            case "NOR":
-                return new NORGate(gateId, inputs, output);
-            case "XOR":
-                return new XORGate(gateId, inputs, output);
-            case "NOT":
-                return new NOTGate(gateId, inputs, output);
-            case "BUFF":
-                return new BUFFGate(gateId, inputs, output);  // Buffer gate if defined
-            default:
-                throw new IllegalArgumentException("Unsupported gate type: " + gateType);
-        }
-    }
-    // Method to evaluate the circuit (run the gates)
-    public void evaluateCircuit(List<Boolean> inputVales) throws Exception {
-        circuitGraph.evaluate(inputVales);
+    /**
+     * Ranks the equivalence-collapsed faults of a registered circuit that best explain a
+     * tester log, from one of its fault dictionaries; see {@link FaultDictionary#diagnose}.
+     *
+     * @param patternCount    Number of patterns the tester applied, which must be that of the
+     *                        set the dictionary was built for.
+     * @param failingPatterns Pattern index of every failure of the log.
+     * @param failingOutputs  Net id of the primary output of every failure of the log.
+     * @throws IllegalArgumentException If the log is not valid for the dictionary.
+     * @throws NoSuchElementException   If no dictionary was built for the circuit under the id.
+     */
+    public List<FaultDictionary.Candidate> diagnose(String circuitKey, String dictionaryId, int patternCount,
+                                                    int[] failingPatterns, int[] failingOutputs, int limit) {
+        FaultDictionary dictionary = getFaultDictionary(circuitKey, dictionaryId);
+        if (patternCount != dictionary.getPatternCount()) {
+            throw new IllegalArgumentException("The log covers " + patternCount + " patterns but the dictionary was built for "
+                    + dictionary.getPatternCount() + ".");
+        }
+        CompiledCircuit circuit = dictionary.getFaults().getCircuit();
+        int[] outputNets = new int[failingOutputs.length];
+        for (int i = 0; i < outputNets.length; i++) {
+            outputNets[i] = circuit.netIndex(failingOutputs[i]);
+            if (outputNets[i] < 0) {
+                throw new IllegalArgumentException("Net " + failingOutputs[i] + " is not in the circuit.");
+            }
+        }
+        long start = System.nanoTime();
+        List<FaultDictionary.Candidate> candidates = dictionary.diagnose(failingPatterns, outputNets, limit);
+        metrics.record(SimulationMetrics.Phase.DIAGNOSE, start);
+        return candidates;
     }
 
-    // Getter for the circuit graph (if needed for external usage)
-    public CircuitGraph getCircuitGraph() {
-        return circuitGraph;
+    /**
+     * Compacts a pattern set for a registered circuit: the returned subset detects every
+     * fault the whole set detects. Faults are collapsed by equivalence only, so the
+     * coverage of the full fault list is kept exactly.
+     */
+    public CompactionResult compactPatterns(String circuitKey, PatternSet patterns) {
+        CollapsedFaultList collapsed = getCircuit(circuitKey).getCollapsedFaults(false);
+        CompactionResult compaction = new TestSetCompactor(collapsed.getRepresentatives(), faultSimulationPool).compact(patterns);
+        return new CompactionResult(compaction.getOriginalIndices(), compaction.getPatterns(), compaction.getOriginalPatternCount(),
+                compaction.getReverseOrderPatternCount(), collapsed.expand(compaction.getResult()));
+    }
+
+    /**
+     * Generates tests for the stuck-at faults of a registered circuit that the given patterns
+     * leave undetected. Faults are collapsed by equivalence only, so the statuses hold for
+     * the full fault list.
+     *
+     * @param initialPatterns Patterns simulated first, or null to target every fault.
+     * @param backtrackLimit  Backtracks allowed per fault before it is retried with ten times
+     *                        as many, see {@link TestGenerator}.
+     * @throws IllegalArgumentException If the patterns do not match the circuit or the limit is negative.
+     */
+    public TestGenerationResult generateTests(String circuitKey, PatternSet initialPatterns, int backtrackLimit) {
+        LoadedCircuit loaded = getCircuit(circuitKey);
+        CollapsedFaultList collapsed = loaded.getCollapsedFaults(false);
+        FaultList representatives = collapsed.getRepresentatives();
+        boolean[] detected = new boolean[representatives.size()];
+        if (initialPatterns != null) {
+            FaultSimulationResult initial = simulateFaults(representatives, initialPatterns, loaded.getStructuralIndex(), null);
+            for (int f = 0; f < detected.length; f++) {
+                detected[f] = initial.getFirstDetectingPattern(f) >= 0;
+            }
+        }
+        TestGenerator generator = new TestGenerator(representatives, loaded.getScoap(), faultSimulationPool);
+        generator.setBacktrackLimit(backtrackLimit);
+        long start = System.nanoTime();
+        TestGenerationResult result = generator.generate(detected);
+        metrics.record(SimulationMetrics.Phase.TEST_GENERATION, start);
+        return result.expand(collapsed);
+    }
+
+    /**
+     * Grades the stuck-at faults of a registered circuit against pseudo-random patterns
+     * generated on the fly, so no pattern file has to be uploaded.
+     *
+     * @param generator      "lfsr" for one LFSR per primary input, or "prng" for one
+     *                       pseudo-random stream per primary input.
+     * @param seed           Run seed the per-input seeds are derived from.
+     * @param targetCoverage Coverage at which to stop, between 0 and 1.
+     * @param plateauBlocks  Blocks of 64 patterns without a new detection after which to
+     *                       stop, or 0 to never stop on a plateau.
+     * @param patternBudget  Maximum number of patterns to apply.
+     * @throws IllegalArgumentException If the generator is unknown or a limit is out of range.
+     */
+    public RandomGradingResult gradeRandomPatterns(String circuitKey, String generator, long seed,
+                                                   double targetCoverage, int plateauBlocks, int patternBudget) {
+        return gradeRandomPatterns(circuitKey, createPatternGenerator(circuitKey, generator, seed),
+                targetCoverage, plateauBlocks, patternBudget, null);
+    }
+
+    /**
+     * @param listener Receives progress once per round on the calling thread, or null. It
+     *                 may abort the run by throwing.
+     */
+    public RandomGradingResult gradeRandomPatterns(String circuitKey, PatternGenerator generator, double targetCoverage,
+                                                   int plateauBlocks, int patternBudget, FaultSimulator.ProgressListener listener) {
+        LoadedCircuit loaded = getCircuit(circuitKey);
+        RandomPatternGrader grader = new RandomPatternGrader(loaded.getCollapsedFaults(false), faultSimulationPool);
+        grader.getSimulator().setCriticalPathTracing(loaded.getStructuralIndex());
+        grader.setTargetCoverage(targetCoverage);
+        grader.setPlateauBlocks(plateauBlocks);
+        grader.setPatternBudget(patternBudget);
+        try (SimulationMetrics.FaultSimulationProbe probe = metrics.track(grader.getSimulator(), listener)) {
+            return grader.grade(generator);
+        }
+    }
+
+    /**
+     * Creates a pattern generator sized for a registered circuit.
+     *
+     * @param generator "lfsr" or "prng", as in {@link #gradeRandomPatterns(String, String, long, double, int, int)}.
+     * @throws IllegalArgumentException If the generator is unknown.
+     */
+    public PatternGenerator createPatternGenerator(String circuitKey, String generator, long seed) {
+        int inputCount = getCircuit(circuitKey).getCompiled().getInputCount();
+        return switch (generator.toLowerCase(Locale.ROOT)) {
+            case "lfsr" -> new LfsrPatternGenerator(inputCount, seed);
+            case "prng" -> new RandomPatternGenerator(inputCount, seed);
+            default -> throw new IllegalArgumentException("Unknown pattern generator: " + generator + ".");
+        };
     }
-    public void trimForComment(String line){
-        // Remove everything after and including '#' character (handle inline comments)
-        int commentIndex = line.indexOf("#");
-        if (commentIndex != -1) {
-            line = line.substring(0, commentIndex).trim();  // Get everything before the '#', and trim any extra whitespace
+
+    /**
+     * Returns a registered circuit.
+     *
+     * @throws NoSuchElementException If no circuit with that key is loaded, or the key is not
+     *                                a netlist content hash.
+     */
+    public LoadedCircuit getCircuit(String circuitKey) {
+        if (!CircuitRegistry.isContentHash(circuitKey)) {
+            throw new NoSuchElementException("No circuit is loaded with key " + circuitKey + ".");
+        }
+        LoadedCircuit loaded = circuitRegistry.get(circuitKey);
+        if (loaded != null) {
+            return loaded;
+        }
+        // Evicted, or parsed before a restart: fall back to the snapshot cache
+        LoadedCircuit restored = findSnapshot(circuitKey);
+        if (restored == null) {
+            throw new NoSuchElementException("No circuit is loaded with key " + circuitKey + ".");
         }
+        try {
+            return circuitRegistry.load(circuitKey, key -> restored);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Getter for the circuit graph built by hand (if needed for external usage)
+    public CircuitGraph getCircuitGraph() {
+        return circuitGraph;
     }
-    public String[] splitLineToTokens(String line) {
-        return line.split("(?<!,)\\s+");
+
+    /**
+     * The object graph of a registered circuit, built on the first call; see
+     * {@link LoadedCircuit#getGraph()}.
+     */
+    public CircuitGraph getCircuitGraph(String circuitKey) {
+        return getCircuit(circuitKey).getGraph();
     }
 }
@@ -0,0 +1,186 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Size-bounded cache of parsed and compiled circuits, keyed by the SHA-256 hash of the
+ * uploaded netlist. Uploading an identical file again returns the cached circuit without
+ * parsing or compiling it. When the registry is full, the least recently used circuit is
+ * evicted.
+ */
+@Component
+public class CircuitRegistry {
+    public static final int DEFAULT_CAPACITY = 32;
+
+    /**
+     * Turns the raw content of a netlist into a compiled circuit.
+     */
+    @FunctionalInterface
+    public interface CircuitParser {
+        CompiledCircuit parse(byte[] content) throws IOException;
+    }
+
+    /**
+     * Produces the circuit for a key that is not cached.
+     */
+    @FunctionalInterface
+    public interface CircuitLoader {
+        LoadedCircuit load(String key) throws IOException;
+    }
+
+    /**
+     * Notified when a circuit enters or leaves the registry, while the registry is locked;
+     * implementations must be quick and must not call back into the registry.
+     */
+    public interface Listener {
+        void circuitLoaded(LoadedCircuit circuit);
+
+        void circuitEvicted(LoadedCircuit circuit);
+    }
+
+    private final int capacity;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, LoadedCircuit> circuits;
+    private long hits;
+    private long misses;
+
+    public CircuitRegistry() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @Autowired
+    public CircuitRegistry(@Value("${faultsimulator.registry.capacity:" + DEFAULT_CAPACITY + "}") int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The registry must hold at least one circuit.");
+        }
+        this.capacity = capacity;
+        this.circuits = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LoadedCircuit> eldest) {
+                if (size() <= CircuitRegistry.this.capacity) {
+                    return false;
+                }
+                for (Listener listener : listeners) {
+                    listener.circuitEvicted(eldest.getValue());
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the circuit for the given netlist, parsing and compiling it only if no
+     * identical netlist is cached. Parsing happens outside the lock, so two concurrent
+     * uploads of a new file may both parse it; the first one to finish is kept.
+     */
+    public LoadedCircuit load(byte[] content, CircuitParser parser) throws IOException {
+        return load(contentHash(content), key -> new LoadedCircuit(key, parser.parse(content)));
+    }
+
+    /**
+     * Returns the circuit cached under the key, or loads and caches it. The key must be the
+     * content hash of the netlist the loader reads.
+     */
+    public LoadedCircuit load(String key, CircuitLoader loader) throws IOException {
+        synchronized (this) {
+            LoadedCircuit cached = circuits.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        LoadedCircuit loaded = loader.load(key);
+        synchronized (this) {
+            LoadedCircuit raced = circuits.putIfAbsent(key, loaded);
+            if (raced != null) {
+                return raced;
+            }
+            for (Listener listener : listeners) {
+                listener.circuitLoaded(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * Returns the cached circuit with the given key, or null if it is not (or no longer)
+     * in the registry.
+     */
+    public synchronized LoadedCircuit get(String key) {
+        return circuits.get(key);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized int size() {
+        return circuits.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Whether a string has the form of a {@link #contentHash}: 64 lowercase hex digits.
+     * Keys and ids name files, so anything else must never reach the file system.
+     */
+    public static boolean isContentHash(String key) {
+        return key != null && key.matches("[0-9a-f]{64}");
+    }
+
+    public static String contentHash(byte[] content) {
+        MessageDigest digest = sha256();
+        return HexFormat.of().formatHex(digest.digest(content));
+    }
+
+    /**
+     * Hashes a file in fixed-size chunks, without holding it in memory.
+     */
+    public static String contentHash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
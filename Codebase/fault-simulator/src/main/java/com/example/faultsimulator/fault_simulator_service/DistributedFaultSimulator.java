@@ -0,0 +1,267 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitSnapshot;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.faults.CollapsedFaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coordinator of fault simulation across worker instances of this application, for
+ * circuits and pattern sets too large for one JVM. The collapsed fault list of a run is cut
+ * into chunks that the workers take from a shared queue, so faster workers take more. A
+ * worker is sent the circuit snapshot the first time it gets a chunk of that circuit;
+ * chunks carry the packed pattern set and come back as packed detection bitsets. A worker
+ * whose request fails or times out is dropped for the rest of the run and its chunk is put
+ * back for the others; chunks left once every worker is gone are simulated locally. Every
+ * fault is in exactly one chunk and each chunk applies all patterns in order, so the merged
+ * result is the same as that of a local run.
+ *
+ * Workers are listed in faultsimulator.cluster.workers; with none, runs are local.
+ */
+@Service
+public class DistributedFaultSimulator {
+    private static final Logger log = LoggerFactory.getLogger(DistributedFaultSimulator.class);
+    // Fewest faults worth a request of their own
+    private static final int MIN_CHUNK_FAULTS = 256;
+    private static final long POLL_MILLIS = 50;
+
+    /**
+     * Receives progress once per completed chunk, on the thread driving the run.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param detected   Faults of the collapsed list detected so far.
+         * @param faultCount Size of the collapsed list.
+         */
+        void chunkCompleted(int chunksDone, int chunkCount, int detected, int faultCount);
+    }
+
+    private final CircuitFaultSimulatorService circuitService;
+    private final List<FaultSimulationWorker> workers;
+    private final int chunksPerWorker;
+    // Circuits each worker is known to hold, so snapshots are only shipped once
+    private final Map<FaultSimulationWorker, Set<String>> shipped = new ConcurrentHashMap<>();
+
+    /**
+     * @param workerUrls      Comma-separated base URLs of the workers, e.g.
+     *                        http://localhost:8096,http://localhost:8097; empty for local runs.
+     * @param chunksPerWorker Chunks per worker in a run; more balance load better, fewer
+     *                        send the patterns less often.
+     * @param timeout         Longest a worker may take for one chunk before it counts as dead.
+     */
+    @Autowired
+    public DistributedFaultSimulator(CircuitFaultSimulatorService circuitService,
+                                     @Value("${faultsimulator.cluster.workers:}") String workerUrls,
+                                     @Value("${faultsimulator.cluster.chunks-per-worker:4}") int chunksPerWorker,
+                                     @Value("${faultsimulator.cluster.timeout:PT10M}") Duration timeout) {
+        this(circuitService, Arrays.stream(workerUrls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> (FaultSimulationWorker) new HttpFaultSimulationWorker(url, timeout))
+                .toList(), chunksPerWorker);
+    }
+
+    public DistributedFaultSimulator(CircuitFaultSimulatorService circuitService, List<FaultSimulationWorker> workers,
+                                     int chunksPerWorker) {
+        if (chunksPerWorker < 1) {
+            throw new IllegalArgumentException("Every worker needs at least one chunk.");
+        }
+        this.circuitService = circuitService;
+        this.workers = List.copyOf(workers);
+        this.chunksPerWorker = chunksPerWorker;
+    }
+
+    public boolean isEnabled() {
+        return !workers.isEmpty();
+    }
+
+    public List<FaultSimulationWorker> getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Runs single stuck-at fault simulation of a registered circuit across the workers.
+     *
+     * @param listener Receives progress, or null. It may abort the run by throwing.
+     * @return The result against the full uncollapsed fault list, as from
+     *         {@link CircuitFaultSimulatorService#simulateFaults(String, PatternSet, boolean,
+     *         com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulator.ProgressListener)}.
+     */
+    public FaultSimulationResult simulateFaults(String circuitKey, PatternSet patterns, boolean dropDominated,
+                                                ProgressListener listener) {
+        LoadedCircuit loaded = circuitService.getCircuit(circuitKey);
+        if (patterns.getInputCount() != loaded.getCompiled().getInputCount()) {
+            throw new IllegalArgumentException("Mismatch: Number of inputs provided does not match the number of primary inputs in the circuit.");
+        }
+        CollapsedFaultList collapsed = loaded.getCollapsedFaults(dropDominated);
+        Run run = new Run(loaded, patterns, dropDominated);
+        return collapsed.expand(run.simulate(listener));
+    }
+
+    /**
+     * One distributed run: the chunks still to simulate, and the results coming back.
+     */
+    private final class Run {
+        private final LoadedCircuit loaded;
+        private final PatternSet patterns;
+        private final boolean dropDominated;
+        private final FaultList representatives;
+        private final int[] chunkStart;
+        private final byte[] packedPatterns;
+        private final BlockingQueue<Integer> pending = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Completion> completions = new LinkedBlockingQueue<>();
+        private final AtomicInteger remaining;
+        private volatile boolean stopped;
+        private byte[] snapshot;
+
+        Run(LoadedCircuit loaded, PatternSet patterns, boolean dropDominated) {
+            this.loaded = loaded;
+            this.patterns = patterns;
+            this.dropDominated = dropDominated;
+            this.representatives = loaded.getCollapsedFaults(dropDominated).getRepresentatives();
+            int faultCount = representatives.size();
+            int chunkCount = workers.isEmpty() ? 1
+                    : Math.max(1, Math.min(workers.size() * chunksPerWorker, faultCount / MIN_CHUNK_FAULTS));
+            this.chunkStart = new int[chunkCount + 1];
+            for (int c = 0; c <= chunkCount; c++) {
+                chunkStart[c] = (int) ((long) faultCount * c / chunkCount);
+                if (c < chunkCount) {
+                    pending.add(c);
+                }
+            }
+            this.packedPatterns = workers.isEmpty() ? null : patterns.toBytes();
+            this.remaining = new AtomicInteger(chunkCount);
+        }
+
+        FaultSimulationResult simulate(ProgressListener listener) {
+            int chunkCount = chunkStart.length - 1;
+            int[] firstDetectingPatterns = new int[representatives.size()];
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            List<Future<?>> loops = new ArrayList<>();
+            for (FaultSimulationWorker worker : workers) {
+                loops.add(executor.submit(() -> serve(worker)));
+            }
+            try {
+                int done = 0;
+                int detected = 0;
+                while (done < chunkCount) {
+                    Completion completion = completions.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (completion == null) {
+                        if (loops.stream().allMatch(Future::isDone)) {
+                            Integer chunk = pending.poll();
+                            if (chunk != null) {
+                                completions.add(new Completion(chunk, circuitService.simulateFaultRange(loaded.getKey(),
+                                        dropDominated, chunkStart[chunk], chunkStart[chunk + 1], patterns)));
+                            }
+                        }
+                        continue;
+                    }
+                    FaultSimulationResult result = completion.result();
+                    for (int f = 0; f < result.getFaultCount(); f++) {
+                        firstDetectingPatterns[chunkStart[completion.chunk()] + f] = result.getFirstDetectingPattern(f);
+                    }
+                    detected += result.getDetectedCount();
+                    done++;
+                    remaining.decrementAndGet();
+                    if (listener != null) {
+                        listener.chunkCompleted(done, chunkCount, detected, representatives.size());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("The distributed fault simulation was interrupted.");
+            } finally {
+                stopped = true;
+                executor.shutdownNow();
+            }
+            return new FaultSimulationResult(representatives, firstDetectingPatterns, patterns.getPatternCount());
+        }
+
+        // Feeds one worker chunks until none are left, or until it fails
+        private void serve(FaultSimulationWorker worker) {
+            try {
+                while (!stopped && remaining.get() > 0) {
+                    Integer chunk = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (chunk == null) {
+                        continue;
+                    }
+                    try {
+                        completions.add(new Completion(chunk, simulateRemotely(worker, chunk)));
+                    } catch (RuntimeException e) {
+                        pending.add(chunk);
+                        shipped.remove(worker);
+                        log.warn("Dropping fault simulation worker {} from the run: {}", worker.getName(), e.toString());
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private FaultSimulationResult simulateRemotely(FaultSimulationWorker worker, int chunk) {
+            String key = loaded.getKey();
+            Set<String> held = shipped.computeIfAbsent(worker, w -> ConcurrentHashMap.newKeySet());
+            if (!held.contains(key)) {
+                if (!worker.hasCircuit(key)) {
+                    worker.loadCircuit(key, snapshot());
+                }
+                held.add(key);
+            }
+            int from = chunkStart[chunk];
+            int to = chunkStart[chunk + 1];
+            byte[] result;
+            try {
+                result = worker.simulateFaults(key, dropDominated, from, to, packedPatterns);
+            } catch (NoSuchElementException e) {
+                // Evicted or restarted since it was shipped
+                worker.loadCircuit(key, snapshot());
+                result = worker.simulateFaults(key, dropDominated, from, to, packedPatterns);
+            }
+            FaultList range = new FaultList(representatives.getCircuit(), representatives.getFaults().subList(from, to));
+            return FaultSimulationResult.fromBytes(range, result);
+        }
+
+        // The circuit with both collapsed fault lists, so workers use the same representatives
+        private synchronized byte[] snapshot() {
+            if (snapshot == null) {
+                try {
+                    snapshot = new CircuitSnapshot(loaded.getCompiled(), loaded.getCollapsedFaults(false),
+                            loaded.getCollapsedFaults(true)).toBytes();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    private record Completion(int chunk, FaultSimulationResult result) {
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.faults.CompactionResult;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulator;
+import com.example.faultsimulator.fault_simulator_engine.faults.RandomGradingResult;
+import com.example.faultsimulator.fault_simulator_repository.FaultSimulationJob;
+import com.example.faultsimulator.fault_simulator_repository.FaultSimulationJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs fault simulations as background jobs, so long runs do not hold an HTTP request open.
+ * Jobs wait in a bounded priority queue for one of a fixed number of workers; their
+ * configuration, progress and results are persisted, and jobs cut short by a restart are
+ * queued again from the start.
+ */
+@Service
+public class FaultSimulationJobService {
+    private static final Logger log = LoggerFactory.getLogger(FaultSimulationJobService.class);
+    // Shortest interval between two saves of a running job's progress
+    private static final long PROGRESS_SAVE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final FaultSimulationJobRepository repository;
+    private final CircuitFaultSimulatorService circuitService;
+    private final PriorityJobExecutor executor;
+    private final DistributedFaultSimulator distributedSimulator;
+    // Jobs queued or running in this process
+    private final Map<Long, JobRun> runs = new ConcurrentHashMap<>();
+
+    public FaultSimulationJobService(FaultSimulationJobRepository repository, CircuitFaultSimulatorService circuitService,
+                                     int workers, int queueCapacity) {
+        this(repository, circuitService, new DistributedFaultSimulator(circuitService, List.of(), 1),
+                workers, queueCapacity);
+    }
+
+    /**
+     * @param distributedSimulator Runs pattern set jobs across worker instances when any are
+     *                             configured; random pattern grading always runs here, as each
+     *                             block depends on the coverage of the previous ones.
+     */
+    @Autowired
+    public FaultSimulationJobService(FaultSimulationJobRepository repository, CircuitFaultSimulatorService circuitService,
+                                     DistributedFaultSimulator distributedSimulator,
+                                     @Value("${faultsimulator.jobs.workers:2}") int workers,
+                                     @Value("${faultsimulator.jobs.queue-capacity:64}") int queueCapacity) {
+        this.repository = repository;
+        this.circuitService = circuitService;
+        this.distributedSimulator = distributedSimulator;
+        this.executor = new PriorityJobExecutor(workers, queueCapacity, "fault-simulation-job-");
+    }
+
+    /**
+     * Queues fault simulation of a pattern set on a registered circuit.
+     *
+     * @param compact  Also compact the pattern set once simulated, see
+     *                 {@link CircuitFaultSimulatorService#compactPatterns}.
+     * @param priority Higher runs first.
+     * @throws NoSuchElementException     If no circuit with that key is loaded.
+     * @throws IllegalArgumentException   If a pattern does not have one value per input.
+     * @throws RejectedExecutionException If the job queue is full.
+     */
+    public FaultSimulationJobStatus submitPatterns(String circuitKey, boolean[][] patternMatrix, boolean dropDominated,
+                                                   boolean compact, int priority) {
+        int inputCount = circuitService.getCircuit(circuitKey).getCompiled().getInputCount();
+        return submitPatterns(circuitKey, PatternSet.fromMatrix(inputCount, patternMatrix), dropDominated, compact, priority);
+    }
+
+    /**
+     * Queues fault simulation of partially specified patterns, where a null value is X.
+     * Faults only count as detected where a pattern detects them whatever the X inputs are.
+     *
+     * @see #submitPatterns(String, boolean[][], boolean, boolean, int)
+     */
+    public FaultSimulationJobStatus submitPatterns(String circuitKey, Boolean[][] patternMatrix, boolean dropDominated,
+                                                   boolean compact, int priority) {
+        int inputCount = circuitService.getCircuit(circuitKey).getCompiled().getInputCount();
+        return submitPatterns(circuitKey, PatternSet.fromMatrix(inputCount, patternMatrix), dropDominated, compact, priority);
+    }
+
+    private FaultSimulationJobStatus submitPatterns(String circuitKey, PatternSet patterns, boolean dropDominated,
+                                                    boolean compact, int priority) {
+        FaultSimulationJob job = new FaultSimulationJob(circuitKey, FaultSimulationJob.Kind.PATTERNS, priority, dropDominated);
+        job.setPatterns(patterns.getInputCount(), patterns.getPatternCount(), pack(patterns, false));
+        if (patterns.hasUnknowns()) {
+            job.setUnknownPatterns(pack(patterns, true));
+        }
+        job.setCompact(compact);
+        return submit(job);
+    }
+
+    /**
+     * Queues random-pattern grading of a registered circuit, with the parameters of
+     * {@link CircuitFaultSimulatorService#gradeRandomPatterns(String, String, long, double, int, int)}.
+     *
+     * @throws NoSuchElementException     If no circuit with that key is loaded.
+     * @throws IllegalArgumentException   If the generator is unknown or a limit is out of range.
+     * @throws RejectedExecutionException If the job queue is full.
+     */
+    public FaultSimulationJobStatus submitRandomPatterns(String circuitKey, String generator, long seed, double targetCoverage,
+                                                         int plateauBlocks, int patternBudget, int priority) {
+        // Validates the key and the generator name before anything is stored
+        circuitService.createPatternGenerator(circuitKey, generator, seed);
+        if (!(targetCoverage >= 0 && targetCoverage <= 1) || plateauBlocks < 0 || patternBudget < 0) {
+            throw new IllegalArgumentException("The target coverage must be between 0 and 1, and the plateau length and pattern budget must not be negative.");
+        }
+        FaultSimulationJob job = new FaultSimulationJob(circuitKey, FaultSimulationJob.Kind.RANDOM, priority, false);
+        job.setRandomPatterns(generator, seed, targetCoverage, plateauBlocks, patternBudget);
+        return submit(job);
+    }
+
+    /**
+     * @throws NoSuchElementException If no job has that id.
+     */
+    public FaultSimulationJobStatus getStatus(long id) {
+        JobRun run = runs.get(id);
+        return run != null ? run.status() : FaultSimulationJobStatus.of(find(id), null);
+    }
+
+    /**
+     * Cancels a job: a queued job is removed from the queue, and a running job stops at the
+     * end of its current round of patterns.
+     *
+     * @throws NoSuchElementException If no job has that id.
+     * @throws IllegalStateException  If the job has already finished.
+     */
+    public FaultSimulationJobStatus cancel(long id) {
+        JobRun run = runs.get(id);
+        if (run == null) {
+            FaultSimulationJob job = find(id);
+            throw new IllegalStateException("Job " + id + " has already finished as " + job.getStatus() + ".");
+        }
+        // A run stays registered for a moment after it has finished
+        FaultSimulationJob.Status status = run.status().status();
+        if (status.isFinished()) {
+            throw new IllegalStateException("Job " + id + " has already finished as " + status + ".");
+        }
+        if (executor.remove(id)) {
+            run.finish(FaultSimulationJob.Status.CANCELLED, null);
+            runs.remove(id);
+        } else {
+            run.cancel();
+        }
+        return run.status();
+    }
+
+    /**
+     * Result of a completed job, against the full fault list of its circuit.
+     *
+     * @throws NoSuchElementException If no job has that id, or its circuit is no longer loaded.
+     * @throws IllegalStateException  If the job has not completed.
+     */
+    public FaultSimulationResult getResult(long id) {
+        FaultSimulationJob job = runs.containsKey(id) ? runs.get(id).job : find(id);
+        if (job.getStatus() != FaultSimulationJob.Status.COMPLETED) {
+            throw new IllegalStateException("Job " + id + " is " + job.getStatus() + "; results are available once it completes.");
+        }
+        return new FaultSimulationResult(circuitService.getCircuit(job.getCircuitKey()).getFaults(),
+                toInts(job.getFirstDetectingPatterns()), job.getPatternsDone());
+    }
+
+    /**
+     * Original indices of the patterns kept by compaction, in increasing order, or null if
+     * the job did not request compaction.
+     *
+     * @throws NoSuchElementException If no job has that id.
+     * @throws IllegalStateException  If the job has not completed.
+     */
+    public int[] getCompactedPatterns(long id) {
+        FaultSimulationJob job = runs.containsKey(id) ? runs.get(id).job : find(id);
+        if (job.getStatus() != FaultSimulationJob.Status.COMPLETED) {
+            throw new IllegalStateException("Job " + id + " is " + job.getStatus() + "; results are available once it completes.");
+        }
+        return job.getCompactedPatterns() == null ? null : toInts(job.getCompactedPatterns());
+    }
+
+    // Jobs left queued or running by the previous process start over
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        for (FaultSimulationJob job : repository.findByStatusInOrderByIdAsc(
+                EnumSet.of(FaultSimulationJob.Status.QUEUED, FaultSimulationJob.Status.RUNNING))) {
+            job.setStatus(FaultSimulationJob.Status.QUEUED);
+            job.setStartedAt(null);
+            job.setProgress(0, 0, 0, 0);
+            try {
+                enqueue(repository.save(job));
+                log.info("Resumed fault simulation job {}", job.getId());
+            } catch (RejectedExecutionException e) {
+                job.setStatus(FaultSimulationJob.Status.FAILED);
+                job.setError("Could not be queued again after a restart: " + e.getMessage());
+                job.setFinishedAt(Instant.now());
+                repository.save(job);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private FaultSimulationJobStatus submit(FaultSimulationJob job) {
+        FaultSimulationJob saved = repository.save(job);
+        try {
+            return enqueue(saved).status();
+        } catch (RejectedExecutionException e) {
+            repository.delete(saved);
+            throw e;
+        }
+    }
+
+    private JobRun enqueue(FaultSimulationJob job) {
+        JobRun run = new JobRun(job);
+        runs.put(job.getId(), run);
+        try {
+            executor.submit(job.getId(), job.getPriority(), run);
+        } catch (RejectedExecutionException e) {
+            runs.remove(job.getId());
+            throw e;
+        }
+        return run;
+    }
+
+    private FaultSimulationJob find(long id) {
+        return repository.findById(id).orElseThrow(() -> new NoSuchElementException("No job with id " + id + "."));
+    }
+
+    private static byte[] toBytes(int[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asIntBuffer().put(values);
+        return buffer.array();
+    }
+
+    private static int[] toInts(byte[] bytes) {
+        int[] values = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values);
+        return values;
+    }
+
+    // Packs the value planes, or the X planes with blocks that have none left zero
+    private static byte[] pack(PatternSet patterns, boolean unknowns) {
+        ByteBuffer buffer = ByteBuffer.allocate(patterns.getBlockCount() * patterns.getInputCount() * Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int b = 0; b < patterns.getBlockCount(); b++) {
+            long[] words = unknowns ? patterns.getUnknownBlock(b) : patterns.getBlock(b);
+            if (words != null) {
+                buffer.asLongBuffer().put(b * patterns.getInputCount(), words);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static PatternSet unpack(FaultSimulationJob job) {
+        long[][] blocks = unpack(job, job.getPatterns());
+        long[][] unknownBlocks = job.getUnknownPatterns() == null ? null : unpack(job, job.getUnknownPatterns());
+        return new PatternSet(job.getInputCount(), job.getPatternCount(), blocks, unknownBlocks);
+    }
+
+    private static long[][] unpack(FaultSimulationJob job, byte[] packed) {
+        long[][] blocks = new long[PatternSet.blockCount(job.getPatternCount())][job.getInputCount()];
+        LongBuffer words = ByteBuffer.wrap(packed).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        for (long[] block : blocks) {
+            words.get(block);
+        }
+        return blocks;
+    }
+
+    /**
+     * One execution of a job. The entity is only changed under the run's lock, so status
+     * requests see consistent progress.
+     */
+    private final class JobRun implements Runnable, FaultSimulator.ProgressListener,
+            DistributedFaultSimulator.ProgressListener {
+        private final FaultSimulationJob job;
+        private volatile boolean cancelled;
+        private long startNanos;
+        private long lastSaveNanos;
+
+        JobRun(FaultSimulationJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (cancelled) {
+                    finish(FaultSimulationJob.Status.CANCELLED, null);
+                    runs.remove(job.getId());
+                    return;
+                }
+                job.setStatus(FaultSimulationJob.Status.RUNNING);
+                job.setStartedAt(Instant.now());
+                startNanos = lastSaveNanos = System.nanoTime();
+                repository.save(job);
+            }
+            try {
+                String key = job.getCircuitKey();
+                if (job.getKind() == FaultSimulationJob.Kind.PATTERNS) {
+                    PatternSet patterns = unpack(job);
+                    FaultSimulationResult result = distributedSimulator.isEnabled()
+                            ? distributedSimulator.simulateFaults(key, patterns, job.isDropDominated(), this)
+                            : circuitService.simulateFaults(key, patterns, job.isDropDominated(), this);
+                    if (job.isCompact()) {
+                        CompactionResult compaction = circuitService.compactPatterns(key, patterns);
+                        synchronized (this) {
+                            job.setCompactedPatterns(toBytes(compaction.getOriginalIndices()));
+                        }
+                    }
+                    complete(result, null);
+                } else {
+                    RandomGradingResult grading = circuitService.gradeRandomPatterns(key,
+                            circuitService.createPatternGenerator(key, job.getGenerator(), job.getSeed()),
+                            job.getTargetCoverage(), job.getPlateauBlocks(), job.getPatternBudget(), this);
+                    complete(grading.getResult(), grading.getStopReason().name());
+                }
+            } catch (CancellationException e) {
+                finish(FaultSimulationJob.Status.CANCELLED, null);
+            } catch (RuntimeException e) {
+                log.warn("Fault simulation job {} failed", job.getId(), e);
+                finish(FaultSimulationJob.Status.FAILED, e.getMessage() != null ? e.getMessage() : e.toString());
+            } finally {
+                runs.remove(job.getId());
+            }
+        }
+
+        @Override
+        public void roundCompleted(FaultSimulator simulator, int patterns, int newlyDetected) {
+            // Only this run's thread changes the progress, so it is read without the lock
+            progress(job.getPatternsDone() + patterns, simulator.getFaults().size(), simulator.getDetectedCount());
+        }
+
+        // A distributed run reports whole fault chunks, so patterns done follows the chunks done
+        @Override
+        public void chunkCompleted(int chunksDone, int chunkCount, int detected, int faultCount) {
+            progress((int) ((long) job.getTotalPatterns() * chunksDone / chunkCount), faultCount, detected);
+        }
+
+        private void progress(int patternsDone, int faults, int detected) {
+            boolean save;
+            synchronized (this) {
+                job.setProgress(patternsDone, faults, detected, faults == 0 ? 1.0 : (double) detected / faults);
+                long now = System.nanoTime();
+                save = now - lastSaveNanos >= PROGRESS_SAVE_INTERVAL_NANOS;
+                if (save) {
+                    lastSaveNanos = now;
+                }
+            }
+            if (cancelled) {
+                throw new CancellationException("Job " + job.getId() + " was cancelled.");
+            }
+            if (save) {
+                saveProgress();
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        synchronized FaultSimulationJobStatus status() {
+            Double eta = null;
+            int done = job.getPatternsDone();
+            if (job.getStatus() == FaultSimulationJob.Status.RUNNING && done > 0) {
+                double elapsed = (System.nanoTime() - startNanos) / 1e9;
+                eta = elapsed * Math.max(0, job.getTotalPatterns() - done) / done;
+            }
+            return FaultSimulationJobStatus.of(job, eta);
+        }
+
+        private synchronized void saveProgress() {
+            repository.save(job);
+        }
+
+        private synchronized void complete(FaultSimulationResult result, String stopReason) {
+            int[] firstDetectingPatterns = new int[result.getFaultCount()];
+            Arrays.setAll(firstDetectingPatterns, result::getFirstDetectingPattern);
+            job.setFirstDetectingPatterns(toBytes(firstDetectingPatterns));
+            job.setProgress(result.getPatternCount(), result.getFaultCount(), result.getDetectedCount(), result.getCoverage());
+            job.setStopReason(stopReason);
+            finish(FaultSimulationJob.Status.COMPLETED, null);
+        }
+
+        synchronized void finish(FaultSimulationJob.Status status, String error) {
+            job.setStatus(status);
+            job.setError(error);
+            job.setFinishedAt(Instant.now());
+            repository.save(job);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_repository.FaultSimulationJob;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time view of a fault simulation job. While the job runs, coverage is over the
+ * simulated fault classes; once it completes, it is over the full fault list.
+ *
+ * @param etaSeconds        Estimated time left, from the pattern rate so far, or null when
+ *                          unknown. For random-pattern jobs it assumes the whole budget is
+ *                          used, so it is an upper bound.
+ * @param compactedPatterns Patterns kept by compaction, or null if it was not requested or
+ *                          has not run yet.
+ */
+public record FaultSimulationJobStatus(long id, String circuitKey, FaultSimulationJob.Kind kind,
+                                       FaultSimulationJob.Status status, int priority, int patternsDone,
+                                       int totalPatterns, int faultCount, int detectedCount, double coverage,
+                                       Double etaSeconds, String stopReason, Integer compactedPatterns, String error,
+                                       Instant submittedAt,
+                                       Instant startedAt, Instant finishedAt) {
+
+    static FaultSimulationJobStatus of(FaultSimulationJob job, Double etaSeconds) {
+        return new FaultSimulationJobStatus(job.getId(), job.getCircuitKey(), job.getKind(), job.getStatus(),
+                job.getPriority(), job.getPatternsDone(), job.getTotalPatterns(), job.getFaultCount(),
+                job.getDetectedCount(), job.getCoverage(), etaSeconds, job.getStopReason(),
+                job.getCompactedPatterns() == null ? null : job.getCompactedPatterns().length / Integer.BYTES, job.getError(),
+                job.getSubmittedAt(), job.getStartedAt(), job.getFinishedAt());
+    }
+}
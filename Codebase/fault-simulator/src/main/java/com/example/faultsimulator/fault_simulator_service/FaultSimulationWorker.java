@@ -0,0 +1,31 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A remote instance that simulates ranges of a collapsed fault list for a
+ * {@link DistributedFaultSimulator}. Data crosses in the byte forms of
+ * {@link com.example.faultsimulator.fault_simulator_engine.CircuitSnapshot},
+ * {@link com.example.faultsimulator.fault_simulator_engine.PatternSet} and
+ * {@link com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult}.
+ * Any other runtime exception means the worker is unusable for the rest of the run.
+ */
+public interface FaultSimulationWorker {
+
+    /**
+     * A name for logs, such as the base URL.
+     */
+    String getName();
+
+    boolean hasCircuit(String circuitKey);
+
+    void loadCircuit(String circuitKey, byte[] snapshot);
+
+    /**
+     * Simulates representatives from..to-1 of the circuit's collapsed fault list.
+     *
+     * @return The packed result of the range.
+     * @throws NoSuchElementException If the worker does not hold the circuit (any more).
+     */
+    byte[] simulateFaults(String circuitKey, boolean dropDominated, int from, int to, byte[] patterns);
+}
@@ -0,0 +1,69 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+
+/**
+ * A worker instance of this application reached over HTTP, through its /api/worker endpoints.
+ */
+final class HttpFaultSimulationWorker implements FaultSimulationWorker {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final String baseUrl;
+    private final RestClient client;
+
+    /**
+     * @param timeout Longest a single request may take before the worker counts as dead.
+     */
+    HttpFaultSimulationWorker(String baseUrl, Duration timeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(CONNECT_TIMEOUT);
+        requestFactory.setReadTimeout(timeout);
+        this.baseUrl = baseUrl;
+        this.client = RestClient.builder().baseUrl(baseUrl).requestFactory(requestFactory).build();
+    }
+
+    @Override
+    public String getName() {
+        return baseUrl;
+    }
+
+    @Override
+    public boolean hasCircuit(String circuitKey) {
+        try {
+            client.get().uri("/api/worker/circuits/{key}", circuitKey).retrieve().toBodilessEntity();
+            return true;
+        } catch (HttpClientErrorException.NotFound e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void loadCircuit(String circuitKey, byte[] snapshot) {
+        client.put().uri("/api/worker/circuits/{key}", circuitKey)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(snapshot)
+                .retrieve()
+                .toBodilessEntity();
+    }
+
+    @Override
+    public byte[] simulateFaults(String circuitKey, boolean dropDominated, int from, int to, byte[] patterns) {
+        try {
+            return client.post()
+                    .uri("/api/worker/circuits/{key}/faults?dropDominated={dropDominated}&from={from}&to={to}",
+                            circuitKey, dropDominated, from, to)
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .body(patterns)
+                    .retrieve()
+                    .body(byte[].class);
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new NoSuchElementException(baseUrl + " does not hold circuit " + circuitKey + ".");
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CircuitOptimizer;
+import com.example.faultsimulator.fault_simulator_engine.CircuitSnapshot;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.OptimizedCircuit;
+import com.example.faultsimulator.fault_simulator_engine.StructuralIndex;
+import com.example.faultsimulator.fault_simulator_engine.atpg.Scoap;
+import com.example.faultsimulator.fault_simulator_engine.faults.CollapsedFaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultCollapser;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultDictionary;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultList;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A parsed and compiled circuit held by the {@link CircuitRegistry}. Instances are shared
+ * between requests: the compiled circuit and the fault lists derived from it are
+ * immutable, and all simulation state is created per request. The graph is built from the
+ * compiled circuit on first use, for inspection only, and must not be modified or
+ * evaluated concurrently.
+ */
+public final class LoadedCircuit {
+    private final String key;
+    private final CompiledCircuit compiled;
+    private volatile CircuitGraph graph;
+    private volatile FaultList faults;
+    private volatile CollapsedFaultList equivalenceCollapsed;
+    private volatile CollapsedFaultList dominanceCollapsed;
+    private volatile Scoap scoap;
+    private volatile StructuralIndex structuralIndex;
+    private volatile OptimizedCircuit optimized;
+    // Fault dictionaries by the id of the pattern set they were built for
+    private final Map<String, FaultDictionary> dictionaries = new ConcurrentHashMap<>();
+
+    public LoadedCircuit(String key, CompiledCircuit compiled) {
+        this.key = key;
+        this.compiled = compiled;
+    }
+
+    /**
+     * Restores a circuit from a snapshot, including its collapsed fault lists if it has them.
+     */
+    public LoadedCircuit(String key, CircuitSnapshot snapshot) {
+        this.key = key;
+        this.compiled = snapshot.getCircuit();
+        if (snapshot.hasFaults()) {
+            this.equivalenceCollapsed = snapshot.getCollapsedFaults(false);
+            this.dominanceCollapsed = snapshot.getCollapsedFaults(true);
+            this.faults = equivalenceCollapsed.getFullFaults();
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public CircuitGraph getGraph() {
+        CircuitGraph result = graph;
+        if (result == null) {
+            synchronized (this) {
+                if (graph == null) {
+                    graph = CircuitCompiler.toGraph(compiled);
+                }
+                result = graph;
+            }
+        }
+        return result;
+    }
+
+    public CompiledCircuit getCompiled() {
+        return compiled;
+    }
+
+    /**
+     * Approximate heap size in bytes of the compiled circuit and of whatever has been derived
+     * from it so far: fault lists, the optimized circuit, fault dictionaries and the object
+     * graph. Assumes compressed references.
+     */
+    public long getMemoryFootprint() {
+        long bytes = compiled.getMemoryFootprint();
+        FaultList full = faults;
+        if (full != null) {
+            // One 24-byte fault object and one reference per fault
+            bytes += 28L * full.size();
+        }
+        for (CollapsedFaultList collapsed : new CollapsedFaultList[]{equivalenceCollapsed, dominanceCollapsed}) {
+            if (collapsed != null) {
+                // Representative index and dominated flag per fault, a reference per representative
+                bytes += 5L * collapsed.getFullFaults().size() + 4L * collapsed.getRepresentatives().size();
+            }
+        }
+        if (scoap != null) {
+            // Two controllabilities and an observability per net, an observability per fan-in edge
+            bytes += 12L * compiled.getNetCount() + 4L * compiled.getFaninNets().length;
+        }
+        if (structuralIndex != null) {
+            // Region root, fanout edge and dominator per net, plus the list of roots
+            bytes += 13L * compiled.getNetCount() + 4L * structuralIndex.getFfrRoots().length;
+        }
+        if (optimized != null) {
+            // The optimized arrays, and the original-to-optimized mapping per net
+            bytes += optimized.getCircuit().getMemoryFootprint() + 4L * compiled.getNetCount();
+        }
+        for (FaultDictionary dictionary : dictionaries.values()) {
+            bytes += dictionary.getMemoryFootprint();
+        }
+        if (graph != null) {
+            // Per net a connection and its map/list entries; per fan-in edge a list slot
+            bytes += 96L * compiled.getNetCount() + 4L * compiled.getFaninNets().length;
+        }
+        return bytes;
+    }
+
+    /**
+     * The full uncollapsed fault list, enumerated on first use.
+     */
+    public FaultList getFaults() {
+        FaultList result = faults;
+        if (result == null) {
+            synchronized (this) {
+                if (faults == null) {
+                    faults = FaultList.enumerate(compiled);
+                }
+                result = faults;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The collapsed fault list, computed on first use for each collapsing mode.
+     */
+    public CollapsedFaultList getCollapsedFaults(boolean dropDominated) {
+        CollapsedFaultList result = dropDominated ? dominanceCollapsed : equivalenceCollapsed;
+        if (result == null) {
+            synchronized (this) {
+                if (dropDominated) {
+                    if (dominanceCollapsed == null) {
+                        dominanceCollapsed = FaultCollapser.collapse(getFaults(), true);
+                    }
+                    result = dominanceCollapsed;
+                } else {
+                    if (equivalenceCollapsed == null) {
+                        equivalenceCollapsed = FaultCollapser.collapse(getFaults(), false);
+                    }
+                    result = equivalenceCollapsed;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * SCOAP testability measures, computed on first use.
+     */
+    public Scoap getScoap() {
+        Scoap result = scoap;
+        if (result == null) {
+            synchronized (this) {
+                if (scoap == null) {
+                    scoap = Scoap.compute(compiled);
+                }
+                result = scoap;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Fanout-free regions and dominators, computed on first use.
+     */
+    public StructuralIndex getStructuralIndex() {
+        StructuralIndex result = structuralIndex;
+        if (result == null) {
+            synchronized (this) {
+                if (structuralIndex == null) {
+                    structuralIndex = StructuralIndex.build(compiled);
+                }
+                result = structuralIndex;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The optimized form of the circuit for binary good-machine simulation, computed on
+     * first use.
+     */
+    public OptimizedCircuit getOptimized() {
+        OptimizedCircuit result = optimized;
+        if (result == null) {
+            synchronized (this) {
+                if (optimized == null) {
+                    optimized = CircuitOptimizer.optimize(compiled);
+                }
+                result = optimized;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The fault dictionary built for the circuit under an id, or null if there is none.
+     */
+    public FaultDictionary getDictionary(String dictionaryId) {
+        return dictionaries.get(dictionaryId);
+    }
+
+    /**
+     * Adds a fault dictionary under an id, replacing any held under the same id; it must be
+     * built on the equivalence-collapsed representatives of this circuit.
+     */
+    public void putDictionary(String dictionaryId, FaultDictionary dictionary) {
+        if (dictionary.getFaults() != getCollapsedFaults(false).getRepresentatives()) {
+            throw new IllegalArgumentException("The dictionary was not built on this circuit's collapsed fault list.");
+        }
+        dictionaries.put(dictionaryId, dictionary);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs background jobs on a fixed number of worker threads. Jobs waiting for a worker are
+ * ordered by priority, highest first, then by submission order, and at most a fixed number
+ * may wait: further submissions are rejected rather than queued without bound.
+ */
+public final class PriorityJobExecutor {
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public PriorityJobExecutor(int workers, int queueCapacity, String threadPrefix) {
+        if (workers < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Job executor needs at least one worker and a non-negative queue capacity.");
+        }
+        AtomicInteger threads = new AtomicInteger();
+        ThreadFactory threadFactory = task -> {
+            Thread thread = new Thread(task, threadPrefix + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), threadFactory);
+        this.executor.prestartAllCoreThreads();
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Queues a job.
+     *
+     * @param id       Identifies the job in {@link #remove(long)}.
+     * @param priority Higher runs first.
+     * @throws RejectedExecutionException If the queue is full or the executor is shut down.
+     */
+    public synchronized void submit(long id, int priority, Runnable job) {
+        if (executor.getQueue().size() >= queueCapacity) {
+            throw new RejectedExecutionException("The job queue is full (" + queueCapacity + " jobs waiting).");
+        }
+        executor.execute(new PrioritizedJob(id, priority, sequence.getAndIncrement(), job));
+    }
+
+    /**
+     * Removes a job that is still waiting for a worker.
+     *
+     * @return Whether the job was waiting; false once it has started.
+     */
+    public boolean remove(long id) {
+        for (Runnable queued : executor.getQueue()) {
+            if (((PrioritizedJob) queued).id == id) {
+                return executor.remove(queued);
+            }
+        }
+        return false;
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Stops the workers; waiting jobs are dropped and running jobs are interrupted.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record PrioritizedJob(long id, int priority, long sequence, Runnable job)
+            implements Runnable, Comparable<PrioritizedJob> {
+
+        @Override
+        public void run() {
+            job.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedJob other) {
+            int byPriority = Integer.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
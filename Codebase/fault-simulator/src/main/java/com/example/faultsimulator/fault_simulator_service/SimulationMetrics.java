@@ -0,0 +1,191 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer instrumentation of the simulator, published on /actuator/metrics and
+ * /actuator/prometheus:
+ *
+ * - faultsimulator.phase (timer, tag phase): parse, compile, snapshot load, evaluate, fault
+ *   simulation, test generation, fault dictionary and diagnosis calls
+ * - faultsimulator.gate.evaluations, faultsimulator.patterns (counters, tag kind): work
+ *   done, whose rates give gate evaluations and patterns per second
+ * - faultsimulator.faults.detected (counter), faultsimulator.faults.remaining (gauge):
+ *   faults dropped so far, and faults still undetected in running simulations
+ * - faultsimulator.registry.hits/misses (counters), faultsimulator.registry.hit.ratio and
+ *   faultsimulator.registry.size (gauges): the circuit registry
+ * - faultsimulator.circuit.memory (gauge, tag circuit): approximate heap size of every
+ *   registered circuit
+ *
+ * Nothing is recorded per gate or per pattern: engines report their counts once per call,
+ * and fault simulation once per round of 1024 patterns.
+ */
+@Component
+public class SimulationMetrics implements CircuitRegistry.Listener {
+    public enum Phase {
+        PARSE,
+        COMPILE,
+        SNAPSHOT_LOAD,
+        EVALUATE,
+        FAULT_SIMULATE,
+        TEST_GENERATION,
+        DICTIONARY_BUILD,
+        DIAGNOSE
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Phase, Timer> phaseTimers = new EnumMap<>(Phase.class);
+    private final Counter evaluatedGates;
+    private final Counter evaluatedPatterns;
+    private final Counter faultSimulatedGates;
+    private final Counter faultSimulatedPatterns;
+    private final Counter detectedFaults;
+    private final AtomicLong remainingFaults = new AtomicLong();
+    private final Map<String, Gauge> footprintGauges = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SimulationMetrics(MeterRegistry meterRegistry, CircuitRegistry circuitRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Phase phase : Phase.values()) {
+            phaseTimers.put(phase, Timer.builder("faultsimulator.phase")
+                    .description("Time spent per simulator phase")
+                    .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        evaluatedGates = workCounter("faultsimulator.gate.evaluations", "evaluate", "Gate evaluations");
+        evaluatedPatterns = workCounter("faultsimulator.patterns", "evaluate", "Patterns applied");
+        faultSimulatedGates = workCounter("faultsimulator.gate.evaluations", "fault_simulate", "Gate evaluations");
+        faultSimulatedPatterns = workCounter("faultsimulator.patterns", "fault_simulate", "Patterns applied");
+        detectedFaults = Counter.builder("faultsimulator.faults.detected")
+                .description("Faults detected and dropped by fault simulation")
+                .register(meterRegistry);
+        Gauge.builder("faultsimulator.faults.remaining", remainingFaults, AtomicLong::get)
+                .description("Faults not yet detected in running fault simulations")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("faultsimulator.registry.hits", circuitRegistry, CircuitRegistry::getHitCount)
+                .description("Circuit loads served from the registry")
+                .register(meterRegistry);
+        FunctionCounter.builder("faultsimulator.registry.misses", circuitRegistry, CircuitRegistry::getMissCount)
+                .description("Circuit loads that had to parse or restore the circuit")
+                .register(meterRegistry);
+        Gauge.builder("faultsimulator.registry.hit.ratio", circuitRegistry, SimulationMetrics::hitRatio)
+                .description("Fraction of circuit loads served from the registry")
+                .register(meterRegistry);
+        Gauge.builder("faultsimulator.registry.size", circuitRegistry, CircuitRegistry::size)
+                .description("Circuits held in the registry")
+                .register(meterRegistry);
+        circuitRegistry.addListener(this);
+    }
+
+    private Counter workCounter(String name, String kind, String description) {
+        return Counter.builder(name).description(description).tag("kind", kind).register(meterRegistry);
+    }
+
+    private static double hitRatio(CircuitRegistry circuitRegistry) {
+        long hits = circuitRegistry.getHitCount();
+        long total = hits + circuitRegistry.getMissCount();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Records the time of a phase that started at the given {@link System#nanoTime()}.
+     */
+    public void record(Phase phase, long startNanos) {
+        phaseTimers.get(phase).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a good-machine evaluation call.
+     */
+    public void evaluated(long startNanos, long patterns, long gateEvaluations) {
+        record(Phase.EVALUATE, startNanos);
+        evaluatedPatterns.increment(patterns);
+        evaluatedGates.increment(gateEvaluations);
+    }
+
+    /**
+     * Follows a fault simulation round by round until the returned probe is closed.
+     */
+    public FaultSimulationProbe track(FaultSimulator simulator) {
+        return track(simulator, null);
+    }
+
+    /**
+     * @param next Listener the probe forwards every round to after recording it, or null.
+     */
+    public FaultSimulationProbe track(FaultSimulator simulator, FaultSimulator.ProgressListener next) {
+        return new FaultSimulationProbe(simulator, next);
+    }
+
+    public final class FaultSimulationProbe implements FaultSimulator.ProgressListener, AutoCloseable {
+        private final long startNanos = System.nanoTime();
+        private final FaultSimulator simulator;
+        private final FaultSimulator.ProgressListener next;
+        private final long pending;
+        private long detected;
+        private long gateEvaluations;
+
+        private FaultSimulationProbe(FaultSimulator simulator, FaultSimulator.ProgressListener next) {
+            this.simulator = simulator;
+            this.next = next;
+            this.pending = simulator.getFaults().size() - simulator.getDetectedCount();
+            this.gateEvaluations = simulator.getGateEvaluations();
+            remainingFaults.addAndGet(pending);
+            simulator.setProgressListener(this);
+        }
+
+        @Override
+        public void roundCompleted(FaultSimulator simulator, int patterns, int newlyDetected) {
+            long evaluations = simulator.getGateEvaluations();
+            faultSimulatedGates.increment(evaluations - gateEvaluations);
+            gateEvaluations = evaluations;
+            faultSimulatedPatterns.increment(patterns);
+            detectedFaults.increment(newlyDetected);
+            detected += newlyDetected;
+            remainingFaults.addAndGet(-newlyDetected);
+            if (next != null) {
+                next.roundCompleted(simulator, patterns, newlyDetected);
+            }
+        }
+
+        @Override
+        public void close() {
+            simulator.setProgressListener(null);
+            remainingFaults.addAndGet(detected - pending);
+            record(Phase.FAULT_SIMULATE, startNanos);
+        }
+    }
+
+    @Override
+    public void circuitLoaded(LoadedCircuit circuit) {
+        footprintGauges.computeIfAbsent(circuit.getKey(), key ->
+                Gauge.builder("faultsimulator.circuit.memory", circuit, LoadedCircuit::getMemoryFootprint)
+                        .description("Approximate heap size of a registered circuit")
+                        .baseUnit("bytes")
+                        .tag("circuit", key)
+                        .register(meterRegistry));
+    }
+
+    @Override
+    public void circuitEvicted(LoadedCircuit circuit) {
+        Gauge gauge = footprintGauges.remove(circuit.getKey());
+        if (gauge != null) {
+            meterRegistry.remove(gauge);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitSnapshot;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * On-disk cache of compiled circuits, one {@link CircuitSnapshot} file per netlist content
+ * hash. A restarted instance pointed at the same directory reloads its circuits from the
+ * snapshots instead of parsing the netlists again. The {@link FaultDictionary} files of a
+ * circuit are kept next to its snapshot, one per pattern set. Disabled when no directory is
+ * configured.
+ *
+ * The cache is best effort: a snapshot or dictionary that cannot be read (older format,
+ * corrupted) is treated as missing and rewritten, and one that cannot be written is skipped.
+ * Keys and dictionary ids that are not content hashes are never turned into paths: there
+ * is nothing stored under them.
+ */
+@Component
+public class SnapshotStore {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+    private static final String EXTENSION = ".fsnap";
+    private static final String DICTIONARY_EXTENSION = ".fdict";
+
+    private final Path directory;
+    private final boolean includeFaults;
+
+    public SnapshotStore() {
+        this("", false);
+    }
+
+    /**
+     * @param directory     Directory holding the snapshots, created if needed; empty disables
+     *                      the store.
+     * @param includeFaults Also store the collapsed fault lists, which makes writing slower
+     *                      and fault simulation right after a restart faster.
+     */
+    @Autowired
+    public SnapshotStore(@Value("${faultsimulator.snapshot.directory:}") String directory,
+                         @Value("${faultsimulator.snapshot.include-faults:true}") boolean includeFaults) {
+        this.directory = directory.isBlank() ? null : Path.of(directory);
+        this.includeFaults = includeFaults;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Returns the circuit stored under the key, or null if there is no usable snapshot.
+     */
+    public LoadedCircuit find(String key) {
+        if (directory == null || !CircuitRegistry.isContentHash(key)) {
+            return null;
+        }
+        Path file = snapshotFile(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return new LoadedCircuit(key, CircuitSnapshot.read(file));
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable circuit snapshot: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot of a circuit. The file is written next to its final name and then
+     * moved into place, so concurrent readers never see a partial snapshot.
+     */
+    public void save(LoadedCircuit circuit) {
+        if (directory == null || !CircuitRegistry.isContentHash(circuit.getKey())) {
+            return;
+        }
+        CircuitSnapshot snapshot = includeFaults
+                ? new CircuitSnapshot(circuit.getCompiled(), circuit.getCollapsedFaults(false), circuit.getCollapsedFaults(true))
+                : new CircuitSnapshot(circuit.getCompiled());
+        write(circuit.getKey(), snapshotFile(circuit.getKey()), "circuit snapshot", snapshot::toBytes);
+    }
+
+    /**
+     * Returns the fault dictionary stored for a circuit under an id, or null if there is no
+     * usable one.
+     */
+    public FaultDictionary findDictionary(LoadedCircuit circuit, String dictionaryId) {
+        if (directory == null || !CircuitRegistry.isContentHash(circuit.getKey()) || !CircuitRegistry.isContentHash(dictionaryId)) {
+            return null;
+        }
+        Path file = dictionaryFile(circuit.getKey(), dictionaryId);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return FaultDictionary.fromBytes(circuit.getCollapsedFaults(false).getRepresentatives(), Files.readAllBytes(file));
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable fault dictionary: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a fault dictionary of a circuit under an id, replacing the one stored under the
+     * same id, in the same way as {@link #save}.
+     */
+    public void saveDictionary(LoadedCircuit circuit, String dictionaryId, FaultDictionary dictionary) {
+        if (directory == null || !CircuitRegistry.isContentHash(circuit.getKey()) || !CircuitRegistry.isContentHash(dictionaryId)) {
+            return;
+        }
+        write(circuit.getKey(), dictionaryFile(circuit.getKey(), dictionaryId), "fault dictionary", dictionary::toBytes);
+    }
+
+    @FunctionalInterface
+    private interface Content {
+        byte[] toBytes() throws IOException;
+    }
+
+    private void write(String key, Path file, String description, Content content) {
+        Path partial = null;
+        try {
+            Files.createDirectories(directory);
+            partial = Files.createTempFile(directory, key, ".partial");
+            Files.write(partial, content.toBytes());
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write {} {}: {}", description, file, e.getMessage());
+            if (partial != null) {
+                try {
+                    Files.deleteIfExists(partial);
+                } catch (IOException ignored) {
+                    // Left for the operator; it never shadows a real file
+                }
+            }
+        }
+    }
+
+    Path snapshotFile(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    Path dictionaryFile(String key, String dictionaryId) {
+        return directory.resolve(key + "-" + dictionaryId + DICTIONARY_EXTENSION);
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.BitParallelSimulator;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Simulates a stream of input vectors of any length, one vector per line, and writes one
+ * output vector per line in the same order. Vectors are packed 64 at a time and the outputs
+ * of each block are flushed as soon as it is simulated, so memory use does not depend on
+ * the length of the stream. Output is buffered and flushed whenever reading the next input
+ * would block, so results reach the client incrementally and a slow reader slows down the
+ * reading of the input.
+ *
+ * An input line holds one value per primary input, either as a JSON array of 0/1 or
+ * true/false ({@code [0, 1, true]}) or as a bit string ({@code 011}, optionally quoted).
+ * An unspecified input is written X (or x, or null in an array); blocks holding one are
+ * simulated three-valued, and outputs that are X are written as X ({@code "X"} in NDJSON).
+ * Blank lines are skipped. The output format is chosen up front: {@link Format#NDJSON}
+ * writes {@code [0,1]} arrays, {@link Format#TEXT} writes bit strings. A malformed line
+ * ends the stream with an error record naming the line.
+ */
+public final class VectorStreamSimulator {
+    public enum Format {
+        NDJSON,
+        TEXT
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final CompiledCircuit circuit;
+    private final Format format;
+    private final BitParallelSimulator simulator;
+    private final BitParallelSimulator binarySimulator;
+    private final long[] inputWords;
+    private final long[] unknownWords;
+    private boolean unknowns;
+    private final int[] outputNets;
+    private final int[] binaryOutputNets;
+    private final byte[] line;
+
+    public VectorStreamSimulator(CompiledCircuit circuit, Format format) {
+        this(circuit, circuit, format);
+    }
+
+    /**
+     * @param binaryCircuit Circuit with the same inputs and outputs that simulates the
+     *                      blocks without X, such as the optimized form of the circuit.
+     */
+    public VectorStreamSimulator(CompiledCircuit circuit, CompiledCircuit binaryCircuit, Format format) {
+        this.circuit = circuit;
+        this.format = format;
+        this.simulator = new BitParallelSimulator(circuit);
+        this.binarySimulator = binaryCircuit == circuit ? simulator : new BitParallelSimulator(binaryCircuit);
+        this.inputWords = new long[circuit.getInputCount()];
+        this.unknownWords = new long[circuit.getInputCount()];
+        this.outputNets = circuit.getPrimaryOutputNets();
+        this.binaryOutputNets = binaryCircuit.getPrimaryOutputNets();
+        this.line = new byte[format == Format.NDJSON ? 4 * outputNets.length + 2 : outputNets.length + 1];
+    }
+
+    /**
+     * Reads vectors until the end of the input; neither stream is closed.
+     *
+     * @return The number of vectors simulated.
+     */
+    public long simulate(InputStream in, OutputStream output) throws IOException {
+        OutputStream out = new BufferedOutputStream(output, BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long lineNumber = 1;
+        long vectors = 0;
+        int slot = 0;
+        int bits = 0;
+        boolean inWord = false;
+        Arrays.fill(inputWords, 0);
+        Arrays.fill(unknownWords, 0);
+        unknowns = false;
+        int read;
+        while (true) {
+            if (in.available() == 0) {
+                out.flush();
+            }
+            if ((read = in.read(buffer)) == -1) {
+                break;
+            }
+            for (int k = 0; k < read; k++) {
+                byte b = buffer[k];
+                if (b == '\n') {
+                    if (bits > 0) {
+                        if (bits != inputWords.length) {
+                            return fail(out, slot, vectors, lineNumber, "expected " + inputWords.length + " values, found " + bits + ".");
+                        }
+                        vectors++;
+                        if (++slot == 64) {
+                            writeBlock(out, slot);
+                            slot = 0;
+                        }
+                    }
+                    bits = 0;
+                    inWord = false;
+                    lineNumber++;
+                    continue;
+                }
+                // Letters after the first of true/false/null are skipped
+                if (inWord && b >= 'a' && b <= 'z') {
+                    continue;
+                }
+                inWord = false;
+                int value;
+                switch (b) {
+                    case '0', 'f' -> value = 0;
+                    case '1', 't' -> value = 1;
+                    case 'X', 'x', 'n' -> value = -1;
+                    case ' ', '\t', '\r', ',', '[', ']', '"' -> {
+                        continue;
+                    }
+                    default -> {
+                        String found = b >= ' ' && b < 127 ? "'" + (char) b + "'" : String.format("byte 0x%02X", b & 0xFF);
+                        return fail(out, slot, vectors, lineNumber, "unexpected " + found + ".");
+                    }
+                }
+                inWord = b == 'f' || b == 't' || b == 'n';
+                if (bits == inputWords.length) {
+                    return fail(out, slot, vectors, lineNumber, "more than " + inputWords.length + " values.");
+                }
+                if (value == 1) {
+                    inputWords[bits] |= 1L << slot;
+                } else if (value < 0) {
+                    unknownWords[bits] |= 1L << slot;
+                    unknowns = true;
+                }
+                bits++;
+            }
+        }
+        if (bits > 0) {
+            if (bits != inputWords.length) {
+                return fail(out, slot, vectors, lineNumber, "expected " + inputWords.length + " values, found " + bits + ".");
+            }
+            vectors++;
+            slot++;
+        }
+        if (slot > 0) {
+            writeBlock(out, slot);
+        }
+        out.flush();
+        return vectors;
+    }
+
+    // Simulates the packed vectors, writes their outputs and clears the input words
+    private void writeBlock(OutputStream out, int count) throws IOException {
+        long[] values = unknowns ? simulator.simulateBlock(inputWords, unknownWords) : binarySimulator.simulateBlock(inputWords);
+        long[] zeros = unknowns ? simulator.getZeros() : null;
+        int[] outputNets = unknowns ? this.outputNets : binaryOutputNets;
+        for (int p = 0; p < count; p++) {
+            int length = 0;
+            if (format == Format.NDJSON) {
+                line[length++] = '[';
+            }
+            for (int o = 0; o < outputNets.length; o++) {
+                if (format == Format.NDJSON && o > 0) {
+                    line[length++] = ',';
+                }
+                boolean one = (values[outputNets[o]] >>> p & 1) != 0;
+                if (one && zeros != null && (zeros[outputNets[o]] >>> p & 1) != 0) {
+                    if (format == Format.NDJSON) {
+                        line[length++] = '"';
+                        line[length++] = 'X';
+                        line[length++] = '"';
+                    } else {
+                        line[length++] = 'X';
+                    }
+                } else {
+                    line[length++] = (byte) (one ? '1' : '0');
+                }
+            }
+            if (format == Format.NDJSON) {
+                line[length++] = ']';
+            }
+            line[length++] = '\n';
+            out.write(line, 0, length);
+        }
+        Arrays.fill(inputWords, 0);
+        if (unknowns) {
+            Arrays.fill(unknownWords, 0);
+            unknowns = false;
+        }
+    }
+
+    // Flushes the vectors read before the bad line, then ends the stream with an error record
+    private long fail(OutputStream out, int pending, long vectors, long lineNumber, String message) throws IOException {
+        if (pending > 0) {
+            writeBlock(out, pending);
+        }
+        String error = "Line " + lineNumber + ": " + message;
+        String record = format == Format.NDJSON
+                ? "{\"error\":\"" + error.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}\n"
+                : "# error: " + error + "\n";
+        out.write(record.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        return vectors;
+    }
+
+    public CompiledCircuit getCircuit() {
+        return circuit;
+    }
+}
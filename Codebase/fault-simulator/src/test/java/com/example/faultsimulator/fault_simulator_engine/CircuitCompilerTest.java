@@ -0,0 +1,150 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+import com.example.faultsimulator.fault_simulator_model.gates.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitCompilerTest {
+
+    // c17, with every gate reference using its own connection object like the parser does,
+    // and the gates added in reverse order so hash order cannot be relied on
+    static CircuitGraph c17() {
+        CircuitGraph graph = new CircuitGraph();
+        for (int id : new int[]{1, 2, 3, 6, 7}) {
+            graph.addPrimaryInput(new CircuitConnection(id));
+        }
+        graph.addPrimaryOutput(new CircuitConnection(22));
+        graph.addPrimaryOutput(new CircuitConnection(23));
+        graph.addGate(nand(23, 16, 19));
+        graph.addGate(nand(22, 10, 16));
+        graph.addGate(nand(19, 11, 7));
+        graph.addGate(nand(16, 2, 11));
+        graph.addGate(nand(11, 3, 6));
+        graph.addGate(nand(10, 1, 3));
+        return graph;
+    }
+
+    static Gate nand(int id, int a, int b) {
+        return new NANDGate(id, Arrays.asList(new CircuitConnection(a), new CircuitConnection(b)), new CircuitConnection(id));
+    }
+
+    @Test
+    void levelizesGatesAfterTheirDrivers() {
+        CompiledCircuit circuit = CircuitCompiler.compile(c17());
+
+        assertEquals(5, circuit.getInputCount());
+        assertEquals(6, circuit.getGateCount());
+        assertEquals(4, circuit.getLevelCount(), "c17 has three gate levels above the inputs.");
+        int[] faninStart = circuit.getFaninStart();
+        int[] faninNets = circuit.getFaninNets();
+        for (int g = 0; g < circuit.getGateCount(); g++) {
+            for (int i = faninStart[g]; i < faninStart[g + 1]; i++) {
+                assertTrue(faninNets[i] < circuit.gateOutputNet(g), "A gate must come after its drivers.");
+            }
+        }
+        assertEquals(22, circuit.getNetId(circuit.getPrimaryOutputNets()[0]));
+        assertEquals(-1, circuit.netIndex(4));
+    }
+
+    @Test
+    void evaluatesEveryInputCombinationInOnePass() throws Exception {
+        CircuitGraph graph = c17();
+        for (int pattern = 0; pattern < 32; pattern++) {
+            boolean i1 = (pattern & 1) != 0, i2 = (pattern & 2) != 0, i3 = (pattern & 4) != 0;
+            boolean i6 = (pattern & 8) != 0, i7 = (pattern & 16) != 0;
+            boolean n10 = !(i1 && i3), n11 = !(i3 && i6), n16 = !(i2 && n11), n19 = !(n11 && i7);
+            List<Boolean> expected = Arrays.asList(!(n10 && n16), !(n16 && n19));
+
+            graph.evaluate(CircuitCompiler.compile(graph), Arrays.asList(i1, i2, i3, i6, i7));
+
+            assertEquals(expected, graph.getPrimaryOutputsValues(), "Pattern " + pattern);
+        }
+    }
+
+    @Test
+    void evaluatesEveryGateTypeThreeValued() {
+        // A single gate has no reconvergence, so its dual-rail output is X exactly when the
+        // completions of the X inputs disagree
+        for (GateType type : GateType.values()) {
+            int inputCount = type == GateType.NOT || type == GateType.BUFF ? 1 : 3;
+            CircuitGraph graph = new CircuitGraph();
+            List<CircuitConnection> inputs = new ArrayList<>();
+            for (int id = 1; id <= inputCount; id++) {
+                graph.addPrimaryInput(new CircuitConnection(id));
+                inputs.add(new CircuitConnection(id));
+            }
+            graph.addGate(switch (type) {
+                case AND -> new ANDGate(9, inputs, new CircuitConnection(9));
+                case NAND -> new NANDGate(9, inputs, new CircuitConnection(9));
+                case OR -> new ORGate(9, inputs, new CircuitConnection(9));
+                case NOR -> new NORGate(9, inputs, new CircuitConnection(9));
+                case XOR -> new XORGate(9, inputs, new CircuitConnection(9));
+                case NOT -> new NOTGate(9, inputs, new CircuitConnection(9));
+                case BUFF -> new BUFFGate(9, inputs, new CircuitConnection(9));
+            });
+            graph.addPrimaryOutput(new CircuitConnection(9));
+            CompiledCircuit circuit = CircuitCompiler.compile(graph);
+
+            // Vector k holds input i as digit i of k in base 3: 0, 1 or X
+            int vectors = (int) Math.pow(3, inputCount);
+            long[] ones = new long[circuit.getNetCount()];
+            long[] zeros = new long[circuit.getNetCount()];
+            for (int k = 0; k < vectors; k++) {
+                for (int i = 0, digits = k; i < inputCount; i++, digits /= 3) {
+                    ones[i] |= (digits % 3 != 0 ? 1L : 0L) << k;
+                    zeros[i] |= (digits % 3 != 1 ? 1L : 0L) << k;
+                }
+            }
+            circuit.evaluate(ones, zeros);
+
+            int out = circuit.getPrimaryOutputNets()[0];
+            for (int k = 0; k < vectors; k++) {
+                boolean mayBeOne = false;
+                boolean mayBeZero = false;
+                for (int completion = 0; completion < 1 << inputCount; completion++) {
+                    boolean[] values = new boolean[circuit.getNetCount()];
+                    boolean consistent = true;
+                    for (int i = 0, digits = k; i < inputCount; i++, digits /= 3) {
+                        values[i] = (completion >>> i & 1) != 0;
+                        consistent &= digits % 3 == 2 || values[i] == (digits % 3 == 1);
+                    }
+                    if (consistent) {
+                        circuit.evaluate(values);
+                        mayBeOne |= values[out];
+                        mayBeZero |= !values[out];
+                    }
+                }
+                assertEquals(mayBeOne, (ones[out] >>> k & 1) != 0, type + " vector " + k);
+                assertEquals(mayBeZero, (zeros[out] >>> k & 1) != 0, type + " vector " + k);
+            }
+        }
+    }
+
+    @Test
+    void rejectsCombinationalLoops() {
+        CircuitGraph graph = new CircuitGraph();
+        graph.addPrimaryInput(new CircuitConnection(1));
+        graph.addGate(nand(2, 1, 3));
+        graph.addGate(nand(3, 1, 2));
+        graph.addPrimaryOutput(new CircuitConnection(3));
+
+        assertThrows(IllegalArgumentException.class, () -> CircuitCompiler.compile(graph));
+    }
+
+    @Test
+    void rejectsUndrivenNets() {
+        CircuitGraph graph = new CircuitGraph();
+        graph.addPrimaryInput(new CircuitConnection(1));
+        graph.addGate(new ANDGate(3, new ArrayList<>(List.of(new CircuitConnection(1), new CircuitConnection(2))), new CircuitConnection(3)));
+        graph.addPrimaryOutput(new CircuitConnection(3));
+
+        assertThrows(IllegalArgumentException.class, () -> CircuitCompiler.compile(graph));
+    }
+}
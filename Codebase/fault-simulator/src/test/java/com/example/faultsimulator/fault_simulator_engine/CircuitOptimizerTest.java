@@ -0,0 +1,113 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_parser.BenchParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitOptimizerTest {
+
+    private static final Path NETLISTS = Path.of("../../Resources/Netlists");
+
+    private static CompiledCircuit compile(String bench) throws IOException {
+        return CircuitCompiler.compile(BenchParser.parse(bench.getBytes()));
+    }
+
+    private static CompiledCircuit load(String name) throws IOException {
+        return CircuitCompiler.compile(BenchParser.parse(Files.readAllBytes(NETLISTS.resolve(name + ".bench.txt"))));
+    }
+
+    // Compares outputs and every mapped net over random blocks of 64 patterns
+    private static void assertEquivalent(CompiledCircuit original, OptimizedCircuit optimized, String name) {
+        CompiledCircuit circuit = optimized.getCircuit();
+        assertEquals(original.getInputCount(), circuit.getInputCount());
+        assertEquals(original.getOutputCount(), circuit.getOutputCount());
+        long[] expected = new long[original.getNetCount()];
+        long[] actual = new long[circuit.getNetCount()];
+        SplittableRandom random = new SplittableRandom(17);
+        for (int block = 0; block < 32; block++) {
+            for (int i = 0; i < original.getInputCount(); i++) {
+                expected[i] = actual[i] = random.nextLong();
+            }
+            original.evaluate(expected);
+            circuit.evaluate(actual);
+            for (int o = 0; o < original.getOutputCount(); o++) {
+                assertEquals(expected[original.getPrimaryOutputNets()[o]], actual[circuit.getPrimaryOutputNets()[o]],
+                        name + " output " + o);
+            }
+            for (int net = 0; net < original.getNetCount(); net++) {
+                int mapped = optimized.getOptimizedNet(net);
+                if (mapped >= 0) {
+                    long value = optimized.isInverted(net) ? ~actual[mapped] : actual[mapped];
+                    assertEquals(expected[net], value, name + " net " + original.getNetId(net));
+                }
+            }
+        }
+    }
+
+    @Test
+    void matchesEveryBundledNetlistWithFewerGates() throws IOException {
+        int netlists = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(NETLISTS, "*.bench.txt")) {
+            for (Path file : files) {
+                CompiledCircuit original = CircuitCompiler.compile(BenchParser.parse(Files.readAllBytes(file)));
+                OptimizedCircuit optimized = CircuitOptimizer.optimize(original);
+                assertEquivalent(original, optimized, file.getFileName().toString());
+                assertTrue(optimized.getCircuit().getGateCount() <= original.getGateCount(), file.getFileName().toString());
+                netlists++;
+            }
+        }
+        assertTrue(netlists >= 11, "The ISCAS-85 netlists should be bundled.");
+    }
+
+    @Test
+    void reducesC1355ToTheSizeOfC499() throws IOException {
+        // c1355 is c499 with every XOR expanded into four NANDs
+        int c499 = CircuitOptimizer.optimize(load("c499")).getCircuit().getGateCount();
+        int c1355 = CircuitOptimizer.optimize(load("c1355")).getCircuit().getGateCount();
+        assertEquals(c499, c1355);
+        assertTrue(c1355 < load("c1355").getGateCount() / 4);
+    }
+
+    @Test
+    void foldsBuffersDuplicatesConstantsAndDeadLogic() throws IOException {
+        CompiledCircuit original = compile("""
+                INPUT(1)
+                INPUT(2)
+                INPUT(3)
+                OUTPUT(9)
+                OUTPUT(10)
+                OUTPUT(11)
+                OUTPUT(12)
+                4 = NOT(1)
+                5 = NOT(4)
+                6 = BUFF(5)
+                7 = AND(1, 2)
+                8 = AND(2, 1)
+                9 = XOR(7, 8)
+                10 = OR(6, 4)
+                11 = NAND(7, 8)
+                12 = BUFF(6)
+                13 = AND(3, 2)
+                """);
+        OptimizedCircuit optimized = CircuitOptimizer.optimize(original);
+        CompiledCircuit circuit = optimized.getCircuit();
+        assertEquivalent(original, optimized, "folding");
+
+        // A constant 0, its complement and one NAND shared by 7, 8 and 11
+        assertEquals(3, circuit.getGateCount());
+        int[] outputs = circuit.getPrimaryOutputNets();
+        assertEquals(0, outputs[3], "12 is a buffered double inversion of input 1.");
+        assertEquals(optimized.getOptimizedNet(original.netIndex(7)), optimized.getOptimizedNet(original.netIndex(8)));
+        assertTrue(optimized.isInverted(original.netIndex(7)));
+        assertEquals(original.netIndex(11), optimized.getOriginalNet(outputs[2]));
+        assertEquals(-1, optimized.getOptimizedNet(original.netIndex(13)), "13 reaches no output.");
+        assertEquals(original.netIndex(9), optimized.getOriginalNet(outputs[0]), "9 is the constant 0.");
+    }
+}
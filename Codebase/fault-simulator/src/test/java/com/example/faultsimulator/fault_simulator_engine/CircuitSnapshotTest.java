@@ -0,0 +1,84 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_engine.faults.CollapsedFaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultCollapser;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultList;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitSnapshotTest {
+
+    private static Path tempFile() throws IOException {
+        Path file = Files.createTempFile("circuit", ".fsnap");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    @Test
+    void roundTripsTheCompiledArrays() throws Exception {
+        CompiledCircuit circuit = CircuitCompiler.compile(CircuitCompilerTest.c17());
+        Path file = tempFile();
+
+        new CircuitSnapshot(circuit).write(file);
+        CircuitSnapshot snapshot = CircuitSnapshot.read(file);
+
+        CompiledCircuit restored = snapshot.getCircuit();
+        assertFalse(snapshot.hasFaults());
+        assertEquals(circuit.getInputCount(), restored.getInputCount());
+        assertArrayEquals(circuit.getOpcodes(), restored.getOpcodes());
+        assertArrayEquals(circuit.getFaninStart(), restored.getFaninStart());
+        assertArrayEquals(circuit.getFaninNets(), restored.getFaninNets());
+        assertArrayEquals(circuit.getGateLevels(), restored.getGateLevels());
+        assertArrayEquals(circuit.getPrimaryOutputNets(), restored.getPrimaryOutputNets());
+        assertArrayEquals(circuit.getNetIds(), restored.getNetIds());
+        assertArrayEquals(circuit.getFanoutGates(), restored.getFanoutGates());
+    }
+
+    @Test
+    void roundTripsTheCollapsedFaultLists() throws Exception {
+        CompiledCircuit circuit = CircuitCompiler.compile(CircuitCompilerTest.c17());
+        FaultList faults = FaultList.enumerate(circuit);
+        CollapsedFaultList equivalence = FaultCollapser.collapse(faults, false);
+        CollapsedFaultList dominance = FaultCollapser.collapse(faults, true);
+        Path file = tempFile();
+
+        new CircuitSnapshot(circuit, equivalence, dominance).write(file);
+        CircuitSnapshot snapshot = CircuitSnapshot.read(file);
+
+        assertTrue(snapshot.hasFaults());
+        for (boolean dropDominated : new boolean[]{false, true}) {
+            CollapsedFaultList expected = dropDominated ? dominance : equivalence;
+            CollapsedFaultList actual = snapshot.getCollapsedFaults(dropDominated);
+            assertEquals(expected.getRepresentatives().size(), actual.getRepresentatives().size());
+            for (int r = 0; r < expected.getRepresentatives().size(); r++) {
+                assertEquals(expected.getRepresentatives().get(r).describe(circuit),
+                        actual.getRepresentatives().get(r).describe(snapshot.getCircuit()));
+            }
+            for (int f = 0; f < faults.size(); f++) {
+                assertEquals(expected.getRepresentative(f), actual.getRepresentative(f));
+                assertEquals(expected.isDominated(f), actual.isDominated(f));
+            }
+        }
+        assertSame(snapshot.getCollapsedFaults(false).getFullFaults(), snapshot.getCollapsedFaults(true).getFullFaults());
+    }
+
+    @Test
+    void rejectsACorruptedSnapshot() throws Exception {
+        Path file = tempFile();
+        new CircuitSnapshot(CircuitCompiler.compile(CircuitCompilerTest.c17())).write(file);
+        byte[] content = Files.readAllBytes(file);
+        content[content.length - 1] ^= 1;
+        Files.write(file, content);
+
+        IOException error = assertThrows(IOException.class, () -> CircuitSnapshot.read(file));
+        assertTrue(error.getMessage().contains("checksum"));
+
+        Files.write(file, "INPUT(1)".getBytes());
+        assertThrows(IOException.class, () -> CircuitSnapshot.read(file));
+    }
+}
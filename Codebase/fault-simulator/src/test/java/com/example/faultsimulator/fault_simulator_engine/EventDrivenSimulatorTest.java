@@ -0,0 +1,45 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventDrivenSimulatorTest {
+
+    @Test
+    void matchesFullEvaluationOnAWalkingOnesSequence() {
+        CompiledCircuit circuit = CircuitCompiler.compile(CircuitCompilerTest.c17());
+        boolean[][] vectors = new boolean[11][5];
+        for (int v = 1; v < vectors.length; v++) {
+            vectors[v] = vectors[v - 1].clone();
+            vectors[v][(v - 1) % 5] = !vectors[v][(v - 1) % 5];
+        }
+
+        IncrementalSimulationResult result = new EventDrivenSimulator(circuit).simulate(vectors);
+
+        boolean[] values = new boolean[circuit.getNetCount()];
+        for (int v = 0; v < vectors.length; v++) {
+            System.arraycopy(vectors[v], 0, values, 0, 5);
+            circuit.evaluate(values);
+            for (int o = 0; o < circuit.getOutputCount(); o++) {
+                assertEquals(values[circuit.getPrimaryOutputNets()[o]], result.getOutputs()[v][o], "Vector " + v + ", output " + o);
+            }
+        }
+        assertEquals(6, result.getGateEvaluations()[0], "The first vector is evaluated in full.");
+        assertTrue(result.getActivity() < 1.0);
+    }
+
+    @Test
+    void evaluatesNothingWhenNoInputChanges() {
+        CompiledCircuit circuit = CircuitCompiler.compile(CircuitCompilerTest.c17());
+        EventDrivenSimulator simulator = new EventDrivenSimulator(circuit);
+        boolean[] vector = {true, false, true, true, false};
+
+        simulator.apply(vector);
+
+        assertEquals(0, simulator.apply(vector.clone()));
+        // Input 7 only feeds gate 19, whose output then stays 1 because 11 is 0
+        vector[4] = true;
+        assertEquals(1, simulator.apply(vector));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_parser.BenchParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimdSimulatorTest {
+
+    private static final Path NETLISTS = Path.of("../../Resources/Netlists");
+
+    // Random patterns, not a whole number of passes, with X inputs in block 3
+    private static PatternSet patterns(int inputCount, long seed) {
+        int patternCount = 1000;
+        RandomPatternGenerator generator = new RandomPatternGenerator(inputCount, seed);
+        long[][] blocks = new long[PatternSet.blockCount(patternCount)][inputCount];
+        long[][] unknowns = new long[blocks.length][];
+        for (int b = 0; b < blocks.length; b++) {
+            generator.nextBlock(blocks[b]);
+        }
+        unknowns[3] = new long[inputCount];
+        generator.nextBlock(unknowns[3]);
+        for (int i = 0; i < inputCount; i++) {
+            unknowns[3][i] &= 0x0F0F0F0F0F0F0F0FL;
+        }
+        return new PatternSet(inputCount, patternCount, blocks, unknowns);
+    }
+
+    @Test
+    void matchesTheBitParallelSimulatorOnEveryBundledNetlist() throws IOException {
+        int checked = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(NETLISTS, "*.bench.txt")) {
+            for (Path file : files) {
+                CompiledCircuit circuit = CircuitCompiler.compile(BenchParser.parse(Files.readAllBytes(file)));
+                PatternSet patterns = patterns(circuit.getInputCount(), checked + 1);
+                long[][] expected = new BitParallelSimulator(circuit).simulate(patterns);
+
+                SimdSimulator simd = new SimdSimulator(circuit);
+                assertEquals(SimdSimulator.isVectorApiAvailable(), simd.isVectorized());
+                assertArrayEquals(expected, simd.simulate(patterns), file.toString());
+                SimdSimulator fallback = new SimdSimulator(circuit, false);
+                assertEquals(1, fallback.getLanes());
+                assertArrayEquals(expected, fallback.simulate(patterns), file.toString());
+                checked++;
+            }
+        }
+        assertTrue(checked >= 11, "Expected the bundled ISCAS-85 netlists in " + NETLISTS.toAbsolutePath());
+    }
+
+    @Test
+    void copiesEveryNetOfEachBlockOfAPass() throws IOException {
+        CompiledCircuit circuit = CircuitCompiler.compile(BenchParser.parse(Files.readAllBytes(NETLISTS.resolve("c880.bench.txt"))));
+        PatternSet patterns = patterns(circuit.getInputCount(), 7);
+        SimdSimulator simd = new SimdSimulator(circuit);
+        int blocks = Math.min(simd.getLanes(), 3);
+
+        simd.simulateBlocks(patterns, 0, blocks);
+
+        long[] copy = new long[circuit.getNetCount()];
+        for (int k = 0; k < blocks; k++) {
+            long[] expected = new long[circuit.getNetCount()];
+            System.arraycopy(patterns.getBlock(k), 0, expected, 0, circuit.getInputCount());
+            circuit.evaluate(expected);
+            simd.copyBlock(k, copy);
+            assertArrayEquals(expected, copy, "block " + k);
+        }
+        assertThrows(IllegalArgumentException.class, () -> simd.simulateBlocks(patterns, 0, simd.getLanes() + 1));
+        assertThrows(IllegalArgumentException.class, () -> simd.simulateBlocks(patterns, patterns.getBlockCount() - 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> simd.simulateBlocks(patterns, 3, 1));
+    }
+}
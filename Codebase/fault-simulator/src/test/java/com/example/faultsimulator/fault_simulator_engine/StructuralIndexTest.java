@@ -0,0 +1,63 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructuralIndexTest {
+
+    @Test
+    void findsStemsAndFanoutFreeRegions() {
+        CompiledCircuit circuit = CircuitCompiler.compile(CircuitCompilerTest.c17());
+        StructuralIndex index = StructuralIndex.build(circuit);
+
+        // 3, 11 and 16 fan out twice; 22 and 23 are outputs
+        int[] rootIds = Arrays.stream(index.getFfrRoots()).map(circuit::getNetId).sorted().toArray();
+        assertArrayEquals(new int[]{3, 11, 16, 22, 23}, rootIds);
+        assertTrue(index.isStem(circuit.netIndex(11)));
+        assertFalse(index.isStem(circuit.netIndex(22)));
+        assertEquals(circuit.netIndex(22), index.getFfrRoot(circuit.netIndex(1)));
+        assertEquals(circuit.netIndex(23), index.getFfrRoot(circuit.netIndex(7)));
+        assertEquals(circuit.netIndex(16), index.getFfrRoot(circuit.netIndex(2)));
+        assertEquals(-1, index.getFanoutEdge(circuit.netIndex(16)));
+
+        // Net 19 reads 11 and 7; the edge reading 7 is its second fan-in
+        int gate19 = circuit.drivingGate(circuit.netIndex(19));
+        assertEquals(circuit.getFaninStart()[gate19] + 1, index.getFanoutEdge(circuit.netIndex(7)));
+    }
+
+    @Test
+    void findsImmediateDominators() {
+        CompiledCircuit circuit = CircuitCompiler.compile(CircuitCompilerTest.c17());
+        StructuralIndex index = StructuralIndex.build(circuit);
+
+        assertEquals(circuit.netIndex(10), index.getImmediateDominator(circuit.netIndex(1)));
+        assertEquals(circuit.netIndex(22), index.getImmediateDominator(circuit.netIndex(10)));
+        assertEquals(circuit.netIndex(19), index.getImmediateDominator(circuit.netIndex(7)));
+        assertEquals(circuit.netIndex(11), index.getImmediateDominator(circuit.netIndex(6)));
+        // 11 reaches both outputs through 16 and through 19, which share no net
+        assertEquals(-1, index.getImmediateDominator(circuit.netIndex(11)));
+        assertEquals(-1, index.getImmediateDominator(circuit.netIndex(3)));
+        assertEquals(-1, index.getImmediateDominator(circuit.netIndex(22)));
+    }
+
+    @Test
+    void marksNetsThatReachNoOutput() {
+        CircuitGraph graph = CircuitCompilerTest.c17();
+        // A gate nobody reads, hanging off net 10
+        graph.addGate(CircuitCompilerTest.nand(30, 10, 7));
+        CompiledCircuit circuit = CircuitCompiler.compile(graph);
+        StructuralIndex index = StructuralIndex.build(circuit);
+
+        assertFalse(index.isObservable(circuit.netIndex(30)));
+        assertTrue(index.isFfrRoot(circuit.netIndex(30)));
+        // 10 now fans out, but only one of its readers leads anywhere
+        assertTrue(index.isStem(circuit.netIndex(10)));
+        assertEquals(circuit.netIndex(22), index.getImmediateDominator(circuit.netIndex(10)));
+        assertTrue(index.isObservable(circuit.netIndex(10)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.faultsimulator.fault_simulator_engine;
+
+import com.example.faultsimulator.fault_simulator_parser.BenchParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticNetlistGeneratorTest {
+
+    @Test
+    void generatesTheSameCircuitForTheSameSeed() {
+        CompiledCircuit a = CircuitCompiler.compile(new SyntheticNetlistGenerator(32, 5_000, 4, 50, 3).generate());
+        CompiledCircuit b = CircuitCompiler.compile(new SyntheticNetlistGenerator(32, 5_000, 4, 50, 3).generate());
+        CompiledCircuit c = CircuitCompiler.compile(new SyntheticNetlistGenerator(32, 5_000, 4, 50, 4).generate());
+
+        assertEquals(5_000, a.getGateCount());
+        assertArrayEquals(a.getOpcodes(), b.getOpcodes());
+        assertArrayEquals(a.getFaninNets(), b.getFaninNets());
+        assertArrayEquals(a.getNetIds(), b.getNetIds());
+        assertFalse(Arrays.equals(a.getFaninNets(), c.getFaninNets()), "Another seed should give another circuit.");
+    }
+
+    @Test
+    void readsEveryNetThatIsNotAnOutput() {
+        CompiledCircuit circuit = CircuitCompiler.compile(new SyntheticNetlistGenerator(64, 20_000, 4, 100, 1).generate());
+        int[] fanoutStart = circuit.getFanoutStart();
+        boolean[] output = new boolean[circuit.getNetCount()];
+        for (int net : circuit.getPrimaryOutputNets()) {
+            output[net] = true;
+        }
+        for (int net = 0; net < circuit.getNetCount(); net++) {
+            assertTrue(output[net] || fanoutStart[net + 1] > fanoutStart[net], "Net " + circuit.getNetId(net) + " is dangling.");
+        }
+        assertEquals(101, circuit.getLevelCount(), "Every gate should read a net of the level below it.");
+        assertTrue(circuit.getOutputCount() < 2 * 200, "Mostly the 200 gates of the last level should be outputs.");
+    }
+
+    @Test
+    void writesBenchTextThatParsesToTheSameCircuit() throws Exception {
+        Netlist netlist = new SyntheticNetlistGenerator(16, 2_000, 3, 40, 9).generate();
+        StringWriter bench = new StringWriter();
+        netlist.writeBench(bench);
+        CompiledCircuit generated = CircuitCompiler.compile(netlist);
+        CompiledCircuit parsed = CircuitCompiler.compile(BenchParser.parse(bench.toString().getBytes(StandardCharsets.US_ASCII)));
+
+        assertArrayEquals(generated.getNetIds(), parsed.getNetIds());
+        SplittableRandom random = new SplittableRandom(5);
+        for (int pattern = 0; pattern < 64; pattern++) {
+            boolean[] a = new boolean[generated.getNetCount()];
+            boolean[] b = new boolean[parsed.getNetCount()];
+            for (int i = 0; i < generated.getInputCount(); i++) {
+                a[i] = b[i] = random.nextBoolean();
+            }
+            generated.evaluate(a);
+            parsed.evaluate(b);
+            assertArrayEquals(a, b);
+        }
+    }
+
+    @Test
+    void storesAGateInAFewDozenBytes() {
+        Netlist netlist = new SyntheticNetlistGenerator(1024, 200_000, 4, 200, 85).generate();
+        CompiledCircuit circuit = CircuitCompiler.compile(netlist);
+
+        assertTrue(circuit.getBytesPerGate() < 64, circuit.getBytesPerGate() + " bytes per compiled gate.");
+        assertTrue((double) netlist.getMemoryFootprint() / netlist.getGateCount() < 64,
+                netlist.getMemoryFootprint() + " bytes for the netlist.");
+    }
+
+    @Test
+    void rejectsSizesOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticNetlistGenerator(1, 10, 2, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticNetlistGenerator(4, 10, 4, 11, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticNetlistGenerator(4, Integer.MAX_VALUE - 8, 2, 8, 0));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.faultsimulator.fault_simulator_engine.atpg;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.atpg.TestGenerationResult.FaultStatus;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultCollapser;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulator;
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+import com.example.faultsimulator.fault_simulator_model.gates.*;
+import com.example.faultsimulator.fault_simulator_parser.BenchParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestGeneratorTest {
+
+    private static final Path NETLISTS = Path.of("../../Resources/Netlists");
+
+    // out = OR(a, AND(a, b)) reduces to a, so the AND output stuck-at-0 can never be seen
+    private static CompiledCircuit redundantCircuit() {
+        CircuitGraph graph = new CircuitGraph();
+        graph.addPrimaryInput(new CircuitConnection(1));
+        graph.addPrimaryInput(new CircuitConnection(2));
+        graph.addGate(new ANDGate(3, Arrays.asList(new CircuitConnection(1), new CircuitConnection(2)), new CircuitConnection(3)));
+        graph.addGate(new ORGate(4, Arrays.asList(new CircuitConnection(1), new CircuitConnection(3)), new CircuitConnection(4)));
+        graph.addPrimaryOutput(new CircuitConnection(4));
+        return CircuitCompiler.compile(graph);
+    }
+
+    // Random circuit of NAND, NOR and XOR gates over 10 inputs; gates nobody reads are outputs
+    private static CompiledCircuit randomCircuit(long seed) {
+        Random random = new Random(seed);
+        CircuitGraph graph = new CircuitGraph();
+        for (int i = 1; i <= 10; i++) {
+            graph.addPrimaryInput(new CircuitConnection(i));
+        }
+        boolean[] read = new boolean[61];
+        for (int g = 11; g <= 60; g++) {
+            int a = 1 + random.nextInt(g - 1);
+            int b = 1 + random.nextInt(g - 1);
+            read[a] = true;
+            read[b] = true;
+            List<CircuitConnection> inputs = Arrays.asList(new CircuitConnection(a), new CircuitConnection(b));
+            CircuitConnection output = new CircuitConnection(g);
+            graph.addGate(switch (random.nextInt(3)) {
+                case 0 -> new NANDGate(g, inputs, output);
+                case 1 -> new NORGate(g, inputs, output);
+                default -> new XORGate(g, inputs, output);
+            });
+        }
+        for (int g = 11; g <= 60; g++) {
+            if (!read[g]) {
+                graph.addPrimaryOutput(new CircuitConnection(g));
+            }
+        }
+        return CircuitCompiler.compile(graph);
+    }
+
+    private static PatternSet exhaustive(int inputCount) {
+        boolean[][] patterns = new boolean[1 << inputCount][inputCount];
+        for (int p = 0; p < patterns.length; p++) {
+            for (int i = 0; i < inputCount; i++) {
+                patterns[p][i] = (p >>> i & 1) != 0;
+            }
+        }
+        return PatternSet.fromMatrix(inputCount, patterns);
+    }
+
+    @Test
+    void provesRedundantFaults() {
+        CompiledCircuit circuit = redundantCircuit();
+        FaultList faults = FaultList.enumerate(circuit);
+
+        TestGenerationResult result = new TestGenerator(faults, Scoap.compute(circuit), null).generate();
+
+        FaultSimulationResult exhaustive = new FaultSimulator(faults).simulate(exhaustive(2));
+        for (int f = 0; f < faults.size(); f++) {
+            FaultStatus expected = exhaustive.getFirstDetectingPattern(f) >= 0 ? FaultStatus.DETECTED : FaultStatus.REDUNDANT;
+            assertEquals(expected, result.getStatus(f), faults.get(f).describe(circuit));
+        }
+        assertEquals(4, result.getCount(FaultStatus.REDUNDANT));
+        assertEquals(8.0 / 12, result.getFaultCoverage(), 1e-12);
+        assertEquals(1.0, result.getFaultEfficiency());
+    }
+
+    @Test
+    void matchesExhaustiveSimulation() {
+        for (long seed = 1; seed <= 5; seed++) {
+            CompiledCircuit circuit = randomCircuit(seed);
+            FaultList faults = FaultList.enumerate(circuit);
+            FaultSimulationResult exhaustive = new FaultSimulator(faults).simulate(exhaustive(circuit.getInputCount()));
+
+            TestGenerationResult result = new TestGenerator(faults, Scoap.compute(circuit), ForkJoinPool.commonPool()).generate();
+
+            // The generated patterns detect exactly the faults reported detected, at the reported pattern
+            FaultSimulationResult regenerated = new FaultSimulator(faults).simulate(result.getPatterns());
+            assertEquals(0, result.getCount(FaultStatus.ABORTED));
+            for (int f = 0; f < faults.size(); f++) {
+                String fault = faults.get(f).describe(circuit);
+                boolean detectable = exhaustive.getFirstDetectingPattern(f) >= 0;
+                assertEquals(detectable ? FaultStatus.DETECTED : FaultStatus.REDUNDANT, result.getStatus(f), fault);
+                assertEquals(regenerated.getFirstDetectingPattern(f), result.getFirstDetectingPattern(f), fault);
+            }
+            assertTrue(result.getPatterns().getPatternCount() < faults.size());
+        }
+    }
+
+    @Test
+    void isReproducibleAcrossPools() {
+        CompiledCircuit circuit = randomCircuit(7);
+        FaultList faults = FaultList.enumerate(circuit);
+        Scoap scoap = Scoap.compute(circuit);
+
+        PatternSet sequential = new TestGenerator(faults, scoap, null).generate().getPatterns();
+        PatternSet parallel = new TestGenerator(faults, scoap, ForkJoinPool.commonPool()).generate().getPatterns();
+
+        assertEquals(sequential.getPatternCount(), parallel.getPatternCount());
+        for (int b = 0; b < sequential.getBlockCount(); b++) {
+            assertArrayEquals(sequential.getBlock(b), parallel.getBlock(b));
+        }
+    }
+
+    @Test
+    void targetsOnlyFaultsLeftUndetected() {
+        CompiledCircuit circuit = randomCircuit(2);
+        FaultList faults = FaultList.enumerate(circuit);
+        boolean[] detected = new boolean[faults.size()];
+        List<Integer> previous = new ArrayList<>();
+        for (int f = 0; f < faults.size(); f += 2) {
+            detected[f] = true;
+            previous.add(f);
+        }
+
+        TestGenerationResult result = new TestGenerator(faults, Scoap.compute(circuit), null).generate(detected);
+
+        for (int f : previous) {
+            assertEquals(FaultStatus.PREVIOUSLY_DETECTED, result.getStatus(f));
+            assertEquals(-1, result.getFirstDetectingPattern(f));
+        }
+        assertEquals(previous.size(), result.getCount(FaultStatus.PREVIOUSLY_DETECTED));
+    }
+
+    @Test
+    void abortsAtTheBacktrackLimit() {
+        CompiledCircuit circuit = redundantCircuit();
+        FaultList faults = FaultList.enumerate(circuit);
+        TestGenerator generator = new TestGenerator(faults, Scoap.compute(circuit), null);
+        generator.setBacktrackLimit(0);
+
+        TestGenerationResult result = generator.generate();
+
+        // Proving redundancy takes at least one backtrack
+        assertEquals(0, result.getCount(FaultStatus.REDUNDANT));
+        assertEquals(4, result.getCount(FaultStatus.ABORTED));
+        assertEquals(8.0 / 12, result.getFaultEfficiency(), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> generator.setBacktrackLimit(-1));
+    }
+
+    @Test
+    void retriesAbortedFaultsInTheAlternateOrder() throws IOException {
+        CompiledCircuit circuit = CircuitCompiler.compile(BenchParser.parse(Files.readAllBytes(NETLISTS.resolve("c432.bench.txt"))));
+        FaultList faults = FaultCollapser.collapse(FaultList.enumerate(circuit), false).getRepresentatives();
+
+        TestGenerationResult result = new TestGenerator(faults, Scoap.compute(circuit), null).generate();
+
+        // At the default limit the retry settles most of the faults the first pass gave up on
+        int retried = result.getRetriedCount();
+        assertTrue(retried > 0);
+        assertTrue(result.getCount(FaultStatus.ABORTED) < retried / 2,
+                result.getCount(FaultStatus.ABORTED) + " of " + retried + " retried faults are still aborted.");
+        FaultSimulationResult check = new FaultSimulator(faults).simulate(result.getPatterns());
+        for (int f = 0; f < faults.size(); f++) {
+            if (result.getStatus(f) == FaultStatus.ABORTED) {
+                assertTrue(result.isRetried(f));
+            }
+            assertEquals(result.getStatus(f) == FaultStatus.DETECTED, check.getFirstDetectingPattern(f) >= 0);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+import com.example.faultsimulator.fault_simulator_model.gates.NANDGate;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FaultCollapserTest {
+
+    static CircuitGraph c17() {
+        CircuitGraph graph = new CircuitGraph();
+        for (int id : new int[]{1, 2, 3, 6, 7}) {
+            graph.addPrimaryInput(new CircuitConnection(id));
+        }
+        graph.addPrimaryOutput(new CircuitConnection(22));
+        graph.addPrimaryOutput(new CircuitConnection(23));
+        int[][] gates = {{10, 1, 3}, {11, 3, 6}, {16, 2, 11}, {19, 11, 7}, {22, 10, 16}, {23, 16, 19}};
+        for (int[] gate : gates) {
+            graph.addGate(new NANDGate(gate[0], Arrays.asList(new CircuitConnection(gate[1]), new CircuitConnection(gate[2])), new CircuitConnection(gate[0])));
+        }
+        return graph;
+    }
+
+    @Test
+    void collapsesC17ToTheTextbookFaultCounts() {
+        FaultList faults = FaultList.enumerate(CircuitCompiler.compile(c17()));
+
+        assertEquals(34, faults.size());
+        assertEquals(22, FaultCollapser.collapse(faults, false).getRepresentatives().size());
+        assertEquals(16, FaultCollapser.collapse(faults, true).getRepresentatives().size());
+    }
+
+    @Test
+    void mergesNandInputSa0WithOutputSa1() {
+        CompiledCircuit circuit = CircuitCompiler.compile(c17());
+        FaultList faults = FaultList.enumerate(circuit);
+        CollapsedFaultList collapsed = FaultCollapser.collapse(faults, false);
+
+        int input = indexOf(faults, circuit, "1 SA0");
+        int output = indexOf(faults, circuit, "10 SA1");
+        int other = indexOf(faults, circuit, "10 SA0");
+
+        assertEquals(collapsed.getRepresentative(input), collapsed.getRepresentative(output));
+        assertNotEquals(collapsed.getRepresentative(input), collapsed.getRepresentative(other));
+        assertFalse(collapsed.isDominated(output));
+        // The primary input fault is a checkpoint, so it stands for the class
+        assertEquals("1 SA0", collapsed.getRepresentatives().get(collapsed.getRepresentative(output)).describe(circuit));
+    }
+
+    @Test
+    void expandedResultMatchesTheFullFaultList() {
+        CompiledCircuit circuit = CircuitCompiler.compile(c17());
+        FaultList faults = FaultList.enumerate(circuit);
+        CollapsedFaultList collapsed = FaultCollapser.collapse(faults, false);
+        boolean[][] patterns = {
+                {true, false, true, false, true},
+                {false, true, true, true, false},
+                {true, true, false, false, true},
+        };
+        PatternSet patternSet = PatternSet.fromMatrix(5, patterns);
+
+        FaultSimulationResult full = new FaultSimulator(faults).simulate(patternSet);
+        FaultSimulationResult expanded = collapsed.expand(new FaultSimulator(collapsed.getRepresentatives()).simulate(patternSet));
+
+        for (int f = 0; f < faults.size(); f++) {
+            assertEquals(full.getFirstDetectingPattern(f), expanded.getFirstDetectingPattern(f), faults.get(f).describe(circuit));
+        }
+    }
+
+    private static int indexOf(FaultList faults, CompiledCircuit circuit, String description) {
+        for (int f = 0; f < faults.size(); f++) {
+            if (faults.get(f).describe(circuit).equals(description)) {
+                return f;
+            }
+        }
+        throw new AssertionError("No fault " + description);
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.RandomPatternGenerator;
+import com.example.faultsimulator.fault_simulator_parser.BenchParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FaultDictionaryTest {
+
+    private static final Path NETLISTS = Path.of("../../Resources/Netlists");
+
+    private static CompiledCircuit load(String name) throws IOException {
+        return CircuitCompiler.compile(BenchParser.parse(Files.readAllBytes(NETLISTS.resolve(name + ".bench.txt"))));
+    }
+
+    private static PatternSet randomPatterns(int inputCount, int patternCount, long seed) {
+        RandomPatternGenerator generator = new RandomPatternGenerator(inputCount, seed);
+        long[][] blocks = new long[PatternSet.blockCount(patternCount)][inputCount];
+        for (int b = 0; b < blocks.length; b++) {
+            generator.nextBlock(blocks[b]);
+            int valid = Math.min(64, patternCount - 64 * b);
+            for (int i = 0; i < inputCount && valid < 64; i++) {
+                blocks[b][i] &= (1L << valid) - 1;
+            }
+        }
+        return new PatternSet(inputCount, patternCount, blocks);
+    }
+
+    // Values of every net for one block, with the fault injected unless it is null
+    private static long[] simulate(CompiledCircuit circuit, long[] inputWords, StuckAtFault fault) {
+        long[] values = new long[circuit.getNetCount()];
+        System.arraycopy(inputWords, 0, values, 0, circuit.getInputCount());
+        long forced = fault != null && fault.isStuckAtOne() ? -1L : 0L;
+        if (fault != null && !fault.isBranch() && fault.getNet() < circuit.getInputCount()) {
+            values[fault.getNet()] = forced;
+        }
+        for (int g = 0; g < circuit.getGateCount(); g++) {
+            int net = circuit.gateOutputNet(g);
+            if (fault != null && fault.isBranch() && fault.getBranchGate() == g) {
+                values[net] = circuit.evaluateGate(g, values, circuit.getFaninStart()[g] + fault.getBranchPin(), forced);
+            } else {
+                values[net] = circuit.evaluateGate(g, values);
+            }
+            if (fault != null && !fault.isBranch() && fault.getNet() == net) {
+                values[net] = forced;
+            }
+        }
+        return values;
+    }
+
+    // The tester log a device with the fault would produce: failing patterns and output nets
+    private static int[][] failures(CompiledCircuit circuit, PatternSet patterns, StuckAtFault fault) {
+        List<int[]> failures = new ArrayList<>();
+        for (int b = 0; b < patterns.getBlockCount(); b++) {
+            long[] good = simulate(circuit, patterns.getBlock(b), null);
+            long[] faulty = simulate(circuit, patterns.getBlock(b), fault);
+            for (int net = 0; net < circuit.getNetCount(); net++) {
+                if (!circuit.isPrimaryOutput(net)) {
+                    continue;
+                }
+                for (long word = (good[net] ^ faulty[net]) & patterns.blockMask(b); word != 0; word &= word - 1) {
+                    failures.add(new int[]{(b << 6) + Long.numberOfTrailingZeros(word), net});
+                }
+            }
+        }
+        int[][] log = new int[2][failures.size()];
+        for (int i = 0; i < failures.size(); i++) {
+            log[0][i] = failures.get(i)[0];
+            log[1][i] = failures.get(i)[1];
+        }
+        return log;
+    }
+
+    @Test
+    void diagnosesEveryFaultFromItsOwnLog() throws IOException {
+        CompiledCircuit circuit = load("c432");
+        FaultList faults = FaultCollapser.collapse(FaultList.enumerate(circuit), false).getRepresentatives();
+        PatternSet patterns = randomPatterns(circuit.getInputCount(), 200, 5);
+
+        FaultDictionary dictionary = FaultDictionary.build(faults, patterns, ForkJoinPool.commonPool());
+
+        DetectionMatrix matrix = DetectionMatrix.simulate(faults, patterns, null);
+        for (int f = 0; f < faults.size(); f++) {
+            String name = faults.get(f).describe(circuit);
+            int[][] log = failures(circuit, patterns, faults.get(f));
+            assertEquals(log[0].length, dictionary.getFailureCount(f), name);
+            for (int p = 0; p < patterns.getPatternCount(); p++) {
+                assertEquals(matrix.detects(p, f), dictionary.fails(f, p), name);
+            }
+            if (log[0].length == 0) {
+                continue;
+            }
+            List<FaultDictionary.Candidate> candidates = dictionary.diagnose(log[0], log[1], faults.size());
+            assertTrue(candidates.get(0).exact(), name);
+            boolean found = false;
+            for (FaultDictionary.Candidate candidate : candidates) {
+                if (!candidate.exact()) {
+                    break;
+                }
+                assertEquals(1.0, candidate.score(), name);
+                found |= candidate.fault() == f;
+            }
+            assertTrue(found, name);
+        }
+        assertTrue(dictionary.getDistinguishedCount() > 0);
+        assertTrue(dictionary.getDistinguishedCount() <= dictionary.getDetectedCount());
+    }
+
+    @Test
+    void ranksAFaultFirstFromAPartialLog() throws IOException {
+        CompiledCircuit circuit = load("c17");
+        FaultList faults = FaultCollapser.collapse(FaultList.enumerate(circuit), false).getRepresentatives();
+        PatternSet patterns = randomPatterns(circuit.getInputCount(), 32, 3);
+        FaultDictionary dictionary = FaultDictionary.build(faults, patterns, null);
+
+        int fault = -1;
+        for (int f = 0; f < faults.size() && fault < 0; f++) {
+            if (dictionary.getFailureCount(f) >= 4) {
+                fault = f;
+            }
+        }
+        int[][] log = failures(circuit, patterns, faults.get(fault));
+        // An intermittent tester misses the last failure and reports the first one twice
+        int[] patternsSeen = log[0].clone();
+        int[] outputsSeen = log[1].clone();
+        patternsSeen[patternsSeen.length - 1] = log[0][0];
+        outputsSeen[outputsSeen.length - 1] = log[1][0];
+
+        List<FaultDictionary.Candidate> candidates = dictionary.diagnose(patternsSeen, outputsSeen, faults.size());
+
+        boolean ranked = false;
+        for (FaultDictionary.Candidate candidate : candidates) {
+            assertFalse(candidate.exact() && candidate.fault() == fault);
+            assertTrue(candidate.score() > 0 && candidate.score() <= 1);
+            ranked |= candidate.fault() == fault;
+        }
+        assertTrue(ranked);
+        assertEquals(2, dictionary.diagnose(patternsSeen, outputsSeen, 2).size());
+    }
+
+    @Test
+    void rejectsInvalidLogs() throws IOException {
+        CompiledCircuit circuit = load("c17");
+        FaultList faults = FaultList.enumerate(circuit);
+        FaultDictionary dictionary = FaultDictionary.build(faults, randomPatterns(circuit.getInputCount(), 10, 1), null);
+        int output = circuit.getPrimaryOutputNets()[0];
+
+        assertThrows(IllegalArgumentException.class, () -> dictionary.diagnose(new int[0], new int[0], 10));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.diagnose(new int[]{10}, new int[]{output}, 10));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.diagnose(new int[]{0}, new int[]{0}, 10));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.diagnose(new int[]{0}, new int[]{output}, 0));
+    }
+
+    @Test
+    void roundTripsThroughBytes() throws IOException {
+        CompiledCircuit circuit = load("c880");
+        FaultList faults = FaultCollapser.collapse(FaultList.enumerate(circuit), false).getRepresentatives();
+        PatternSet patterns = randomPatterns(circuit.getInputCount(), 100, 9);
+        FaultDictionary dictionary = FaultDictionary.build(faults, patterns, null);
+
+        byte[] bytes = dictionary.toBytes();
+        FaultDictionary restored = FaultDictionary.fromBytes(faults, bytes);
+
+        assertEquals(dictionary.getPatternCount(), restored.getPatternCount());
+        for (int f = 0; f < faults.size(); f++) {
+            assertEquals(dictionary.getSignature(f), restored.getSignature(f));
+            assertEquals(dictionary.getFailureCount(f), restored.getFailureCount(f));
+            for (int p = 0; p < patterns.getPatternCount(); p++) {
+                assertEquals(dictionary.fails(f, p), restored.fails(f, p));
+            }
+        }
+        assertEquals(dictionary.getDistinguishedCount(), restored.getDistinguishedCount());
+
+        bytes[bytes.length - 1] ^= 1;
+        assertThrows(IOException.class, () -> FaultDictionary.fromBytes(faults, bytes));
+        assertThrows(IOException.class, () -> FaultDictionary.fromBytes(FaultList.enumerate(circuit), dictionary.toBytes()));
+        // Pattern counts that are negative or whose word count overflows an int, with a valid checksum
+        for (int patternCount : new int[]{-1, Integer.MAX_VALUE}) {
+            byte[] forged = dictionary.toBytes();
+            ByteBuffer buffer = ByteBuffer.wrap(forged).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(36, patternCount);
+            CRC32 crc = new CRC32();
+            crc.update(forged, 32, forged.length - 32);
+            buffer.putLong(24, crc.getValue());
+            assertThrows(IOException.class, () -> FaultDictionary.fromBytes(faults, forged));
+        }
+    }
+}
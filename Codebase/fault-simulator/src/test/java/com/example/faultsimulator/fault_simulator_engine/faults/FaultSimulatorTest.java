@@ -0,0 +1,391 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+import com.example.faultsimulator.fault_simulator_model.gates.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FaultSimulatorTest {
+
+    // out = OR(a, AND(a, b)) reduces to a, so the AND output stuck-at-0 can never be seen
+    static CircuitGraph redundantCircuit() {
+        CircuitGraph graph = new CircuitGraph();
+        graph.addPrimaryInput(new CircuitConnection(1));
+        graph.addPrimaryInput(new CircuitConnection(2));
+        graph.addGate(new ANDGate(3, Arrays.asList(new CircuitConnection(1), new CircuitConnection(2)), new CircuitConnection(3)));
+        graph.addGate(new ORGate(4, Arrays.asList(new CircuitConnection(1), new CircuitConnection(3)), new CircuitConnection(4)));
+        graph.addPrimaryOutput(new CircuitConnection(4));
+        return graph;
+    }
+
+    static PatternSet exhaustive(int inputCount) {
+        boolean[][] patterns = new boolean[1 << inputCount][inputCount];
+        for (int p = 0; p < patterns.length; p++) {
+            for (int i = 0; i < inputCount; i++) {
+                patterns[p][i] = (p >>> i & 1) != 0;
+            }
+        }
+        return PatternSet.fromMatrix(inputCount, patterns);
+    }
+
+    @Test
+    void enumeratesStemAndBranchFaults() {
+        CompiledCircuit circuit = CircuitCompiler.compile(redundantCircuit());
+        FaultList faults = FaultList.enumerate(circuit);
+
+        // 4 nets with 2 faults each, plus 2 branches of the fanout stem 1 with 2 faults each
+        assertEquals(12, faults.size());
+        assertEquals(4, faults.getFaults().stream().filter(StuckAtFault::isBranch).count());
+    }
+
+    @Test
+    void reportsDetectionAndFirstDetectingPattern() {
+        CompiledCircuit circuit = CircuitCompiler.compile(redundantCircuit());
+        FaultList faults = FaultList.enumerate(circuit);
+
+        FaultSimulationResult result = new FaultSimulator(faults).simulate(exhaustive(2));
+
+        for (int f = 0; f < faults.size(); f++) {
+            String fault = faults.get(f).describe(circuit);
+            switch (fault) {
+                // Needs a = 0 and b = 1, which is pattern 2 (bit 0 is input 1)
+                case "1->3 SA1" -> assertEquals(2, result.getFirstDetectingPattern(f), fault);
+                case "1->4 SA0", "1 SA0", "4 SA0" -> assertEquals(1, result.getFirstDetectingPattern(f), fault);
+                case "1->4 SA1", "1 SA1", "3 SA1", "4 SA1" -> assertEquals(0, result.getFirstDetectingPattern(f), fault);
+                // The output only depends on a, so these never reach it
+                default -> assertFalse(result.isDetected(f), fault);
+            }
+        }
+        assertEquals(8, result.getDetectedCount());
+    }
+
+    @Test
+    void simulatesConnectionsMarkedStuck() {
+        CircuitGraph graph = redundantCircuit();
+        // The first input of the OR gate is a branch of net 1
+        graph.getNodes().get(4).getInputs().get(0).setStuck(true, false);
+
+        FaultList faults = FaultList.fromStuckConnections(graph);
+        FaultSimulationResult result = new FaultSimulator(faults).simulate(exhaustive(2));
+
+        assertEquals(1, faults.size());
+        assertEquals("1->4 SA0", faults.get(0).describe(CircuitCompiler.compile(graph)));
+        assertEquals(1, result.getFirstDetectingPattern(0), "a = 1, b = 0 is the first pattern that exposes the fault.");
+    }
+
+    @Test
+    void stuckPrimaryOutputIsOneFaultOnItsNet() {
+        // The output and the OR gate's output are separate objects for net 4
+        CircuitGraph graph = redundantCircuit();
+        graph.getPrimaryOutputs().get(0).setStuck(true, true);
+        graph.getNodes().get(4).getOutput().setStuck(true, true);
+
+        FaultList faults = FaultList.fromStuckConnections(graph);
+
+        assertEquals(1, faults.size());
+        assertEquals("4 SA1", faults.get(0).describe(CircuitCompiler.compile(graph)));
+
+        // One object shared by the driver, a reader and the outputs, as a parsed netlist builds it
+        CircuitConnection a = new CircuitConnection(1);
+        CircuitConnection b = new CircuitConnection(2);
+        CircuitConnection and = new CircuitConnection(3);
+        CircuitGraph shared = new CircuitGraph();
+        shared.addPrimaryInput(a);
+        shared.addPrimaryInput(b);
+        shared.addGate(new ANDGate(3, Arrays.asList(a, b), and));
+        shared.addGate(new ORGate(4, Arrays.asList(a, and), new CircuitConnection(4)));
+        shared.addPrimaryOutput(and);
+        and.setStuck(true, false);
+
+        faults = FaultList.fromStuckConnections(shared);
+
+        assertEquals(1, faults.size());
+        assertEquals("3 SA0", faults.get(0).describe(CircuitCompiler.compile(shared)));
+    }
+
+    @Test
+    void stuckMarksDoNotChangeEvaluation() throws Exception {
+        CircuitGraph graph = redundantCircuit();
+        graph.getPrimaryInputs().get(0).setStuck(true, true);
+        graph.getNodes().get(3).getOutput().setStuck(true, true);
+        graph.getPrimaryOutputs().get(0).setStuck(true, true);
+
+        graph.evaluate(CircuitCompiler.compile(graph), Arrays.asList(false, false));
+
+        assertFalse(graph.getPrimaryInputs().get(0).getValue());
+        assertFalse(graph.getPrimaryOutputs().get(0).getValue());
+        // The marks still give their stuck values after evaluation overwrote the connections
+        FaultList faults = FaultList.fromStuckConnections(graph);
+        assertEquals(3, faults.size());
+        assertTrue(faults.getFaults().stream().allMatch(StuckAtFault::isStuckAtOne));
+    }
+
+    @Test
+    void keepsDetectionStateAcrossBlocks() {
+        CompiledCircuit circuit = CircuitCompiler.compile(redundantCircuit());
+        FaultSimulator simulator = new FaultSimulator(FaultList.enumerate(circuit));
+
+        // a = b = 0 exposes the stuck-at-1 faults, a = 1 and b = 0 the stuck-at-0 ones
+        int first = simulator.simulateBlock(new long[]{0L, 0L}, 1);
+        int second = simulator.simulateBlock(new long[]{1L, 0L}, 1);
+
+        assertEquals(4, first);
+        assertEquals(3, second);
+        assertEquals(7, simulator.getDetectedCount());
+        assertEquals(2, simulator.getPatternCount());
+    }
+
+    @Test
+    void parallelRunMatchesSequentialRun() {
+        // A random two-input NAND/XOR network, large enough for the fault list to be split
+        Random random = new Random(42);
+        CircuitGraph graph = new CircuitGraph();
+        List<Integer> nets = new ArrayList<>();
+        for (int id = 1; id <= 16; id++) {
+            graph.addPrimaryInput(new CircuitConnection(id));
+            nets.add(id);
+        }
+        for (int id = 17; id <= 200; id++) {
+            List<CircuitConnection> inputs = Arrays.asList(
+                    new CircuitConnection(nets.get(random.nextInt(nets.size()))),
+                    new CircuitConnection(nets.get(random.nextInt(nets.size()))));
+            graph.addGate(id % 5 == 0 ? new XORGate(id, inputs, new CircuitConnection(id)) : new NANDGate(id, inputs, new CircuitConnection(id)));
+            nets.add(id);
+        }
+        for (int id = 190; id <= 200; id++) {
+            graph.addPrimaryOutput(new CircuitConnection(id));
+        }
+        FaultList faults = FaultList.enumerate(CircuitCompiler.compile(graph));
+        boolean[][] patterns = new boolean[300][16];
+        for (boolean[] pattern : patterns) {
+            for (int i = 0; i < pattern.length; i++) {
+                pattern[i] = random.nextBoolean();
+            }
+        }
+        PatternSet patternSet = PatternSet.fromMatrix(16, patterns);
+
+        FaultSimulationResult sequential = new FaultSimulator(faults).simulate(patternSet);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            FaultSimulationResult parallel = new FaultSimulator(faults, pool).simulate(patternSet);
+            for (int f = 0; f < faults.size(); f++) {
+                assertEquals(sequential.getFirstDetectingPattern(f), parallel.getFirstDetectingPattern(f), "Fault " + f);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void criticalPathTracingMatchesPropagation() {
+        // Random network of every gate type, with reconvergent fanout and some dead gates
+        Random random = new Random(7);
+        CircuitGraph graph = new CircuitGraph();
+        for (int id = 1; id <= 12; id++) {
+            graph.addPrimaryInput(new CircuitConnection(id));
+        }
+        for (int id = 13; id <= 150; id++) {
+            int inputCount = 1 + random.nextInt(3);
+            List<CircuitConnection> inputs = new ArrayList<>();
+            for (int i = 0; i < inputCount; i++) {
+                inputs.add(new CircuitConnection(1 + random.nextInt(id - 1)));
+            }
+            CircuitConnection output = new CircuitConnection(id);
+            graph.addGate(switch (inputCount == 1 ? 5 + random.nextInt(2) : random.nextInt(5)) {
+                case 0 -> new ANDGate(id, inputs, output);
+                case 1 -> new NANDGate(id, inputs, output);
+                case 2 -> new ORGate(id, inputs, output);
+                case 3 -> new NORGate(id, inputs, output);
+                case 4 -> new XORGate(id, inputs, output);
+                case 5 -> new NOTGate(id, inputs, output);
+                default -> new BUFFGate(id, inputs, output);
+            });
+        }
+        for (int id = 120; id <= 150; id += 3) {
+            graph.addPrimaryOutput(new CircuitConnection(id));
+        }
+        graph.addPrimaryOutput(new CircuitConnection(60));
+        FaultList faults = FaultList.enumerate(CircuitCompiler.compile(graph));
+        boolean[][] patterns = new boolean[2000][12];
+        for (boolean[] pattern : patterns) {
+            for (int i = 0; i < pattern.length; i++) {
+                pattern[i] = random.nextBoolean();
+            }
+        }
+        PatternSet patternSet = PatternSet.fromMatrix(12, patterns);
+
+        FaultSimulationResult propagated = new FaultSimulator(faults).simulate(patternSet);
+        FaultSimulator sequential = new FaultSimulator(faults);
+        sequential.setCriticalPathTracing(true);
+        FaultSimulationResult traced = sequential.simulate(patternSet);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            FaultSimulator parallel = new FaultSimulator(faults, pool);
+            parallel.setCriticalPathTracing(true);
+            FaultSimulationResult tracedInParallel = parallel.simulate(patternSet);
+            for (int f = 0; f < faults.size(); f++) {
+                assertEquals(propagated.getFirstDetectingPattern(f), traced.getFirstDetectingPattern(f), "Fault " + f);
+                assertEquals(propagated.getFirstDetectingPattern(f), tracedInParallel.getFirstDetectingPattern(f), "Fault " + f);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(propagated.getDetectedCount() < faults.size(), "Dead gates should leave faults undetected");
+    }
+
+    @Test
+    void partiallySpecifiedPatternsOnlyCountDefiniteDetections() {
+        Random random = new Random(11);
+        CircuitGraph graph = new CircuitGraph();
+        for (int id = 1; id <= 8; id++) {
+            graph.addPrimaryInput(new CircuitConnection(id));
+        }
+        for (int id = 9; id <= 80; id++) {
+            List<CircuitConnection> inputs = Arrays.asList(
+                    new CircuitConnection(1 + random.nextInt(id - 1)), new CircuitConnection(1 + random.nextInt(id - 1)));
+            CircuitConnection output = new CircuitConnection(id);
+            graph.addGate(switch (random.nextInt(3)) {
+                case 0 -> new NANDGate(id, inputs, output);
+                case 1 -> new NORGate(id, inputs, output);
+                default -> new XORGate(id, inputs, output);
+            });
+        }
+        for (int id = 70; id <= 80; id++) {
+            graph.addPrimaryOutput(new CircuitConnection(id));
+        }
+        FaultList faults = FaultList.enumerate(CircuitCompiler.compile(graph));
+        List<String> vectors = new ArrayList<>();
+        for (int p = 0; p < 100; p++) {
+            StringBuilder vector = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                vector.append("01X".charAt(random.nextInt(3)));
+            }
+            vectors.add(vector.toString());
+        }
+        PatternSet patterns = PatternSet.fromStrings(8, vectors);
+        assertTrue(patterns.isUnknown(0, vectors.get(0).indexOf('X')));
+
+        FaultSimulationResult result = new FaultSimulator(faults).simulate(patterns);
+        FaultSimulator traced = new FaultSimulator(faults);
+        traced.setCriticalPathTracing(true);
+        FaultSimulationResult tracedResult = traced.simulate(patterns);
+
+        // A fault a pattern detects must be detected by every completion of its X inputs
+        for (int f = 0; f < faults.size(); f++) {
+            assertEquals(result.getFirstDetectingPattern(f), tracedResult.getFirstDetectingPattern(f), "Fault " + f);
+            int p = result.getFirstDetectingPattern(f);
+            if (p < 0) {
+                continue;
+            }
+            PatternSet completions = completions(vectors.get(p));
+            DetectionMatrix matrix = DetectionMatrix.simulate(faults, completions, null);
+            for (int q = 0; q < completions.getPatternCount(); q++) {
+                assertTrue(matrix.detects(q, f), "Fault " + f + ", completion " + q + " of pattern " + p);
+            }
+        }
+        assertTrue(result.getDetectedCount() > faults.size() / 2);
+
+        // Selection keeps the X inputs with their patterns
+        PatternSet reversed = patterns.select(new int[]{99, 0});
+        for (int i = 0; i < 8; i++) {
+            assertEquals(vectors.get(99).charAt(i) == 'X', reversed.isUnknown(0, i));
+            assertEquals(vectors.get(0).charAt(i) == '1', reversed.get(1, i));
+        }
+    }
+
+    @Test
+    void transitionFaultsNeedLaunchAndCapture() {
+        Random random = new Random(5);
+        CircuitGraph graph = new CircuitGraph();
+        for (int id = 1; id <= 10; id++) {
+            graph.addPrimaryInput(new CircuitConnection(id));
+        }
+        for (int id = 11; id <= 120; id++) {
+            List<CircuitConnection> inputs = Arrays.asList(
+                    new CircuitConnection(1 + random.nextInt(id - 1)), new CircuitConnection(1 + random.nextInt(id - 1)));
+            CircuitConnection output = new CircuitConnection(id);
+            graph.addGate(switch (random.nextInt(4)) {
+                case 0 -> new ANDGate(id, inputs, output);
+                case 1 -> new NORGate(id, inputs, output);
+                case 2 -> new XORGate(id, inputs, output);
+                default -> new NANDGate(id, inputs, output);
+            });
+        }
+        for (int id = 100; id <= 120; id += 2) {
+            graph.addPrimaryOutput(new CircuitConnection(id));
+        }
+        CompiledCircuit circuit = CircuitCompiler.compile(graph);
+        FaultList faults = FaultList.enumerate(circuit);
+        boolean[][] launch = new boolean[150][10];
+        boolean[][] capture = new boolean[150][10];
+        for (int p = 0; p < launch.length; p++) {
+            for (int i = 0; i < 10; i++) {
+                launch[p][i] = random.nextBoolean();
+                // Launch-on-shift style: the capture pattern is the launch pattern shifted by one
+                capture[p][i] = i == 0 ? random.nextBoolean() : launch[p][i - 1];
+            }
+        }
+        PatternSet launchSet = PatternSet.fromMatrix(10, launch);
+        PatternSet captureSet = PatternSet.fromMatrix(10, capture);
+
+        // Reference: the launch value must equal the stuck value, and the capture pattern
+        // must detect the stuck-at fault
+        DetectionMatrix captureDetections = DetectionMatrix.simulate(faults, captureSet, null);
+        int[] expected = new int[faults.size()];
+        Arrays.fill(expected, -1);
+        for (int p = launch.length - 1; p >= 0; p--) {
+            boolean[] values = new boolean[circuit.getNetCount()];
+            System.arraycopy(launch[p], 0, values, 0, 10);
+            circuit.evaluate(values);
+            for (int f = 0; f < faults.size(); f++) {
+                StuckAtFault fault = faults.get(f);
+                if (values[fault.getNet()] == fault.isStuckAtOne() && captureDetections.detects(p, f)) {
+                    expected[f] = p;
+                }
+            }
+        }
+
+        FaultSimulator propagated = new FaultSimulator(faults);
+        FaultSimulationResult result = propagated.simulatePairs(launchSet, captureSet);
+        FaultSimulator traced = new FaultSimulator(faults);
+        traced.setCriticalPathTracing(true);
+        FaultSimulationResult tracedResult = traced.simulatePairs(launchSet, captureSet);
+        for (int f = 0; f < faults.size(); f++) {
+            assertEquals(expected[f], result.getFirstDetectingPattern(f), faults.get(f).describeTransition(circuit));
+            assertEquals(expected[f], tracedResult.getFirstDetectingPattern(f), faults.get(f).describeTransition(circuit));
+        }
+        assertTrue(result.getDetectedCount() < new FaultSimulator(faults).simulate(captureSet).getDetectedCount(),
+                "Some stuck-at detections should lack the launch transition");
+        assertThrows(IllegalStateException.class, () -> propagated.simulate(captureSet));
+        assertThrows(IllegalArgumentException.class, () -> new FaultSimulator(faults).simulatePairs(launchSet, launchSet.select(new int[]{0})));
+    }
+
+    // Every fully specified pattern matching a vector of 0, 1 and X
+    private static PatternSet completions(String vector) {
+        List<String> completions = new ArrayList<>(List.of(""));
+        for (char c : vector.toCharArray()) {
+            List<String> next = new ArrayList<>();
+            for (String prefix : completions) {
+                if (c != '1') {
+                    next.add(prefix + '0');
+                }
+                if (c != '0') {
+                    next.add(prefix + '1');
+                }
+            }
+            completions = next;
+        }
+        return PatternSet.fromStrings(vector.length(), completions);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.LfsrPatternGenerator;
+import com.example.faultsimulator.fault_simulator_engine.PatternGenerator;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.RandomPatternGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomPatternGraderTest {
+
+    @Test
+    void matchesSimulatingTheGeneratedPatterns() {
+        CompiledCircuit circuit = CircuitCompiler.compile(FaultSimulatorTest.redundantCircuit());
+        FaultList faults = FaultList.enumerate(circuit);
+        // 200 patterns end partway through the fourth block
+        long[][] blocks = new long[4][circuit.getInputCount()];
+        PatternGenerator generator = new LfsrPatternGenerator(circuit.getInputCount(), 7);
+        for (long[] block : blocks) {
+            generator.nextBlock(block);
+        }
+        for (int i = 0; i < circuit.getInputCount(); i++) {
+            blocks[3][i] &= (1L << 8) - 1;
+        }
+        FaultSimulationResult expected = new FaultSimulator(faults).simulate(new PatternSet(circuit.getInputCount(), 200, blocks));
+
+        RandomPatternGrader grader = new RandomPatternGrader(faults, ForkJoinPool.commonPool());
+        grader.setPatternBudget(200);
+        RandomGradingResult grading = grader.grade(new LfsrPatternGenerator(circuit.getInputCount(), 7));
+
+        // Two faults are redundant, so full coverage is never reached
+        assertEquals(RandomGradingResult.StopReason.PATTERN_BUDGET, grading.getStopReason());
+        assertEquals(200, grading.getPatternCount());
+        for (int f = 0; f < faults.size(); f++) {
+            assertEquals(expected.getFirstDetectingPattern(f), grading.getResult().getFirstDetectingPattern(f), faults.get(f).describe(circuit));
+        }
+        assertArrayEquals(new int[]{64, 128, 192, 200}, grading.getCurvePatternCounts());
+        assertEquals(expected.getCoverage(), grading.getCoverageAfterBlock(3));
+    }
+
+    @Test
+    void stopsOnPlateau() {
+        CompiledCircuit circuit = CircuitCompiler.compile(FaultSimulatorTest.redundantCircuit());
+        FaultList faults = FaultList.enumerate(circuit);
+
+        RandomPatternGrader grader = new RandomPatternGrader(FaultCollapser.collapse(faults, false), null);
+        grader.setPlateauBlocks(5);
+        RandomGradingResult grading = grader.grade(new RandomPatternGenerator(circuit.getInputCount(), 3));
+
+        // Every detectable fault falls to the first block, then five blocks detect nothing
+        assertEquals(RandomGradingResult.StopReason.PLATEAU, grading.getStopReason());
+        assertEquals(6 * 64, grading.getPatternCount());
+        assertEquals(faults.size(), grading.getResult().getFaultCount());
+        assertEquals(8, grading.getResult().getDetectedCount());
+        for (int b = 0; b < grading.getBlockCount(); b++) {
+            assertEquals(8.0 / 12, grading.getCoverageAfterBlock(b), 1e-12);
+        }
+    }
+
+    @Test
+    void stopsAtTargetCoverageAfterTheBlockReachingIt() {
+        CompiledCircuit circuit = CircuitCompiler.compile(FaultSimulatorTest.redundantCircuit());
+        FaultList faults = FaultList.enumerate(circuit);
+
+        RandomPatternGrader grader = new RandomPatternGrader(faults, null);
+        grader.setTargetCoverage(0.5);
+        RandomGradingResult grading = grader.grade(new RandomPatternGenerator(circuit.getInputCount(), 3));
+
+        assertEquals(RandomGradingResult.StopReason.TARGET_COVERAGE, grading.getStopReason());
+        assertEquals(64, grading.getPatternCount());
+        assertEquals(1, grading.getBlockCount());
+        // Detections are kept only up to the cut, even though a whole round was simulated
+        for (int f = 0; f < faults.size(); f++) {
+            assertTrue(grading.getResult().getFirstDetectingPattern(f) < 64);
+        }
+    }
+
+    @Test
+    void generatorsAreReproducibleFromTheirSeed() {
+        long[] first = new long[3];
+        long[] second = new long[3];
+        PatternGenerator a = new LfsrPatternGenerator(3, 42);
+        PatternGenerator b = new LfsrPatternGenerator(3, 42);
+        for (int block = 0; block < 4; block++) {
+            a.nextBlock(first);
+            b.nextBlock(second);
+            assertArrayEquals(first, second);
+            assertNotEquals(first[0], first[1], "Inputs should get unrelated streams.");
+        }
+        assertThrows(IllegalArgumentException.class, () -> new LfsrPatternGenerator(new long[]{1, 0}));
+    }
+
+    @Test
+    void rejectsGeneratorOfAnotherWidth() {
+        FaultList faults = FaultList.enumerate(CircuitCompiler.compile(FaultSimulatorTest.redundantCircuit()));
+        RandomPatternGrader grader = new RandomPatternGrader(faults, null);
+
+        assertThrows(IllegalArgumentException.class, () -> grader.grade(new RandomPatternGenerator(3, 1)));
+    }
+}
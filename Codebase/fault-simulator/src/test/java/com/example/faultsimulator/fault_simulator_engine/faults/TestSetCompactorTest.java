@@ -0,0 +1,122 @@
+package com.example.faultsimulator.fault_simulator_engine.faults;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.RandomPatternGenerator;
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+import com.example.faultsimulator.fault_simulator_model.gates.NANDGate;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestSetCompactorTest {
+
+    // Random circuit of two-input NAND gates over 12 inputs, every gate a primary output
+    private static CompiledCircuit randomNandCircuit(long seed) {
+        Random random = new Random(seed);
+        CircuitGraph graph = new CircuitGraph();
+        for (int i = 1; i <= 12; i++) {
+            graph.addPrimaryInput(new CircuitConnection(i));
+        }
+        for (int g = 13; g <= 60; g++) {
+            int a = 1 + random.nextInt(g - 1);
+            int b = 1 + random.nextInt(g - 1);
+            graph.addGate(new NANDGate(g, Arrays.asList(new CircuitConnection(a), new CircuitConnection(b)), new CircuitConnection(g)));
+            graph.addPrimaryOutput(new CircuitConnection(g));
+        }
+        return CircuitCompiler.compile(graph);
+    }
+
+    private static PatternSet randomPatterns(int inputCount, int patternCount, long seed) {
+        RandomPatternGenerator generator = new RandomPatternGenerator(inputCount, seed);
+        long[][] blocks = new long[PatternSet.blockCount(patternCount)][inputCount];
+        for (int b = 0; b < blocks.length; b++) {
+            generator.nextBlock(blocks[b]);
+            int valid = Math.min(64, patternCount - 64 * b);
+            for (int i = 0; i < inputCount && valid < 64; i++) {
+                blocks[b][i] &= (1L << valid) - 1;
+            }
+        }
+        return new PatternSet(inputCount, patternCount, blocks);
+    }
+
+    @Test
+    void keepsCoverageWithFewerPatterns() {
+        CompiledCircuit circuit = randomNandCircuit(3);
+        FaultList faults = FaultList.enumerate(circuit);
+        PatternSet patterns = randomPatterns(circuit.getInputCount(), 1000, 11);
+        FaultSimulationResult original = new FaultSimulator(faults).simulate(patterns);
+
+        CompactionResult compaction = new TestSetCompactor(faults, ForkJoinPool.commonPool()).compact(patterns);
+
+        assertEquals(1000, compaction.getOriginalPatternCount());
+        assertTrue(compaction.getReverseOrderPatternCount() < 1000);
+        assertTrue(compaction.getPatternCount() <= compaction.getReverseOrderPatternCount());
+        for (int f = 0; f < faults.size(); f++) {
+            assertEquals(original.isDetected(f), compaction.getResult().isDetected(f), faults.get(f).describe(circuit));
+        }
+        // The compacted set is the original patterns at the mapped indices, in order
+        int[] indices = compaction.getOriginalIndices();
+        for (int p = 0; p < indices.length; p++) {
+            assertTrue(p == 0 || indices[p - 1] < indices[p]);
+            for (int i = 0; i < circuit.getInputCount(); i++) {
+                assertEquals(patterns.get(indices[p], i), compaction.getPatterns().get(p, i));
+            }
+        }
+    }
+
+    @Test
+    void coverPicksFewestPatternsAndDropsRedundantPicks() {
+        CompiledCircuit circuit = CircuitCompiler.compile(FaultSimulatorTest.redundantCircuit());
+        FaultList faults = FaultList.enumerate(circuit);
+        PatternSet exhaustive = FaultSimulatorTest.exhaustive(2);
+        DetectionMatrix matrix = DetectionMatrix.simulate(faults, exhaustive, null);
+
+        int[] picks = TestSetCompactor.cover(matrix);
+
+        // out = a: a = 0 and a = 1 are both needed, and b = 1 with a = 0 for the AND input
+        // branch, so patterns 2 (a=0, b=1) and one of 1 or 3 (a=1) cover every fault
+        assertEquals(2, picks.length);
+        for (int f = 0; f < faults.size(); f++) {
+            boolean covered = false;
+            for (int p : picks) {
+                covered |= matrix.detects(p, f);
+            }
+            assertEquals(matrix.getDetectionCount(f) > 0, covered, faults.get(f).describe(circuit));
+        }
+    }
+
+    @Test
+    void transposesBitMatrices() {
+        Random random = new Random(5);
+        long[] tile = new long[64];
+        for (int i = 0; i < 64; i++) {
+            tile[i] = random.nextLong();
+        }
+        long[] transposed = tile.clone();
+        DetectionMatrix.transpose64(transposed);
+        for (int i = 0; i < 64; i++) {
+            for (int j = 0; j < 64; j++) {
+                assertEquals(tile[i] >>> j & 1, transposed[j] >>> i & 1);
+            }
+        }
+
+        // Non-dropping detections agree with the pattern-major view
+        CompiledCircuit circuit = randomNandCircuit(7);
+        FaultList faults = FaultList.enumerate(circuit);
+        DetectionMatrix matrix = DetectionMatrix.simulate(faults, randomPatterns(circuit.getInputCount(), 100, 2), ForkJoinPool.commonPool());
+        long[] rows = matrix.transpose();
+        int faultWords = (faults.size() + 63) / 64;
+        for (int p = 0; p < 100; p++) {
+            for (int f = 0; f < faults.size(); f++) {
+                assertEquals(matrix.detects(p, f), (rows[p * faultWords + f / 64] >>> (f % 64) & 1) != 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.faultsimulator.fault_simulator_parser;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.Netlist;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchParserTest {
+
+    private static final String C17 = "# c17\r\n"
+            + "# 5 inputs, 2 outputs\r\n"
+            + "\r\n"
+            + "INPUT(1)\r\n"
+            + "INPUT(2)\r\n"
+            + "input( 3 )\r\n"
+            + "INPUT(6)\r\n"
+            + "INPUT(7)\r\n"
+            + "OUTPUT(22)\r\n"
+            + "OUTPUT(23)   # primary output\r\n"
+            + "10 = NAND(1, 3)\r\n"
+            + "11 = NAND(3, 6)\r\n"
+            + "16 = nand(2,11)\r\n"
+            + "\t19 = NAND(11, 7)\r\n"
+            + "22 = NAND(10, 16)\r\n"
+            + "23 = NAND(16, 19)";
+
+    // Hands out one byte per read, so every token straddles a buffer boundary
+    private static ReadableByteChannel trickle(byte[] content) {
+        return new ReadableByteChannel() {
+            private int position;
+
+            @Override
+            public int read(ByteBuffer destination) {
+                if (position == content.length) {
+                    return -1;
+                }
+                destination.put(content[position++]);
+                return 1;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    void parsesC17WithCommentsAndCrlf() throws Exception {
+        Netlist netlist = BenchParser.parse(C17.getBytes());
+
+        assertEquals(5, netlist.getInputCount());
+        assertEquals(2, netlist.getOutputCount());
+        assertEquals(6, netlist.getGateCount());
+        assertEquals(11, netlist.getNetCount(), "Each net id should be interned once.");
+        assertEquals(3, netlist.getNetId(netlist.getPrimaryInput(2)));
+        assertEquals(12, netlist.getFaninCount());
+    }
+
+    private static boolean nand(boolean a, boolean b) {
+        return !(a && b);
+    }
+
+    @Test
+    void streamedCircuitEvaluatesLikeC17() throws Exception {
+        CompiledCircuit circuit = CircuitCompiler.compile(BenchParser.parse(trickle(C17.getBytes())));
+
+        assertEquals(4, circuit.getLevelCount(), "Inputs plus three gate levels.");
+        boolean[] values = new boolean[circuit.getNetCount()];
+        for (int v = 0; v < 32; v++) {
+            for (int i = 0; i < 5; i++) {
+                values[i] = (v >> i & 1) == 1;
+            }
+            circuit.evaluate(values);
+            boolean n10 = nand(values[0], values[2]);
+            boolean n11 = nand(values[2], values[3]);
+            boolean n16 = nand(values[1], n11);
+            boolean n19 = nand(n11, values[4]);
+            int[] outputs = circuit.getPrimaryOutputNets();
+            assertEquals(nand(n10, n16), values[outputs[0]], "Output 22 for vector " + v);
+            assertEquals(nand(n16, n19), values[outputs[1]], "Output 23 for vector " + v);
+        }
+    }
+
+    @Test
+    void reportsTheLineOfASyntaxError() {
+        String bench = "INPUT(1)\nINPUT(2)\n\n3 = AND(1 2)\nOUTPUT(3)\n";
+
+        BenchParseException error = assertThrows(BenchParseException.class, () -> BenchParser.parse(bench.getBytes()));
+        assertEquals(4, error.getLine());
+        assertTrue(error.getMessage().startsWith("Line 4:"));
+    }
+
+    @Test
+    void rejectsUnknownGatesAndNamedNets() {
+        BenchParseException gate = assertThrows(BenchParseException.class,
+                () -> BenchParser.parse("INPUT(1)\n2 = XNOR(1, 1)\n".getBytes()));
+        assertEquals(2, gate.getLine());
+        assertTrue(gate.getMessage().contains("XNOR"));
+
+        BenchParseException net = assertThrows(BenchParseException.class,
+                () -> BenchParser.parse("INPUT(G1)\n".getBytes()));
+        assertEquals(1, net.getLine());
+
+        BenchParseException truncated = assertThrows(BenchParseException.class,
+                () -> BenchParser.parse("INPUT(1)\n2 = NOT(".getBytes()));
+        assertEquals(2, truncated.getLine());
+    }
+}
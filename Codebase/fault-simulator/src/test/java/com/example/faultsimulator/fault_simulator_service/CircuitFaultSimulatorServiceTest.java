@@ -1,13 +1,27 @@
 package com.example.faultsimulator.fault_simulator_service;
 
+import com.example.faultsimulator.fault_simulator_engine.CompiledCircuit;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.atpg.TestGenerationResult;
+import com.example.faultsimulator.fault_simulator_engine.faults.CollapsedFaultList;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultDictionary;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+import com.example.faultsimulator.fault_simulator_engine.faults.RandomGradingResult;
 import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
 import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
 import com.example.faultsimulator.fault_simulator_model.gates.ANDGate;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockMultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,16 +43,17 @@ class CircuitFaultSimulatorServiceTest {
         MockMultipartFile mockFile = new MockMultipartFile("file", "circuit.bench", "text/plain", fileContent.getBytes());
 
         // Parse the file
-        service.parseFile(mockFile);
+        String key = service.parseFile(mockFile).getKey();
 
         // Verify circuit graph structure
-        CircuitGraph circuitGraph = service.getCircuitGraph();
+        CircuitGraph circuitGraph = service.getCircuitGraph(key);
         assertEquals(2, circuitGraph.getPrimaryInputs().size(), "There should be 2 primary inputs.");
         System.out.println("Inputs Size correct");
         assertEquals(1, circuitGraph.getPrimaryOutputs().size(), "There should be 1 primary output.");
         System.out.println("Outputs Size correct");
         assertEquals(1, circuitGraph.getNodes().size(), "There should be 1 gate.");
         System.out.println("Gates Size correct");
+        assertTrue(service.getCircuitGraph().getNodes().isEmpty(), "An upload should not change the graph built by hand.");
     }
 
 
@@ -70,6 +85,228 @@ class CircuitFaultSimulatorServiceTest {
         assertEquals(Arrays.asList(false), outputs, "The AND gate should output false for inputs true and false.");
     }
 
+    @Test
+    void evaluateCircuitBatch() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String fileContent = """
+        INPUT(1)
+        INPUT(2)
+        INPUT(3)
+        OUTPUT(5)
+        OUTPUT(6)
+        4 = NAND(1, 2)
+        5 = XOR(4, 3)
+        6 = NOR(1, 4, 3)
+        """;
+        String key = service.parseFile(new MockMultipartFile("file", "circuit.bench", "text/plain", fileContent.getBytes())).getKey();
+
+        // 70 patterns, so the second word is only partially used
+        boolean[][] patterns = new boolean[70][];
+        for (int p = 0; p < patterns.length; p++) {
+            patterns[p] = new boolean[]{(p & 1) != 0, (p & 2) != 0, (p & 4) != 0};
+        }
+        long[][] outputs = service.evaluateCircuitBatch(key, patterns);
+
+        assertEquals(2, outputs.length, "There should be one row per primary output.");
+        assertEquals(2, outputs[0].length, "70 patterns should need two words.");
+        for (int p = 0; p < patterns.length; p++) {
+            List<Boolean> expected = service.evaluateCircuit(key, Arrays.asList(patterns[p][0], patterns[p][1], patterns[p][2]));
+            for (int o = 0; o < 2; o++) {
+                assertEquals(expected.get(o), (outputs[o][p >>> 6] >>> (p & 63) & 1) != 0, "Pattern " + p + ", output " + o);
+            }
+        }
+        assertEquals(0, outputs[0][1] >>> 6, "Bits past the last pattern should be cleared.");
+    }
+
+    @Test
+    void simulateStream() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String fileContent = """
+        INPUT(1)
+        INPUT(2)
+        OUTPUT(3)
+        OUTPUT(4)
+        3 = AND(1, 2)
+        4 = NOT(1)
+        """;
+        String key = service.parseFile(new MockMultipartFile("file", "circuit.bench", "text/plain", fileContent.getBytes())).getKey();
+
+        // 130 vectors span three blocks; both input notations may be mixed
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int v = 0; v < 130; v++) {
+            boolean a = (v & 1) != 0;
+            boolean b = (v & 2) != 0;
+            input.append(v % 2 == 0 ? "[" + a + ", " + (b ? 1 : 0) + "]" : (a ? "1" : "0") + (b ? "1" : "0")).append("\r\n");
+            expected.append("[").append(a && b ? 1 : 0).append(",").append(a ? 0 : 1).append("]\n");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long vectors = service.simulateStream(key, new ByteArrayInputStream(input.toString().getBytes()), out, VectorStreamSimulator.Format.NDJSON);
+
+        assertEquals(130, vectors);
+        assertEquals(expected.toString(), out.toString());
+
+        out.reset();
+        vectors = service.simulateStream(key, new ByteArrayInputStream("11\n\n01\n12\n00\n".getBytes()), out, VectorStreamSimulator.Format.TEXT);
+        assertEquals(2, vectors, "Vectors before the malformed line should still be simulated.");
+        assertEquals("10\n01\n# error: Line 4: unexpected '2'.\n", out.toString());
+
+        // X inputs: AND(X, 0) is still 0, while NOT(X) is X
+        out.reset();
+        vectors = service.simulateStream(key, new ByteArrayInputStream("X0\n1x\n[null, true]\n11\n".getBytes()), out, VectorStreamSimulator.Format.TEXT);
+        assertEquals(4, vectors);
+        assertEquals("0X\nX0\nXX\n10\n", out.toString());
+        out.reset();
+        service.simulateStream(key, new ByteArrayInputStream("[\"X\", 1]\n".getBytes()), out, VectorStreamSimulator.Format.NDJSON);
+        assertEquals("[\"X\",\"X\"]\n", out.toString());
+        assertEquals(Arrays.asList(false, null), service.evaluateCircuit(key, Arrays.asList(null, false)));
+    }
+
+    @Test
+    void gradeRandomPatterns() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String fileContent = """
+        INPUT(1)
+        INPUT(2)
+        OUTPUT(3)
+        3 = NAND(1, 2)
+        """;
+        String key = service.parseFile(new MockMultipartFile("file", "circuit.bench", "text/plain", fileContent.getBytes())).getKey();
+
+        RandomGradingResult grading = service.gradeRandomPatterns(key, "lfsr", 1, 1.0, 0, 1 << 16);
+
+        // Every fault of a single NAND gate is detectable by one of four patterns
+        assertEquals(RandomGradingResult.StopReason.TARGET_COVERAGE, grading.getStopReason());
+        assertEquals(1.0, grading.getCoverage());
+        assertEquals(64, grading.getPatternCount());
+        assertThrows(IllegalArgumentException.class, () -> service.gradeRandomPatterns(key, "gaussian", 1, 1.0, 0, 64));
+    }
+
+    @Test
+    void generateTests() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String fileContent = """
+        INPUT(1)
+        INPUT(2)
+        OUTPUT(4)
+        3 = AND(1, 2)
+        4 = OR(1, 3)
+        """;
+        String key = service.parseFile(new MockMultipartFile("file", "circuit.bench", "text/plain", fileContent.getBytes())).getKey();
+        PatternSet initial = PatternSet.fromMatrix(2, new boolean[][]{{true, true}});
+
+        TestGenerationResult result = service.generateTests(key, initial, 100);
+
+        // The one pattern detects the faults stuck at 0 on the path from input 1; of the
+        // remaining faults, those on the AND gate's branch are redundant
+        assertEquals(12, result.getFaults().size());
+        assertEquals(4, result.getCount(TestGenerationResult.FaultStatus.REDUNDANT));
+        assertEquals(0, result.getCount(TestGenerationResult.FaultStatus.ABORTED));
+        assertTrue(result.getCount(TestGenerationResult.FaultStatus.PREVIOUSLY_DETECTED) > 0);
+        assertEquals(8.0 / 12, result.getFaultCoverage(), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> service.generateTests(key, null, -1));
+    }
+
+    @Test
+    void simulateTransitionFaults() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String fileContent = """
+        INPUT(1)
+        INPUT(2)
+        OUTPUT(3)
+        3 = AND(1, 2)
+        """;
+        String key = service.parseFile(new MockMultipartFile("file", "circuit.bench", "text/plain", fileContent.getBytes())).getKey();
+
+        // 01 -> 11 raises inputs 1 and 3; 11 -> 10 lowers 2 and 3
+        PatternSet launch = PatternSet.fromStrings(2, List.of("01", "11"));
+        PatternSet capture = PatternSet.fromStrings(2, List.of("11", "10"));
+        FaultSimulationResult result = service.simulateTransitionFaults(key, launch, capture);
+
+        CompiledCircuit circuit = result.getFaults().getCircuit();
+        List<String> detected = new ArrayList<>();
+        for (int f = 0; f < result.getFaultCount(); f++) {
+            if (result.isDetected(f)) {
+                detected.add(result.getFaults().get(f).describeTransition(circuit) + "@" + result.getFirstDetectingPattern(f));
+            }
+        }
+        Collections.sort(detected);
+        assertEquals(List.of("1 STR@0", "2 STF@1", "3 STF@1", "3 STR@0"), detected);
+    }
+
+    @Test
+    void diagnoseFromFaultDictionary() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String fileContent = """
+        INPUT(1)
+        INPUT(2)
+        OUTPUT(3)
+        OUTPUT(4)
+        3 = AND(1, 2)
+        4 = OR(1, 2)
+        """;
+        String key = service.parseFile(new MockMultipartFile("file", "circuit.bench", "text/plain", fileContent.getBytes())).getKey();
+        String unknown = CircuitRegistry.contentHash(new byte[0]);
+        assertThrows(NoSuchElementException.class, () -> service.diagnose(key, unknown, 4, new int[]{0}, new int[]{3}, 10));
+
+        String id = service.buildFaultDictionary(key, PatternSet.fromStrings(2, List.of("00", "01", "10", "11")));
+        FaultDictionary dictionary = service.getFaultDictionary(key, id);
+
+        // Only output 3 failing on 11 is net 3 stuck at 0, or either input of the AND gate
+        List<FaultDictionary.Candidate> candidates = service.diagnose(key, id, 4, new int[]{3}, new int[]{3}, 10);
+        assertTrue(candidates.get(0).exact());
+        assertFalse(candidates.size() > 1 && candidates.get(1).exact());
+        CollapsedFaultList collapsed = service.getCircuit(key).getCollapsedFaults(false);
+        List<String> explained = new ArrayList<>();
+        for (int f : collapsed.getClass(candidates.get(0).fault())) {
+            explained.add(collapsed.getFullFaults().get(f).describe(dictionary.getFaults().getCircuit()));
+        }
+        Collections.sort(explained);
+        assertEquals(List.of("1->3 SA0", "2->3 SA0", "3 SA0"), explained);
+        assertThrows(IllegalArgumentException.class, () -> service.diagnose(key, id, 4, new int[]{0}, new int[]{7}, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.diagnose(key, id, 3, new int[]{0}, new int[]{3}, 10));
+    }
+
+    @Test
+    void keepsAFaultDictionaryPerPatternSet() throws Exception {
+        Path directory = Files.createTempDirectory("snapshots");
+        directory.toFile().deleteOnExit();
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService(new CircuitRegistry(),
+                new SnapshotStore(directory.toString(), true));
+        String fileContent = """
+        INPUT(1)
+        INPUT(2)
+        OUTPUT(3)
+        OUTPUT(4)
+        3 = AND(1, 2)
+        4 = OR(1, 2)
+        """;
+        String key = service.parseFile(new MockMultipartFile("file", "circuit.bench", "text/plain", fileContent.getBytes())).getKey();
+
+        String exhaustive = service.buildFaultDictionary(key, PatternSet.fromStrings(2, List.of("00", "01", "10", "11")));
+        String reversed = service.buildFaultDictionary(key, PatternSet.fromStrings(2, List.of("11", "10", "01")));
+        assertNotEquals(exhaustive, reversed);
+        assertEquals(exhaustive, service.buildFaultDictionary(key, PatternSet.fromStrings(2, List.of("00", "01", "10", "11"))));
+
+        // Output 3 failing on the first pattern only means 11 in one set and 00 in the other
+        List<FaultDictionary.Candidate> fromReversed = service.diagnose(key, reversed, 3, new int[]{0}, new int[]{3}, 10);
+        assertTrue(fromReversed.get(0).exact());
+        List<FaultDictionary.Candidate> fromExhaustive = service.diagnose(key, exhaustive, 4, new int[]{0}, new int[]{3}, 10);
+        assertFalse(fromExhaustive.get(0).exact());
+        assertThrows(IllegalArgumentException.class, () -> service.diagnose(key, reversed, 4, new int[]{0}, new int[]{3}, 10));
+
+        // Both dictionaries are reloaded after a restart
+        CircuitFaultSimulatorService restarted = new CircuitFaultSimulatorService(new CircuitRegistry(),
+                new SnapshotStore(directory.toString(), true));
+        restarted.getCircuit(key);
+        assertEquals(4, restarted.getFaultDictionary(key, exhaustive).getPatternCount());
+        assertEquals(3, restarted.getFaultDictionary(key, reversed).getPatternCount());
+        assertThrows(NoSuchElementException.class, () -> restarted.getFaultDictionary(key, "../" + key));
+        try (var files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().deleteOnExit());
+        }
+    }
+
     @Test
     void getCircuitGraph() {
 //        TODO
@@ -0,0 +1,136 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitCompiler;
+import com.example.faultsimulator.fault_simulator_model.CircuitConnection;
+import com.example.faultsimulator.fault_simulator_model.CircuitGraph;
+import com.example.faultsimulator.fault_simulator_model.gates.NOTGate;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitRegistryTest {
+
+    // Builds an inverter whose net ids come from the content, counting the calls
+    private static CircuitRegistry.CircuitParser countingParser(AtomicInteger parses) {
+        return content -> {
+            parses.incrementAndGet();
+            int id = content.length;
+            CircuitGraph graph = new CircuitGraph();
+            graph.addPrimaryInput(new CircuitConnection(id));
+            graph.addGate(new NOTGate(id + 1, List.of(new CircuitConnection(id)), new CircuitConnection(id + 1)));
+            graph.addPrimaryOutput(new CircuitConnection(id + 1));
+            return CircuitCompiler.compile(graph);
+        };
+    }
+
+    @Test
+    void identicalContentSkipsParsing() throws Exception {
+        CircuitRegistry registry = new CircuitRegistry();
+        AtomicInteger parses = new AtomicInteger();
+
+        LoadedCircuit first = registry.load("INPUT(1)".getBytes(), countingParser(parses));
+        LoadedCircuit second = registry.load("INPUT(1)".getBytes(), countingParser(parses));
+
+        assertSame(first, second);
+        assertEquals(1, parses.get());
+        assertEquals(1, registry.getHitCount());
+        assertEquals(1, registry.getMissCount());
+        assertSame(first, registry.get(first.getKey()));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedCircuit() throws Exception {
+        CircuitRegistry registry = new CircuitRegistry(2);
+        AtomicInteger parses = new AtomicInteger();
+
+        LoadedCircuit a = registry.load("a".getBytes(), countingParser(parses));
+        LoadedCircuit b = registry.load("bb".getBytes(), countingParser(parses));
+        registry.get(a.getKey());
+        LoadedCircuit c = registry.load("ccc".getBytes(), countingParser(parses));
+
+        assertEquals(2, registry.size());
+        assertSame(a, registry.get(a.getKey()));
+        assertNull(registry.get(b.getKey()), "b was used least recently and should be evicted.");
+        assertSame(c, registry.get(c.getKey()));
+    }
+
+    @Test
+    void uploadsDoNotShareAGraph() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String inverter = """
+        INPUT(1)
+        OUTPUT(2)
+        2 = NOT(1)
+        """;
+        String buffer = """
+        INPUT(1)
+        OUTPUT(2)
+        2 = BUFF(1)
+        """;
+
+        LoadedCircuit first = service.parseFile(new MockMultipartFile("file", "a.bench", "text/plain", inverter.getBytes()));
+        LoadedCircuit second = service.parseFile(new MockMultipartFile("file", "b.bench", "text/plain", buffer.getBytes()));
+
+        assertNotEquals(first.getKey(), second.getKey());
+        assertEquals(1, second.getGraph().getNodes().size(), "Each upload should get its own graph.");
+        assertEquals(List.of(false), service.evaluateCircuit(first.getKey(), List.of(true)));
+        assertEquals(List.of(true), service.evaluateCircuit(second.getKey(), List.of(true)));
+    }
+
+    @Test
+    void restartedServiceReloadsFromSnapshots() throws Exception {
+        Path directory = Files.createTempDirectory("snapshots");
+        directory.toFile().deleteOnExit();
+        String inverter = """
+        INPUT(1)
+        OUTPUT(2)
+        2 = NOT(1)
+        """;
+        CircuitFaultSimulatorService first = new CircuitFaultSimulatorService(new CircuitRegistry(), new SnapshotStore(directory.toString(), true));
+        String key = first.parseFile(new MockMultipartFile("file", "a.bench", "text/plain", inverter.getBytes())).getKey();
+
+        CircuitFaultSimulatorService restarted = new CircuitFaultSimulatorService(new CircuitRegistry(), new SnapshotStore(directory.toString(), true));
+        LoadedCircuit restored = restarted.getCircuit(key);
+
+        assertEquals(List.of(false), restarted.evaluateCircuit(key, List.of(true)));
+        assertEquals(4, restored.getFaults().size());
+        try (var files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().deleteOnExit());
+        }
+    }
+
+    @Test
+    void keysThatAreNotContentHashesNeverReachTheFileSystem() throws Exception {
+        Path parent = Files.createTempDirectory("snapshots");
+        Path directory = parent.resolve("store");
+        String inverter = """
+        INPUT(1)
+        OUTPUT(2)
+        2 = NOT(1)
+        """;
+        SnapshotStore store = new SnapshotStore(directory.toString(), true);
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService(new CircuitRegistry(), store);
+        String key = service.parseFile(new MockMultipartFile("file", "a.bench", "text/plain", inverter.getBytes())).getKey();
+        // A valid snapshot planted outside the store, where a traversal key would point
+        Files.copy(store.snapshotFile(key), parent.resolve("planted.fsnap"));
+
+        CircuitFaultSimulatorService restarted = new CircuitFaultSimulatorService(new CircuitRegistry(), store);
+        assertNull(store.find("../planted"));
+        assertThrows(NoSuchElementException.class, () -> restarted.getCircuit("../planted"));
+        assertThrows(NoSuchElementException.class, () -> restarted.getCircuit(null));
+        assertNotNull(restarted.getCircuit(key));
+        for (Path dir : List.of(directory, parent)) {
+            try (var files = Files.list(dir)) {
+                files.forEach(file -> file.toFile().deleteOnExit());
+            }
+            dir.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.CircuitSnapshot;
+import com.example.faultsimulator.fault_simulator_engine.PatternSet;
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistributedFaultSimulatorTest {
+
+    // Enough reconvergent logic for several chunks of collapsed faults
+    private static String bench() {
+        StringBuilder bench = new StringBuilder();
+        for (int i = 1; i <= 16; i++) {
+            bench.append("INPUT(").append(i).append(")\n");
+        }
+        for (int g = 560; g < 600; g++) {
+            bench.append("OUTPUT(").append(17 + g).append(")\n");
+        }
+        String[] ops = {"NAND", "NOR", "XOR", "AND", "OR"};
+        Random random = new Random(7);
+        for (int g = 0; g < 600; g++) {
+            int net = 17 + g;
+            int a = net - 1 - random.nextInt(Math.min(net - 1, 24));
+            int b = 1 + random.nextInt(net - 1);
+            if (a == b) {
+                b = a == 1 ? 2 : a - 1;
+            }
+            bench.append(net).append(" = ").append(ops[g % ops.length])
+                    .append('(').append(a).append(", ").append(b).append(")\n");
+        }
+        return bench.toString();
+    }
+
+    // A worker with its own service, reached only through the byte forms, as over HTTP
+    private static final class InProcessWorker implements FaultSimulationWorker {
+        private final String name;
+        private final CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        private final int failAfter;
+        final AtomicInteger snapshots = new AtomicInteger();
+        final AtomicInteger chunks = new AtomicInteger();
+
+        InProcessWorker(String name, int failAfter) {
+            this.name = name;
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean hasCircuit(String circuitKey) {
+            try {
+                service.getShippedCircuit(circuitKey);
+                return true;
+            } catch (NoSuchElementException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void loadCircuit(String circuitKey, byte[] snapshot) {
+            snapshots.incrementAndGet();
+            try {
+                service.registerSnapshot(circuitKey, snapshot);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public byte[] simulateFaults(String circuitKey, boolean dropDominated, int from, int to, byte[] patterns) {
+            if (chunks.incrementAndGet() > failAfter) {
+                throw new IllegalStateException(name + " is down.");
+            }
+            return service.simulateShippedFaultRange(circuitKey, dropDominated, from, to, PatternSet.fromBytes(patterns)).toBytes();
+        }
+    }
+
+    private static PatternSet randomPatterns(int count) {
+        Random random = new Random(11);
+        boolean[][] patterns = new boolean[count][16];
+        for (boolean[] pattern : patterns) {
+            for (int i = 0; i < pattern.length; i++) {
+                pattern[i] = random.nextBoolean();
+            }
+        }
+        return PatternSet.fromMatrix(16, patterns);
+    }
+
+    @Test
+    void mergedResultMatchesLocalRunAndSurvivesWorkerFailure() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String key = service.parseFile(new MockMultipartFile("file", "circuit.bench", "text/plain", bench().getBytes())).getKey();
+        PatternSet patterns = randomPatterns(100);
+        InProcessWorker steady = new InProcessWorker("steady", Integer.MAX_VALUE);
+        InProcessWorker failing = new InProcessWorker("failing", 1);
+        DistributedFaultSimulator distributed = new DistributedFaultSimulator(service, List.of(steady, failing), 4);
+        assertTrue(distributed.isEnabled());
+
+        for (boolean dropDominated : new boolean[]{false, true}) {
+            FaultSimulationResult expected = service.simulateFaults(key, patterns, dropDominated, null);
+            List<Integer> progress = new ArrayList<>();
+            FaultSimulationResult result = distributed.simulateFaults(key, patterns, dropDominated,
+                    (chunksDone, chunkCount, detected, faultCount) -> progress.add(chunksDone));
+            assertTrue(progress.size() > 2, "The fault list should be split into several chunks.");
+            assertEquals(progress.size(), (int) progress.get(progress.size() - 1));
+            assertEquals(expected.getFaultCount(), result.getFaultCount());
+            for (int f = 0; f < expected.getFaultCount(); f++) {
+                assertEquals(expected.getFirstDetectingPattern(f), result.getFirstDetectingPattern(f), "Fault " + f);
+            }
+        }
+        assertEquals(1, steady.snapshots.get(), "The snapshot should be shipped once per worker.");
+
+        // With its only worker gone after one chunk, the rest of the run falls back to this instance
+        InProcessWorker lone = new InProcessWorker("lone", 1);
+        FaultSimulationResult expected = service.simulateFaults(key, patterns, false, null);
+        FaultSimulationResult result = new DistributedFaultSimulator(service, List.of(lone), 4)
+                .simulateFaults(key, patterns, false, null);
+        assertEquals(2, lone.chunks.get());
+        for (int f = 0; f < expected.getFaultCount(); f++) {
+            assertEquals(expected.getFirstDetectingPattern(f), result.getFirstDetectingPattern(f), "Fault " + f);
+        }
+    }
+
+    @Test
+    void runsLocallyWithoutWorkersAndStopsWhenTheListenerThrows() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String key = service.parseFile(new MockMultipartFile("file", "circuit.bench", "text/plain", bench().getBytes())).getKey();
+        PatternSet patterns = randomPatterns(40);
+        FaultSimulationResult expected = service.simulateFaults(key, patterns, false, null);
+
+        DistributedFaultSimulator local = new DistributedFaultSimulator(service, List.of(), 4);
+        assertFalse(local.isEnabled());
+        FaultSimulationResult result = local.simulateFaults(key, patterns, false, null);
+        assertEquals(expected.getDetectedCount(), result.getDetectedCount());
+
+        DistributedFaultSimulator distributed = new DistributedFaultSimulator(service,
+                List.of(new InProcessWorker("worker", Integer.MAX_VALUE)), 4);
+        assertThrows(CancellationException.class, () -> distributed.simulateFaults(key, patterns, false,
+                (chunksDone, chunkCount, detected, faultCount) -> {
+                    throw new CancellationException("cancelled");
+                }));
+    }
+
+    @Test
+    void shippedSnapshotIsNotServedToAnUpload() throws Exception {
+        byte[] inverter = """
+        INPUT(1)
+        OUTPUT(2)
+        2 = NOT(1)
+        """.getBytes();
+        CircuitFaultSimulatorService sender = new CircuitFaultSimulatorService();
+        LoadedCircuit other = sender.parseFile(new MockMultipartFile("file", "circuit.bench", "text/plain", bench().getBytes()));
+        byte[] snapshot = new CircuitSnapshot(other.getCompiled(), other.getCollapsedFaults(false),
+                other.getCollapsedFaults(true)).toBytes();
+
+        Path directory = Files.createTempDirectory("snapshots");
+        directory.toFile().deleteOnExit();
+        CircuitFaultSimulatorService worker = new CircuitFaultSimulatorService(new CircuitRegistry(),
+                new SnapshotStore(directory.toString(), true));
+        String key = CircuitRegistry.contentHash(inverter);
+        worker.registerSnapshot(key, snapshot);
+
+        assertEquals(other.getCompiled().getNetCount(), worker.getShippedCircuit(key).getCompiled().getNetCount());
+        assertThrows(NoSuchElementException.class, () -> worker.getCircuit(key));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count(), "Shipped circuits should not be persisted.");
+        }
+        LoadedCircuit uploaded = worker.parseFile(new MockMultipartFile("file", "a.bench", "text/plain", inverter));
+        assertEquals(key, uploaded.getKey());
+        assertEquals(2, uploaded.getCompiled().getNetCount());
+        assertEquals(List.of(false), worker.evaluateCircuit(key, List.of(true)));
+        try (var files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().deleteOnExit());
+        }
+    }
+}
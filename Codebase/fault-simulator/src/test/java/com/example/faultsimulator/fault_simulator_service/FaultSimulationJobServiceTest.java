@@ -0,0 +1,141 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+import com.example.faultsimulator.fault_simulator_repository.FaultSimulationJob;
+import com.example.faultsimulator.fault_simulator_repository.FaultSimulationJobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FaultSimulationJobServiceTest {
+
+    private static final String C17 = """
+            INPUT(1)
+            INPUT(2)
+            INPUT(3)
+            INPUT(6)
+            INPUT(7)
+            OUTPUT(22)
+            OUTPUT(23)
+            10 = NAND(1, 3)
+            11 = NAND(3, 6)
+            16 = NAND(2, 11)
+            19 = NAND(11, 7)
+            22 = NAND(10, 16)
+            23 = NAND(16, 19)
+            """;
+
+    // Repository keeping entities in a map, implementing the methods the service uses
+    private static FaultSimulationJobRepository inMemoryRepository(Map<Long, FaultSimulationJob> jobs) throws Exception {
+        Field idField = FaultSimulationJob.class.getDeclaredField("id");
+        idField.setAccessible(true);
+        AtomicLong ids = new AtomicLong();
+        return (FaultSimulationJobRepository) Proxy.newProxyInstance(FaultSimulationJobRepository.class.getClassLoader(),
+                new Class<?>[]{FaultSimulationJobRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "save" -> {
+                        FaultSimulationJob job = (FaultSimulationJob) args[0];
+                        if (job.getId() == null) {
+                            idField.set(job, ids.incrementAndGet());
+                        }
+                        jobs.put(job.getId(), job);
+                        yield job;
+                    }
+                    case "findById" -> Optional.ofNullable(jobs.get((Long) args[0]));
+                    case "delete" -> jobs.remove(((FaultSimulationJob) args[0]).getId());
+                    case "findByStatusInOrderByIdAsc" -> jobs.values().stream()
+                            .filter(job -> ((Collection<?>) args[0]).contains(job.getStatus())).toList();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static FaultSimulationJobStatus await(FaultSimulationJobService jobs, long id) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        FaultSimulationJobStatus status = jobs.getStatus(id);
+        while (!status.status().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            status = jobs.getStatus(id);
+        }
+        return status;
+    }
+
+    @Test
+    void runsPatternJobWithCompactionAndPersistsItsResult() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String key = service.parseFile(new MockMultipartFile("file", "c17.bench", "text/plain", C17.getBytes())).getKey();
+        Map<Long, FaultSimulationJob> stored = new ConcurrentHashMap<>();
+        FaultSimulationJobService jobs = new FaultSimulationJobService(inMemoryRepository(stored), service, 1, 4);
+        boolean[][] patterns = new boolean[32][5];
+        for (int p = 0; p < patterns.length; p++) {
+            for (int i = 0; i < 5; i++) {
+                patterns[p][i] = (p >>> i & 1) != 0;
+            }
+        }
+
+        FaultSimulationJobStatus submitted = jobs.submitPatterns(key, patterns, false, true, 0);
+        FaultSimulationJobStatus finished = await(jobs, submitted.id());
+
+        assertEquals(FaultSimulationJob.Status.COMPLETED, finished.status());
+        assertEquals(FaultSimulationJob.Status.COMPLETED, stored.get(submitted.id()).getStatus());
+        assertEquals(32, finished.totalPatterns());
+        FaultSimulationResult expected = service.simulateFaults(key, patterns, false);
+        FaultSimulationResult result = jobs.getResult(submitted.id());
+        assertEquals(expected.getFaultCount(), result.getFaultCount());
+        for (int f = 0; f < expected.getFaultCount(); f++) {
+            assertEquals(expected.getFirstDetectingPattern(f), result.getFirstDetectingPattern(f));
+        }
+        assertEquals(expected.getCoverage(), finished.coverage());
+
+        // The compacted subset detects the same faults
+        int[] compacted = jobs.getCompactedPatterns(submitted.id());
+        assertEquals(Integer.valueOf(compacted.length), finished.compactedPatterns());
+        assertTrue(compacted.length < patterns.length);
+        boolean[][] subset = new boolean[compacted.length][];
+        for (int p = 0; p < compacted.length; p++) {
+            subset[p] = patterns[compacted[p]];
+        }
+        assertEquals(expected.getDetectedCount(), service.simulateFaults(key, subset, false).getDetectedCount());
+        assertThrows(IllegalStateException.class, () -> jobs.cancel(submitted.id()));
+        jobs.shutdown();
+    }
+
+    @Test
+    void runsRandomPatternJob() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String key = service.parseFile(new MockMultipartFile("file", "c17.bench", "text/plain", C17.getBytes())).getKey();
+        FaultSimulationJobService jobs = new FaultSimulationJobService(inMemoryRepository(new ConcurrentHashMap<>()), service, 1, 4);
+
+        FaultSimulationJobStatus finished = await(jobs, jobs.submitRandomPatterns(key, "prng", 5, 1.0, 0, 4096, 0).id());
+
+        // c17 has no redundant faults, so random patterns reach full coverage quickly
+        assertEquals(FaultSimulationJob.Status.COMPLETED, finished.status());
+        assertEquals("TARGET_COVERAGE", finished.stopReason());
+        assertEquals(1.0, finished.coverage());
+        assertTrue(finished.patternsDone() < 4096);
+        jobs.shutdown();
+    }
+
+    @Test
+    void rejectsInvalidSubmissions() throws Exception {
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService();
+        String key = service.parseFile(new MockMultipartFile("file", "c17.bench", "text/plain", C17.getBytes())).getKey();
+        Map<Long, FaultSimulationJob> stored = new ConcurrentHashMap<>();
+        FaultSimulationJobService jobs = new FaultSimulationJobService(inMemoryRepository(stored), service, 1, 4);
+
+        assertThrows(NoSuchElementException.class, () -> jobs.submitPatterns("missing", new boolean[1][5], false, false, 0));
+        assertThrows(IllegalArgumentException.class, () -> jobs.submitPatterns(key, new boolean[1][4], false, false, 0));
+        assertThrows(IllegalArgumentException.class, () -> jobs.submitRandomPatterns(key, "lfsr", 1, 1.5, 0, 64, 0));
+        assertThrows(NoSuchElementException.class, () -> jobs.getStatus(42));
+        assertTrue(stored.isEmpty(), "Rejected submissions should not be stored.");
+        jobs.shutdown();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriorityJobExecutorTest {
+
+    // Occupies the only worker until released
+    private static CountDownLatch block(PriorityJobExecutor executor) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(0, 0, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    @Test
+    void runsHigherPriorityFirstThenInSubmissionOrder() throws Exception {
+        PriorityJobExecutor executor = new PriorityJobExecutor(1, 8, "test-job-");
+        CountDownLatch release = block(executor);
+        List<Long> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        long[][] jobs = {{1, 0}, {2, 5}, {3, 0}, {4, 5}};
+        for (long[] job : jobs) {
+            executor.submit(job[0], (int) job[1], () -> {
+                order.add(job[0]);
+                done.countDown();
+            });
+        }
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(2L, 4L, 1L, 3L), order);
+        executor.shutdown();
+    }
+
+    @Test
+    void rejectsJobsBeyondTheQueueCapacity() throws Exception {
+        PriorityJobExecutor executor = new PriorityJobExecutor(1, 2, "test-job-");
+        CountDownLatch release = block(executor);
+
+        executor.submit(1, 0, () -> { });
+        executor.submit(2, 0, () -> { });
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(3, 0, () -> { }));
+
+        // Removing a waiting job frees its place
+        assertTrue(executor.remove(1));
+        assertFalse(executor.remove(1));
+        executor.submit(3, 0, () -> { });
+        assertEquals(2, executor.getQueuedCount());
+        release.countDown();
+        executor.shutdown();
+    }
+}
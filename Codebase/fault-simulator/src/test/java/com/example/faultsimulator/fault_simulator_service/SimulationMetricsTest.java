@@ -0,0 +1,74 @@
+package com.example.faultsimulator.fault_simulator_service;
+
+import com.example.faultsimulator.fault_simulator_engine.faults.FaultSimulationResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationMetricsTest {
+
+    private static final String CIRCUIT = """
+            INPUT(1)
+            INPUT(2)
+            OUTPUT(4)
+            3 = AND(1, 2)
+            4 = OR(1, 3)
+            """;
+
+    private static MockMultipartFile bench(String content) {
+        return new MockMultipartFile("file", "circuit.bench", "text/plain", content.getBytes());
+    }
+
+    @Test
+    void recordsPhasesAndWork() throws Exception {
+        MeterRegistry meters = new SimpleMeterRegistry();
+        CircuitRegistry circuits = new CircuitRegistry();
+        // Unoptimized, since optimization reduces the circuit to a wire (1 OR (1 AND 2) is 1)
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService(circuits, new SnapshotStore(),
+                new SimulationMetrics(meters, circuits), false);
+
+        String key = service.parseFile(bench(CIRCUIT)).getKey();
+        boolean[][] patterns = {{false, false}, {true, false}, {false, true}, {true, true}};
+        service.evaluateCircuitBatch(key, patterns);
+        FaultSimulationResult result = service.simulateFaults(key, patterns, false);
+
+        assertEquals(1, meters.find("faultsimulator.phase").tag("phase", "parse").timer().count());
+        assertEquals(1, meters.find("faultsimulator.phase").tag("phase", "compile").timer().count());
+        assertEquals(1, meters.find("faultsimulator.phase").tag("phase", "evaluate").timer().count());
+        assertEquals(1, meters.find("faultsimulator.phase").tag("phase", "fault_simulate").timer().count());
+        assertEquals(4.0, meters.find("faultsimulator.patterns").tag("kind", "evaluate").counter().count());
+        assertEquals(2.0, meters.find("faultsimulator.gate.evaluations").tag("kind", "evaluate").counter().count(),
+                "One block of two gates.");
+        assertTrue(meters.find("faultsimulator.gate.evaluations").tag("kind", "fault_simulate").counter().count() > 0);
+
+        // Only the collapsed representatives are simulated, so count their detections
+        int representatives = service.getCircuit(key).getCollapsedFaults(false).getRepresentatives().size();
+        double detected = meters.find("faultsimulator.faults.detected").counter().count();
+        assertTrue(detected > 0 && detected <= representatives);
+        assertTrue(result.getDetectedCount() >= detected);
+        assertEquals(0.0, meters.find("faultsimulator.faults.remaining").gauge().value(),
+                "Nothing remains once the simulation is over.");
+    }
+
+    @Test
+    void tracksTheRegistry() throws Exception {
+        MeterRegistry meters = new SimpleMeterRegistry();
+        CircuitRegistry circuits = new CircuitRegistry(1);
+        CircuitFaultSimulatorService service = new CircuitFaultSimulatorService(circuits, new SnapshotStore(),
+                new SimulationMetrics(meters, circuits));
+
+        String first = service.parseFile(bench(CIRCUIT)).getKey();
+        service.parseFile(bench(CIRCUIT));
+        assertEquals(0.5, meters.find("faultsimulator.registry.hit.ratio").gauge().value());
+        double footprint = meters.find("faultsimulator.circuit.memory").tag("circuit", first).gauge().value();
+        assertTrue(footprint > 0);
+
+        String second = service.parseFile(bench(CIRCUIT + "# another file\n")).getKey();
+        assertNull(meters.find("faultsimulator.circuit.memory").tag("circuit", first).gauge(),
+                "The gauge of an evicted circuit should be removed.");
+        assertNotNull(meters.find("faultsimulator.circuit.memory").tag("circuit", second).gauge());
+    }
+}